@@ -21,6 +21,7 @@ import hk.hku.cecid.piazza.commons.security.KeyStoreManager;
 import hk.hku.cecid.piazza.commons.spa.Plugin;
 import hk.hku.cecid.piazza.commons.spa.PluginException;
 import hk.hku.cecid.piazza.commons.spa.PluginHandler;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 
 import javax.activation.CommandMap;
 import javax.activation.MailcapCommandMap;
@@ -36,6 +37,10 @@ public class AS2Processor implements PluginHandler {
 
     private static ModuleGroup moduleGroup;
     
+    public static final String ACTIVE_MODULE_INCOMING_MESSAGE = "as2.core.incoming.message";
+    
+    public static final String ACTIVE_MODULE_OUTGOING_MESSAGE = "as2.core.outgoing.message";
+    
     public static SystemModule core;
     
     private static final String COMPONENT_KEYSTORE_MANAGER = "keystore-manager";
@@ -116,7 +121,7 @@ public class AS2Processor implements PluginHandler {
     private static void recover() {
         try {
             AS2DAOHandler daoHandler = new AS2DAOHandler(core.dao);
-            int rs = daoHandler.createMessageDAO().recoverProcessingMessages();
+            int rs = daoHandler.createMessageDAO().recoverProcessingMessages(ClusterNode.getId());
             core.log.info("Total number of messages recovered: "+rs);
         }
         catch (Exception e) {
@@ -143,6 +148,19 @@ public class AS2Processor implements PluginHandler {
         }
     }
     
+    /**
+     * Wakes up the given active module of AS2 so that it collects the new 
+     * messages without waiting for its execution interval. It does nothing 
+     * if the AS2 module group has not been initialized.
+     * 
+     * @param moduleId the ID of the active module.
+     */
+    public static void wakeUpActiveModule(String moduleId) {
+        if (moduleGroup != null) {
+            moduleGroup.wakeUpModule(moduleId);
+        }
+    }
+    
     public static IncomingMessageProcessor getIncomingMessageProcessor() {
         IncomingMessageProcessor p = (IncomingMessageProcessor) getSystemModule().getComponent(COMPONENT_INCOMING_MSG_PROCESSOR);
         if (p==null) {
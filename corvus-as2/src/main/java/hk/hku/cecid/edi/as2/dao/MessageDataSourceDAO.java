@@ -12,9 +12,11 @@ package hk.hku.cecid.edi.as2.dao;
 import hk.hku.cecid.piazza.commons.dao.DVO;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.List;
@@ -74,6 +76,34 @@ public class MessageDataSourceDAO extends DataSourceDAO implements MessageDAO {
 		return super.find("get_all_before_time",param);
 	}
 
+    /**
+     * Finds the keys and time stamps of at most the given number of messages
+     * which are older than the cutoff time, in the order of time stamp and 
+     * key, so that a large table can be purged in chunks.
+     * 
+     * @param cutoff the messages before this time are returned.
+     * @param after the last message of the previous chunk, or null for the 
+     *            first chunk. Only the messages after it are returned.
+     * @param numberOfMessage the maximum number of messages to be returned.
+     * @return a List of the messages found, with only the message ID, 
+     *         message box and time stamp.
+     * @throws DAOException if errors found when retrieving data from the data
+     *             source.
+     */
+    public List findMessagesBeforeTime(Date cutoff, MessageDVO after,
+            int numberOfMessage) throws DAOException {
+        Timestamp time = new Timestamp(cutoff.getTime());
+        if (after == null) {
+            return super.find("find_message_keys_before_time", new Object[] {
+                    time, new Integer(numberOfMessage) });
+        }
+        Timestamp afterTime = new Timestamp(after.getTimeStamp().getTime());
+        return super.find("find_message_keys_before_time_after", new Object[] {
+                time, afterTime, afterTime, after.getMessageId(),
+                after.getMessageId(), after.getMessageBox(),
+                new Integer(numberOfMessage) });
+    }
+
     public int findNumberOfMessagesByHistory(MessageDVO data) 
             throws DAOException {
         try {
@@ -95,9 +125,81 @@ public class MessageDataSourceDAO extends DataSourceDAO implements MessageDAO {
         }
     }
 
-    public int recoverProcessingMessages() 
+    /**
+     * Recovers the processing messages owned by the given node, or by no 
+     * node, which were being processed when the node was shut down. They are 
+     * marked as delivery failure as the partner may have received them. The 
+     * messages of the other nodes are left to their owner, or released by 
+     * {@link #releaseExpiredMessages(Date)} once their lease has expired.
+     * 
+     * @param ownerId the identity of the node.
+     * @return the number of messages recovered.
+     * @throws DAOException if errors found when updating the data source.
+     */
+    public int recoverProcessingMessages(String ownerId) 
             throws DAOException {
-        return super.update("recover_pr_msg", null);
+        return super.update("recover_pr_msg", new Object[] {ownerId});
+    }
+
+    /**
+     * Releases the processing messages whose lease is earlier than the 
+     * <code>currentTime</code>, i.e. the owner node has failed. The outgoing 
+     * messages are put back to pending so that they can be re-sent by any 
+     * node while the others are marked as delivery failure.
+     * 
+     * @param currentTime the current time.
+     * @return the number of messages released.
+     * @throws DAOException if errors found when updating the data source.
+     */
+    public int releaseExpiredMessages(Date currentTime) 
+            throws DAOException {
+        Object[] params = new Object[] {new Timestamp(currentTime == null? 
+                System.currentTimeMillis() : currentTime.getTime())};
+        return super.update("release_expired_pr_out_msg", params)
+                + super.update("release_expired_pr_msg", params);
+    }
+
+    /**
+     * Renews the leases of the processing messages owned by the given node
+     * which are going to expire.
+     * 
+     * @param ownerId the identity of the node.
+     * @return the number of leases renewed.
+     * @throws DAOException if errors found when updating the data source.
+     * @see hk.hku.cecid.piazza.commons.util.ClusterNode#getLeaseRenewalThreshold()
+     */
+    public int renewLeases(String ownerId) 
+            throws DAOException {
+        return super.update("renew_pr_msg_leases", new Object[] {
+                ClusterNode.getLeaseExpiry(), ownerId, 
+                ClusterNode.getLeaseRenewalThreshold()});
+    }
+
+    /**
+     * Claims the given message for the given node by marking it as 
+     * processing, only if the message still has the status it was read 
+     * with. The value object is updated if the message is claimed.
+     * 
+     * @param data the message read from the data source.
+     * @param ownerId the identity of the claiming node.
+     * @return true if the message is claimed, false if its status has been 
+     *         changed, e.g. it has been claimed by another node.
+     * @throws DAOException if errors found when updating the data source.
+     */
+    public boolean claimMessage(MessageDVO data, String ownerId) 
+            throws DAOException {
+        Timestamp lease = ClusterNode.getLeaseExpiry();
+        int claimed = super.update("claim_msg", new Object[] {
+                ownerId, lease, data.getMessageId(), data.getMessageBox(), 
+                data.getStatus()});
+        if (claimed != 1) {
+            return false;
+        }
+        data.setStatus(MessageDVO.STATUS_PROCESSING);
+        data.setStatusDescription("");
+        data.setOwnerId(ownerId);
+        data.setLeaseTimeStamp(lease);
+        return true;
     }
     public DVO createDVO() {
         return new MessageDataSourceDVO();
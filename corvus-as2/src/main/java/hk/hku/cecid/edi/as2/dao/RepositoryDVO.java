@@ -37,6 +37,17 @@ public interface RepositoryDVO extends DVO {
      */
     public void setContent(byte[] content);
 
+    /**
+     * @return Returns the reference of the content in the content store, or 
+     *         null if the content is kept in the database.
+     */
+    public String getContentRef();
+
+    /**
+     * @param contentRef The content reference to set.
+     */
+    public void setContentRef(String contentRef);
+
     /**
      * @return Returns the messageBox.
      */
@@ -24,6 +24,7 @@ import hk.hku.cecid.piazza.commons.module.Component;
 import hk.hku.cecid.piazza.commons.security.KeyStoreManager;
 import hk.hku.cecid.piazza.commons.security.SMimeMessage;
 import hk.hku.cecid.piazza.commons.servlet.RequestListenerException;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 
 
 /**
@@ -144,6 +145,8 @@ public class IncomingMessageProcessor extends Component {
             RepositoryDVO requestRepositoryDVO = daoHandler.createRepositoryDVO(requestMessage, true);
             MessageDVO requestMessageDVO = daoHandler.createMessageDVO(requestMessage, true);
             requestMessageDVO.setStatus(requestMessage.isReceiptSynchronous()? MessageDVO.STATUS_PROCESSING:MessageDVO.STATUS_RECEIVED);
+            requestMessageDVO.setOwnerId(ClusterNode.getId());
+            requestMessageDVO.setLeaseTimeStamp(ClusterNode.getLeaseExpiry());
             daoHandler.createMessageStore().storeMessage(requestMessageDVO, requestRepositoryDVO);
             
             /* Process the message at once if it is a synchronous request */
@@ -168,12 +171,13 @@ public class IncomingMessageProcessor extends Component {
     }
             
     protected AS2Message processReceivedMessage(AS2Message requestMessage) throws AS2Exception {
+        IncomingMessage imsg = null;
         try{
             AS2Processor.core.log.info(requestMessage + " is being processed");
             
             AS2DAOHandler daoHandler = new AS2DAOHandler(AS2Processor.core.dao);
             KeyStoreManager keyman = AS2Processor.getKeyStoreManager();
-            IncomingMessage imsg = new IncomingMessage(requestMessage,keyman,daoHandler);
+            imsg = new IncomingMessage(requestMessage,keyman,daoHandler);
             
             /* Handle the SMIME features */
             imsg.processSMime();
@@ -232,5 +236,10 @@ public class IncomingMessageProcessor extends Component {
         catch (Exception e) {
             throw new AS2Exception("Error in processing AS2 received message", e);
         }
+        finally {
+            if (imsg != null) {
+                imsg.dispose();
+            }
+        }
     }
 }
\ No newline at end of file
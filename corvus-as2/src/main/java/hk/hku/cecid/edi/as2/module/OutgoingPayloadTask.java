@@ -93,53 +93,61 @@ public class OutgoingPayloadTask implements ActiveTask {
         }
         
         KeyStoreManager keyman = AS2Processor.getKeyStoreManager();
-        SMimeMessage smime = new SMimeMessage(as2Message.getBodyPart(), keyman.getX509Certificate(), keyman.getPrivateKey());
-        smime.setContentTransferEncoding(SMimeMessage.CONTENT_TRANSFER_ENC_BINARY);
+        SMimeMessage rootSMime = new SMimeMessage(as2Message.getBodyPart(), keyman.getX509Certificate(), keyman.getPrivateKey());
+        SMimeMessage smime = rootSMime;
+        try {
+            smime.setContentTransferEncoding(SMimeMessage.CONTENT_TRANSFER_ENC_BINARY);
         
-        String mic = calculateMIC(smime, partnership);
+            String mic = calculateMIC(smime, partnership);
         
-        if (partnership.isOutboundCompressRequired()) {
-            AS2Processor.core.log.info("Compressing outbound "+as2Message);
-            smime = smime.compress();
-            if (partnership.isOutboundSignRequired()) {
-                mic = calculateMIC(smime, partnership);
-            }
-        }
-        if (partnership.isOutboundSignRequired()) {
-            AS2Processor.core.log.info("Signing outbound "+as2Message);
-            String alg = partnership.getSignAlgorithm();
-            if (alg != null && alg.equalsIgnoreCase(PartnershipDVO.ALG_SIGN_MD5)) {
-                smime.setDigestAlgorithm(SMimeMessage.DIGEST_ALG_MD5);
-            }
-            else {
-                smime.setDigestAlgorithm(SMimeMessage.DIGEST_ALG_SHA1);
+            if (partnership.isOutboundCompressRequired()) {
+                AS2Processor.core.log.info("Compressing outbound "+as2Message);
+                smime = smime.compress();
+                if (partnership.isOutboundSignRequired()) {
+                    mic = calculateMIC(smime, partnership);
+                }
             }
-            smime = smime.sign();
-        }
-        if (partnership.isOutboundEncryptRequired()) {
-            AS2Processor.core.log.info("Encrypting outbound "+as2Message);
-            String alg = partnership.getEncryptAlgorithm();
-            if (alg != null && alg.equalsIgnoreCase(PartnershipDVO.ALG_ENCRYPT_RC2)) {
-                smime.setEncryptAlgorithm(SMimeMessage.ENCRYPT_ALG_RC2_CBC);
+            if (partnership.isOutboundSignRequired()) {
+                AS2Processor.core.log.info("Signing outbound "+as2Message);
+                String alg = partnership.getSignAlgorithm();
+                if (alg != null && alg.equalsIgnoreCase(PartnershipDVO.ALG_SIGN_MD5)) {
+                    smime.setDigestAlgorithm(SMimeMessage.DIGEST_ALG_MD5);
+                }
+                else {
+                    smime.setDigestAlgorithm(SMimeMessage.DIGEST_ALG_SHA1);
+                }
+                smime = smime.sign();
             }
-            else {
-                smime.setEncryptAlgorithm(SMimeMessage.ENCRYPT_ALG_DES_EDE3_CBC);
+            if (partnership.isOutboundEncryptRequired()) {
+                AS2Processor.core.log.info("Encrypting outbound "+as2Message);
+                String alg = partnership.getEncryptAlgorithm();
+                if (alg != null && alg.equalsIgnoreCase(PartnershipDVO.ALG_ENCRYPT_RC2)) {
+                    smime.setEncryptAlgorithm(SMimeMessage.ENCRYPT_ALG_RC2_CBC);
+                }
+                else {
+                    smime.setEncryptAlgorithm(SMimeMessage.ENCRYPT_ALG_DES_EDE3_CBC);
+                }
+                smime = smime.encrypt(partnership.getEncryptX509Certificate());
             }
-            smime = smime.encrypt(partnership.getEncryptX509Certificate());
-        }
         
-        as2Message.setBodyPart(smime.getBodyPart());
+            as2Message.setBodyPart(smime.getBodyPart());
         
-        AS2Processor.core.log.info("Persisting outbound "+as2Message);
-        RepositoryDVO repositoryDVO = daoHandler.createRepositoryDVO(as2Message, false);
-        MessageDVO messageDVO = daoHandler.createMessageDVO(as2Message, false); 
-        messageDVO.setStatus(MessageDVO.STATUS_PENDING);
-        messageDVO.setMicValue(mic);
+            AS2Processor.core.log.info("Persisting outbound "+as2Message);
+            RepositoryDVO repositoryDVO = daoHandler.createRepositoryDVO(as2Message, false);
+            MessageDVO messageDVO = daoHandler.createMessageDVO(as2Message, false); 
+            messageDVO.setStatus(MessageDVO.STATUS_PENDING);
+            messageDVO.setMicValue(mic);
         
-        /* Capture the outgoing message */
-        AS2Processor.core.log.debug(as2Message + " is being captured");
-        AS2Processor.getMessageRepository().persistMessage(as2Message);
-        daoHandler.createMessageStore().storeMessage(messageDVO, repositoryDVO);
+            /* Capture the outgoing message */
+            AS2Processor.core.log.debug(as2Message + " is being captured");
+            AS2Processor.getMessageRepository().persistMessage(as2Message);
+            daoHandler.createMessageStore().storeMessage(messageDVO, repositoryDVO);
+        }
+        finally {
+            // Release the temporary files spooled by compression, signing 
+            // and encryption once the message is persisted
+            rootSMime.dispose();
+        }
         
         cacheSource = null;
         AS2Processor.core.log.debug("Clearing cache of "+as2Message+": "+payload.clear());
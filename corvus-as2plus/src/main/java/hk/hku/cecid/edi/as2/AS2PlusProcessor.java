@@ -19,6 +19,7 @@ import hk.hku.cecid.piazza.commons.module.PluginProcessor;
 import hk.hku.cecid.piazza.commons.security.KeyStoreManager;
 import hk.hku.cecid.piazza.commons.spa.Plugin;
 import hk.hku.cecid.piazza.commons.spa.PluginException;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 
 import javax.activation.CommandMap;
 import javax.activation.MailcapCommandMap;
@@ -36,6 +37,10 @@ public class AS2PlusProcessor extends PluginProcessor {
     
     private static ModuleGroup moduleGroup;
     
+    public static final String ACTIVE_MODULE_INCOMING_MESSAGE = "as2.core.incoming.message";
+    
+    public static final String ACTIVE_MODULE_OUTGOING_MESSAGE = "as2.core.outgoing.message";
+    
     private static final String COMPONENT_KEYSTORE_MANAGER = "keystore-manager";
     
     private static final String COMPONENT_INCOMING_MSG_PROCESSOR = "incoming-message-processor";
@@ -95,7 +100,7 @@ public class AS2PlusProcessor extends PluginProcessor {
     private void recover() {
         try {
             AS2DAOHandler daoHandler = new AS2DAOHandler(this.getDAOFactory());
-            int rs = daoHandler.createMessageDAO().recoverProcessingMessages();
+            int rs = daoHandler.createMessageDAO().recoverProcessingMessages(ClusterNode.getId());
             getLogger().info("Total number of messages recovered: "+rs);
         }
         catch (Exception e) {
@@ -103,6 +108,19 @@ public class AS2PlusProcessor extends PluginProcessor {
         }
     }
     
+    /**
+     * Wakes up the given active module of AS2 so that it collects the new 
+     * messages without waiting for its execution interval. It does nothing 
+     * if the AS2 module group has not been initialized.
+     * 
+     * @param moduleId the ID of the active module.
+     */
+    public static void wakeUpActiveModule(String moduleId) {
+        if (moduleGroup != null) {
+            moduleGroup.wakeUpModule(moduleId);
+        }
+    }
+    
     public IncomingMessageProcessor getIncomingMessageProcessor() {
     	return (IncomingMessageProcessor) getSystemModule().getComponent(COMPONENT_INCOMING_MSG_PROCESSOR);
     }
@@ -12,6 +12,7 @@ package hk.hku.cecid.edi.as2.dao;
 import hk.hku.cecid.piazza.commons.dao.DAO;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -33,9 +34,21 @@ public interface MessageDAO extends DAO {
     
     public List findMessagesBeforeTime(int months) throws DAOException;
     
+    public List findMessagesBeforeTime(Date cutoff, MessageDVO after,
+            int numberOfMessage) throws DAOException;
+    
     public int findNumberOfMessagesByHistory(MessageDVO data)
             throws DAOException;
 
-    public int recoverProcessingMessages()
+    public int recoverProcessingMessages(String ownerId)
+            throws DAOException;
+
+    public int releaseExpiredMessages(Date currentTime)
+            throws DAOException;
+
+    public int renewLeases(String ownerId)
+            throws DAOException;
+
+    public boolean claimMessage(MessageDVO data, String ownerId)
             throws DAOException;
 }
\ No newline at end of file
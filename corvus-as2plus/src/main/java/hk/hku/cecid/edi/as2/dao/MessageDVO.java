@@ -170,4 +170,24 @@ public interface MessageDVO extends DVO {
     public String getPartnershipId();
     
     public void setPartnershipId(String partnershipId);
+
+    /**
+     * @return Returns the identity of the node which is processing this message.
+     */
+    public String getOwnerId();
+
+    /**
+     * @param ownerId The identity of the node which processes this message.
+     */
+    public void setOwnerId(String ownerId);
+
+    /**
+     * @return Returns the time when the lease of the owner node expires.
+     */
+    public Date getLeaseTimeStamp();
+
+    /**
+     * @param leaseTimeStamp The time when the lease of the owner node expires.
+     */
+    public void setLeaseTimeStamp(Date leaseTimeStamp);
 }
\ No newline at end of file
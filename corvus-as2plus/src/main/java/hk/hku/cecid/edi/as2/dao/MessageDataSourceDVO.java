@@ -268,4 +268,32 @@ public class MessageDataSourceDVO extends DataSourceDVO implements
 	public void setPartnershipId(String partnershipId) {
 		super.setString("partnershipId", partnershipId);
 	}
+
+    /**
+     * @return Returns the identity of the node which is processing this message.
+     */
+    public String getOwnerId() {
+        return super.getString("ownerId");
+    }
+
+    /**
+     * @param ownerId The identity of the node which processes this message.
+     */
+    public void setOwnerId(String ownerId) {
+        super.setString("ownerId", ownerId);
+    }
+
+    /**
+     * @return Returns the time when the lease of the owner node expires.
+     */
+    public Date getLeaseTimeStamp() {
+        return super.getDate("leaseTimeStamp");
+    }
+
+    /**
+     * @param leaseTimeStamp The time when the lease of the owner node expires.
+     */
+    public void setLeaseTimeStamp(Date leaseTimeStamp) {
+        super.put("leaseTimeStamp", Convertor.toTimestamp(leaseTimeStamp));
+    }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@
 
 package hk.hku.cecid.edi.as2.dao;
 
+import hk.hku.cecid.edi.as2.AS2PlusProcessor;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.DVO;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
@@ -46,6 +47,7 @@ public class MessageStoreDataSourceDAO extends DataSourceDAO implements
         };
 
         process.start();
+        wakeUpModule(msgDVO);
 	}
 
     public void storeMessage(final MessageDVO messageDVO,
@@ -83,6 +85,11 @@ public class MessageStoreDataSourceDAO extends DataSourceDAO implements
         };
 
         process.start();
+        if (messageDVO != null) {
+            for (int i = 0; i < messageDVO.length; i++) {
+                wakeUpModule(messageDVO[i]);
+            }
+        }
     }
 
     public void storeReceipt(final MessageDVO receiptMessageDVO,
@@ -106,6 +113,27 @@ public class MessageStoreDataSourceDAO extends DataSourceDAO implements
         };
 
         process.start();
+        wakeUpModule(receiptMessageDVO);
+    }
+
+    /**
+     * Wakes up the module which collects the stored message if it is waiting 
+     * to be processed.
+     * 
+     * @param messageDVO the stored message.
+     */
+    private void wakeUpModule(MessageDVO messageDVO) {
+        if (messageDVO == null) {
+            return;
+        }
+        if (MessageDVO.MSGBOX_OUT.equals(messageDVO.getMessageBox())
+                && MessageDVO.STATUS_PENDING.equals(messageDVO.getStatus())) {
+            AS2PlusProcessor.wakeUpActiveModule(AS2PlusProcessor.ACTIVE_MODULE_OUTGOING_MESSAGE);
+        }
+        else if (MessageDVO.MSGBOX_IN.equals(messageDVO.getMessageBox())
+                && MessageDVO.STATUS_RECEIVED.equals(messageDVO.getStatus())) {
+            AS2PlusProcessor.wakeUpActiveModule(AS2PlusProcessor.ACTIVE_MODULE_INCOMING_MESSAGE);
+        }
     }
 
     public DVO createDVO() {
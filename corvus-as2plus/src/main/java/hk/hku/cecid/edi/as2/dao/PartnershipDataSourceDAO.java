@@ -10,6 +10,7 @@
 package hk.hku.cecid.edi.as2.dao;
 
 import hk.hku.cecid.piazza.commons.dao.DVO;
+import hk.hku.cecid.piazza.commons.dao.DVOCache;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
 
@@ -26,10 +27,39 @@ public class PartnershipDataSourceDAO extends DataSourceDAO implements
         return super.find("find_all_partnerships", null);
     }
 
+    /**
+     * Finds the partnership by its AS2 from and to parties. The partnership
+     * found is kept in the DAO cache, if configured, with its certificates
+     * parsed, until any partnership is changed.
+     * 
+     * @param fromParty the AS2 from party.
+     * @param toParty the AS2 to party.
+     * @return the partnership or null if it is not found.
+     * @throws DAOException if unable to find the partnership.
+     */
     public PartnershipDVO findByParty(String fromParty, String toParty)
             throws DAOException {
-        return (PartnershipDVO) super.findByKey(new Object[]{fromParty,
-                toParty});
+        DVOCache cache = getCache();
+        if (cache == null) {
+            return (PartnershipDVO) super.findByKey(new Object[]{fromParty,
+                    toParty});
+        }
+
+        String key = (fromParty + "/" + toParty).toUpperCase();
+        PartnershipDataSourceDVO cached = (PartnershipDataSourceDVO) cache.get(key);
+        if (cached == null) {
+            cached = (PartnershipDataSourceDVO) super.findByKey(new Object[]{
+                    fromParty, toParty});
+            if (cached == null) {
+                return null;
+            }
+            cached.getEncryptX509Certificate();
+            cached.getVerifyX509Certificate();
+            cache.put(key, cached);
+        }
+        PartnershipDataSourceDVO partnership = new PartnershipDataSourceDVO();
+        partnership.copyFrom(cached);
+        return partnership;
     }
 
     public List findPartnershipsByPartyID(String fromParty, String toParty) throws DAOException {
@@ -13,6 +13,7 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.util.Hashtable;
 
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDVO;
 
@@ -23,6 +24,35 @@ import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDVO;
 public class PartnershipDataSourceDVO extends DataSourceDVO implements
         PartnershipDVO {
 
+    private transient byte[] encryptCertBytes;
+
+    private transient X509Certificate encryptX509Certificate;
+
+    private transient byte[] verifyCertBytes;
+
+    private transient X509Certificate verifyX509Certificate;
+
+    /**
+     * Copies the data of the given partnership to this one. The parsed
+     * certificates of the given partnership, if any, are shared.
+     * 
+     * @param dvo the partnership to be copied.
+     */
+    void copyFrom(PartnershipDataSourceDVO dvo) {
+        Object[] certs;
+        synchronized (dvo) {
+            certs = new Object[]{dvo.encryptCertBytes, dvo.encryptX509Certificate,
+                    dvo.verifyCertBytes, dvo.verifyX509Certificate};
+        }
+        synchronized (this) {
+            setData(new Hashtable(dvo.getData()));
+            encryptCertBytes = (byte[]) certs[0];
+            encryptX509Certificate = (X509Certificate) certs[1];
+            verifyCertBytes = (byte[]) certs[2];
+            verifyX509Certificate = (X509Certificate) certs[3];
+        }
+    }
+
     public String getPartnershipId() {
         return super.getString("partnershipId");
     }
@@ -221,12 +251,22 @@ public class PartnershipDataSourceDVO extends DataSourceDVO implements
         super.put("verifyCert", verifyCert);
     }
 
-    public X509Certificate getEncryptX509Certificate() {
-        return getX509Certificate(getEncryptCert());
+    public synchronized X509Certificate getEncryptX509Certificate() {
+        byte[] bs = getEncryptCert();
+        if (bs != encryptCertBytes) {
+            encryptX509Certificate = getX509Certificate(bs);
+            encryptCertBytes = bs;
+        }
+        return encryptX509Certificate;
     }
 
-    public X509Certificate getVerifyX509Certificate() {
-        return getX509Certificate(getVerifyCert());
+    public synchronized X509Certificate getVerifyX509Certificate() {
+        byte[] bs = getVerifyCert();
+        if (bs != verifyCertBytes) {
+            verifyX509Certificate = getX509Certificate(bs);
+            verifyCertBytes = bs;
+        }
+        return verifyX509Certificate;
     }
 
     private X509Certificate getX509Certificate(byte[] bs) {
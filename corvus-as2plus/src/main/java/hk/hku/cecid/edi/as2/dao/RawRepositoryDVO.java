@@ -22,4 +22,15 @@ public interface RawRepositoryDVO extends DVO {
      * @param content The action to set.
      */
     public void setContent(byte[] content);
+
+    /**
+     * @return Returns the reference of the content in the content store, or 
+     *         null if the content is kept in the database.
+     */
+    public String getContentRef();
+
+    /**
+     * @param contentRef The content reference to set.
+     */
+    public void setContentRef(String contentRef);
 }
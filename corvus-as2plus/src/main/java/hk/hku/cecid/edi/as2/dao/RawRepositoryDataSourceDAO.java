@@ -1,10 +1,233 @@
 package hk.hku.cecid.edi.as2.dao;
 
+import hk.hku.cecid.piazza.commons.dao.DAOException;
+import hk.hku.cecid.piazza.commons.dao.DAOFactory;
 import hk.hku.cecid.piazza.commons.dao.DVO;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
+import hk.hku.cecid.piazza.commons.dao.ds.DataSourceTransaction;
+import hk.hku.cecid.piazza.commons.io.ContentStore;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * RawRepositoryDataSourceDAO keeps the raw message content in the 
+ * raw_repository table, or, if a content store is configured by the 
+ * "content-store" parameter, in the content store with only its reference 
+ * kept in the table.
+ */
 public class RawRepositoryDataSourceDAO extends DataSourceDAO implements RawRepositoryDAO {
+
+    private static final String PARAM_CONTENT_STORE = "content-store";
+
     public DVO createDVO() {
-        return new RawRepositoryDataSourceDVO();
+        RawRepositoryDataSourceDVO dvo = new RawRepositoryDataSourceDVO();
+        dvo.setContentStore(getContentStore());
+        return dvo;
+    }
+    
+
+    /**
+     * Gets the content store configured for this DAO.
+     *
+     * @return the content store or null if the content is kept in the
+     *         database.
+     */
+    protected ContentStore getContentStore() {
+        Object store = getComponent(PARAM_CONTENT_STORE);
+        return store instanceof ContentStore ? (ContentStore) store : null;
+    }
+
+    public void create(DVO data) throws DAOException {
+        String contentRef = storeContent((RawRepositoryDataSourceDVO) data);
+        try {
+            super.create(data);
+        }
+        finally {
+            releaseContentAfterTransaction(contentRef);
+        }
+    }
+
+    public boolean persist(DVO data) throws DAOException {
+        String contentRef = storeContent((RawRepositoryDataSourceDVO) data);
+        try {
+            return super.persist(data);
+        }
+        finally {
+            releaseContentAfterTransaction(contentRef);
+        }
+    }
+
+    public boolean retrieve(DVO data) throws DAOException {
+        ((RawRepositoryDataSourceDVO) data).setContentStore(getContentStore());
+        return super.retrieve(data);
+    }
+
+    public boolean remove(DVO data) throws DAOException {
+        return removeAll(Collections.singletonList(data)) > 0;
+    }
+
+    /**
+     * Removes the given raw repositories in batches. The content kept in the
+     * content store is removed after the removal is committed.
+     *
+     * @see hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO#removeAll(java.util.List)
+     */
+    public int removeAll(List data) throws DAOException {
+        Set contentRefs = new HashSet();
+        if (getContentStore() != null) {
+            for (int i = 0; i < data.size(); i += getBatchSize()) {
+                contentRefs.addAll(findContentRefs(data.subList(i, 
+                        Math.min(i + getBatchSize(), data.size()))));
+            }
+        }
+
+        int removed = super.removeAll(data);
+        removeContentAfterCommit(contentRefs);
+        return removed;
+    }
+
+    /**
+     * Finds the content references of the given raw repositories in one query.
+     *
+     * @param data the raw repositories.
+     * @return the references of the content kept in the content store.
+     * @throws DAOException if unable to find the references.
+     */
+    private Set findContentRefs(List data) throws DAOException {
+        Object[] messageIds = new Object[data.size()];
+        String questionToken = "";
+        for (int i = 0; i < messageIds.length; i++) {
+            messageIds[i] = ((RawRepositoryDVO) data.get(i)).getMessageId();
+            questionToken += i == 0 ? "?" : ",?";
+        }
+        String sql = getFinder("find_content_refs") + " and "
+                + getFilter("find_content_refs_filter").replace("?", questionToken);
+
+        Set contentRefs = new HashSet();
+        Iterator found = executeQuery(sql, messageIds).iterator();
+        while (found.hasNext()) {
+            contentRefs.add(((RawRepositoryDVO) found.next()).getContentRef());
+        }
+        return contentRefs;
+    }
+
+    /**
+     * Removes the given content from the content store once the removal of
+     * the raw repositories is committed, or immediately if this DAO is not under
+     * a transaction. Nothing is removed if the transaction is rolled back.
+     *
+     * @param contentRefs the references of the content to be removed.
+     * @throws DAOException if unable to remove the content.
+     */
+    private void removeContentAfterCommit(final Collection contentRefs)
+            throws DAOException {
+        if (contentRefs.isEmpty()) {
+            return;
+        }
+        DataSourceTransaction tx = getTransaction(false);
+        if (tx == null) {
+            removeUnreferencedContent(contentRefs);
+        }
+        else {
+            final DAOFactory factory = getFactory();
+            tx.addCommitAction(new Runnable() {
+                public void run() {
+                    try {
+                        // this DAO may still be bound to the ended transaction
+                        ((RawRepositoryDataSourceDAO) factory
+                                .createDAO(RawRepositoryDAO.class))
+                                .removeUnreferencedContent(contentRefs);
+                    }
+                    catch (DAOException e) {
+                        // the content left behind is an orphan and does no harm
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Releases the given content held by storing it once the transaction of
+     * this DAO has ended, or immediately if this DAO is not under a
+     * transaction. Until then, the content is not removed by a concurrent
+     * removal of another raw repository which refers to identical content.
+     *
+     * @param contentRef the reference of the content, or null if nothing is
+     *            held.
+     * @throws DAOException if unable to get the transaction of this DAO.
+     */
+    private void releaseContentAfterTransaction(final String contentRef)
+            throws DAOException {
+        final ContentStore store = getContentStore();
+        if (store != null && contentRef != null) {
+            runAfterTransaction(new Runnable() {
+                public void run() {
+                    store.release(contentRef);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes the given content from the content store. Identical content is
+     * stored once, so it is removed only when no raw repository refers to it,
+     * and the store keeps it if another raw repository is storing it.
+     *
+     * @param contentRefs the references of the content to be removed.
+     * @throws DAOException if unable to find the repositories referring to
+     *             the content.
+     */
+    void removeUnreferencedContent(Collection contentRefs) throws DAOException {
+        ContentStore store = getContentStore();
+        Iterator refs = contentRefs.iterator();
+        while (store != null && refs.hasNext()) {
+            String contentRef = (String) refs.next();
+            if (super.find("find_repositories_by_content_ref",
+                    new Object[] { contentRef }).size() == 0) {
+                try {
+                    store.remove(contentRef);
+                }
+                catch (IOException e) {
+                    // the content left behind is an orphan and does no harm
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the content of the given raw repository to the content store, if
+     * configured, and replaces it with its reference. The reference is held
+     * until it is released.
+     *
+     * @param data the raw repository.
+     * @return the reference of the stored content, or null if nothing is
+     *         stored.
+     * @throws DAOException if unable to store the content.
+     * @see #releaseContentAfterTransaction(String)
+     */
+    private String storeContent(RawRepositoryDataSourceDVO data) throws DAOException {
+        ContentStore store = getContentStore();
+        Object content = data.get("content");
+        String contentRef = null;
+        if (store != null && content instanceof byte[]) {
+            try {
+                contentRef = store.store(new ByteArrayInputStream(
+                        (byte[]) content), true);
+                data.setContentRef(contentRef);
+            }
+            catch (IOException e) {
+                throw new DAOException("Unable to store raw repository content", e);
+            }
+            data.setContent(null);
+        }
+        data.setContentStore(store);
+        return contentRef;
     }
 }
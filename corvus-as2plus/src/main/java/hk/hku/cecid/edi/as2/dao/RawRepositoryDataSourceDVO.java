@@ -1,8 +1,25 @@
 package hk.hku.cecid.edi.as2.dao;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDVO;
+import hk.hku.cecid.piazza.commons.io.ContentStore;
+import hk.hku.cecid.piazza.commons.io.IOHandler;
 
 public class RawRepositoryDataSourceDVO extends DataSourceDVO implements RawRepositoryDVO {
+    private transient ContentStore contentStore;
+
+    /**
+     * Sets the content store from which the content referenced by this 
+     * raw repository should be read.
+     * 
+     * @param contentStore the content store.
+     */
+    void setContentStore(ContentStore contentStore) {
+        this.contentStore = contentStore;
+    }
+
     public String getMessageId() {
         return super.getString("messageId");
     }
@@ -12,11 +29,39 @@ public class RawRepositoryDataSourceDVO extends DataSourceDVO implements RawRepo
     }
 
     public byte[] getContent() {
-    	return (byte[])super.get("content");
+        Object content = super.get("content");
+        if (content == null && getContentRef() != null) {
+            try {
+                if (contentStore == null) {
+                    throw new IOException("No content store for content " 
+                            + getContentRef());
+                }
+                InputStream ins = contentStore.retrieve(getContentRef());
+                try {
+                    return IOHandler.readBytes(ins);
+                }
+                finally {
+                    ins.close();
+                }
+            }
+            catch (IOException e) {
+                throw new RuntimeException("Unable to read content " 
+                        + getContentRef() + " from content store", e);
+            }
+        }
+    	return (byte[])content;
 
     }    
     
     public void setContent(byte[] content) {
         super.put("content", content);
     }
+
+    public String getContentRef() {
+        return super.getString("contentRef");
+    }
+
+    public void setContentRef(String contentRef) {
+        super.setString("contentRef", contentRef);
+    }
 }
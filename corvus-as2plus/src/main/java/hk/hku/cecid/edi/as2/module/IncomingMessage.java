@@ -271,4 +271,10 @@ class IncomingMessage {
             throw new AS2Exception("Error in dispatching incoming AS2 message: "+requestMessage.getMessageID(), e);
         }
     }
+    
+    public void dispose() {
+        if (originalMessage != null) {
+            originalMessage.dispose();
+        }
+    }
 }
@@ -13,6 +13,7 @@ import hk.hku.cecid.edi.as2.AS2PlusProcessor;
 import hk.hku.cecid.edi.as2.dao.MessageDAO;
 import hk.hku.cecid.edi.as2.dao.MessageDVO;
 import hk.hku.cecid.piazza.commons.module.ActiveTaskList;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -37,10 +38,11 @@ public class IncomingMessageList extends ActiveTaskList {
             while (messages.hasNext()) {
                 try {
                     MessageDVO messageDAOData = (MessageDVO) messages.next();
+                    // skip the message if it has been claimed by another node
+                    if (!messageDAO.claimMessage(messageDAOData, ClusterNode.getId())) {
+                        continue;
+                    }
                     IncomingMessageTask task = new IncomingMessageTask(messageDAOData);
-                    messageDAOData.setStatus(MessageDVO.STATUS_PROCESSING);
-                    messageDAOData.setStatusDescription("");
-                    messageDAO.persist(messageDAOData);
                     tasks.add(task);
                 }
                 catch (Exception e) {
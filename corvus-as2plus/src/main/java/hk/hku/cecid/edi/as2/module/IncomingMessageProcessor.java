@@ -24,6 +24,7 @@ import hk.hku.cecid.piazza.commons.module.SystemComponent;
 import hk.hku.cecid.piazza.commons.security.KeyStoreManager;
 import hk.hku.cecid.piazza.commons.security.SMimeMessage;
 import hk.hku.cecid.piazza.commons.servlet.RequestListenerException;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 
 import java.io.InputStream;
 
@@ -149,6 +150,8 @@ public class IncomingMessageProcessor extends SystemComponent {
             RepositoryDVO requestRepositoryDVO = daoHandler.createRepositoryDVO(requestMessage, true);
             MessageDVO requestMessageDVO = daoHandler.createMessageDVO(requestMessage, true);
             requestMessageDVO.setStatus(requestMessage.isReceiptSynchronous()? MessageDVO.STATUS_PROCESSING:MessageDVO.STATUS_RECEIVED);
+            requestMessageDVO.setOwnerId(ClusterNode.getId());
+            requestMessageDVO.setLeaseTimeStamp(ClusterNode.getLeaseExpiry());
             daoHandler.createMessageStore().storeMessage(requestMessageDVO, requestRepositoryDVO);
             
             /* Process the message at once if it is a synchronous request */
@@ -173,12 +176,13 @@ public class IncomingMessageProcessor extends SystemComponent {
     }
             
     protected AS2Message processReceivedMessage(AS2Message requestMessage) throws AS2Exception {
+        IncomingMessage imsg = null;
         try{
             getLogger().info(requestMessage + " is being processed");
             
             AS2DAOHandler daoHandler = new AS2DAOHandler(getDAOFactory());
             KeyStoreManager keyman = (KeyStoreManager) getComponent(KEYSTORE_MANAGER);
-            IncomingMessage imsg = new IncomingMessage(requestMessage,keyman,daoHandler, getLogger());
+            imsg = new IncomingMessage(requestMessage,keyman,daoHandler, getLogger());
             
             /* Handle the SMIME features */
             imsg.processSMime();
@@ -255,5 +259,10 @@ public class IncomingMessageProcessor extends SystemComponent {
         catch (Exception e) {
             throw new AS2Exception("Error in processing AS2 received message", e);
         }
+        finally {
+            if (imsg != null) {
+                imsg.dispose();
+            }
+        }
     }
 }
\ No newline at end of file
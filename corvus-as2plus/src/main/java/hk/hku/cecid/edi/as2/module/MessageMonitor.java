@@ -0,0 +1,64 @@
+/* 
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ * 
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.edi.as2.module;
+
+import hk.hku.cecid.edi.as2.AS2PlusProcessor;
+import hk.hku.cecid.edi.as2.dao.MessageDAO;
+import hk.hku.cecid.piazza.commons.module.ActiveModule;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
+
+import java.util.Date;
+
+
+/**
+ * MessageMonitor maintains the ownership of the processing messages when
+ * several nodes share the same database. It renews the leases of the messages
+ * being processed by this node and releases the messages whose lease has
+ * expired, i.e. the owner node has failed, so that they can be taken over.
+ * 
+ * @see hk.hku.cecid.piazza.commons.util.ClusterNode
+ */
+public class MessageMonitor extends ActiveModule {
+
+    /**
+     * Creates a new instance of MessageMonitor.
+     * 
+     * @param descriptorLocation the module descriptor.
+     * @param loader the class loader for this module.
+     * @param shouldInitialize true if the module should be initialized.
+     */
+    public MessageMonitor(String descriptorLocation, ClassLoader loader, boolean shouldInitialize) {
+        super(descriptorLocation, loader, shouldInitialize);
+    }
+
+    /**
+     * Renews the leases of this node and releases the expired ones.
+     * 
+     * @return true so that this method will be invoked again after the 
+     *         execution interval.
+     * @see hk.hku.cecid.piazza.commons.module.ActiveModule#execute()
+     */
+    public boolean execute() {
+        try {
+            MessageDAO messageDAO = (MessageDAO)AS2PlusProcessor.getInstance().getDAOFactory().createDAO(MessageDAO.class);
+            messageDAO.renewLeases(ClusterNode.getId());
+            
+            int released = messageDAO.releaseExpiredMessages(new Date());
+            if (released > 0) {
+                AS2PlusProcessor.getInstance().getLogger().info(released + " message(s) of failed node have been released");
+                AS2PlusProcessor.wakeUpActiveModule(AS2PlusProcessor.ACTIVE_MODULE_OUTGOING_MESSAGE);
+            }
+        }
+        catch (Exception e) {
+            AS2PlusProcessor.getInstance().getLogger().error("Error in maintaining the leases of processing messages", e);
+        }
+        return true;
+    }
+}
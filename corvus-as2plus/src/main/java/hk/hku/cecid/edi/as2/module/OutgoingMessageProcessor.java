@@ -135,9 +135,18 @@ public class OutgoingMessageProcessor extends SystemComponent {
 			AS2DAOHandler daoHandler = new AS2DAOHandler(getDAOFactory());
 			RawRepositoryDVO rawRepoDVO = daoHandler.createRawRepositoryDVO(as2Message);
 			
-			String mic = processMessage(as2Message, partnership);
+	        KeyStoreManager keyman =(KeyStoreManager) getComponent("keystore-manager");
+	        SMimeMessage smime = new SMimeMessage(as2Message.getBodyPart(), keyman.getX509Certificate(), keyman.getPrivateKey());
+	        try {
+	        	String mic = processMessage(as2Message, smime, partnership);
 	        
-	        persistMessage(as2Message, mic, rawRepoDVO, primalMsgDVO);
+	        	persistMessage(as2Message, mic, rawRepoDVO, primalMsgDVO);
+	        }
+	        finally {
+	        	// Release the temporary files spooled by compression, signing 
+	        	// and encryption once the message is persisted
+	        	smime.dispose();
+	        }
 	        
 	        return as2Message;	        
 		} catch (Exception e) {
@@ -164,7 +173,7 @@ public class OutgoingMessageProcessor extends SystemComponent {
         getLogger().debug("AS2 Message is stored on database. ["+as2Message.getMessageID()+"]");
 	}
 	
-	private String processMessage(AS2Message as2Message, PartnershipDVO partnership) throws Exception {
+	private String processMessage(AS2Message as2Message, SMimeMessage smime, PartnershipDVO partnership) throws Exception {
         String micAlg = null;
         
         // Add header fields for request receipt
@@ -179,8 +188,6 @@ public class OutgoingMessageProcessor extends SystemComponent {
             as2Message.requestReceipt(returnUrl, micAlg);
         }
        
-        KeyStoreManager keyman =(KeyStoreManager) getComponent("keystore-manager");
-        SMimeMessage smime = new SMimeMessage(as2Message.getBodyPart(), keyman.getX509Certificate(), keyman.getPrivateKey());
         smime.setContentTransferEncoding(SMimeMessage.CONTENT_TRANSFER_ENC_BINARY);
         
         String mic = calculateMIC(smime, partnership);
@@ -17,12 +17,13 @@ import hk.hku.cecid.edi.as2.dao.PartnershipDVO;
 import hk.hku.cecid.edi.as2.dao.RepositoryDAO;
 import hk.hku.cecid.edi.as2.dao.RepositoryDVO;
 import hk.hku.cecid.edi.as2.pkg.AS2Message;
-import hk.hku.cecid.piazza.commons.module.ActiveTask;
+import hk.hku.cecid.piazza.commons.module.GroupedActiveTask;
 import hk.hku.cecid.piazza.commons.net.HttpConnector;
 import hk.hku.cecid.piazza.commons.security.TrustedHostnameVerifier;
 import hk.hku.cecid.piazza.commons.util.Headers;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 
@@ -33,7 +34,7 @@ import java.net.HttpURLConnection;
  * @author Hugo Y. K. Lam
  *
  */
-public class OutgoingMessageTask implements ActiveTask {
+public class OutgoingMessageTask implements GroupedActiveTask {
 
     private int retried;
     private MessageDVO message;
@@ -107,6 +108,14 @@ public class OutgoingMessageTask implements ActiveTask {
                 catch (Throwable t) {
                     AS2PlusProcessor.getInstance().getLogger().error(outgoingMessage + " was sent but exception occurred in receiving receipt", t);
                 }
+                finally {
+                    // return the connection to the keep-alive pool
+                    try {
+                        replyStream.close();
+                    }
+                    catch (IOException e) {
+                    }
+                }
             }
             catch (Exception e) {
                 throw new AS2Exception("Error in sending outgoing AS2 message: "+message.getMessageId(), e);
@@ -188,4 +197,13 @@ public class OutgoingMessageTask implements ActiveTask {
     public boolean isSucceedFast() {
         return true;
     }
+
+    /**
+     * getTaskGroup
+     * @return String the AS2 from and to of the message
+     * @see hk.hku.cecid.piazza.commons.module.GroupedActiveTask#getTaskGroup()
+     */
+    public String getTaskGroup() {
+        return message.getAs2From() + "/" + message.getAs2To();
+    }
 }
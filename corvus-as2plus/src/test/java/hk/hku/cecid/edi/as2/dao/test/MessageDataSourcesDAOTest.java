@@ -158,4 +158,37 @@ public class MessageDataSourcesDAOTest extends DAOTest<MessageDataSourceDAO>{
 		Assert.assertTrue(resultList.isEmpty());
 	}
 	
+	@Test
+	public void testClaimMessage() throws DAOException{
+		System.out.println("Start test claiming message on MessageDataSourceDAO . . .");
+		logger.info("Start test claiming message on MessageDataSourceDAO . . .");
+		
+		MessageDataSourceDAO dao  = super.getTestingTarget();
+		MessageDVO dvo = (MessageDVO) dao.createDVO();
+		dvo.setMessageId("20090910-120000-12345@127.0.0.1");
+		dvo.setMessageBox(MessageDVO.MSGBOX_OUT);
+		Assert.assertTrue(dao.retrieve(dvo));
+		
+		// A node which read the message before the claim
+		MessageDVO staleDVO = (MessageDVO) dao.createDVO();
+		staleDVO.setMessageId(dvo.getMessageId());
+		staleDVO.setMessageBox(dvo.getMessageBox());
+		staleDVO.setStatus(dvo.getStatus());
+		
+		Assert.assertTrue(dao.claimMessage(dvo, "node1"));
+		Assert.assertEquals(MessageDVO.STATUS_PROCESSING, dvo.getStatus());
+		Assert.assertEquals("node1", dvo.getOwnerId());
+		
+		// The message is no longer in the status read by the other node
+		Assert.assertFalse(dao.claimMessage(staleDVO, "node2"));
+		Assert.assertFalse(MessageDVO.STATUS_PROCESSING.equals(staleDVO.getStatus()));
+		
+		MessageDVO storedDVO = (MessageDVO) dao.createDVO();
+		storedDVO.setMessageId(dvo.getMessageId());
+		storedDVO.setMessageBox(dvo.getMessageBox());
+		Assert.assertTrue(dao.retrieve(storedDVO));
+		Assert.assertEquals(MessageDVO.STATUS_PROCESSING, storedDVO.getStatus());
+		Assert.assertEquals("node1", storedDVO.getOwnerId());
+	}
+	
 }
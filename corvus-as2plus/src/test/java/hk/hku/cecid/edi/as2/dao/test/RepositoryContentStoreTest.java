@@ -0,0 +1,99 @@
+package hk.hku.cecid.edi.as2.dao.test;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import hk.hku.cecid.edi.as2.dao.RepositoryDVO;
+import hk.hku.cecid.edi.as2.dao.RepositoryDataSourceDAO;
+import hk.hku.cecid.piazza.commons.dao.ds.DataSourceTransaction;
+import hk.hku.cecid.piazza.commons.io.ContentStore;
+import hk.hku.cecid.piazza.commons.test.DAOTest;
+
+public class RepositoryContentStoreTest extends DAOTest<RepositoryDataSourceDAO> {
+
+	private static final String msgBox = "inbox";
+
+	private static final byte[] content = "content kept in the content store".getBytes();
+
+	@Override
+	public String getTableName() {
+		return "repository";
+	}
+
+	private ContentStore getContentStore() {
+		return (ContentStore) getTestContainer().getComponent("repository-store");
+	}
+
+	private RepositoryDVO createRepository(String messageId) throws Exception {
+		RepositoryDataSourceDAO dao = super.getTestingTarget();
+		RepositoryDVO dvo = (RepositoryDVO) dao.createDVO();
+		dvo.setMessageId(messageId);
+		dvo.setMessageBox(msgBox);
+		dvo.setContent(content);
+		dao.create(dvo);
+		return dvo;
+	}
+
+	@Test
+	public void testContentStored() throws Exception {
+		RepositoryDataSourceDAO dao = super.getTestingTarget();
+		String contentRef = createRepository("stored@test").getContentRef();
+		Assert.assertNotNull(contentRef);
+		Assert.assertTrue(getContentStore().exists(contentRef));
+
+		RepositoryDVO dvo = (RepositoryDVO) dao.createDVO();
+		dvo.setMessageId("stored@test");
+		dvo.setMessageBox(msgBox);
+		Assert.assertTrue(dao.retrieve(dvo));
+		Assert.assertEquals(contentRef, dvo.getContentRef());
+		Assert.assertTrue(Arrays.equals(content, dvo.getContent()));
+
+		Assert.assertTrue(dao.remove(dvo));
+		Assert.assertFalse(getContentStore().exists(contentRef));
+	}
+
+	@Test
+	public void testContentRemovedAfterCommit() throws Exception {
+		RepositoryDataSourceDAO dao = super.getTestingTarget();
+		RepositoryDVO first = createRepository("first@test");
+		RepositoryDVO second = createRepository("second@test");
+		String contentRef = first.getContentRef();
+		Assert.assertEquals("Expected identical content is stored once!",
+				contentRef, second.getContentRef());
+
+		// the content is still referred to by the second repository
+		Assert.assertTrue(dao.remove(first));
+		Assert.assertTrue(getContentStore().exists(contentRef));
+
+		DataSourceTransaction tx = (DataSourceTransaction) dao.getFactory().createTransaction();
+		dao.setTransaction(tx);
+		tx.begin();
+		try {
+			Assert.assertEquals(1, dao.removeAll(Arrays.asList(new Object[] { second })));
+			Assert.assertTrue("Expected the content is kept until commit!",
+					getContentStore().exists(contentRef));
+			tx.rollback();
+		}
+		finally {
+			dao.setTransaction(null);
+		}
+		Assert.assertTrue("Expected the content is kept on rollback!",
+				getContentStore().exists(contentRef));
+
+		tx = (DataSourceTransaction) dao.getFactory().createTransaction();
+		dao.setTransaction(tx);
+		tx.begin();
+		try {
+			Assert.assertEquals(1, dao.removeAll(Arrays.asList(new Object[] { second })));
+			Assert.assertTrue(getContentStore().exists(contentRef));
+			tx.commit();
+		}
+		finally {
+			dao.setTransaction(null);
+		}
+		Assert.assertFalse("Expected the content is removed after commit!",
+				getContentStore().exists(contentRef));
+	}
+}
@@ -12,5 +12,7 @@ CREATE TABLE message (
 	time_stamp timestamp NOT NULL,
 	status varchar NOT NULL,
 	status_desc varchar,
+	owner_id varchar,
+	lease_time_stamp timestamp,
 	PRIMARY KEY (message_id, message_box)
 );
\ No newline at end of file
@@ -0,0 +1,7 @@
+CREATE TABLE repository (
+	message_id varchar NOT NULL,
+	message_box varchar NOT NULL,
+	content VARBINARY,
+	content_ref varchar,
+	PRIMARY KEY (message_id, message_box)
+);
\ No newline at end of file
@@ -0,0 +1 @@
+DROP TABLE repository;
\ No newline at end of file
@@ -7,6 +7,7 @@ package hk.hku.cecid.ebms.admin.listener;
 import hk.hku.cecid.ebms.spa.EbmsProcessor;
 import hk.hku.cecid.piazza.commons.module.ActiveMonitor;
 import hk.hku.cecid.piazza.commons.module.ActiveTaskModule;
+import hk.hku.cecid.piazza.commons.module.ActiveThreadPool;
 import hk.hku.cecid.piazza.commons.module.ComponentException;
 import hk.hku.cecid.piazza.commons.util.PropertySheet;
 import hk.hku.cecid.piazza.commons.util.PropertyTree;
@@ -511,6 +512,22 @@ public class EbmsPropertiesPageletAdaptor extends AdminPageletAdaptor {
                 + XPATH_OUTBOX_DELIVERY_MANAGER + "/peek_thread_count",
                 peekThreadCount);
 
+        if (outboxMonitor instanceof ActiveThreadPool) {
+            ActiveThreadPool outboxPool = (ActiveThreadPool) outboxMonitor;
+            resultDom.setProperty(XPATH_DELIVERY_MANAGER
+                    + XPATH_OUTBOX_DELIVERY_MANAGER + "/pool_size",
+                    String.valueOf(outboxPool.getPoolSize()));
+            resultDom.setProperty(XPATH_DELIVERY_MANAGER
+                    + XPATH_OUTBOX_DELIVERY_MANAGER + "/active_worker_count",
+                    String.valueOf(outboxPool.getActiveCount()));
+            resultDom.setProperty(XPATH_DELIVERY_MANAGER
+                    + XPATH_OUTBOX_DELIVERY_MANAGER + "/queued_task_count",
+                    String.valueOf(outboxPool.getQueueSize()));
+            resultDom.setProperty(XPATH_DELIVERY_MANAGER
+                    + XPATH_OUTBOX_DELIVERY_MANAGER + "/completed_task_count",
+                    String.valueOf(outboxPool.getCompletedTaskCount()));
+        }
+
         return resultDom;
     }
 
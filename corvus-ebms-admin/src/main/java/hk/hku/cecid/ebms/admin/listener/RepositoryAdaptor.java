@@ -11,7 +11,7 @@ import hk.hku.cecid.piazza.commons.io.IOHandler;
 import hk.hku.cecid.piazza.commons.servlet.RequestListenerException;
 import hk.hku.cecid.piazza.commons.servlet.http.HttpRequestAdaptor;
 
-import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -52,11 +52,12 @@ public class RepositoryAdaptor extends HttpRequestAdaptor {
                                         + repositoryDVO.getMessageId()
                                         + ".ebxml\"");
 
-                ByteArrayInputStream bis = new ByteArrayInputStream(
-                        repositoryDVO.getContent());
-
-                IOHandler.pipe(bis, response.getOutputStream());
-                bis.close();
+                InputStream ins = repositoryDVO.getContentStream();
+                try {
+                    IOHandler.pipe(ins, response.getOutputStream());
+                } finally {
+                    ins.close();
+                }
             }
 
         } catch (Exception e) {
@@ -59,6 +59,48 @@
         </input>
     </td>
   </tr>
+  <xsl:if test="./delivery_manager/outbox_delivery_manager/pool_size">
+  <tr>
+    <td width="40%">Number of Pooled Workers</td>
+    <td width="60%">
+        <input type="text">
+            <xsl:attribute name="name">/ebms/delivery_manager/outbox_delivery_manager/pool_size</xsl:attribute>
+            <xsl:attribute name="readonly"></xsl:attribute>
+            <xsl:attribute name="value"><xsl:value-of select="./delivery_manager/outbox_delivery_manager/pool_size" /></xsl:attribute>
+        </input>
+    </td>
+  </tr>
+  <tr>
+    <td width="40%">Number of Busy Workers</td>
+    <td width="60%">
+        <input type="text">
+            <xsl:attribute name="name">/ebms/delivery_manager/outbox_delivery_manager/active_worker_count</xsl:attribute>
+            <xsl:attribute name="readonly"></xsl:attribute>
+            <xsl:attribute name="value"><xsl:value-of select="./delivery_manager/outbox_delivery_manager/active_worker_count" /></xsl:attribute>
+        </input>
+    </td>
+  </tr>
+  <tr>
+    <td width="40%">Number of Queued Tasks</td>
+    <td width="60%">
+        <input type="text">
+            <xsl:attribute name="name">/ebms/delivery_manager/outbox_delivery_manager/queued_task_count</xsl:attribute>
+            <xsl:attribute name="readonly"></xsl:attribute>
+            <xsl:attribute name="value"><xsl:value-of select="./delivery_manager/outbox_delivery_manager/queued_task_count" /></xsl:attribute>
+        </input>
+    </td>
+  </tr>
+  <tr>
+    <td width="40%">Number of Completed Tasks</td>
+    <td width="60%">
+        <input type="text">
+            <xsl:attribute name="name">/ebms/delivery_manager/outbox_delivery_manager/completed_task_count</xsl:attribute>
+            <xsl:attribute name="readonly"></xsl:attribute>
+            <xsl:attribute name="value"><xsl:value-of select="./delivery_manager/outbox_delivery_manager/completed_task_count" /></xsl:attribute>
+        </input>
+    </td>
+  </tr>
+  </xsl:if>
   
 <!-- Inbox Collector -->
   
@@ -73,6 +73,19 @@ public class EbmsProcessor implements PluginHandler {
         }
     }
     
+    /**
+     * Wakes up the given active module of Ebms so that it collects the new 
+     * messages without waiting for its execution interval. It does nothing 
+     * if the Ebms module group has not been initialized.
+     * 
+     * @param moduleId the ID of the active module.
+     */
+    public static void wakeUpActiveModule(String moduleId) {
+        if (moduleGroup != null) {
+            moduleGroup.wakeUpModule(moduleId);
+        }
+    }
+    
     public static KeyStoreManager getKeyStoreManagerForSignature() {
         KeyStoreManager m = (KeyStoreManager) core.getComponent(COMPONENT_KEYSTORE_MANAGER_FOR_SIGNATURE);
         if (m==null) {
@@ -25,6 +25,10 @@ public interface MessageDAO extends DAO {
 
     public boolean findRefToMessage(MessageDVO data) throws DAOException;
 
+    public boolean findInboxMessageExistence(String messageId) throws DAOException;
+
+    public List findInboxMessageIds() throws DAOException;
+
     public List findInboxPendingMessagesByTimestamp(MessageDVO messageDVO)
 		throws DAOException;
 
@@ -34,12 +38,31 @@ public interface MessageDAO extends DAO {
     public List findOutboxProcessingMessagesByTimestamp(MessageDVO messageDVO)
     	throws DAOException;
 
+    public List findOutboxPendingMessagesByPartnership(int maxPerPartnership,
+    		int numberOfMessage)
+    	throws DAOException;
+
+    public List claimOutboxPendingMessages(String ownerId, int numberOfMessage)
+    	throws DAOException;
+
+    public List claimOutboxPendingMessages(List messages, String ownerId)
+    	throws DAOException;
+
+    public List adoptOutboxProcessingMessages(String ownerId) throws DAOException;
+
+    public int renewOutboxLeases(String ownerId) throws DAOException;
+
+    public int releaseExpiredOutboxLeases(Date currentTime) throws DAOException;
+
     public List findMessageByCpa(MessageDVO data, int numberOfMessage)
             throws DAOException;
     
     public List findMessagesByTime(int time_period, MessageDVO data, int numberOfMessage, int offset) throws DAOException;
 
     public List findMessagesBeforeTime(int time_period) throws DAOException;
+
+    public List findMessagesBeforeTime(Date cutoff, MessageDVO after,
+            int numberOfMessage) throws DAOException;
     
     public int findInboxReadyMaxSequenceNoByCpa(MessageDVO data)
     		throws DAOException;
@@ -73,9 +96,9 @@ public interface MessageDAO extends DAO {
     
     // Since H20 01062007
     /**
-     * Update the status of all timed-out message to <code>status</code>.
-     * A message is considered as timed-out if the timeout timestamp is 
-     * earlier than the <code>currentTime</code>.
+     * Update the status of all timed-out message owned by the given node, or 
+     * by no node, to <code>status</code>. A message is considered as timed-out 
+     * if the timeout timestamp is earlier than the <code>currentTime</code>.
      * 
      * @throws DAOException
      * 			When <code>status</code> is null or 
@@ -84,5 +107,5 @@ public interface MessageDAO extends DAO {
      * @see hk.hku.cecid.ebms.spa.dao.MessageDVO#getTimeoutTimestamp()
      * @see hk.hku.cecid.ebms.spa.dao.MessageDVO#setTimeoutTimestamp(java.sql.Timestamp)
      */
-    public int updateTimedOutMessageStatus(String status, Date currentTime) throws DAOException;
+    public int updateTimedOutMessageStatus(String status, String ownerId, Date currentTime) throws DAOException;
 }
\ No newline at end of file
@@ -281,4 +281,34 @@ public interface MessageDVO extends DVO {
     public void setPartnershipId(String partnershipId);
     
     public String getPartnershipId();
+
+    /**
+     * @return Returns the identity of the node which has claimed this message.
+     */
+    public String getOwnerId();
+
+    /**
+     * @param ownerId The identity of the node which claims this message.
+     */
+    public void setOwnerId(String ownerId);
+
+    /**
+     * @return Returns the token of the batch in which this message was claimed.
+     */
+    public String getClaimId();
+
+    /**
+     * @param claimId The token of the batch in which this message is claimed.
+     */
+    public void setClaimId(String claimId);
+
+    /**
+     * @return Returns the time when the claim of the owner node expires.
+     */
+    public Timestamp getLeaseTimestamp();
+
+    /**
+     * @param leaseTimestamp The time when the claim of the owner node expires.
+     */
+    public void setLeaseTimestamp(Timestamp leaseTimestamp);
 }
\ No newline at end of file
@@ -9,6 +9,7 @@
 
 package hk.hku.cecid.ebms.spa.dao;
 
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
@@ -19,6 +20,9 @@ import java.util.List;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.DVO;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
+import hk.hku.cecid.piazza.commons.dao.ds.DataSourceQueryHandler;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
+import hk.hku.cecid.piazza.commons.util.Generator;
 
 /**
  * @author Donahue Sze
@@ -27,6 +31,10 @@ import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
  */
 public class MessageDataSourceDAO extends DataSourceDAO implements MessageDAO {
 
+    private static final int PENDING_FETCH_SIZE = 100;
+
+    private static final int MESSAGE_ID_FETCH_SIZE = 1000;
+
     /*
      * (non-Javadoc)
      * 
@@ -40,6 +48,43 @@ public class MessageDataSourceDAO extends DataSourceDAO implements MessageDAO {
         return super.retrieve((MessageDataSourceDVO) data);
     }
 
+    /**
+     * Checks whether a message exists in the inbox without loading it.
+     * 
+     * @param messageId 	The message ID.
+     * @return 				true if the message exists in the inbox.
+     * @throws DAOException if errors found when retrieving data from the data
+     *             source.
+     */
+    public boolean findInboxMessageExistence(String messageId) throws DAOException {
+        return !super.find("find_inbox_message_existence",
+                new Object[] { messageId }).isEmpty();
+    }
+
+    /**
+     * Find the IDs of all the messages in the inbox. The IDs are streamed 
+     * from the data source so that only the IDs are kept in memory.
+     * 
+     * @return 				a List of message IDs.
+     * @throws DAOException if errors found when retrieving data from the data
+     *             source.
+     */
+    public List findInboxMessageIds() throws DAOException {
+        final List messageIds = new ArrayList();
+        super.find("find_inbox_message_ids", new Object[] {},
+                new DataSourceQueryHandler() {
+            public boolean handle(DVO data) {
+                messageIds.add(((MessageDVO) data).getMessageId());
+                return true;
+            }
+
+            public int getFetchSize() {
+                return MESSAGE_ID_FETCH_SIZE;
+            }
+        });
+        return messageIds;
+    }
+
     public void addMessage(MessageDVO data) throws DAOException {
         super.create((MessageDataSourceDVO) data);
     }
@@ -89,6 +134,34 @@ public class MessageDataSourceDAO extends DataSourceDAO implements MessageDAO {
 		Object[] param = {time};
 		return super.find("get_all_before_time",param);
 	}
+
+    /**
+     * Finds the keys and time stamps of at most the given number of messages
+     * which are older than the cutoff time, in the order of time stamp and 
+     * key, so that a large table can be purged in chunks.
+     * 
+     * @param cutoff the messages before this time are returned.
+     * @param after the last message of the previous chunk, or null for the 
+     *            first chunk. Only the messages after it are returned.
+     * @param numberOfMessage the maximum number of messages to be returned.
+     * @return a List of the messages found, with only the message ID, 
+     *         message box and time stamp.
+     * @throws DAOException if errors found when retrieving data from the data
+     *             source.
+     */
+    public List findMessagesBeforeTime(Date cutoff, MessageDVO after,
+            int numberOfMessage) throws DAOException {
+        Timestamp time = new Timestamp(cutoff.getTime());
+        if (after == null) {
+            return super.find("find_message_keys_before_time", new Object[] {
+                    time, new Integer(numberOfMessage) });
+        }
+        Timestamp afterTime = new Timestamp(after.getTimeStamp().getTime());
+        return super.find("find_message_keys_before_time_after", new Object[] {
+                time, afterTime, afterTime, after.getMessageId(),
+                after.getMessageId(), after.getMessageBox(),
+                new Integer(numberOfMessage) });
+    }
 	
     /**
      * Find all the pending messages for inbox collector order by timestamp.
@@ -132,6 +205,176 @@ public class MessageDataSourceDAO extends DataSourceDAO implements MessageDAO {
     			new Object[] {});
     }
 
+    /**
+     * Find the oldest pending messages in outbox of every CPA, service and 
+     * action in a single query. The query is bounded by the data source to 
+     * the oldest messages of each partnership and the oldest messages overall, 
+     * the streamed result is trimmed again in case of timestamp ties.
+     * 
+     * @param maxPerPartnership The maximum no. of message returned for each 
+     * 							CPA, service and action.
+     * @param numberOfMessage 	The maximum no. of message returned in total.
+     * @return 					a List of DVO ordered by CPA, service, action and 
+     * 							timestamp. An empty List will be returned if there 
+     * 							is no pending message.
+     * @throws DAOException 	if errors found when retrieving data from the data
+     *             source.
+     */
+    public List findOutboxPendingMessagesByPartnership(final int maxPerPartnership, 
+    		int numberOfMessage) throws DAOException {
+    	final List messages = new ArrayList();
+    	if (maxPerPartnership <= 0 || numberOfMessage <= 0) {
+    		return messages;
+    	}
+    	super.find("find_outbox_pending_messages_by_partnership", 
+    			new Object[] { new Integer(maxPerPartnership), new Integer(numberOfMessage) }, 
+    			new DataSourceQueryHandler() {
+    		private MessageDVO last;
+    		private int count;
+
+    		public boolean handle(DVO data) throws DAOException {
+    			MessageDVO message = (MessageDVO) data;
+    			if (last == null || !isSamePartnership(last, message)) {
+    				count = 0;
+    			}
+    			last = message;
+    			if (count++ < maxPerPartnership) {
+    				messages.add(message);
+    			}
+    			return true;
+    		}
+
+    		public int getFetchSize() {
+    			return PENDING_FETCH_SIZE;
+    		}
+    	});
+    	return messages;
+    }
+
+    private static boolean isSamePartnership(MessageDVO m1, MessageDVO m2) {
+    	return String.valueOf(m1.getCpaId()).equals(String.valueOf(m2.getCpaId()))
+    			&& String.valueOf(m1.getService()).equals(String.valueOf(m2.getService()))
+    			&& String.valueOf(m1.getAction()).equals(String.valueOf(m2.getAction()));
+    }
+
+    /**
+     * Claim the oldest pending messages in outbox for the given node. The 
+     * claimed messages are marked as processing and tagged with the node and 
+     * a new lease in a single update so that the same message cannot be 
+     * claimed by two nodes sharing the database.
+     * 
+     * @param ownerId 			The identity of the claiming node.
+     * @param numberOfMessage 	The maximum no. of message to claim.
+     * @return 					a List of DVO of the claimed messages. An empty List 
+     * 							will be returned if there is no pending message.
+     * @throws DAOException 	if errors found when updating or retrieving data 
+     * 							from the data source, or the claim SQL is not defined.
+     */
+    public List claimOutboxPendingMessages(String ownerId, int numberOfMessage) 
+    		throws DAOException {
+    	String claimId = Generator.generateUUID();
+    	int claimed = super.update("claim_outbox_pending_messages",
+    			new Object[] { ownerId, claimId, ClusterNode.getLeaseExpiry(), 
+    				new Integer(numberOfMessage) });
+    	return findClaimedMessages(ownerId, claimId, claimed);
+    }
+
+    /**
+     * Claim the given pending messages in outbox for the given node in a 
+     * single batch. A message which is no longer pending, e.g. it has been 
+     * claimed by another node, is left untouched and not returned.
+     * 
+     * @param messages 			The pending messages to claim.
+     * @param ownerId 			The identity of the claiming node.
+     * @return 					a List of DVO of the claimed messages. An empty List 
+     * 							will be returned if none is claimed.
+     * @throws DAOException 	if errors found when updating or retrieving data 
+     * 							from the data source, or the claim SQL is not defined.
+     * @see #findOutboxPendingMessagesByPartnership(int, int)
+     */
+    public List claimOutboxPendingMessages(List messages, String ownerId) 
+    		throws DAOException {
+    	if (messages.isEmpty()) {
+    		return new ArrayList();
+    	}
+    	String sql = super.getSQL("claim_outbox_pending_message");
+    	if (sql == null) {
+    		throw new DAOException("SQL 'claim_outbox_pending_message' not defined");
+    	}
+    	String claimId = Generator.generateUUID();
+    	Timestamp lease = ClusterNode.getLeaseExpiry();
+    	Object[][] paras = new Object[messages.size()][];
+    	for (int i = 0; i < paras.length; i++) {
+    		MessageDVO message = (MessageDVO) messages.get(i);
+    		paras[i] = new Object[] { ownerId, claimId, lease, message.getMessageId() };
+    	}
+    	int[] results = super.executeBatchUpdate(null, sql, paras);
+    	int claimed = 0;
+    	for (int i = 0; i < results.length; i++) {
+    		if (results[i] > 0 || results[i] == Statement.SUCCESS_NO_INFO) {
+    			claimed++;
+    		}
+    	}
+    	return findClaimedMessages(ownerId, claimId, claimed);
+    }
+
+    private List findClaimedMessages(String ownerId, String claimId, int claimed) 
+    		throws DAOException {
+    	if (claimed <= 0) {
+    		return new ArrayList();
+    	}
+    	return super.find("find_outbox_claimed_messages",
+    			new Object[] { ownerId, claimId });
+    }
+
+    /**
+     * Take over the processing messages in outbox which are owned by the 
+     * given node or by no node. It is used to resume the messages which 
+     * were being sent when the node was shut down. The leases of the 
+     * messages are renewed.
+     * 
+     * @param ownerId 			The identity of the node.
+     * @return 					a List of DVO of the messages owned by the node. An 
+     * 							empty List will be returned if there is none.
+     * @throws DAOException 	if errors found when updating or retrieving data 
+     * 							from the data source.
+     */
+    public List adoptOutboxProcessingMessages(String ownerId) throws DAOException {
+    	super.update("adopt_outbox_processing_messages",
+    			new Object[] { ownerId, ClusterNode.getLeaseExpiry(), ownerId });
+    	return super.find("find_outbox_owned_processing_messages",
+    			new Object[] { ownerId });
+    }
+
+    /**
+     * Renew the leases of the processing messages in outbox owned by the 
+     * given node. Only the leases which are going to expire are renewed.
+     * 
+     * @param ownerId 			The identity of the node.
+     * @return 					the no. of leases renewed.
+     * @throws DAOException 	if errors found when updating the data source.
+     * @see hk.hku.cecid.piazza.commons.util.ClusterNode#getLeaseRenewalThreshold()
+     */
+    public int renewOutboxLeases(String ownerId) throws DAOException {
+    	return super.update("renew_outbox_leases",
+    			new Object[] { ClusterNode.getLeaseExpiry(), ownerId, 
+    				ClusterNode.getLeaseRenewalThreshold() });
+    }
+
+    /**
+     * Release the processing messages in outbox whose lease is earlier than 
+     * the <code>currentTime</code> back to pending so that they can be 
+     * claimed by any node again.
+     * 
+     * @param currentTime 		The current time.
+     * @return 					the no. of messages released.
+     * @throws DAOException 	if errors found when updating the data source.
+     */
+    public int releaseExpiredOutboxLeases(Date currentTime) throws DAOException {
+    	Timestamp ts = new Timestamp(currentTime == null ? System.currentTimeMillis() : currentTime.getTime());
+    	return super.update("release_expired_outbox_leases", new Object[] { ts });
+    }
+
     /**
      * Find all the message by CPA, status, message type and message box.
      * Only for EbMS Message Collector Service
@@ -411,9 +654,9 @@ public class MessageDataSourceDAO extends DataSourceDAO implements MessageDAO {
     
     // Since H20 01062007
     /**
-     * Update the status of all timed-out message to <code>status</code>.
-     * A message is considered as timed-out if the timeout timestamp is 
-     * earlier than the <code>currentTime</code>.
+     * Update the status of all timed-out message owned by the given node, or 
+     * by no node, to <code>status</code>. A message is considered as timed-out 
+     * if the timeout timestamp is earlier than the <code>currentTime</code>.
      * 
      * @throws DAOException
      * 			When <code>status</code> is null or 
@@ -422,12 +665,12 @@ public class MessageDataSourceDAO extends DataSourceDAO implements MessageDAO {
      * @see hk.hku.cecid.ebms.spa.dao.MessageDVO#getTimeoutTimestamp()
      * @see hk.hku.cecid.ebms.spa.dao.MessageDVO#setTimeoutTimestamp(java.sql.Timestamp)
      */
-	public int updateTimedOutMessageStatus(String status, Date currentTime) throws DAOException {
+	public int updateTimedOutMessageStatus(String status, String ownerId, Date currentTime) throws DAOException {
 		if (status == null)
 			throw new DAOException("The required param 'status' is missing.");
 		// Transform the date to timestamp object.
 		Timestamp ts = new Timestamp( currentTime == null ? System.currentTimeMillis() : currentTime.getTime());
 		// Execute the update
-		return this.executeUpdate(this.getSQL("updated_timed_out_message_status"), new Object[]{status, ts});
+		return this.executeUpdate(this.getSQL("updated_timed_out_message_status"), new Object[]{status, ts, ownerId});
 	}    
-}
\ No newline at end of file
+}
\ No newline at end of file
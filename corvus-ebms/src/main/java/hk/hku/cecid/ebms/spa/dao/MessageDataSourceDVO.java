@@ -446,4 +446,28 @@ public class MessageDataSourceDVO extends DataSourceDVO implements MessageDVO {
     public String getPartnershipId() {
     	return super.getString("partnershipId");
     }
+
+    public String getOwnerId() {
+        return super.getString("ownerId");
+    }
+
+    public void setOwnerId(String ownerId) {
+        super.setString("ownerId", ownerId);
+    }
+
+    public String getClaimId() {
+        return super.getString("claimId");
+    }
+
+    public void setClaimId(String claimId) {
+        super.setString("claimId", claimId);
+    }
+
+    public Timestamp getLeaseTimestamp() {
+        return (Timestamp) super.getTimestamp("leaseTimestamp");
+    }
+
+    public void setLeaseTimestamp(Timestamp leaseTimestamp) {
+        super.put("leaseTimestamp", new NullableObject(leaseTimestamp, Types.TIMESTAMP));
+    }
 }
\ No newline at end of file
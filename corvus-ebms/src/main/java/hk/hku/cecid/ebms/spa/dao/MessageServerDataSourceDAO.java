@@ -9,6 +9,7 @@
 
 package hk.hku.cecid.ebms.spa.dao;
 
+import hk.hku.cecid.ebms.spa.EbmsProcessor;
 import hk.hku.cecid.ebms.spa.handler.MessageClassifier;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.DVO;
@@ -45,6 +46,7 @@ public class MessageServerDataSourceDAO extends DataSourceDAO implements
         };
 
         process.start();
+        wakeUpCollector(messageDVO);
     }
 
     /*public void storeInboxMessage(final MessageDVO messageDVO,
@@ -101,6 +103,25 @@ public class MessageServerDataSourceDAO extends DataSourceDAO implements
         };
 
         process.start();
+        wakeUpCollector(messageDVO);
+    }
+
+    /**
+     * Wakes up the inbox or outbox collector if the stored message is pending 
+     * to be processed.
+     * 
+     * @param msgDVO the stored message.
+     */
+    private void wakeUpCollector(MessageDVO msgDVO) {
+        if (!MessageClassifier.INTERNAL_STATUS_PENDING.equals(msgDVO.getStatus())) {
+            return;
+        }
+        if (MessageClassifier.MESSAGE_BOX_OUTBOX.equalsIgnoreCase(msgDVO.getMessageBox())) {
+            EbmsProcessor.wakeUpActiveModule(EbmsProcessor.ACTIVE_MODULE_OUTBOX_COLLECTOR);
+        }
+        else if (MessageClassifier.MESSAGE_BOX_INBOX.equalsIgnoreCase(msgDVO.getMessageBox())) {
+            EbmsProcessor.wakeUpActiveModule(EbmsProcessor.ACTIVE_MODULE_INBOX_COLLECTOR);
+        }
     }
     
     private void setPartnershipId(MessageDVO msgDVO) throws DAOException {
@@ -11,6 +11,9 @@ package hk.hku.cecid.ebms.spa.dao;
 
 import hk.hku.cecid.piazza.commons.dao.DVO;
 
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
 /**
  * @author Donahue Sze
  * 
@@ -272,6 +275,15 @@ public interface PartnershipDVO extends DVO {
      * @see hk.hku.cecid.ebms.spa.dao.DeliveryChannelDVO#setServerCert(byte[])
      */public void setSignCert(byte[] signCert);
 
+    /**
+     * Gets the sign certificate parsed as an X.509 certificate. The parsed
+     * certificate is kept until the sign certificate is changed.
+     * 
+     * @return the sign certificate or null if there is none.
+     * @throws CertificateException if the sign certificate cannot be parsed.
+     */
+    public X509Certificate getSignX509Certificate() throws CertificateException;
+
     /*
      * (non-Javadoc)
      * 
@@ -11,6 +11,7 @@ package hk.hku.cecid.ebms.spa.dao;
 
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.DVO;
+import hk.hku.cecid.piazza.commons.dao.DVOCache;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
 
 import java.util.Iterator;
@@ -32,12 +33,45 @@ public class PartnershipDataSourceDAO extends DataSourceDAO implements
                 data.getCpaId(), data.getService(), data.getAction() });
     }
 
+    /**
+     * Finds the partnership by its CPA ID, service and action. The partnership
+     * found is kept in the DAO cache, if configured, with its sign certificate
+     * parsed, until any partnership is changed.
+     * 
+     * @param data the partnership with the CPA ID, service and action set.
+     * @return true if the partnership is found.
+     * @throws DAOException if unable to find the partnership.
+     */
     public boolean findPartnershipByCPA(PartnershipDVO data)
             throws DAOException {
+        DVOCache cache = getCache();
+        String key = data.getCpaId() + "/" + data.getService() + "/"
+                + data.getAction();
+        if (cache != null) {
+            PartnershipDataSourceDVO cached = (PartnershipDataSourceDVO) cache
+                    .get(key);
+            if (cached != null) {
+                ((PartnershipDataSourceDVO) data).copyFrom(cached);
+                return true;
+            }
+        }
+
         Iterator i = findPartnershipsByCPA(data).iterator();
         if (i.hasNext()) {
-            ((PartnershipDataSourceDVO) data)
-                    .setData(((PartnershipDataSourceDVO) i.next()).getData());
+            PartnershipDataSourceDVO found = (PartnershipDataSourceDVO) i.next();
+            if (cache != null) {
+                try {
+                    found.getSignX509Certificate();
+                }
+                catch (Exception e) {
+                    // the certificate will be parsed again by the user
+                }
+                cache.put(key, found);
+                ((PartnershipDataSourceDVO) data).copyFrom(found);
+            }
+            else {
+                ((PartnershipDataSourceDVO) data).setData(found.getData());
+            }
             return true;
         }
         return false;
@@ -11,6 +11,12 @@ package hk.hku.cecid.ebms.spa.dao;
 
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDVO;
 
+import java.io.ByteArrayInputStream;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Hashtable;
+
 /**
  * @author Donahue Sze
  * 
@@ -18,10 +24,34 @@ import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDVO;
 public class PartnershipDataSourceDVO extends DataSourceDVO implements
         PartnershipDVO {
 
+    private transient X509Certificate signX509Certificate;
+
+    private transient byte[] signX509CertificateBytes;
+
     public PartnershipDataSourceDVO() {
         super();
     }
 
+    /**
+     * Copies the data of the given partnership to this one. The parsed
+     * certificate of the given partnership, if any, is shared.
+     * 
+     * @param dvo the partnership to be copied.
+     */
+    void copyFrom(PartnershipDataSourceDVO dvo) {
+        X509Certificate cert;
+        byte[] certBytes;
+        synchronized (dvo) {
+            cert = dvo.signX509Certificate;
+            certBytes = dvo.signX509CertificateBytes;
+        }
+        synchronized (this) {
+            setData(new Hashtable(dvo.getData()));
+            signX509Certificate = cert;
+            signX509CertificateBytes = certBytes;
+        }
+    }
+
     /**
      * @param partnershipId The partnershipId to set.
      */
@@ -401,6 +431,24 @@ public class PartnershipDataSourceDVO extends DataSourceDVO implements
         super.put("signCert", signCert);
     }
 
+    /* (non-Javadoc)
+     * @see hk.hku.cecid.ebms.spa.dao.PartnershipDVO#getSignX509Certificate()
+     */
+    public synchronized X509Certificate getSignX509Certificate()
+            throws CertificateException {
+        byte[] signCert = getSignCert();
+        if (signCert == null) {
+            return null;
+        }
+        if (signX509Certificate == null || signX509CertificateBytes != signCert) {
+            signX509Certificate = (X509Certificate) CertificateFactory
+                    .getInstance("X.509").generateCertificate(
+                            new ByteArrayInputStream(signCert));
+            signX509CertificateBytes = signCert;
+        }
+        return signX509Certificate;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -12,6 +12,8 @@ package hk.hku.cecid.ebms.spa.dao;
 import hk.hku.cecid.piazza.commons.dao.DAO;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 
+import java.util.List;
+
 /**
  * @author Donahue Sze
  * 
@@ -24,4 +26,25 @@ public interface RepositoryDAO extends DAO {
     public boolean updateRepository(RepositoryDVO data) throws DAOException;
 
     public void deleteRepository(RepositoryDVO data) throws DAOException;
+
+    /**
+     * Deletes the given repositories in batches. The content kept in the 
+     * content store is removed after the deletion is committed.
+     * 
+     * @param data the repositories to be deleted.
+     * @return the number of repositories deleted.
+     * @throws DAOException if unable to delete the repositories.
+     */
+    public int deleteRepositories(List data) throws DAOException;
+
+    /**
+     * Moves the content of the repositories which are still kept in the 
+     * database to the configured content store.
+     * 
+     * @param maxRepositories the maximum number of repositories to be moved.
+     * @return the number of repositories moved, 0 if there is none left.
+     * @throws DAOException if there is no content store configured or 
+     *             unable to move the content.
+     */
+    public int moveContentToStore(int maxRepositories) throws DAOException;
 }
\ No newline at end of file
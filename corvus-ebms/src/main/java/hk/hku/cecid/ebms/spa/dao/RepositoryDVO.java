@@ -11,6 +11,7 @@ package hk.hku.cecid.ebms.spa.dao;
 
 import hk.hku.cecid.piazza.commons.dao.DVO;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Timestamp;
 
@@ -45,6 +46,26 @@ public interface RepositoryDVO extends DVO {
     
     public void setContent(InputStream is);
 
+    /**
+     * Gets the content as a stream, either from the database or from the 
+     * content store which holds it.
+     * 
+     * @return the content stream or null if there is no content.
+     * @throws IOException if unable to read the content from the store.
+     */
+    public InputStream getContentStream() throws IOException;
+
+    /**
+     * @return Returns the reference of the content in the content store, or 
+     *         null if the content is kept in the database.
+     */
+    public String getContentRef();
+
+    /**
+     * @param contentRef The content reference to set.
+     */
+    public void setContentRef(String contentRef);
+
     /**
      * @return Returns the timeStamp.
      */
@@ -9,11 +9,33 @@
 
 package hk.hku.cecid.ebms.spa.dao;
 
+import hk.hku.cecid.piazza.commons.dao.DAOFactory;
 import hk.hku.cecid.piazza.commons.dao.DVO;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
+import hk.hku.cecid.piazza.commons.dao.ds.DataSourceQueryHandler;
+import hk.hku.cecid.piazza.commons.dao.ds.DataSourceTransaction;
+import hk.hku.cecid.piazza.commons.io.ContentStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
 /**
+ * RepositoryDataSourceDAO keeps the message content in the repository table,
+ * or, if a content store is configured by the "content-store" parameter, in
+ * the content store with only its reference kept in the table. Repositories
+ * stored before the content store is configured remain readable and can be
+ * moved to the store by moveContentToStore().
+ * 
  * @author Donahue Sze
  * 
  * Window - Preferences - Java - Code Style - Code Templates
@@ -21,6 +43,8 @@ import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
 public class RepositoryDataSourceDAO extends DataSourceDAO implements
         RepositoryDAO {
 
+    private static final String PARAM_CONTENT_STORE = "content-store";
+
     /*
      * (non-Javadoc)
      * 
@@ -30,20 +54,259 @@ public class RepositoryDataSourceDAO extends DataSourceDAO implements
         return new RepositoryDataSourceDVO();
     }
 
+    /**
+     * Gets the content store configured for this DAO.
+     * 
+     * @return the content store or null if the content is kept in the 
+     *         database.
+     */
+    protected ContentStore getContentStore() {
+        Object store = getComponent(PARAM_CONTENT_STORE);
+        return store instanceof ContentStore ? (ContentStore) store : null;
+    }
+
     public boolean findRepository(RepositoryDVO data) throws DAOException {
-        return super.retrieve((RepositoryDataSourceDVO) data);
+        boolean isFound = super.retrieve((RepositoryDataSourceDVO) data);
+        ((RepositoryDataSourceDVO) data).setContentStore(getContentStore());
+        return isFound;
     }
 
     public void addRepository(RepositoryDVO data) throws DAOException {
-        super.create((RepositoryDataSourceDVO) data);
+        String contentRef = storeContent((RepositoryDataSourceDVO) data);
+        try {
+            super.create((RepositoryDataSourceDVO) data);
+        }
+        finally {
+            releaseContentAfterTransaction(contentRef);
+        }
     }
 
     public boolean updateRepository(RepositoryDVO data) throws DAOException {
-        return super.persist((RepositoryDataSourceDVO) data);
+        String contentRef = storeContent((RepositoryDataSourceDVO) data);
+        try {
+            return super.persist((RepositoryDataSourceDVO) data);
+        }
+        finally {
+            releaseContentAfterTransaction(contentRef);
+        }
     }
 
     public void deleteRepository(RepositoryDVO data) throws DAOException {
-        super.remove((RepositoryDataSourceDVO) data);
+        deleteRepositories(Collections.singletonList(data));
+    }
+
+    public int deleteRepositories(List data) throws DAOException {
+        Set contentRefs = new HashSet();
+        if (getContentStore() != null) {
+            for (int i = 0; i < data.size(); i += getBatchSize()) {
+                contentRefs.addAll(findContentRefs(data.subList(i, 
+                        Math.min(i + getBatchSize(), data.size()))));
+            }
+        }
+
+        int removed = super.removeAll(data);
+        removeContentAfterCommit(contentRefs);
+        return removed;
     }
 
-}
\ No newline at end of file
+    /**
+     * Finds the content references of the given repositories in one query.
+     * 
+     * @param data the repositories.
+     * @return the references of the content kept in the content store.
+     * @throws DAOException if unable to find the references.
+     */
+    private Set findContentRefs(List data) throws DAOException {
+        Set keys = new HashSet();
+        Object[] messageIds = new Object[data.size()];
+        String questionToken = "";
+        for (int i = 0; i < messageIds.length; i++) {
+            RepositoryDVO dvo = (RepositoryDVO) data.get(i);
+            keys.add(Arrays.asList(new Object[] { dvo.getMessageId(), 
+                    dvo.getMessageBox() }));
+            messageIds[i] = dvo.getMessageId();
+            questionToken += i == 0 ? "?" : ",?";
+        }
+        String sql = getFinder("find_content_refs") + " and "
+                + getFilter("find_content_refs_filter").replace("?", questionToken);
+
+        // the same message ID may be kept in both message boxes
+        Set contentRefs = new HashSet();
+        Iterator found = executeQuery(sql, messageIds).iterator();
+        while (found.hasNext()) {
+            RepositoryDVO dvo = (RepositoryDVO) found.next();
+            if (keys.contains(Arrays.asList(new Object[] { dvo.getMessageId(), 
+                    dvo.getMessageBox() }))) {
+                contentRefs.add(dvo.getContentRef());
+            }
+        }
+        return contentRefs;
+    }
+
+    /**
+     * Removes the given content from the content store once the removal of
+     * the repositories is committed, or immediately if this DAO is not under
+     * a transaction. Nothing is removed if the transaction is rolled back.
+     * 
+     * @param contentRefs the references of the content to be removed.
+     * @throws DAOException if unable to remove the content.
+     */
+    private void removeContentAfterCommit(final Collection contentRefs)
+            throws DAOException {
+        if (contentRefs.isEmpty()) {
+            return;
+        }
+        DataSourceTransaction tx = getTransaction(false);
+        if (tx == null) {
+            removeUnreferencedContent(contentRefs);
+        }
+        else {
+            final DAOFactory factory = getFactory();
+            tx.addCommitAction(new Runnable() {
+                public void run() {
+                    try {
+                        // this DAO may still be bound to the ended transaction
+                        ((RepositoryDataSourceDAO) factory
+                                .createDAO(RepositoryDAO.class))
+                                .removeUnreferencedContent(contentRefs);
+                    }
+                    catch (DAOException e) {
+                        // the content left behind is an orphan and does no harm
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Releases the given content held by storing it once the transaction of 
+     * this DAO has ended, or immediately if this DAO is not under a 
+     * transaction. Until then, the content is not removed by a concurrent 
+     * removal of another repository which refers to identical content.
+     * 
+     * @param contentRef the reference of the content, or null if nothing is 
+     *            held.
+     * @throws DAOException if unable to get the transaction of this DAO.
+     */
+    private void releaseContentAfterTransaction(final String contentRef)
+            throws DAOException {
+        final ContentStore store = getContentStore();
+        if (store != null && contentRef != null) {
+            runAfterTransaction(new Runnable() {
+                public void run() {
+                    store.release(contentRef);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes the given content from the content store. Identical content is 
+     * stored once, so it is removed only when no repository refers to it, 
+     * and the store keeps it if another repository is storing it.
+     * 
+     * @param contentRefs the references of the content to be removed.
+     * @throws DAOException if unable to find the repositories referring to 
+     *             the content.
+     */
+    void removeUnreferencedContent(Collection contentRefs) throws DAOException {
+        ContentStore store = getContentStore();
+        Iterator refs = contentRefs.iterator();
+        while (store != null && refs.hasNext()) {
+            String contentRef = (String) refs.next();
+            if (super.find("find_repositories_by_content_ref",
+                    new Object[] { contentRef }).size() == 0) {
+                try {
+                    store.remove(contentRef);
+                }
+                catch (IOException e) {
+                    // the content left behind is an orphan and does no harm
+                }
+            }
+        }
+    }
+
+    public int moveContentToStore(final int maxRepositories) throws DAOException {
+        final ContentStore store = getContentStore();
+        if (store == null) {
+            throw new DAOException("No content store configured");
+        }
+
+        // The rows are updated after the query has completed so that the 
+        // update does not contend with the open result set.
+        final List params = new ArrayList();
+        try {
+            super.find("find_repositories_without_content_ref", null, 
+                    new DataSourceQueryHandler() {
+                public boolean handle(DVO data) throws DAOException {
+                    RepositoryDataSourceDVO dvo = (RepositoryDataSourceDVO) data;
+                    String contentRef = storeContent(store, dvo.get("content"));
+                    params.add(new Object[] { contentRef, dvo.getMessageId(),
+                            dvo.getMessageBox() });
+                    return params.size() < maxRepositories;
+                }
+
+                public boolean isLazyBlob() {
+                    return true;
+                }
+            });
+
+            if (params.size() > 0) {
+                executeBatchUpdate(null, getSQL("update_content_ref"),
+                        (Object[][]) params.toArray(new Object[][] {}));
+            }
+            return params.size();
+        }
+        finally {
+            Iterator i = params.iterator();
+            while (i.hasNext()) {
+                store.release((String) ((Object[]) i.next())[0]);
+            }
+        }
+    }
+
+    /**
+     * Moves the content of the given repository to the content store, if 
+     * configured, and replaces it with its reference. The reference is held 
+     * until it is released.
+     * 
+     * @param data the repository.
+     * @return the reference of the stored content, or null if nothing is 
+     *         stored.
+     * @throws DAOException if unable to store the content.
+     * @see #releaseContentAfterTransaction(String)
+     */
+    private String storeContent(RepositoryDataSourceDVO data) throws DAOException {
+        ContentStore store = getContentStore();
+        Object content = data.get("content");
+        String contentRef = null;
+        if (store != null && content != null) {
+            contentRef = storeContent(store, content);
+            data.setContentRef(contentRef);
+            data.setContent((byte[]) null);
+        }
+        data.setContentStore(store);
+        return contentRef;
+    }
+
+    /**
+     * Stores the given content, either a byte array or a stream, to the 
+     * content store and holds its reference.
+     * 
+     * @param store the content store.
+     * @param content the content.
+     * @return the reference of the stored content.
+     * @throws DAOException if unable to store the content.
+     */
+    private String storeContent(ContentStore store, Object content) 
+            throws DAOException {
+        try {
+            InputStream ins = content instanceof byte[] ? new ByteArrayInputStream(
+                    (byte[]) content) : (InputStream) content;
+            return store.store(ins, true);
+        }
+        catch (IOException e) {
+            throw new DAOException("Unable to store repository content", e);
+        }
+    }
+}
@@ -11,7 +11,11 @@ package hk.hku.cecid.ebms.spa.dao;
 
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDVO;
 import hk.hku.cecid.piazza.commons.dao.ds.NullableObject;
+import hk.hku.cecid.piazza.commons.io.ContentStore;
+import hk.hku.cecid.piazza.commons.io.IOHandler;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -25,10 +29,22 @@ import java.sql.Types;
 public class RepositoryDataSourceDVO extends DataSourceDVO implements
         RepositoryDVO {
 
+    private transient ContentStore contentStore;
+
     public RepositoryDataSourceDVO() {
         super();
     }
 
+    /**
+     * Sets the content store from which the content referenced by this 
+     * repository should be read.
+     * 
+     * @param contentStore the content store.
+     */
+    void setContentStore(ContentStore contentStore) {
+        this.contentStore = contentStore;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -61,9 +77,56 @@ public class RepositoryDataSourceDVO extends DataSourceDVO implements
      * @see hk.hku.cecid.ebms.spa.dao.RepositoryDVO#getContent()
      */
     public byte[] getContent() {
-    	return (byte[])super.get("content");
+        Object content = super.get("content");
+        if (content == null && getContentRef() != null) {
+            try {
+                InputStream ins = getContentStream();
+                try {
+                    return IOHandler.readBytes(ins);
+                }
+                finally {
+                    ins.close();
+                }
+            }
+            catch (IOException e) {
+                throw new RuntimeException("Unable to read content " 
+                        + getContentRef() + " from content store", e);
+            }
+        }
+    	return (byte[])content;
     }    
 
+    /* (non-Javadoc)
+     * @see hk.hku.cecid.ebms.spa.dao.RepositoryDVO#getContentStream()
+     */
+    public InputStream getContentStream() throws IOException {
+        Object content = super.get("content");
+        if (content instanceof byte[]) {
+            return new ByteArrayInputStream((byte[]) content);
+        }
+        else if (content instanceof InputStream) {
+            return (InputStream) content;
+        }
+        else if (getContentRef() != null) {
+            if (contentStore == null) {
+                throw new IOException("No content store for content " 
+                        + getContentRef());
+            }
+            return contentStore.retrieve(getContentRef());
+        }
+        else {
+            return null;
+        }
+    }
+
+    public String getContentRef() {
+        return super.getString("contentRef");
+    }
+
+    public void setContentRef(String contentRef) {
+        super.setString("contentRef", contentRef);
+    }
+
     /*
      * (non-Javadoc)
      * 
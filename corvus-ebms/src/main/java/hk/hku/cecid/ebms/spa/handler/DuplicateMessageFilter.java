@@ -0,0 +1,244 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.ebms.spa.handler;
+
+import hk.hku.cecid.ebms.spa.EbmsProcessor;
+import hk.hku.cecid.ebms.spa.dao.MessageDAO;
+import hk.hku.cecid.piazza.commons.dao.DAOException;
+import hk.hku.cecid.piazza.commons.util.BloomFilter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The duplicate message filter keeps the IDs of the inbox messages in a bloom
+ * filter so that most of the new messages are recognized without querying
+ * the database. The database is queried only when the filter reports that a
+ * message may have been received, or before the filter has been loaded.
+ * <p>
+ * The filter is loaded from the database in the background and is rebuilt
+ * with a larger capacity once it is saturated. If the first load fails, it
+ * is retried with an increasing delay. The IDs which arrive during a rebuild
+ * are recorded and added to the new filter before it is swapped in, together
+ * with the IDs which have been checked but whose messages may not have been
+ * stored yet when the inbox was read. A checked ID is tracked until it is
+ * released by {@link #release(String)}.
+ */
+public class DuplicateMessageFilter {
+
+    private static DuplicateMessageFilter duplicateMessageFilter = new DuplicateMessageFilter();
+
+    private static final long MAX_RETRY_DELAY = 300000;
+
+    private int capacity = 1000000;
+
+    private double falsePositiveRate = 0.01;
+
+    private BloomFilter filter;
+
+    private List pending;
+
+    private final List unreleased = new ArrayList();
+
+    // the delay before the first failed load is retried, doubled each time
+    long retryDelay = 1000;
+
+    public static DuplicateMessageFilter getInstance() {
+        return duplicateMessageFilter;
+    }
+
+    DuplicateMessageFilter() {
+    }
+
+    /**
+     * Sets the initial expected number of inbox messages.
+     *
+     * @param capacity the expected number of inbox messages.
+     */
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the expected number of inbox messages of the filter.
+     *
+     * @return the expected number of inbox messages.
+     */
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the probability that a new message has to be checked against the
+     * database.
+     *
+     * @param falsePositiveRate the false positive probability.
+     */
+    public synchronized void setFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Checks whether the filter has been loaded from the database.
+     *
+     * @return true if the filter has been loaded.
+     */
+    public synchronized boolean isLoaded() {
+        return filter != null;
+    }
+
+    /**
+     * Checks whether a message has already been received and records its ID.
+     * The ID of a new message is tracked until it is released by
+     * {@link #release(String)} after the message has been stored.
+     *
+     * @param dao the message DAO for checking the inbox.
+     * @param messageId the message ID.
+     * @return true if the message exists in the inbox.
+     * @throws DAOException if the inbox cannot be checked.
+     */
+    public boolean isDuplicate(MessageDAO dao, String messageId)
+            throws DAOException {
+        BloomFilter current;
+        synchronized (this) {
+            current = filter;
+        }
+        boolean isDuplicate = false;
+        if (current == null || current.mightContain(messageId)) {
+            isDuplicate = dao.findInboxMessageExistence(messageId);
+        }
+        if (!isDuplicate) {
+            add(dao, messageId);
+        }
+        return isDuplicate;
+    }
+
+    private void add(MessageDAO dao, String messageId) {
+        boolean isSaturated = false;
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(messageId);
+            }
+            unreleased.add(messageId);
+            if (filter != null) {
+                filter.add(messageId);
+                isSaturated = pending == null && filter.isSaturated();
+            }
+        }
+        if (isSaturated) {
+            startRebuild(dao);
+        }
+    }
+
+    /**
+     * Releases the ID of a new message checked by
+     * {@link #isDuplicate(MessageDAO, String)} once the message has been
+     * stored and committed, or will not be stored.
+     *
+     * @param messageId the message ID.
+     */
+    public synchronized void release(String messageId) {
+        if (unreleased.remove(messageId) && pending != null) {
+            // the inbox may have been read before the message was stored
+            pending.add(messageId);
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the database in a background thread. The
+     * first load is retried until it succeeds.
+     *
+     * @param dao the message DAO for loading the inbox message IDs.
+     */
+    public void startRebuild(final MessageDAO dao) {
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList();
+        }
+        Thread thread = new Thread("ebms-duplicate-filter") {
+            public void run() {
+                long delay = retryDelay;
+                while (true) {
+                    try {
+                        rebuild(dao);
+                        return;
+                    } catch (Throwable e) {
+                        if (EbmsProcessor.core != null) {
+                            EbmsProcessor.core.log.error(
+                                    "Error in loading the duplicate message filter", e);
+                        }
+                    }
+                    synchronized (DuplicateMessageFilter.this) {
+                        if (filter != null || pending != null) {
+                            return;
+                        }
+                        pending = new ArrayList();
+                    }
+                    try {
+                        Thread.sleep(delay);
+                    } catch (InterruptedException e) {
+                        synchronized (DuplicateMessageFilter.this) {
+                            pending = null;
+                        }
+                        return;
+                    }
+                    delay = Math.min(delay * 2, MAX_RETRY_DELAY);
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Rebuilds the filter from the database. The capacity of the new filter
+     * is at least twice the number of the inbox messages.
+     *
+     * @param dao the message DAO for loading the inbox message IDs.
+     * @throws DAOException if the inbox message IDs cannot be loaded.
+     */
+    public void rebuild(MessageDAO dao) throws DAOException {
+        synchronized (this) {
+            if (pending == null) {
+                pending = new ArrayList();
+            }
+        }
+        try {
+            List messageIds = dao.findInboxMessageIds();
+            BloomFilter rebuilt;
+            synchronized (this) {
+                capacity = Math.max(capacity, messageIds.size() * 2);
+                rebuilt = new BloomFilter(capacity, falsePositiveRate);
+            }
+            Iterator i = messageIds.iterator();
+            while (i.hasNext()) {
+                rebuilt.add((String) i.next());
+            }
+            synchronized (this) {
+                i = pending.iterator();
+                while (i.hasNext()) {
+                    rebuilt.add((String) i.next());
+                }
+                i = unreleased.iterator();
+                while (i.hasNext()) {
+                    rebuilt.add((String) i.next());
+                }
+                filter = rebuilt;
+            }
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+    }
+}
@@ -24,11 +24,11 @@ import hk.hku.cecid.ebms.spa.dao.RepositoryDAO;
 import hk.hku.cecid.ebms.spa.dao.RepositoryDVO;
 import hk.hku.cecid.ebms.spa.task.MessageValidationException;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
+import hk.hku.cecid.piazza.commons.io.DirectByteArrayOutputStream;
 import hk.hku.cecid.piazza.commons.util.DataFormatter;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Timestamp;
 import java.util.Iterator;
 import java.util.Date;
@@ -93,7 +93,9 @@ public class EbxmlMessageDAOConvertor {
 
     private Timestamp currentTime;
 
-    private ByteArrayInputStream contentStream;
+    private DirectByteArrayOutputStream ebxmlMessageByteStream;
+
+    private InputStream contentStream;
 
     private String contentType;
 
@@ -227,8 +229,8 @@ public class EbxmlMessageDAOConvertor {
         }        	 
 
         // content
-        byte[] contentBytes = ebxmlMessage.getBytes();
-        contentStream = new ByteArrayInputStream(contentBytes);
+        contentStream = ebxmlMessageByteStream.toInputStream();
+        ebxmlMessageByteStream = null;
 
         contentType = ebxmlMessage.getSOAPMessage().getMimeHeaders().getHeader(
                 "Content-Type")[0];
@@ -329,11 +331,9 @@ public class EbxmlMessageDAOConvertor {
     private void setEbxmlMessageByteStream(EbxmlMessage ebxmlMessage)
             throws MessageServiceHandlerException {
         try {
-            ByteArrayOutputStream ebxmlMessageByteStream = new ByteArrayOutputStream();
+            // the serialized message is read back without copying
+            ebxmlMessageByteStream = new DirectByteArrayOutputStream(8192);
             ebxmlMessage.getSOAPMessage().writeTo(ebxmlMessageByteStream);
-            ebxmlMessage.setBytes(ebxmlMessageByteStream.toByteArray());
-            ebxmlMessageByteStream.close();
-            ebxmlMessageByteStream = null;
         } catch (SOAPException e1) {
             throw new MessageServiceHandlerException(
                     "Error in setting ebxml message byte stream", e1);
@@ -354,17 +354,19 @@ public class EbxmlMessageDAOConvertor {
             repositoryDVO.setMessageId(messageId);
             repositoryDVO.setMessageBox(messageBox);
             repositoryDAO.findRepository(repositoryDVO);
-            byte[] content = repositoryDVO.getContent();
             String contentType = repositoryDVO.getContentType();
 
             // reconstruct the ebxml message
             MimeHeaders mimeHeaders = new MimeHeaders();
             mimeHeaders.setHeader("Content-Type", contentType);
-            SOAPMessage soapMessage = MessageFactory.newInstance()
-                    .createMessage(mimeHeaders,
-                            new ByteArrayInputStream(content));
-
-            return new EbxmlMessage(soapMessage);
+            InputStream content = repositoryDVO.getContentStream();
+            try {
+                SOAPMessage soapMessage = MessageFactory.newInstance()
+                        .createMessage(mimeHeaders, content);
+                return new EbxmlMessage(soapMessage);
+            } finally {
+                content.close();
+            }
         } catch (Exception e) {
             throw new MessageValidationException(
                     "Cannot reconstruct the message " + messageId
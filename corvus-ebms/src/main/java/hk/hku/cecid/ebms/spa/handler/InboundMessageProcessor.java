@@ -27,11 +27,10 @@ import hk.hku.cecid.ebms.spa.dao.RepositoryDVO;
 import hk.hku.cecid.ebms.spa.listener.EbmsRequest;
 import hk.hku.cecid.ebms.spa.listener.EbmsResponse;
 import hk.hku.cecid.ebms.spa.task.AgreementHandler;
+import hk.hku.cecid.ebms.spa.task.MessageSequencer;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.soap.SOAPRequest;
 
-import java.io.ByteArrayInputStream;
-import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -190,6 +189,31 @@ public class InboundMessageProcessor {
             return;
         }
 
+        try {
+            processNewMessage(ebxmlRequestMessage, response,
+                    messageClassifier, contentType);
+        } finally {
+            // the message has been stored, or will not be stored, by now
+            DuplicateMessageFilter.getInstance().release(
+                    ebxmlRequestMessage.getMessageId());
+        }
+    }
+
+    /**
+     * @param ebxmlRequestMessage
+     * @param response
+     * @param messageClassifier
+     * @param contentType
+     * @throws MessageServiceHandlerException
+     */
+    private void processNewMessage(EbxmlMessage ebxmlRequestMessage,
+            EbmsResponse response, MessageClassifier messageClassifier,
+            String contentType) throws MessageServiceHandlerException {
+
+        String messageType = messageClassifier.getMessageType();
+        boolean isSync = messageClassifier.isSync();
+        EbxmlMessage ebxmlResponseMessage = null;
+
         // check time to live
         boolean isExpired = checkExpiredMessage(ebxmlRequestMessage);
         if (isExpired) {
@@ -450,6 +474,8 @@ public class InboundMessageProcessor {
                     messageDVO
                             .setStatus(MessageClassifier.INTERNAL_STATUS_PENDING);
                     messageDAO.updateMessage(messageDVO);
+                    EbmsProcessor.wakeUpActiveModule(
+                            EbmsProcessor.ACTIVE_MODULE_OUTBOX_COLLECTOR);
                 }
             } else {
                 // acknowledgement missing (internal error) or
@@ -938,13 +964,39 @@ public class InboundMessageProcessor {
         return ebxmlResponseMessage;
     }
 
+    /**
+     * Processes the ordered message while holding the lock of its
+     * conversation, so that the ordered messages of other conversations
+     * are not blocked.
+     * 
+     * @param ebxmlRequestMessage
+     * @param ebxmlResponseMessage
+     * @return
+     * @throws MessageServiceHandlerException
+     */
+    private EbxmlMessage processMessageOrderMessage(
+            EbxmlMessage ebxmlRequestMessage, boolean isSync,
+            MessageClassifier messageClassifier, String messageType,
+            String contentType)
+            throws MessageServiceHandlerException {
+        Object lock = MessageSequencer.getInstance().getLock(
+                ebxmlRequestMessage.getCpaId(),
+                ebxmlRequestMessage.getService(),
+                ebxmlRequestMessage.getAction(),
+                ebxmlRequestMessage.getConversationId());
+        synchronized (lock) {
+            return processSequencedMessage(ebxmlRequestMessage, isSync,
+                    messageClassifier, messageType, contentType);
+        }
+    }
+
     /**
      * @param ebxmlRequestMessage
      * @param ebxmlResponseMessage
      * @return
      * @throws MessageServiceHandlerException
      */
-    private synchronized EbxmlMessage processMessageOrderMessage(
+    private EbxmlMessage processSequencedMessage(
             EbxmlMessage ebxmlRequestMessage, boolean isSync,
             MessageClassifier messageClassifier, String messageType,
             String contentType)
@@ -1501,14 +1553,8 @@ public class InboundMessageProcessor {
 
             partnershipDAO.findPartnershipByCPA(partnershipDVO);
 
-            if (partnershipDVO.getSignCert() != null) {
-                ByteArrayInputStream bais = new ByteArrayInputStream(
-                        partnershipDVO.getSignCert());
-                CertificateFactory cf = CertificateFactory.getInstance("X.509");
-                senderCert = (X509Certificate) cf.generateCertificate(bais);
-                bais.close();
-                bais = null;
-            } else {
+            senderCert = partnershipDVO.getSignX509Certificate();
+            if (senderCert == null) {
                 EbmsProcessor.core.log.error("Please upload the certificate");
                 throw new RuntimeException("Please upload the certificate");
             }
@@ -1530,10 +1576,8 @@ public class InboundMessageProcessor {
         try {
             MessageDAO messageDAO = (MessageDAO) EbmsProcessor.core.dao
                     .createDAO(MessageDAO.class);
-            MessageDVO messageDVO = (MessageDVO) messageDAO.createDVO();
-            messageDVO.setMessageId(ebxmlRequestMessage.getMessageId());
-            messageDVO.setMessageBox(MessageClassifier.MESSAGE_BOX_INBOX);
-            return messageDAO.findMessage(messageDVO);
+            return DuplicateMessageFilter.getInstance().isDuplicate(
+                    messageDAO, ebxmlRequestMessage.getMessageId());
         } catch (DAOException e) {
             EbmsProcessor.core.log.error(
                     "Error in checking duplicate message: "
@@ -13,11 +13,14 @@ import hk.hku.cecid.ebms.pkg.EbxmlMessage;
 import hk.hku.cecid.ebms.pkg.SignatureException;
 import hk.hku.cecid.ebms.pkg.SignatureHandler;
 import hk.hku.cecid.ebms.spa.EbmsProcessor;
+import hk.hku.cecid.ebms.spa.dao.MessageDAO;
 import hk.hku.cecid.ebms.spa.listener.EbmsRequest;
 import hk.hku.cecid.ebms.spa.listener.EbmsResponse;
+import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.module.ActiveModule;
 import hk.hku.cecid.piazza.commons.security.KeyStoreManagementException;
 import hk.hku.cecid.piazza.commons.security.KeyStoreTrustManager;
+import hk.hku.cecid.piazza.commons.util.StringUtilities;
 
 import java.security.cert.Certificate;
 import java.util.Properties;
@@ -131,6 +134,12 @@ public class MessageServiceHandler {
 
     private String XPATH_SIGN_HEADER_ONLY = "/ebms/sign_header_only";
 
+    private String XPATH_DUPLICATE_FILTER = "/ebms/duplicate_filter";
+
+    private String XPATH_CAPACITY = "/capacity";
+
+    private String XPATH_FALSE_POSITIVE_RATE = "/false_positive_rate";
+
     public String INBOX = "inbox";
 
     public String OUTBOX = "outbox";
@@ -247,6 +256,35 @@ public class MessageServiceHandler {
                 isSignHeaderOnly = true;
             }
         }
+
+        // duplicate message filter
+        DuplicateMessageFilter duplicateFilter = DuplicateMessageFilter
+                .getInstance();
+        String capacity = EbmsProcessor.core.properties
+                .getProperty(XPATH_DUPLICATE_FILTER + XPATH_CAPACITY);
+        if (capacity != null && !capacity.trim().equals("")) {
+            duplicateFilter.setCapacity(StringUtilities.parseInt(capacity
+                    .trim(), 1000000));
+        }
+        String falsePositiveRate = EbmsProcessor.core.properties
+                .getProperty(XPATH_DUPLICATE_FILTER + XPATH_FALSE_POSITIVE_RATE);
+        if (falsePositiveRate != null && !falsePositiveRate.trim().equals("")) {
+            try {
+                duplicateFilter.setFalsePositiveRate(Double
+                        .parseDouble(falsePositiveRate.trim()));
+            } catch (NumberFormatException e) {
+                EbmsProcessor.core.log.warn(
+                        "Invalid duplicate filter false positive rate: "
+                                + falsePositiveRate);
+            }
+        }
+        try {
+            duplicateFilter.startRebuild((MessageDAO) EbmsProcessor.core.dao
+                    .createDAO(MessageDAO.class));
+        } catch (DAOException e) {
+            EbmsProcessor.core.log.error(
+                    "Error in loading the duplicate message filter", e);
+        }
     }
 
     static boolean messageServiceHandler_initFlag = false;
@@ -32,7 +32,10 @@ public abstract class EbmsAdaptor extends SOAPHttpAdaptor {
         try {
             EbxmlMessage ebxmlRequestMessage = new EbxmlMessage(soapRequest
                     .getMessage());
-            ebxmlRequestMessage.setBytes(soapRequest.getBytes());
+            // a spooled request is not loaded back into memory
+            if (!soapRequest.isSpooled()) {
+                ebxmlRequestMessage.setBytes(soapRequest.getBytes());
+            }
             
             EbmsRequest ebmsRequest = new EbmsRequest(soapRequest);
             ebmsRequest.setMessage(ebxmlRequestMessage);
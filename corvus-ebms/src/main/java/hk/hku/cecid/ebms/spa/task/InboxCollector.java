@@ -15,9 +15,11 @@ import hk.hku.cecid.ebms.spa.dao.MessageDAO;
 import hk.hku.cecid.ebms.spa.dao.MessageDVO;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.module.ActiveTaskList;
+import hk.hku.cecid.piazza.commons.util.StringUtilities;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Properties;
 import java.util.Vector;
 
 /**
@@ -26,6 +28,28 @@ import java.util.Vector;
  */
 public class InboxCollector extends ActiveTaskList {
 
+    /**
+     * Initializes this collector by the following parameters:
+     * 
+     * <ul>
+     *   <li>reorder-buffer-size: the maximum number of out-of-order messages
+     *       held in memory for each ordered conversation. Default is 100.
+     *   <li>max-conversations: the maximum number of ordered conversations
+     *       whose sequence state is kept in memory. Default is 1000.
+     * </ul>
+     * 
+     * @see hk.hku.cecid.piazza.commons.module.Component#init()
+     */
+    protected void init() throws Exception {
+        super.init();
+        Properties params = getParameters();
+        MessageSequencer sequencer = MessageSequencer.getInstance();
+        sequencer.setMaxReorderSize(StringUtilities.parseInt(params
+                .getProperty("reorder-buffer-size"), 100));
+        sequencer.setMaxConversations(StringUtilities.parseInt(params
+                .getProperty("max-conversations"), 1000));
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -36,6 +60,9 @@ public class InboxCollector extends ActiveTaskList {
         try {
             MessageDAO dao = (MessageDAO) EbmsProcessor.core.dao
                     .createDAO(MessageDAO.class);
+            InboxDAO inboxDAO = (InboxDAO) EbmsProcessor.core.dao
+                    .createDAO(InboxDAO.class);
+            MessageSequencer sequencer = MessageSequencer.getInstance();
 
             // get all the pending message and sort by sequence number
             MessageDVO finderDVO = (MessageDVO) dao.createDVO();
@@ -46,27 +73,31 @@ public class InboxCollector extends ActiveTaskList {
             while (i.hasNext()) {
                 MessageDVO message = (MessageDVO) i.next();
                 if (message.getSequenceNo() != -1) {
-                    // use cpa to find max seq which is in processing
-                    MessageDVO findMaxSequenceNoDVO = (MessageDVO) dao
-                            .createDVO();
-                    findMaxSequenceNoDVO.setCpaId(message.getCpaId());
-                    findMaxSequenceNoDVO.setService(message.getService());
-                    findMaxSequenceNoDVO.setAction(message.getAction());
-                    findMaxSequenceNoDVO.setConvId(message.getConvId());
-
-                    int currentSequenceNumber = dao.findInboxReadyMaxSequenceNoByCpa(findMaxSequenceNoDVO);
-                    
-                    if (message.getSequenceNo() == (currentSequenceNumber + 1)
-                            || message.getSequenceNo() == 0) {
-                        // if the sequence number is continue or 0, add to the list
-                        currentSequenceNumber = message.getSequenceNo();
-                        
-                        InboxDAO inboxDAO = (InboxDAO) EbmsProcessor.core.dao.createDAO(InboxDAO.class);
-                        InboxTask inboxTask = new InboxTask(message, inboxDAO.findInboxNextOrderNo());
-                        messageList.add(inboxTask);
+                    // the messages released in sequence are stored one by one
+                    // by a single task
+                    InboxTask firstTask = null;
+                    InboxTask lastTask = null;
+                    try {
+                        Iterator ready = sequencer.offer(dao, message).iterator();
+                        while (ready.hasNext()) {
+                            InboxTask inboxTask = new InboxTask(
+                                    (MessageDVO) ready.next(), inboxDAO.findInboxNextOrderNo());
+                            if (firstTask == null) {
+                                firstTask = inboxTask;
+                            } else {
+                                lastTask.setNext(inboxTask);
+                            }
+                            lastTask = inboxTask;
+                        }
+                    } catch (DAOException e) {
+                        // the released messages are not delivered
+                        sequencer.reset(message);
+                        throw e;
+                    }
+                    if (firstTask != null) {
+                        messageList.add(firstTask);
                     }
                 } else {
-                    InboxDAO inboxDAO = (InboxDAO) EbmsProcessor.core.dao.createDAO(InboxDAO.class);
                     InboxTask inboxTask = new InboxTask(message, inboxDAO.findInboxNextOrderNo());
                     messageList.add(inboxTask);
                 }
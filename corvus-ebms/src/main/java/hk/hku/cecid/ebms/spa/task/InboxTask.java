@@ -31,17 +31,43 @@ public class InboxTask implements ActiveTask {
 
     private long nextOrderNo;
 
+    private InboxTask next;
+
     public InboxTask(MessageDVO message, long nextOrderNo) {
         this.message = message;
         this.nextOrderNo = nextOrderNo;
     }
 
+    /**
+     * Sets the task of the next ordered message which is executed after 
+     * this task succeeds.
+     * 
+     * @param next the task of the next ordered message.
+     */
+    void setNext(InboxTask next) {
+        this.next = next;
+    }
+
     /*
      * (non-Javadoc)
      * 
      * @see hk.hku.cecid.piazza.commons.module.ActiveTask#execute()
      */
     public void execute() throws Exception {
+        store();
+        // the following ordered messages are stored only if the previous 
+        // one is stored
+        for (InboxTask task = next; task != null; task = task.next) {
+            try {
+                task.store();
+            } catch (Exception e) {
+                task.onFailure(e);
+                break;
+            }
+        }
+    }
+
+    private void store() throws Exception {
         try {
             MessageDAO messageDAO = (MessageDAO) EbmsProcessor.core.dao
                     .createDAO(MessageDAO.class);
@@ -135,6 +161,10 @@ public class InboxTask implements ActiveTask {
      * @see hk.hku.cecid.piazza.commons.module.ActiveTask#onFailure(java.lang.Throwable)
      */
     public void onFailure(Throwable arg0) {
+        if (message.getSequenceNo() != -1) {
+            // the sequence is reloaded from the database
+            MessageSequencer.getInstance().reset(message);
+        }
         try {
             EbmsProcessor.core.log.error(
                     "Exception when store the msg to inbox", arg0);
@@ -5,6 +5,7 @@ import java.util.Date;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.module.ActiveModule;
 import hk.hku.cecid.piazza.commons.module.ModuleException;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 
 import hk.hku.cecid.ebms.spa.EbmsProcessor;
 import hk.hku.cecid.ebms.spa.dao.MessageDAO;
@@ -69,7 +70,11 @@ public class MessageMonitor extends ActiveModule {
 	/**
 	 * The method is invoked constantly with interval defined in the configuration
 	 * descriptor or 60 second by default. It update the status of all timed-out message 
-	 * to PENDING so that they can be re-sending by Outbox Collector.
+	 * owned by this node to PENDING so that they can be re-sending by Outbox Collector.<br/><br/>
+	 * 
+	 * It also renews the leases of the processing messages owned by this node and 
+	 * releases the processing messages whose lease has expired, i.e. the owner node 
+	 * has failed, to PENDING so that they can be taken over by any node.
 	 * 
 	 * @see hk.hku.cecid.ebms.spa.task.OutboxCollector 
 	 * @see hk.hku.cecid.ebms.spa.task.OutboxTask
@@ -81,12 +86,27 @@ public class MessageMonitor extends ActiveModule {
 		if (!this.initialized)
 			 this.initialize();
 		
+		try{
+			msgDAO.renewOutboxLeases(ClusterNode.getId());
+			
+			int numberOfExpiredMessage = msgDAO.releaseExpiredOutboxLeases(new Date());
+			
+			if (numberOfExpiredMessage > 0) {
+				EbmsProcessor.core.log.info ( numberOfExpiredMessage + " message(s) of failed node has been released for re-sending.");
+				EbmsProcessor.wakeUpActiveModule(EbmsProcessor.ACTIVE_MODULE_OUTBOX_COLLECTOR);
+			}
+		}catch(DAOException daoe){
+			EbmsProcessor.core.log.error("Unable to maintain the leases of processing message.", daoe);
+		}
+		
 		try{ 
 			int numberOfTimedoutMessage = msgDAO.updateTimedOutMessageStatus(
-				MessageClassifier.INTERNAL_STATUS_PENDING, new Date());
+				MessageClassifier.INTERNAL_STATUS_PENDING, ClusterNode.getId(), new Date());
 
-			if (numberOfTimedoutMessage > 0)
+			if (numberOfTimedoutMessage > 0) {
 				EbmsProcessor.core.log.info ( numberOfTimedoutMessage + " message(s) has been marked re-sending.");
+				EbmsProcessor.wakeUpActiveModule(EbmsProcessor.ACTIVE_MODULE_OUTBOX_COLLECTOR);
+			}
 			
 		}catch(DAOException daoe){
 			EbmsProcessor.core.log.fatal("Unable to mark re-send for timed-out message.", daoe);
@@ -0,0 +1,177 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.ebms.spa.task;
+
+import hk.hku.cecid.ebms.spa.dao.MessageDAO;
+import hk.hku.cecid.ebms.spa.dao.MessageDVO;
+import hk.hku.cecid.piazza.commons.dao.DAOException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The message sequencer keeps the expected sequence number of each ordered
+ * conversation, identified by the CPA ID, service, action and conversation
+ * ID, in memory. The expected sequence number of a conversation is loaded
+ * from the database when the conversation is first offered and is advanced
+ * as the messages are released for delivery.
+ * <p>
+ * The messages which arrive ahead of the expected one are held in a bounded
+ * reorder buffer of the conversation and are released once the gap is
+ * filled. The held messages are still pending in the database, so the
+ * buffer can be discarded at any time.
+ */
+public class MessageSequencer {
+
+    private static final int LOCK_COUNT = 64;
+
+    private static MessageSequencer messageSequencer = new MessageSequencer();
+
+    private final Object[] locks = new Object[LOCK_COUNT];
+
+    private final Map sequences;
+
+    private int maxReorderSize = 100;
+
+    private int maxConversations = 1000;
+
+    public static MessageSequencer getInstance() {
+        return messageSequencer;
+    }
+
+    MessageSequencer() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        sequences = new LinkedHashMap(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry eldest) {
+                return size() > maxConversations;
+            }
+        };
+    }
+
+    /**
+     * Sets the maximum number of messages held for each conversation.
+     *
+     * @param maxReorderSize the maximum number of held messages.
+     */
+    public void setMaxReorderSize(int maxReorderSize) {
+        this.maxReorderSize = maxReorderSize;
+    }
+
+    /**
+     * Sets the maximum number of conversations kept in memory. The least
+     * recently used conversation is reloaded from the database when needed.
+     *
+     * @param maxConversations the maximum number of conversations.
+     */
+    public void setMaxConversations(int maxConversations) {
+        this.maxConversations = maxConversations;
+    }
+
+    /**
+     * Gets the lock for processing the ordered messages of a conversation.
+     * The conversations are spread over a fixed number of locks so that
+     * independent conversations are seldom serialized.
+     *
+     * @param cpaId the CPA ID.
+     * @param service the service.
+     * @param action the action.
+     * @param convId the conversation ID.
+     * @return the lock of the conversation.
+     */
+    public Object getLock(String cpaId, String service, String action,
+            String convId) {
+        int hash = getKey(cpaId, service, action, convId).hashCode();
+        return locks[(hash & 0x7fffffff) % locks.length];
+    }
+
+    /**
+     * Offers a pending ordered message to the sequencer.
+     *
+     * @param dao the message DAO for loading the expected sequence number.
+     * @param message the pending ordered message.
+     * @return the messages which are ready for delivery, in sequence order.
+     * @throws DAOException if the expected sequence number cannot be loaded.
+     */
+    public List offer(MessageDAO dao, MessageDVO message) throws DAOException {
+        Sequence sequence = getSequence(message);
+        List ready = new ArrayList();
+        synchronized (sequence) {
+            if (sequence.nextSequenceNo == -1) {
+                sequence.nextSequenceNo = dao
+                        .findInboxReadyMaxSequenceNoByCpa(message) + 1;
+            }
+
+            // the sequence number 0 resets the sequence
+            int sequenceNo = message.getSequenceNo();
+            if (sequenceNo > sequence.nextSequenceNo && sequenceNo != 0) {
+                if (sequence.held.size() < maxReorderSize
+                        || sequence.held.containsKey(new Integer(sequenceNo))) {
+                    sequence.held.put(new Integer(sequenceNo), message);
+                }
+                return ready;
+            } else if (sequenceNo < sequence.nextSequenceNo && sequenceNo != 0) {
+                return ready;
+            }
+
+            ready.add(message);
+            sequence.nextSequenceNo = sequenceNo + 1;
+            MessageDVO held;
+            while ((held = (MessageDVO) sequence.held.remove(new Integer(
+                    sequence.nextSequenceNo))) != null) {
+                ready.add(held);
+                sequence.nextSequenceNo++;
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Discards the state of the conversation of the given message. It is
+     * reloaded from the database when the conversation is offered again.
+     *
+     * @param message a message of the conversation.
+     */
+    public void reset(MessageDVO message) {
+        synchronized (sequences) {
+            sequences.remove(getKey(message.getCpaId(), message.getService(),
+                    message.getAction(), message.getConvId()));
+        }
+    }
+
+    private Sequence getSequence(MessageDVO message) {
+        String key = getKey(message.getCpaId(), message.getService(),
+                message.getAction(), message.getConvId());
+        synchronized (sequences) {
+            Sequence sequence = (Sequence) sequences.get(key);
+            if (sequence == null) {
+                sequence = new Sequence();
+                sequences.put(key, sequence);
+            }
+            return sequence;
+        }
+    }
+
+    private static String getKey(String cpaId, String service, String action,
+            String convId) {
+        return cpaId + "\n" + service + "\n" + action + "\n" + convId;
+    }
+
+    private static class Sequence {
+
+        private int nextSequenceNo = -1;
+
+        private final TreeMap held = new TreeMap();
+    }
+}
@@ -15,9 +15,14 @@ import hk.hku.cecid.ebms.spa.dao.MessageDVO;
 import hk.hku.cecid.ebms.spa.handler.MessageClassifier;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.module.ActiveTaskList;
+import hk.hku.cecid.piazza.commons.module.ActiveTaskScheduler;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
+import hk.hku.cecid.piazza.commons.util.StringUtilities;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Properties;
 import java.util.Vector;
 
 /**
@@ -28,6 +33,31 @@ public class OutboxCollector extends ActiveTaskList {
 
     boolean isFirstTime = true;
 
+    private boolean isClaimBatch;
+
+    private int claimBatchSize;
+
+    /**
+     * Initializes this collector by the following parameters:
+     * 
+     * <ul>
+     *   <li>claim-batch: true if the pending messages should be claimed in 
+     *       batch by a single update instead of being marked as processing 
+     *       one by one. It falls back to the latter if the database does not 
+     *       support the claim.
+     *   <li>claim-batch-size: the maximum number of messages to claim in a 
+     *       batch, or to collect by partnership in a single poll. Default is 50.
+     * </ul>
+     * 
+     * @see hk.hku.cecid.piazza.commons.module.Component#init()
+     */
+    protected void init() throws Exception {
+        super.init();
+        Properties params = getParameters();
+        isClaimBatch = StringUtilities.parseBoolean(params.getProperty("claim-batch"));
+        claimBatchSize = StringUtilities.parseInt(params.getProperty("claim-batch-size"), 50);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -42,9 +72,9 @@ public class OutboxCollector extends ActiveTaskList {
                     .createDAO(MessageDAO.class);
             MessageDVO finderDVO = (MessageDVO) dao.createDVO();
 
-            // get all the processing message in first time
+            // get all the processing message owned by this node in first time
             if (isFirstTime) {
-                List messageDVOList = dao.findOutboxProcessingMessagesByTimestamp(finderDVO);
+                List messageDVOList = dao.adoptOutboxProcessingMessages(ClusterNode.getId());
                 
                 Iterator i = messageDVOList.iterator();
                 int num = 0;
@@ -59,14 +89,28 @@ public class OutboxCollector extends ActiveTaskList {
                 isFirstTime = false;
             }
 
-            // get all the pending message
-            List messageDVOList = dao.findOutboxPendingMessagesByTimestamp(finderDVO);
-            
-            Iterator i = messageDVOList.iterator();
-            while (i.hasNext()) {
-                MessageDVO message = (MessageDVO) i.next();
-                OutboxTask outboxTask = new OutboxTask(message);
-                messageList.add(outboxTask);
+            ActiveTaskScheduler scheduler = getScheduler();
+            if (scheduler == null) {
+                // get all the pending message
+                List messageDVOList = collectPendingMessages(dao, finderDVO);
+                
+                Iterator i = messageDVOList.iterator();
+                while (i.hasNext()) {
+                    MessageDVO message = (MessageDVO) i.next();
+                    OutboxTask outboxTask = new OutboxTask(message);
+                    messageList.add(outboxTask);
+                }
+            }
+            else {
+                // get the pending message of each partnership which is not busy
+                List messageDVOList = collectPendingMessagesByPartnership(dao, scheduler);
+                
+                Iterator i = messageDVOList.iterator();
+                while (i.hasNext()) {
+                    MessageDVO message = (MessageDVO) i.next();
+                    OutboxTask outboxTask = new OutboxTask(message);
+                    messageList.add(outboxTask);
+                }
             }
         } catch (DAOException e) {
             EbmsProcessor.core.log.error(
@@ -74,4 +118,56 @@ public class OutboxCollector extends ActiveTaskList {
         }
         return messageList;
     }
+
+    private List collectPendingMessages(MessageDAO dao, MessageDVO finderDVO) 
+            throws DAOException {
+        if (isClaimBatch) {
+            try {
+                return dao.claimOutboxPendingMessages(ClusterNode.getId(), claimBatchSize);
+            } catch (DAOException e) {
+                disableClaimBatch(e);
+            }
+        }
+        return dao.findOutboxPendingMessagesByTimestamp(finderDVO);
+    }
+
+    private List collectPendingMessagesByPartnership(MessageDAO dao, 
+            ActiveTaskScheduler scheduler) throws DAOException {
+        // the oldest pending messages of each partnership are fetched at once, 
+        // ordered by partnership, and trimmed to the free slots of each 
+        // partnership in memory
+        List pendingList = dao.findOutboxPendingMessagesByPartnership(
+                scheduler.getMaxThreadPerGroup(), claimBatchSize);
+        
+        List messageDVOList = new ArrayList();
+        String group = null;
+        int available = 0;
+        Iterator i = pendingList.iterator();
+        while (i.hasNext()) {
+            MessageDVO message = (MessageDVO) i.next();
+            String messageGroup = OutboxTask.getTaskGroup(message);
+            if (!messageGroup.equals(group)) {
+                group = messageGroup;
+                available = scheduler.getAvailableCount(group);
+            }
+            if (available-- > 0) {
+                messageDVOList.add(message);
+            }
+        }
+        
+        if (isClaimBatch) {
+            try {
+                return dao.claimOutboxPendingMessages(messageDVOList, ClusterNode.getId());
+            } catch (DAOException e) {
+                disableClaimBatch(e);
+            }
+        }
+        return messageDVOList;
+    }
+
+    private void disableClaimBatch(DAOException e) {
+        isClaimBatch = false;
+        EbmsProcessor.core.log.warn(
+                "Unable to claim outbox messages in batch, falling back to marking them one by one", e);
+    }
 }
\ No newline at end of file
@@ -28,15 +28,17 @@ import hk.hku.cecid.ebms.spa.handler.SignalMessageGenerator;
 import hk.hku.cecid.ebms.spa.listener.EbmsRequest;
 import hk.hku.cecid.ebms.spa.listener.EbmsResponse;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
+import hk.hku.cecid.piazza.commons.io.DirectByteArrayOutputStream;
 import hk.hku.cecid.piazza.commons.module.ActiveTask;
+import hk.hku.cecid.piazza.commons.module.GroupedActiveTask;
 import hk.hku.cecid.piazza.commons.security.SMimeMessage;
 import hk.hku.cecid.piazza.commons.security.TrustedHostnameVerifier;
 import hk.hku.cecid.piazza.commons.soap.SOAPHttpConnector;
 import hk.hku.cecid.piazza.commons.soap.SOAPMailSender;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 import hk.hku.cecid.piazza.commons.util.StringUtilities;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -57,7 +59,7 @@ import javax.xml.soap.SOAPMessage;
  * @author Donahue Sze, Twinsen Tsang (modifiers)
  * 
  */
-public class OutboxTask implements ActiveTask {
+public class OutboxTask implements GroupedActiveTask {
 
 	// The error message when internal error thrown.
     private static String ERROR_TYPE_INTERNAL_ERROR = "internal_error";
@@ -138,11 +140,16 @@ public class OutboxTask implements ActiveTask {
     public OutboxTask(MessageDVO message){
         this.messageDVO = message;
 
-        // Update the messageDVO status to 'Processing' (PR)
+        // Update the messageDVO status to 'Processing' (PR) and owned by 
+        // this node unless it has been claimed already
         try {
         	this.messageDAO = (MessageDAO) EbmsProcessor.core.dao.createDAO(MessageDAO.class);
-            message.setStatus(MessageClassifier.INTERNAL_STATUS_PROCESSING);
-            this.messageDAO.updateMessage(message);
+        	if (!MessageClassifier.INTERNAL_STATUS_PROCESSING.equals(message.getStatus())) {
+                message.setStatus(MessageClassifier.INTERNAL_STATUS_PROCESSING);
+                message.setOwnerId(ClusterNode.getId());
+                message.setLeaseTimestamp(ClusterNode.getLeaseExpiry());
+                this.messageDAO.updateMessage(message);
+        	}
 
             // get the agreement parameters and check by agreement guard
             boolean isOutboundAgreementCheck = MessageServiceHandler.getInstance()
@@ -632,6 +639,7 @@ public class OutboxTask implements ActiveTask {
             smtp.addProperty("mail.smtp.port", msh.smtpPort);
         }
 
+        SMimeMessage smsg = null;
         try {
             Session session = smtp.createSession();
 
@@ -658,14 +666,13 @@ public class OutboxTask implements ActiveTask {
                     throw new RuntimeException("Please upload the cert");
                 }
 
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                DirectByteArrayOutputStream baos = new DirectByteArrayOutputStream();
                 message.writeTo(baos);
                 MimeBodyPart mimeBodyPart = new MimeBodyPart(
-                        new ByteArrayInputStream(baos.toByteArray()));
+                        baos.toInputStream());
                 baos.close();
 
-                SMimeMessage smsg = new SMimeMessage(mimeBodyPart, serverCert,
-                        session);
+                smsg = new SMimeMessage(mimeBodyPart, serverCert, session);
 
                 // set encryption algorithm
                 if (outboxAgreement.getEncryptAlgorithm() != null) {
@@ -681,6 +688,11 @@ public class OutboxTask implements ActiveTask {
         } catch (Exception e) {
             EbmsProcessor.core.log.error("Cannot send the message", e);
             throw new DeliveryException("Cannot send the message", e);
+        } finally {
+            // release the temporary files spooled by the encryption once sent
+            if (smsg != null) {
+                smsg.dispose();
+            }
         }
     }
 
@@ -721,6 +733,26 @@ public class OutboxTask implements ActiveTask {
     
     public void onAwake() {        
     }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see hk.hku.cecid.piazza.commons.module.GroupedActiveTask#getTaskGroup()
+     */
+    public String getTaskGroup() {
+        return getTaskGroup(messageDVO);
+    }
+
+    /**
+     * Gets the task group of the given outbox message, which is formed by its 
+     * CPA, service and action so that each partnership is scheduled on its own.
+     * 
+     * @param message the outbox message.
+     * @return the task group of the message.
+     */
+    static String getTaskGroup(MessageDVO message) {
+        return message.getCpaId() + "/" + message.getService() + "/" + message.getAction();
+    }
     
     
 
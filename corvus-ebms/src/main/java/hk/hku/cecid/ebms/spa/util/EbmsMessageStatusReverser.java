@@ -102,6 +102,7 @@ public class EbmsMessageStatusReverser {
 		};
 
 		process.start();
+		EbmsProcessor.wakeUpActiveModule(EbmsProcessor.ACTIVE_MODULE_OUTBOX_COLLECTOR);
 
 		EbmsProcessor.core.log.info("Message [" + messageId
 				+ "] is prepared for resend");
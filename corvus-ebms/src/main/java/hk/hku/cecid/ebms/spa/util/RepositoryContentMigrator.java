@@ -0,0 +1,75 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+package hk.hku.cecid.ebms.spa.util;
+
+import hk.hku.cecid.ebms.spa.dao.RepositoryDAO;
+import hk.hku.cecid.piazza.commons.dao.DAOException;
+import hk.hku.cecid.piazza.commons.module.SystemModule;
+import hk.hku.cecid.piazza.commons.util.StringUtilities;
+
+/**
+ * Moves the message content kept in the repository table to the content
+ * store configured for the repository DAO. The migration is done in batches
+ * and can be stopped and re-run at any time, as only the repositories
+ * without a content reference are moved.
+ * <p>
+ * Usage: RepositoryContentMigrator &lt;module descriptor&gt; [batch size]
+ */
+public class RepositoryContentMigrator {
+
+	private RepositoryDAO repositoryDAO;
+
+	/**
+	 * Creates a new instance of RepositoryContentMigrator.
+	 *
+	 * @param module
+	 *            the ebMS system module which defines the DAO factory and the
+	 *            content store.
+	 * @throws DAOException
+	 *             if unable to create the repository DAO.
+	 */
+	public RepositoryContentMigrator(SystemModule module) throws DAOException {
+		repositoryDAO = (RepositoryDAO) module.dao
+				.createDAO(RepositoryDAO.class);
+	}
+
+	/**
+	 * Moves all the repository content to the content store.
+	 *
+	 * @param batchSize
+	 *            the maximum number of repositories moved in each batch.
+	 * @return the total number of repositories moved.
+	 * @throws DAOException
+	 *             if there is error in the migration.
+	 */
+	public int migrate(int batchSize) throws DAOException {
+		int total = 0;
+		int count;
+		while ((count = repositoryDAO.moveContentToStore(batchSize)) > 0) {
+			total += count;
+			System.out.println(total + " repositories moved");
+		}
+		return total;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: RepositoryContentMigrator "
+					+ "<module descriptor> [batch size]");
+			return;
+		}
+		int batchSize = args.length > 1 ? StringUtilities.parseInt(args[1],
+				100) : 100;
+
+		SystemModule module = new SystemModule(args[0]);
+		int total = new RepositoryContentMigrator(module).migrate(batchSize);
+		System.out.println("Migration completed: " + total
+				+ " repositories moved");
+	}
+}
@@ -9,6 +9,7 @@
 
 package hk.hku.cecid.ebms.spa.dao;
 
+import java.util.Date;
 import java.util.List;
 
 import org.junit.Assert;
@@ -51,6 +52,56 @@ public class MessageDataSourceDAOTest extends DAOTest<MessageDataSourceDAO> {
 
 	}
 	
+	@Test
+	public void testFindMessagesBeforeTimeInChunks() throws DAOException {
+		MessageDataSourceDAO dao = super.getTestingTarget();
+		Date cutoff = new Date();
+
+		List all = dao.findMessagesBeforeTime(cutoff, null, Integer.MAX_VALUE);
+		Assert.assertTrue(all.size() > 2);
+
+		// walk through the messages chunk by chunk after the last key
+		List chunk = dao.findMessagesBeforeTime(cutoff, null, 2);
+		Assert.assertEquals(2, chunk.size());
+		int count = 0;
+		while (chunk.size() > 0) {
+			for (int i = 0; i < chunk.size(); i++) {
+				MessageDVO expected = (MessageDVO) all.get(count++);
+				MessageDVO found = (MessageDVO) chunk.get(i);
+				Assert.assertEquals(expected.getMessageId(), found.getMessageId());
+				Assert.assertEquals(expected.getMessageBox(), found.getMessageBox());
+			}
+			chunk = dao.findMessagesBeforeTime(cutoff,
+					(MessageDVO) chunk.get(chunk.size() - 1), 2);
+		}
+		Assert.assertEquals(all.size(), count);
+
+		Assert.assertEquals(0, dao.findMessagesBeforeTime(new Date(0), null, 2).size());
+	}
+	
+	@Test
+	public void testFindOutboxPendingMessagesByPartnership() throws DAOException {
+		MessageDataSourceDAO dao = super.getTestingTarget();
+
+		// the oldest 2 pending messages of each partnership, error messages excluded
+		List list = dao.findOutboxPendingMessagesByPartnership(2, 50);
+		Assert.assertEquals(4, list.size());
+		Assert.assertEquals("pending-2@test", ((MessageDVO) list.get(0)).getMessageId());
+		Assert.assertEquals("pending-3@test", ((MessageDVO) list.get(1)).getMessageId());
+		Assert.assertEquals("pending-4@test", ((MessageDVO) list.get(2)).getMessageId());
+		Assert.assertEquals("testhistory4", ((MessageDVO) list.get(3)).getCpaId());
+
+		// the oldest 3 of them overall
+		list = dao.findOutboxPendingMessagesByPartnership(2, 3);
+		Assert.assertEquals(3, list.size());
+		Assert.assertEquals("pending-2@test", ((MessageDVO) list.get(0)).getMessageId());
+		Assert.assertEquals("pending-3@test", ((MessageDVO) list.get(1)).getMessageId());
+		Assert.assertEquals("testhistory4", ((MessageDVO) list.get(2)).getCpaId());
+
+		list = dao.findOutboxPendingMessagesByPartnership(0, 50);
+		Assert.assertEquals(0, list.size());
+	}
+	
 	@Test
 	public void testFindMessageByCpa() throws DAOException {		
         MessageDVO dvo;
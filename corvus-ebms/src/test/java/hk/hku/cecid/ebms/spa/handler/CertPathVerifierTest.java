@@ -0,0 +1,175 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.ebms.spa.handler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+
+import javax.security.auth.x500.X500Principal;
+
+import junit.framework.TestCase;
+
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.X509Extensions;
+import org.bouncycastle.x509.X509V3CertificateGenerator;
+
+import hk.hku.cecid.ebms.pkg.pki.CertPathVerifier;
+import hk.hku.cecid.ebms.pkg.pki.CompositeKeyStore;
+import hk.hku.cecid.ebms.pkg.pki.XMLDSigEngine;
+
+/**
+ * The <code>CertPathVerifierTest</code> is the testcase for the cache of
+ * verified certificate chains in <code>CertPathVerifier</code>.
+ */
+public class CertPathVerifierTest extends TestCase {
+
+	private static final char[] PASSWORD = "password".toCharArray();
+
+	private static final long DAY = 24L * 60 * 60 * 1000;
+
+	private KeyPair caKeys;
+
+	private X509Certificate caCert;
+
+	private File trustStore;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(1024);
+		caKeys = generator.generateKeyPair();
+		caCert = createCertificate("CN=Test CA", caKeys, "CN=Test CA", caKeys, true,
+				System.currentTimeMillis() + DAY);
+		trustStore = File.createTempFile("trusted", ".jks");
+		trustStore.deleteOnExit();
+		writeTrustStore(trustStore, caCert);
+		CertPathVerifier.clearCache();
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		CertPathVerifier.clearCache();
+		trustStore.delete();
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testVerifiedChainCached() throws Exception {
+		Certificate[] chain = createChain(System.currentTimeMillis() + DAY);
+		CompositeKeyStore trusted = XMLDSigEngine.getKeyStore(trustStore.getAbsolutePath(), PASSWORD);
+		long hits = CertPathVerifier.getCacheHits();
+		long misses = CertPathVerifier.getCacheMisses();
+
+		assertTrue(CertPathVerifier.verify(chain, trusted));
+		assertEquals(misses + 1, CertPathVerifier.getCacheMisses());
+		assertEquals(1, CertPathVerifier.getCachedChains());
+
+		assertTrue(CertPathVerifier.verify(chain, trusted));
+		assertEquals(hits + 1, CertPathVerifier.getCacheHits());
+		assertEquals(misses + 1, CertPathVerifier.getCacheMisses());
+
+		// another chain with the same subject is not answered by the cache
+		assertTrue(CertPathVerifier.verify(createChain(System.currentTimeMillis() + DAY), trusted));
+		assertEquals(misses + 2, CertPathVerifier.getCacheMisses());
+	}
+
+	public void testCachedChainExpiresWithCertificate() throws Exception {
+		// X.509 validity is in seconds
+		long notAfter = (System.currentTimeMillis() / 1000 + 2) * 1000;
+		Certificate[] chain = createChain(notAfter);
+		CompositeKeyStore trusted = XMLDSigEngine.getKeyStore(trustStore.getAbsolutePath(), PASSWORD);
+
+		assertTrue(CertPathVerifier.verify(chain, trusted));
+		assertTrue(CertPathVerifier.verify(chain, trusted));
+		long hits = CertPathVerifier.getCacheHits();
+		long misses = CertPathVerifier.getCacheMisses();
+
+		// the chain is verified again, not answered by the cache
+		Thread.sleep(notAfter - System.currentTimeMillis() + 1000);
+		CertPathVerifier.verify(chain, trusted);
+		assertEquals(hits, CertPathVerifier.getCacheHits());
+		assertEquals(misses + 1, CertPathVerifier.getCacheMisses());
+	}
+
+	public void testCacheInvalidatedWhenTrustStoreChanged() throws Exception {
+		Certificate[] chain = createChain(System.currentTimeMillis() + DAY);
+		String location = trustStore.getAbsolutePath();
+		assertTrue(CertPathVerifier.verify(chain, XMLDSigEngine.getKeyStore(location, PASSWORD)));
+
+		// the CA is no longer trusted
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(1024);
+		KeyPair otherKeys = generator.generateKeyPair();
+		writeTrustStore(trustStore, createCertificate("CN=Other CA", otherKeys, "CN=Other CA", otherKeys, true,
+				System.currentTimeMillis() + DAY));
+		assertTrue(trustStore.setLastModified(trustStore.lastModified() + 2000));
+
+		long misses = CertPathVerifier.getCacheMisses();
+		assertFalse(CertPathVerifier.verify(chain, XMLDSigEngine.getKeyStore(location, PASSWORD)));
+		assertEquals(misses + 1, CertPathVerifier.getCacheMisses());
+
+		// a keystore file added to or removed from the same keystore
+		writeTrustStore(trustStore, caCert);
+		CompositeKeyStore trusted = new CompositeKeyStore();
+		trusted.addKeyStoreFile(location, null, PASSWORD);
+		assertTrue(CertPathVerifier.verify(chain, trusted));
+		assertTrue(CertPathVerifier.verify(chain, trusted));
+		long version = trusted.getVersion();
+		trusted.removeKeyStoreFile(location);
+		trusted.addKeyStoreFile(location, null, PASSWORD);
+		assertTrue(version != trusted.getVersion());
+		misses = CertPathVerifier.getCacheMisses();
+		assertTrue(CertPathVerifier.verify(chain, trusted));
+		assertEquals(misses + 1, CertPathVerifier.getCacheMisses());
+	}
+
+	private Certificate[] createChain(long notAfter) throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(1024);
+		KeyPair keys = generator.generateKeyPair();
+		return new Certificate[] {
+				createCertificate("CN=Partner", keys, "CN=Test CA", caKeys, false, notAfter), caCert};
+	}
+
+	private X509Certificate createCertificate(String subject, KeyPair subjectKeys, String issuer,
+			KeyPair issuerKeys, boolean ca, long notAfter) throws Exception {
+		X509V3CertificateGenerator generator = new X509V3CertificateGenerator();
+		generator.setSerialNumber(BigInteger.valueOf(System.nanoTime()));
+		generator.setIssuerDN(new X500Principal(issuer));
+		generator.setSubjectDN(new X500Principal(subject));
+		generator.setNotBefore(new Date(System.currentTimeMillis() - DAY));
+		generator.setNotAfter(new Date(notAfter));
+		generator.setPublicKey(subjectKeys.getPublic());
+		generator.setSignatureAlgorithm("SHA256withRSA");
+		if (ca)
+			generator.addExtension(X509Extensions.BasicConstraints, true, new BasicConstraints(true));
+		return generator.generate(issuerKeys.getPrivate());
+	}
+
+	private void writeTrustStore(File file, X509Certificate cert) throws Exception {
+		KeyStore ks = KeyStore.getInstance("JKS");
+		ks.load(null, PASSWORD);
+		ks.setCertificateEntry("ca", cert);
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			ks.store(out, PASSWORD);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.ebms.spa.handler;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import hk.hku.cecid.ebms.spa.dao.MessageDAO;
+import hk.hku.cecid.piazza.commons.dao.DAOException;
+
+public class DuplicateMessageFilterTest extends TestCase {
+
+	private DuplicateMessageFilter duplicateFilter;
+
+	private List inbox;
+
+	private int[] queries;
+
+	private int[] loadFailures;
+
+	private Runnable onLoad;
+
+	private MessageDAO dao;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		duplicateFilter = new DuplicateMessageFilter();
+		inbox = Collections.synchronizedList(new ArrayList());
+		queries = new int[1];
+		loadFailures = new int[1];
+		dao = (MessageDAO) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class[] {MessageDAO.class}, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws DAOException {
+						if (method.getName().equals("findInboxMessageIds")) {
+							if (loadFailures[0] > 0) {
+								loadFailures[0]--;
+								throw new DAOException("Database unavailable");
+							}
+							List messageIds = new ArrayList(inbox);
+							if (onLoad != null)
+								onLoad.run();
+							return messageIds;
+						}
+						if (!method.getName().equals("findInboxMessageExistence"))
+							throw new UnsupportedOperationException(method.getName());
+						queries[0]++;
+						return Boolean.valueOf(inbox.contains(args[0]));
+					}
+				});
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testBeforeLoaded() throws Exception {
+		inbox.add("msg1");
+		TestCase.assertFalse(duplicateFilter.isLoaded());
+		TestCase.assertTrue(duplicateFilter.isDuplicate(dao, "msg1"));
+		TestCase.assertFalse(duplicateFilter.isDuplicate(dao, "msg2"));
+		TestCase.assertEquals(2, queries[0]);
+	}
+
+	public void testNewMessageWithoutQuery() throws Exception {
+		inbox.add("msg1");
+		duplicateFilter.rebuild(dao);
+		TestCase.assertTrue(duplicateFilter.isLoaded());
+
+		TestCase.assertTrue(duplicateFilter.isDuplicate(dao, "msg1"));
+		TestCase.assertEquals(1, queries[0]);
+
+		int before = queries[0];
+		for (int i = 0; i < 100; i++) {
+			TestCase.assertFalse(duplicateFilter.isDuplicate(dao, "new" + i));
+		}
+		// The default false positive rate is 1%.
+		TestCase.assertTrue(queries[0] - before < 10);
+	}
+
+	public void testAddedMessageIsChecked() throws Exception {
+		duplicateFilter.rebuild(dao);
+		TestCase.assertFalse(duplicateFilter.isDuplicate(dao, "msg1"));
+		inbox.add("msg1");
+		TestCase.assertTrue(duplicateFilter.isDuplicate(dao, "msg1"));
+	}
+
+	public void testSaturatedFilterRebuilt() throws Exception {
+		duplicateFilter.setCapacity(10);
+		duplicateFilter.rebuild(dao);
+		for (int i = 0; i < 50; i++) {
+			TestCase.assertFalse(duplicateFilter.isDuplicate(dao, "msg" + i));
+			inbox.add("msg" + i);
+		}
+		// The saturated filter is rebuilt in the background.
+		for (int i = 0; i < 100 && duplicateFilter.getCapacity() == 10; i++) {
+			Thread.sleep(50);
+		}
+		TestCase.assertTrue(duplicateFilter.getCapacity() > 10);
+		for (int i = 0; i < 50; i++) {
+			TestCase.assertTrue(duplicateFilter.isDuplicate(dao, "msg" + i));
+		}
+	}
+
+	public void testFirstLoadRetried() throws Exception {
+		loadFailures[0] = 2;
+		duplicateFilter.retryDelay = 10;
+		duplicateFilter.startRebuild(dao);
+		for (int i = 0; i < 100 && !duplicateFilter.isLoaded(); i++) {
+			Thread.sleep(50);
+		}
+		TestCase.assertTrue(duplicateFilter.isLoaded());
+		TestCase.assertEquals(0, loadFailures[0]);
+	}
+
+	public void testUnreleasedMessageKeptByRebuild() throws Exception {
+		duplicateFilter.rebuild(dao);
+		TestCase.assertFalse(duplicateFilter.isDuplicate(dao, "msg1"));
+
+		// The message is stored only after the inbox is read by the rebuild.
+		duplicateFilter.rebuild(dao);
+		inbox.add("msg1");
+		duplicateFilter.release("msg1");
+
+		TestCase.assertTrue(duplicateFilter.isDuplicate(dao, "msg1"));
+	}
+
+	public void testReleasedMessageKeptByRebuild() throws Exception {
+		duplicateFilter.rebuild(dao);
+		TestCase.assertFalse(duplicateFilter.isDuplicate(dao, "msg1"));
+
+		// The message is stored and released while the rebuild is reading 
+		// the inbox, after its snapshot has been taken.
+		onLoad = new Runnable() {
+			public void run() {
+				inbox.add("msg1");
+				duplicateFilter.release("msg1");
+			}
+		};
+		duplicateFilter.rebuild(dao);
+
+		TestCase.assertTrue(duplicateFilter.isDuplicate(dao, "msg1"));
+	}
+
+	public void testConcurrentMessagesKeptByRebuild() throws Exception {
+		duplicateFilter.rebuild(dao);
+		final Throwable[] errors = new Throwable[1];
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int thread = t;
+			threads[t] = new Thread() {
+				public void run() {
+					try {
+						for (int i = 0; i < 200; i++) {
+							String messageId = "msg" + thread + "-" + i;
+							TestCase.assertFalse(duplicateFilter.isDuplicate(dao, messageId));
+							inbox.add(messageId);
+							duplicateFilter.release(messageId);
+						}
+					} catch (Throwable e) {
+						errors[0] = e;
+					}
+				}
+			};
+			threads[t].start();
+		}
+		while (threads[0].isAlive()) {
+			duplicateFilter.rebuild(dao);
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+		}
+		TestCase.assertNull(errors[0]);
+
+		for (int t = 0; t < threads.length; t++) {
+			for (int i = 0; i < 200; i++) {
+				TestCase.assertTrue(duplicateFilter.isDuplicate(dao, "msg" + t + "-" + i));
+			}
+		}
+	}
+}
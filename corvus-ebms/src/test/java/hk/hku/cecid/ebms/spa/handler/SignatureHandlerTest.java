@@ -0,0 +1,238 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.ebms.spa.handler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import hk.hku.cecid.ebms.pkg.EbxmlMessage;
+import hk.hku.cecid.ebms.pkg.SignatureException;
+import hk.hku.cecid.ebms.pkg.SignatureHandler;
+import hk.hku.cecid.ebms.pkg.pki.SignException;
+import hk.hku.cecid.ebms.pkg.pki.XMLDSigEngine;
+import hk.hku.cecid.piazza.commons.test.utils.FixtureStore;
+
+/**
+ * The <code>SignatureHandlerTest</code> is the testcase for signing and
+ * verifying ebXML messages with the shared resources of
+ * <code>XMLDSigEngine</code>.
+ */
+public class SignatureHandlerTest extends TestCase {
+
+	// Fixture loader
+	private static ClassLoader FIXTURE_LOADER = FixtureStore.createFixtureLoader(false, SignatureHandlerTest.class);
+
+	private static final String ALIAS = "corvus";
+
+	private static final char[] PASSWORD = "password".toCharArray();
+
+	private static final int THREADS = 8;
+
+	private static final int MESSAGES_PER_THREAD = 10;
+
+	private static final int BENCHMARK_WARM_UP = 20;
+
+	private static final int BENCHMARK_MESSAGES = 200;
+
+	private String keyStoreLocation;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		keyStoreLocation = getFixture("corvus.p12").getAbsolutePath();
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testSignAndVerify() throws Exception {
+		// the verification fails when no signature is received
+		EbxmlMessage received = transfer(sign(createMessage("round-trip")));
+		Certificate cert = getCertificate(keyStoreLocation, ALIAS);
+		assertTrue(new SignatureHandler(received, cert).verifyByPublicKey());
+	}
+
+	public void testVerifyWithOtherCertificate() throws Exception {
+		EbxmlMessage received = transfer(sign(createMessage("other-cert")));
+		Certificate other = getCertificate(getFixture("dummy.p12").getAbsolutePath(), "dummy");
+		boolean verified;
+		try {
+			verified = new SignatureHandler(received, other).verifyByPublicKey();
+		} catch (SignatureException e) {
+			verified = false;
+		}
+		assertFalse(verified);
+	}
+
+	public void testConcurrentSigning() throws Exception {
+		final List signed = Collections.synchronizedList(new ArrayList());
+		final List failures = Collections.synchronizedList(new ArrayList());
+		Thread[] threads = new Thread[THREADS];
+		for (int i = 0; i < threads.length; i++) {
+			final int thread = i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						for (int j = 0; j < MESSAGES_PER_THREAD; j++)
+							signed.add(sign(createMessage("concurrent-" + thread + "-" + j)));
+					} catch (Throwable e) {
+						failures.add(e);
+					}
+				}
+			};
+		}
+		runAll(threads);
+		assertTrue("Failures: " + failures, failures.isEmpty());
+		assertEquals(THREADS * MESSAGES_PER_THREAD, signed.size());
+
+		// the received messages are parsed by SAAJ, which is not part of the test
+		Certificate cert = getCertificate(keyStoreLocation, ALIAS);
+		for (int i = 0; i < signed.size(); i++)
+			assertTrue(new SignatureHandler(transfer((EbxmlMessage) signed.get(i)), cert).verifyByPublicKey());
+	}
+
+	public void testSigningKeyReloadedWhenKeyStoreChanged() throws Exception {
+		File keyStore = File.createTempFile("signature", ".p12");
+		keyStore.deleteOnExit();
+		try {
+			copy(getFixture("corvus.p12"), keyStore);
+			String location = keyStore.getAbsolutePath();
+			XMLDSigEngine.SigningKey signingKey = XMLDSigEngine.getSigningKey(location, ALIAS, PASSWORD);
+			assertSame(signingKey, XMLDSigEngine.getSigningKey(location, ALIAS, PASSWORD));
+			assertSame(XMLDSigEngine.getKeyStore(location, PASSWORD), XMLDSigEngine.getKeyStore(location, PASSWORD));
+
+			// the same keystore modified again is reloaded
+			long lastModified = keyStore.lastModified();
+			assertTrue(keyStore.setLastModified(lastModified + 2000));
+			XMLDSigEngine.SigningKey reloaded = XMLDSigEngine.getSigningKey(location, ALIAS, PASSWORD);
+			assertNotSame(signingKey, reloaded);
+			assertEquals(signingKey.getCertificateChain()[0], reloaded.getCertificateChain()[0]);
+
+			// a replaced keystore no longer has the old key
+			copy(getFixture("dummy.p12"), keyStore);
+			assertTrue(keyStore.setLastModified(lastModified + 4000));
+			try {
+				XMLDSigEngine.getSigningKey(location, ALIAS, PASSWORD);
+				fail("The key of the replaced keystore is still cached");
+			} catch (SignException e) {
+			}
+			XMLDSigEngine.SigningKey replaced = XMLDSigEngine.getSigningKey(location, "dummy", PASSWORD);
+			assertFalse(signingKey.getCertificateChain()[0].equals(replaced.getCertificateChain()[0]));
+			assertNull(XMLDSigEngine.getKeyStore(location, PASSWORD).getCertificate(ALIAS));
+		} finally {
+			keyStore.delete();
+		}
+	}
+
+	public void testSigningBenchmark() throws Exception {
+		for (int i = 0; i < BENCHMARK_WARM_UP; i++)
+			sign(createMessage("warm-up-" + i));
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < BENCHMARK_MESSAGES; i++)
+			sign(createMessage("benchmark-" + i));
+		long elapsed = System.currentTimeMillis() - start;
+		System.out.println("Signed " + BENCHMARK_MESSAGES + " messages in " + elapsed + " ms ("
+				+ ((double) elapsed / BENCHMARK_MESSAGES) + " ms per message)");
+
+		final List failures = Collections.synchronizedList(new ArrayList());
+		Thread[] threads = new Thread[THREADS];
+		for (int i = 0; i < threads.length; i++) {
+			final int thread = i;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						for (int j = 0; j < BENCHMARK_MESSAGES / THREADS; j++)
+							sign(createMessage("benchmark-" + thread + "-" + j));
+					} catch (Throwable e) {
+						failures.add(e);
+					}
+				}
+			};
+		}
+		start = System.currentTimeMillis();
+		runAll(threads);
+		elapsed = System.currentTimeMillis() - start;
+		System.out.println("Signed " + BENCHMARK_MESSAGES + " messages with " + THREADS + " threads in "
+				+ elapsed + " ms (" + ((double) elapsed / BENCHMARK_MESSAGES) + " ms per message)");
+		assertTrue("Failures: " + failures, failures.isEmpty());
+		Certificate cert = getCertificate(keyStoreLocation, ALIAS);
+		assertTrue(new SignatureHandler(transfer(sign(createMessage("benchmark"))), cert).verifyByPublicKey());
+	}
+
+	private void runAll(Thread[] threads) throws Exception {
+		for (int i = 0; i < threads.length; i++)
+			threads[i].start();
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join(60000);
+			assertFalse("Signing thread " + i + " does not complete", threads[i].isAlive());
+		}
+	}
+
+	private EbxmlMessage createMessage(String id) throws Exception {
+		EbxmlMessage message = new EbxmlMessage();
+		message.addMessageHeader("from", "to", "cpa", "conversation-" + id,
+				"service", "action", id + "@localhost", "2008-07-21T15:26:52.075+08:00");
+		return message;
+	}
+
+	private EbxmlMessage sign(EbxmlMessage message) throws Exception {
+		new SignatureHandler(message, ALIAS, PASSWORD, keyStoreLocation, null).sign();
+		return message;
+	}
+
+	// Serializes and parses the message as the receiver does.
+	private EbxmlMessage transfer(EbxmlMessage message) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		message.writeTo(out);
+		return new EbxmlMessage(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	private Certificate getCertificate(String location, String alias) throws Exception {
+		return XMLDSigEngine.getSigningKey(location, alias, PASSWORD).getCertificateChain()[0];
+	}
+
+	private File getFixture(String name) throws Exception {
+		URL url = FIXTURE_LOADER.getResource(name);
+		assertNotNull("Missing fixture " + name, url);
+		return new File(url.toURI());
+	}
+
+	private void copy(File from, File to) throws Exception {
+		InputStream in = new FileInputStream(from);
+		try {
+			OutputStream out = new FileOutputStream(to);
+			try {
+				byte[] buffer = new byte[4096];
+				for (int read; (read = in.read(buffer)) != -1;)
+					out.write(buffer, 0, read);
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+}
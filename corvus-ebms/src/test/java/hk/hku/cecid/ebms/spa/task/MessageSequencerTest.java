@@ -0,0 +1,109 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.ebms.spa.task;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import hk.hku.cecid.ebms.spa.dao.MessageDAO;
+import hk.hku.cecid.ebms.spa.dao.MessageDVO;
+import hk.hku.cecid.ebms.spa.dao.MessageDataSourceDVO;
+
+public class MessageSequencerTest extends TestCase {
+
+	private MessageSequencer sequencer;
+
+	private int[] queries;
+
+	private MessageDAO dao;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		sequencer = new MessageSequencer();
+		queries = new int[1];
+		// The last ready sequence number in the database is 1.
+		dao = (MessageDAO) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class[] {MessageDAO.class}, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (!method.getName().equals("findInboxReadyMaxSequenceNoByCpa"))
+							throw new UnsupportedOperationException(method.getName());
+						queries[0]++;
+						return new Integer(1);
+					}
+				});
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testInOrder() throws Exception {
+		assertSequence(new int[] {2}, sequencer.offer(dao, createMessage("conv", 2)));
+		assertSequence(new int[] {3}, sequencer.offer(dao, createMessage("conv", 3)));
+		assertSequence(new int[0], sequencer.offer(dao, createMessage("conv", 3)));
+		TestCase.assertEquals(1, queries[0]);
+	}
+
+	public void testOutOfOrder() throws Exception {
+		assertSequence(new int[0], sequencer.offer(dao, createMessage("conv", 4)));
+		assertSequence(new int[0], sequencer.offer(dao, createMessage("conv", 3)));
+		assertSequence(new int[] {2, 3, 4}, sequencer.offer(dao, createMessage("conv", 2)));
+		assertSequence(new int[0], sequencer.offer(dao, createMessage("conv", 4)));
+	}
+
+	public void testReorderBufferBounded() throws Exception {
+		sequencer.setMaxReorderSize(1);
+		assertSequence(new int[0], sequencer.offer(dao, createMessage("conv", 3)));
+		assertSequence(new int[0], sequencer.offer(dao, createMessage("conv", 4)));
+		assertSequence(new int[] {2, 3}, sequencer.offer(dao, createMessage("conv", 2)));
+		assertSequence(new int[] {4}, sequencer.offer(dao, createMessage("conv", 4)));
+	}
+
+	public void testResetSequence() throws Exception {
+		assertSequence(new int[] {2}, sequencer.offer(dao, createMessage("conv", 2)));
+		assertSequence(new int[] {0}, sequencer.offer(dao, createMessage("conv", 0)));
+		assertSequence(new int[] {1}, sequencer.offer(dao, createMessage("conv", 1)));
+	}
+
+	public void testIndependentConversations() throws Exception {
+		assertSequence(new int[0], sequencer.offer(dao, createMessage("conv1", 3)));
+		assertSequence(new int[] {2}, sequencer.offer(dao, createMessage("conv2", 2)));
+		assertSequence(new int[] {2, 3}, sequencer.offer(dao, createMessage("conv1", 2)));
+		TestCase.assertEquals(2, queries[0]);
+
+		sequencer.reset(createMessage("conv1", 3));
+		assertSequence(new int[] {2}, sequencer.offer(dao, createMessage("conv1", 2)));
+		TestCase.assertEquals(3, queries[0]);
+	}
+
+	private MessageDVO createMessage(String convId, int sequenceNo) {
+		MessageDVO message = new MessageDataSourceDVO();
+		message.setCpaId("cpa");
+		message.setService("service");
+		message.setAction("action");
+		message.setConvId(convId);
+		message.setSequenceNo(sequenceNo);
+		return message;
+	}
+
+	private void assertSequence(int[] expected, List messages) {
+		TestCase.assertEquals(expected.length, messages.size());
+		for (int i = 0; i < expected.length; i++) {
+			TestCase.assertEquals(expected[i], ((MessageDVO) messages.get(i)).getSequenceNo());
+		}
+	}
+}
@@ -73,4 +73,12 @@ INSERT INTO message (message_id, message_box, message_type, from_party_id, from_
 INSERT INTO message (message_id, message_box, message_type, from_party_id, from_party_role, to_party_id, to_party_role, cpa_id, service, action, conv_id, ref_to_message_id, sync_reply, dup_elimination, ack_requested, ack_sign_requested, sequence_no, sequence_status, sequence_group, time_to_live, time_stamp, timeout_time_stamp, status, status_description) 
 		VALUES ('20080311-155228-42309@192.168.0.1', 'outbox', 'Order', 'fromPartyId5', 'fromPartyType5', 'toPartyId5', 'toPartyType5', 'testhistory4', 'test:test', 'order', 'convId_test5', 'refToMessageId', 'false', 'false', 'false', 'false', -1, -1, -1, '2008-01-11 15:52:28.429', '2008-01-11 15:52:27.300', NULL, 'DL', 'Message was sent.');
 INSERT INTO message (message_id, message_box, message_type, from_party_id, from_party_role, to_party_id, to_party_role, cpa_id, service, action, conv_id, ref_to_message_id, sync_reply, dup_elimination, ack_requested, ack_sign_requested, sequence_no, sequence_status, sequence_group, time_to_live, time_stamp, timeout_time_stamp, status, status_description) 
-		VALUES ('20080311-155228-42309@192.168.0.1', 'inbox', 'Acknowledgement', 'fromPartyId5', 'fromPartyType5', 'toPartyId5', 'toPartyType5', 'testhistory4', 'test:test', 'order', 'convId_test5', 'refToMessageId', 'false', 'false', 'false', 'false', -1, -1, -1, '2008-01-11 15:52:28.496', '2008-01-11 15:52:27.300', NULL, 'PS', 'Message is processed');
\ No newline at end of file
+		VALUES ('20080311-155228-42309@192.168.0.1', 'inbox', 'Acknowledgement', 'fromPartyId5', 'fromPartyType5', 'toPartyId5', 'toPartyType5', 'testhistory4', 'test:test', 'order', 'convId_test5', 'refToMessageId', 'false', 'false', 'false', 'false', -1, -1, -1, '2008-01-11 15:52:28.496', '2008-01-11 15:52:27.300', NULL, 'PS', 'Message is processed');
+
+// testFindOutboxPendingMessagesByPartnership
+INSERT INTO message (message_id, message_box, message_type, from_party_id, from_party_role, to_party_id, to_party_role, cpa_id, service, action, conv_id, ref_to_message_id, sync_reply, dup_elimination, ack_requested, ack_sign_requested, sequence_no, sequence_status, sequence_group, time_to_live, time_stamp, timeout_time_stamp, status, status_description) VALUES ('pending-1@test', 'outbox', 'Acknowledgement', 'fromPartyId', 'fromPartyType', 'toPartyId', 'toPartyType', 'pending1', 'cecid:cecid', 'order', 'convId', 'refToMessageId', 'false', 'false', 'false', 'false', -1, -1, -1, '2008-01-12 10:00:03.000', '2008-01-12 10:00:03.000', NULL, 'PD', 'Message is pending');
+INSERT INTO message (message_id, message_box, message_type, from_party_id, from_party_role, to_party_id, to_party_role, cpa_id, service, action, conv_id, ref_to_message_id, sync_reply, dup_elimination, ack_requested, ack_sign_requested, sequence_no, sequence_status, sequence_group, time_to_live, time_stamp, timeout_time_stamp, status, status_description) VALUES ('pending-2@test', 'outbox', 'Acknowledgement', 'fromPartyId', 'fromPartyType', 'toPartyId', 'toPartyType', 'pending1', 'cecid:cecid', 'order', 'convId', 'refToMessageId', 'false', 'false', 'false', 'false', -1, -1, -1, '2008-01-12 10:00:01.000', '2008-01-12 10:00:01.000', NULL, 'PD', 'Message is pending');
+INSERT INTO message (message_id, message_box, message_type, from_party_id, from_party_role, to_party_id, to_party_role, cpa_id, service, action, conv_id, ref_to_message_id, sync_reply, dup_elimination, ack_requested, ack_sign_requested, sequence_no, sequence_status, sequence_group, time_to_live, time_stamp, timeout_time_stamp, status, status_description) VALUES ('pending-3@test', 'outbox', 'Acknowledgement', 'fromPartyId', 'fromPartyType', 'toPartyId', 'toPartyType', 'pending1', 'cecid:cecid', 'order', 'convId', 'refToMessageId', 'false', 'false', 'false', 'false', -1, -1, -1, '2008-01-12 10:00:02.000', '2008-01-12 10:00:02.000', NULL, 'PD', 'Message is pending');
+INSERT INTO message (message_id, message_box, message_type, from_party_id, from_party_role, to_party_id, to_party_role, cpa_id, service, action, conv_id, ref_to_message_id, sync_reply, dup_elimination, ack_requested, ack_sign_requested, sequence_no, sequence_status, sequence_group, time_to_live, time_stamp, timeout_time_stamp, status, status_description) VALUES ('pending-4@test', 'outbox', 'Acknowledgement', 'fromPartyId', 'fromPartyType', 'toPartyId', 'toPartyType', 'pending2', 'cecid:cecid', 'order', 'convId', 'refToMessageId', 'false', 'false', 'false', 'false', -1, -1, -1, '2008-01-12 10:00:04.000', '2008-01-12 10:00:04.000', NULL, 'PD', 'Message is pending');
+INSERT INTO message (message_id, message_box, message_type, from_party_id, from_party_role, to_party_id, to_party_role, cpa_id, service, action, conv_id, ref_to_message_id, sync_reply, dup_elimination, ack_requested, ack_sign_requested, sequence_no, sequence_status, sequence_group, time_to_live, time_stamp, timeout_time_stamp, status, status_description) VALUES ('pending-5@test', 'outbox', 'Acknowledgement', 'fromPartyId', 'fromPartyType', 'toPartyId', 'toPartyType', 'pending2', 'cecid:cecid', 'order', 'convId', 'refToMessageId', 'false', 'false', 'false', 'false', -1, -1, -1, '2008-01-12 10:00:00.000', '2008-01-12 10:00:00.000', NULL, 'DL', 'Message is pending');
+INSERT INTO message (message_id, message_box, message_type, from_party_id, from_party_role, to_party_id, to_party_role, cpa_id, service, action, conv_id, ref_to_message_id, sync_reply, dup_elimination, ack_requested, ack_sign_requested, sequence_no, sequence_status, sequence_group, time_to_live, time_stamp, timeout_time_stamp, status, status_description) VALUES ('pending-6@test', 'outbox', 'ProcessedError', 'fromPartyId', 'fromPartyType', 'toPartyId', 'toPartyType', 'pending2', 'cecid:cecid', 'order', 'convId', 'refToMessageId', 'false', 'false', 'false', 'false', -1, -1, -1, '2008-01-12 10:00:00.000', '2008-01-12 10:00:00.000', NULL, 'PD', 'Message is pending');
\ No newline at end of file
@@ -1,5 +1,7 @@
 package hk.hku.cecid.piazza.corvus.core.main.admin.hc.module;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 
@@ -11,42 +13,48 @@ import hk.hku.cecid.edi.as2.dao.RepositoryDAO;
 import hk.hku.cecid.edi.as2.dao.RepositoryDVO;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.Transaction;
+import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
 import hk.hku.cecid.piazza.corvus.core.main.admin.AdminMainProcessor;
 
 public class NeoSchedulerTask extends SchedulerTask{
 
 	@Override
-	protected Transaction cleanAS2(int months) throws Exception {
+	protected List cleanAS2(Date cutoff, MessageDVO after, int chunkSize)
+			throws Exception {
+		Transaction tr = null;
 		try {
 			MessageDAO dao = (MessageDAO) AS2Processor.core.dao
 					.createDAO(MessageDAO.class);
-			Transaction tr = ((MessageDataSourceDAO) dao).getFactory()
-					.createTransaction();
+			tr = ((MessageDataSourceDAO) dao).getFactory().createTransaction();
 			RepositoryDAO repDao = (RepositoryDAO) AS2Processor.core.dao
 					.createDAO(RepositoryDAO.class);
 			dao.setTransaction(tr);
 			repDao.setTransaction(tr);
 			tr.begin();
 
-			List list = dao.findMessagesBeforeTime(months);
-			AS2PlusLogging(Integer.toString(list.size())
-					+ " messages will be removed.");
-			AS2PlusLogging("Initializing...");
+			List list = dao.findMessagesBeforeTime(cutoff, after, chunkSize);
 
 			Iterator itr = list.iterator();
 			MessageDVO dvo;
 			RepositoryDVO repDvo;
+			List repList = new ArrayList();
 
 			while (itr.hasNext()) {
 				dvo = (MessageDVO) itr.next();
 				repDvo = (RepositoryDVO) repDao.createDVO();
 				repDvo.setMessageId(dvo.getMessageId());
 				repDvo.setMessageBox(dvo.getMessageBox());
-				repDao.remove(repDvo);
-				dao.remove(dvo);
+				repList.add(repDvo);
 			}
-			return tr;
+			/**
+			 * remove the chunk in batches, repository first
+			 */
+			((DataSourceDAO) repDao).removeAll(repList);
+			((DataSourceDAO) dao).removeAll(list);
+			tr.commit();
+			return list;
 		} catch (DAOException e) {
+			rollbackTx(new Transaction[] { tr });
 			AS2PlusError("Error encountered while cleaning.");
 			throw new Exception("Error encountered while cleaning AS2.", e);
 		}
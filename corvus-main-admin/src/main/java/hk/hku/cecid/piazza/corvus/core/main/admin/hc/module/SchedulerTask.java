@@ -13,11 +13,11 @@ import hk.hku.cecid.edi.as2.dao.RepositoryDAO;
 import hk.hku.cecid.edi.as2.dao.RepositoryDVO;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.Transaction;
+import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
 import hk.hku.cecid.piazza.commons.mail.SmtpMail;
 import hk.hku.cecid.piazza.commons.mail.SmtpMailException;
 import hk.hku.cecid.piazza.commons.mail.SmtpMailProperties;
 import hk.hku.cecid.piazza.commons.module.ActiveTask;
-import hk.hku.cecid.piazza.commons.servlet.http.HttpDispatcherContext;
 import hk.hku.cecid.piazza.commons.util.PropertyTree;
 import hk.hku.cecid.piazza.corvus.core.main.admin.AdminMainProcessor;
 import hk.hku.cecid.piazza.corvus.core.main.admin.hc.util.AdminProperties;
@@ -26,6 +26,7 @@ import hk.hku.cecid.piazza.corvus.core.main.admin.hc.util.AdminPropertiesExcepti
 import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
@@ -40,12 +41,30 @@ import javax.mail.internet.InternetAddress;
 
 import com.sun.mail.smtp.SMTPMessage;
 
+/**
+ * The housecleaning task removes the messages older than the cutoff while
+ * the listeners keep running. The messages are removed in chunks, each in its
+ * own transaction, at a rate no more than the rate limit. The cutoff time of
+ * the housecleaning in progress is kept in the properties as a checkpoint so
+ * that an interrupted housecleaning is resumed instead of being rescheduled.
+ */
 public class SchedulerTask implements ActiveTask {
 
 	// private int retried;
 
 	private AdminProperties props;
 
+	/**
+	 * Progress of the housecleaning in progress
+	 */
+	private long progress;
+
+	private long purgeStart;
+
+	private long purgeRemoved;
+
+	private int rateLimit;
+
 	/**
 	 * Status messages
 	 */
@@ -72,12 +91,6 @@ public class SchedulerTask implements ActiveTask {
 	public static final String TIME_FORMAT = "k.m.s";
 
 	public void execute() throws Exception {
-		/**
-		 * Transactions
-		 */
-		Transaction as2 = null;
-
-		Transaction ebms = null;
 		try {
 			// load the properties
 			props = loadProps();
@@ -85,8 +98,14 @@ public class SchedulerTask implements ActiveTask {
 			if (!props.isOn()) {
 				return;
 			}
+			boolean resume = false;
 			// check if the status is in progress
-			if (props.getStatus().equals(IN_PROGESS)) {
+			if (props.getStatus().equals(IN_PROGESS)
+					&& !props.getCheckpoint().equals("")) {
+				AdminLogging("Previous housecleaning was interrupted while in progress.");
+				AdminLogging("Resuming housecleaning from the checkpoint.");
+				resume = true;
+			} else if (props.getStatus().equals(IN_PROGESS)) {
 				AdminLogging("Previous housecleaning was interrupted while in progress.");
 				AdminLogging("Rescheduling housecleaning.");
 				// set the status to failed
@@ -105,38 +124,23 @@ public class SchedulerTask implements ActiveTask {
 				}
 				props.write();
 			}
-			if (checkStartTime(props.getNextRun())) {
-				// set the start status
-				setStartStatus();
-				if (checkNotExceeded(props.getNextRun())) {
-					// halt the context listeners
-					if (HttpDispatcherContext.getDefaultContext().halt()) {
-						// clean the as2 database
-						as2 = cleanAS2(props.getCutoff());
-						// clean the ebms database
-						ebms = cleanEBMS(props.getCutoff());
-						// commit the transactions
-						commitTx(new Transaction[] { as2, ebms });
-						AdminLogging("Transactions commited.");
-						// resume the context listeners
-						if (HttpDispatcherContext.getDefaultContext().resume()) {
-							// set the end status : success
-							setEndStatus(true, props);
-							props.setReason("");
-						} else {
-							// set the end status : fail - could not restart the
-							// context listeners
-							setEndStatus(false, props);
-							AdminError("Unable to start up servlet.");
-							props
-									.setReason("House cleaning was successful but unable to restart the servlet.");
-						}
+			if (resume || checkStartTime(props.getNextRun())) {
+				if (!resume) {
+					// set the start status
+					setStartStatus();
+				}
+				if (resume || checkNotExceeded(props.getNextRun())) {
+					// clean the as2 and ebms databases in chunks
+					if (purge(resume)) {
+						// set the end status : success
+						setEndStatus(true, props);
+						props.setReason("");
 					} else {
-						// set the end status: failed - could not halt the
-						// context listeners
-						setEndStatus(false, props);
-						AdminError("Listeners cannot be halted.");
-						props.setReason("Listeners cannot be halted.");
+						// housecleaning was turned off, it is resumed from
+						// the checkpoint once turned on again
+						AdminLogging("Housecleaning was turned off while in progress.");
+						props.write();
+						return;
 					}
 				} else {
 					// set the end status: fail - the runtime has expired
@@ -144,6 +148,7 @@ public class SchedulerTask implements ActiveTask {
 					AdminError("Runtime has expired.");
 					props.setReason("Runtime has expired.");
 				}
+				props.setCheckpoint("");
 				// set the next run date from now
 				if (!setNextRunDateFromNow(props)) {
 					AdminError("Failed to update the next run date.");
@@ -156,12 +161,6 @@ public class SchedulerTask implements ActiveTask {
 		}
 		// catch any exceptions related to malformed property entries
 		catch (AdminPropertiesException e) {
-			// roll back the transaction
-			rollbackTx(new Transaction[] { as2, ebms });
-			// resume the context listeners if they were halted
-			if (HttpDispatcherContext.getDefaultContext().isHalted()) {
-				HttpDispatcherContext.getDefaultContext().resume();
-			}
 			// set the default properties
 			setDefaultProperties(props);
 			// set the end status: fail
@@ -175,18 +174,15 @@ public class SchedulerTask implements ActiveTask {
 		}
 		// catch any other exception
 		catch (Exception e) {
-			// roll back transaction if the transaction has not been commited
-			rollbackTx(new Transaction[] { as2, ebms });
-			// resume context listeners if they are halted
-			if (HttpDispatcherContext.getDefaultContext().isHalted()) {
-				HttpDispatcherContext.getDefaultContext().resume();
-			}
 			// log the stack trace of the exception
 			stackTraceToLog(e.getCause());
 			// set the end status: fail
 			setEndStatus(false, props);
 			// set the failure reason
 			props.setReason(e.getMessage());
+			// the removed chunks are committed, the next housecleaning
+			// starts over with a new cutoff
+			props.setCheckpoint("");
 			// set the next run date
 			setNextRunDateFromNow(props);
 		}
@@ -280,59 +276,167 @@ public class SchedulerTask implements ActiveTask {
 	}
 
 	/**
-	 * Attempt to clean out the AS2 database
+	 * Remove the AS2 and EBMS messages before the cutoff time, chunk by chunk.
+	 * The progress is written to the properties after each chunk.
+	 * 
+	 * @param resume
+	 *            true if the cutoff time is taken from the checkpoint.
+	 * @return true if completed, false if housecleaning was turned off.
+	 * @throws Exception
+	 */
+	private boolean purge(boolean resume) throws Exception {
+		Date cutoff;
+		if (resume) {
+			try {
+				cutoff = getDateFormat().parse(props.getCheckpoint());
+			} catch (ParseException e) {
+				AdminError("Parse error when reading the checkpoint.");
+				throw new Exception("Parse error when reading the checkpoint.",
+						e);
+			}
+		} else {
+			Calendar cal = GregorianCalendar.getInstance();
+			cal.add(Calendar.MONTH, -props.getCutoff());
+			cutoff = cal.getTime();
+			props.setCheckpoint(getDateFormat().format(cutoff));
+			props.setProgress(0);
+			props.setRate(0);
+			props.write();
+		}
+		int chunkSize = props.getChunkSize();
+		rateLimit = props.getRateLimit();
+		progress = props.getProgress();
+		purgeStart = System.currentTimeMillis();
+		purgeRemoved = 0;
+
+		AdminLogging("Removing messages before " + cutoff + ".");
+		long removed = 0;
+		List chunk = cleanAS2(cutoff, null, chunkSize);
+		while (chunk.size() > 0) {
+			removed += chunk.size();
+			if (!checkpoint(chunk.size())) {
+				return false;
+			}
+			if (chunk.size() < chunkSize) {
+				break;
+			}
+			// continue after the last message of the chunk
+			chunk = cleanAS2(cutoff, (MessageDVO) chunk.get(chunk.size() - 1),
+					chunkSize);
+		}
+		AS2Logging(removed + " messages removed.");
+		removed = 0;
+		chunk = cleanEBMS(cutoff, null, chunkSize);
+		while (chunk.size() > 0) {
+			removed += chunk.size();
+			if (!checkpoint(chunk.size())) {
+				return false;
+			}
+			if (chunk.size() < chunkSize) {
+				break;
+			}
+			// continue after the last message of the chunk
+			chunk = cleanEBMS(cutoff,
+					(hk.hku.cecid.ebms.spa.dao.MessageDVO) chunk.get(chunk
+							.size() - 1), chunkSize);
+		}
+		EBMSLogging(removed + " messages removed.");
+		return true;
+	}
+
+	/**
+	 * Record the progress after a chunk is removed and wait until the rate is
+	 * within the rate limit.
 	 * 
-	 * @param months
+	 * @param removed
+	 *            the number of messages removed in the chunk.
+	 * @return false if housecleaning has been turned off.
 	 * @throws Exception
-	 * @throws DAOException
-	 * @throws DAOException
 	 */
-	protected Transaction cleanAS2(int months) throws Exception {
+	private boolean checkpoint(int removed) throws Exception {
+		progress += removed;
+		purgeRemoved += removed;
+		long elapsed = System.currentTimeMillis() - purgeStart;
+		if (rateLimit > 0) {
+			long expected = purgeRemoved * 1000 / rateLimit;
+			if (expected > elapsed) {
+				Thread.sleep(expected - elapsed);
+				elapsed = expected;
+			}
+		}
+		props.setProgress(progress);
+		props.setRate(elapsed > 0 ? purgeRemoved * 1000 / elapsed : 0);
+		props.write();
+		return props.isOn();
+	}
+
+	/**
+	 * Attempt to remove a chunk of the AS2 messages before the cutoff time in
+	 * a transaction.
+	 * 
+	 * @param cutoff
+	 * @param after
+	 *            the last message of the previous chunk, or null.
+	 * @param chunkSize
+	 * @return the messages removed, empty if there is none left.
+	 * @throws Exception
+	 */
+	protected List cleanAS2(Date cutoff, MessageDVO after, int chunkSize)
+			throws Exception {
+		Transaction tr = null;
 		try {
 			MessageDAO dao = (MessageDAO) AS2Processor.core.dao
 					.createDAO(MessageDAO.class);
-			Transaction tr = ((MessageDataSourceDAO) dao).getFactory()
-					.createTransaction();
+			tr = ((MessageDataSourceDAO) dao).getFactory().createTransaction();
 			RepositoryDAO repDao = (RepositoryDAO) AS2Processor.core.dao
 					.createDAO(RepositoryDAO.class);
 			dao.setTransaction(tr);
 			repDao.setTransaction(tr);
 			tr.begin();
 
-			List list = dao.findMessagesBeforeTime(months);
-			AS2Logging(Integer.toString(list.size())
-					+ " messages will be removed.");
-			AS2Logging("Initializing...");
+			List list = dao.findMessagesBeforeTime(cutoff, after, chunkSize);
 
 			Iterator itr = list.iterator();
 			MessageDVO dvo;
 			RepositoryDVO repDvo;
+			List repList = new ArrayList();
 
 			while (itr.hasNext()) {
 				dvo = (MessageDVO) itr.next();
 				repDvo = (RepositoryDVO) repDao.createDVO();
 				repDvo.setMessageId(dvo.getMessageId());
 				repDvo.setMessageBox(dvo.getMessageBox());
-				repDao.remove(repDvo);
-				dao.remove(dvo);
+				repList.add(repDvo);
 			}
-			return tr;
+			/**
+			 * remove the chunk in batches, repository first
+			 */
+			((DataSourceDAO) repDao).removeAll(repList);
+			((DataSourceDAO) dao).removeAll(list);
+			tr.commit();
+			return list;
 		} catch (DAOException e) {
+			rollbackTx(new Transaction[] { tr });
 			AS2Error("Error encountered while cleaning.");
 			throw new Exception("Error encountered while cleaning AS2.", e);
 		}
 	}
 
 	/**
-	 * Attempt to clean the EBMS messages.
+	 * Attempt to remove a chunk of the EBMS messages before the cutoff time in
+	 * a transaction.
 	 * 
-	 * @param months
-	 * @return
-	 * @throws Exception
+	 * @param cutoff
+	 * @param after
+	 *            the last message of the previous chunk, or null.
+	 * @param chunkSize
+	 * @return the messages removed, empty if there is none left.
 	 * @throws Exception
-	 * @throws DAOException
 	 */
-	protected Transaction cleanEBMS(int months) throws Exception {
+	protected List cleanEBMS(Date cutoff,
+			hk.hku.cecid.ebms.spa.dao.MessageDVO after, int chunkSize)
+			throws Exception {
+		Transaction tr = null;
 		try {
 			hk.hku.cecid.ebms.spa.dao.MessageDAO dao = (hk.hku.cecid.ebms.spa.dao.MessageDAO) EbmsProcessor.core.dao
 					.createDAO(hk.hku.cecid.ebms.spa.dao.MessageDAO.class);
@@ -343,7 +447,7 @@ public class SchedulerTask implements ActiveTask {
 			hk.hku.cecid.ebms.spa.dao.RepositoryDAO repDao = (hk.hku.cecid.ebms.spa.dao.RepositoryDAO) EbmsProcessor.core.dao
 					.createDAO(hk.hku.cecid.ebms.spa.dao.RepositoryDAO.class);
 
-			Transaction tr = ((hk.hku.cecid.ebms.spa.dao.MessageDataSourceDAO) dao)
+			tr = ((hk.hku.cecid.ebms.spa.dao.MessageDataSourceDAO) dao)
 					.getFactory().createTransaction();
 
 			dao.setTransaction(tr);
@@ -352,10 +456,7 @@ public class SchedulerTask implements ActiveTask {
 			repDao.setTransaction(tr);
 			tr.begin();
 
-			List list = dao.findMessagesBeforeTime(months);
-			EBMSLogging(Integer.toString(list.size())
-					+ " messages will be removed.");
-			EBMSLogging("Initializing...");
+			List list = dao.findMessagesBeforeTime(cutoff, after, chunkSize);
 
 			Iterator itr = list.iterator();
 
@@ -363,6 +464,9 @@ public class SchedulerTask implements ActiveTask {
 			InboxDVO inboxDvo;
 			OutboxDVO outboxDvo;
 			hk.hku.cecid.ebms.spa.dao.RepositoryDVO repDvo;
+			List inboxList = new ArrayList();
+			List outboxList = new ArrayList();
+			List repList = new ArrayList();
 
 			while (itr.hasNext()) {
 				dvo = (hk.hku.cecid.ebms.spa.dao.MessageDVO) itr.next();
@@ -372,15 +476,16 @@ public class SchedulerTask implements ActiveTask {
 					 */
 					inboxDvo = (InboxDVO) inboxDao.createDVO();
 					inboxDvo.setMessageId(dvo.getMessageId());
-					inboxDao.remove(inboxDvo);
+					inboxList.add(inboxDvo);
 				} else if (dvo.getMessageBox().equals("outbox")) {
 					/**
 					 * delete the outbox entry
 					 */
 					outboxDvo = (OutboxDVO) outboxDao.createDVO();
 					outboxDvo.setMessageId(dvo.getMessageId());
-					outboxDao.remove(outboxDvo);
+					outboxList.add(outboxDvo);
 				} else {
+					rollbackTx(new Transaction[] { tr });
 					EBMSError("Unknown value in MessageBox relation.");
 					throw new Exception(
 							"Error, unknown value in MessageBox relation.");
@@ -392,14 +497,19 @@ public class SchedulerTask implements ActiveTask {
 						.createDVO();
 				repDvo.setMessageId(dvo.getMessageId());
 				repDvo.setMessageBox(dvo.getMessageBox());
-				repDao.remove(repDvo);
-				/**
-				 * finally remove from message table
-				 */
-				dao.remove(dvo);
+				repList.add(repDvo);
 			}
-			return tr;
+			/**
+			 * remove the chunk in batches, finally from message table
+			 */
+			((DataSourceDAO) inboxDao).removeAll(inboxList);
+			((DataSourceDAO) outboxDao).removeAll(outboxList);
+			repDao.deleteRepositories(repList);
+			((DataSourceDAO) dao).removeAll(list);
+			tr.commit();
+			return list;
 		} catch (DAOException e) {
+			rollbackTx(new Transaction[] { tr });
 			EBMSError("Error encountered while cleaning.");
 			throw new Exception("Error encountered while cleaning EBmS.", e);
 
@@ -407,27 +517,6 @@ public class SchedulerTask implements ActiveTask {
 
 	}
 
-	/**
-	 * Commit the transactions. If null do nothing. Note: Tx should never be
-	 * null as commitTx should only be called when all txs needing commit are
-	 * valid.
-	 * 
-	 * @param txs
-	 * @throws Exception
-	 */
-	private void commitTx(Transaction[] txs) throws Exception {
-		try {
-			for (int i = 0; i < txs.length; i++) {
-				if (txs[i] != null) {
-					txs[i].commit();
-				}
-			}
-		} catch (DAOException e) {
-			AdminError("Exception thrown during the commit.");
-			throw new Exception("Exception thrown during commit.", e);
-		}
-	}
-
 	/**
 	 * Convenience method to create a message associated with the session ses.
 	 * If success is true, String reasonFailed is ignored. If success is false
@@ -537,7 +626,7 @@ public class SchedulerTask implements ActiveTask {
 	 * @param txs
 	 * @throws Exception
 	 */
-	private void rollbackTx(Transaction[] txs) throws Exception {
+	protected void rollbackTx(Transaction[] txs) throws Exception {
 		try {
 			for (int i = 0; i < txs.length; i++) {
 				if (txs[i] != null) {
@@ -605,6 +694,9 @@ public class SchedulerTask implements ActiveTask {
 		p.setDay(DEFAULT_DAY);
 		p.setLastRun("");
 		p.setCutoff(DEFAULT_CUTOFF);
+		p.setChunkSize(AdminProperties.DEFAULT_CHUNK_SIZE);
+		p.setRateLimit(AdminProperties.DEFAULT_RATE_LIMIT);
+		p.setCheckpoint("");
 		p.setStatus("");
 		p.setTime(DEFAULT_TIME);
 		if (p.getEmail() == null) {
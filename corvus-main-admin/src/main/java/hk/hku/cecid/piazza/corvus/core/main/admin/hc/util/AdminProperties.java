@@ -54,6 +54,24 @@ public class AdminProperties {
 
 	public static final String REASON_FAILED = "reason";
 
+	public static final String CHUNK_SIZE = "chunksize";
+
+	public static final String RATE_LIMIT = "ratelimit";
+
+	public static final String CHECKPOINT = "checkpoint";
+
+	public static final String PROGRESS = "progress";
+
+	public static final String RATE = "rate";
+
+	/**
+	 * Default values of the properties which may be missing in the properties
+	 * file of an earlier version.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 500;
+
+	public static final int DEFAULT_RATE_LIMIT = 1000;
+
 	private PropertyTree props;
 
 	public AdminProperties(PropertyTree tree) {
@@ -366,6 +384,144 @@ public class AdminProperties {
 		}
 		props.setProperty(HCPATH + REASON_FAILED, reason);
 	}
+
+	/**
+	 * Return the 'chunksize' property, the number of messages removed in each
+	 * transaction, or the default if not set. If invalid, throw an exception.
+	 * 
+	 * @return int
+	 * @throws AdminPropertiesException
+	 */
+	public int getChunkSize() throws AdminPropertiesException {
+		String chunkSize = props.getProperty(HCPATH + CHUNK_SIZE);
+		if (chunkSize == null || chunkSize.trim().equals("")) {
+			return DEFAULT_CHUNK_SIZE;
+		}
+		try {
+			int value = Integer.parseInt(chunkSize.trim());
+			if (value <= 0) {
+				throw new AdminPropertiesException(
+						"Invalid property for 'chunksize'.");
+			}
+			return value;
+		} catch (NumberFormatException e) {
+			throw new AdminPropertiesException(
+					"Invalid property for 'chunksize'.", e);
+		}
+	}
+
+	/**
+	 * Set the property 'chunksize'.
+	 * 
+	 * @param chunkSize
+	 */
+	public void setChunkSize(int chunkSize) {
+		props.setProperty(HCPATH + CHUNK_SIZE, Integer.toString(chunkSize));
+	}
+
+	/**
+	 * Return the 'ratelimit' property, the maximum number of messages removed
+	 * per second, or the default if not set. 0 means no limit. If invalid,
+	 * throw an exception.
+	 * 
+	 * @return int
+	 * @throws AdminPropertiesException
+	 */
+	public int getRateLimit() throws AdminPropertiesException {
+		String rateLimit = props.getProperty(HCPATH + RATE_LIMIT);
+		if (rateLimit == null || rateLimit.trim().equals("")) {
+			return DEFAULT_RATE_LIMIT;
+		}
+		try {
+			int value = Integer.parseInt(rateLimit.trim());
+			if (value < 0) {
+				throw new AdminPropertiesException(
+						"Invalid property for 'ratelimit'.");
+			}
+			return value;
+		} catch (NumberFormatException e) {
+			throw new AdminPropertiesException(
+					"Invalid property for 'ratelimit'.", e);
+		}
+	}
+
+	/**
+	 * Set the property 'ratelimit'.
+	 * 
+	 * @param rateLimit
+	 */
+	public void setRateLimit(int rateLimit) {
+		props.setProperty(HCPATH + RATE_LIMIT, Integer.toString(rateLimit));
+	}
+
+	/**
+	 * Return the 'checkpoint' property, the cutoff time of the housecleaning
+	 * in progress, or an empty String if not set.
+	 * 
+	 * @return String
+	 */
+	public String getCheckpoint() {
+		String checkpoint = props.getProperty(HCPATH + CHECKPOINT);
+		return checkpoint == null ? "" : checkpoint;
+	}
+
+	/**
+	 * Set the property 'checkpoint'.
+	 * 
+	 * @param checkpoint
+	 */
+	public void setCheckpoint(String checkpoint) {
+		if (checkpoint == null) {
+			checkpoint = "";
+		}
+		props.setProperty(HCPATH + CHECKPOINT, checkpoint);
+	}
+
+	/**
+	 * Return the 'progress' property, the number of messages removed by the
+	 * current or the last housecleaning, or 0 if not set or invalid.
+	 * 
+	 * @return long
+	 */
+	public long getProgress() {
+		try {
+			return Long.parseLong(props.getProperty(HCPATH + PROGRESS));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Set the property 'progress'.
+	 * 
+	 * @param progress
+	 */
+	public void setProgress(long progress) {
+		props.setProperty(HCPATH + PROGRESS, Long.toString(progress));
+	}
+
+	/**
+	 * Return the 'rate' property, the number of messages removed per second
+	 * by the current or the last housecleaning, or 0 if not set or invalid.
+	 * 
+	 * @return long
+	 */
+	public long getRate() {
+		try {
+			return Long.parseLong(props.getProperty(HCPATH + RATE));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Set the property 'rate'.
+	 * 
+	 * @param rate
+	 */
+	public void setRate(long rate) {
+		props.setProperty(HCPATH + RATE, Long.toString(rate));
+	}
 	
 	public void setElementHC(String name, String value){
 		props.setProperty(HCPATH + "/" + name, value);
@@ -160,6 +160,11 @@ public class CorePropertiesPageletAdaptor extends PropertiesPageletAdaptor {
 				dom.setProperty("hc/" + propArray[index], props
 						.getElementHC(propArray[index]));
 			}
+			dom.setProperty("hc/" + AdminProperties.STATUS, props.getStatus());
+			dom.setProperty("hc/" + AdminProperties.PROGRESS, Long
+					.toString(props.getProgress()));
+			dom.setProperty("hc/" + AdminProperties.RATE, Long.toString(props
+					.getRate()));
 			String[] datesArray = { AdminProperties.LAST_RUN,
 					AdminProperties.NEXT_RUN };
 			for (int jndex = 0; jndex < datesArray.length; jndex++) {
@@ -9,7 +9,9 @@
 
 package hk.hku.cecid.piazza.corvus.core.main.admin.listener;
 
+import hk.hku.cecid.ebms.pkg.pki.CertPathVerifier;
 import hk.hku.cecid.piazza.commons.Sys;
+import hk.hku.cecid.piazza.commons.dao.DVOCache;
 import hk.hku.cecid.piazza.commons.module.Module;
 import hk.hku.cecid.piazza.commons.module.ModuleGroup;
 import hk.hku.cecid.piazza.commons.util.PropertyTree;
@@ -39,6 +41,8 @@ public class ModuleInfoPageletAdaptor extends AdminPageletAdaptor {
         PropertyTree dom = new PropertyTree();
         printModuleGroup(dom, Sys.main.getGroup(), "/module-info/module-group/");
         printModuleGroups(dom, Sys.main.getGroup(), "/module-info/all-module-groups/", 1);
+        int caches = printCaches(dom, Sys.main.getGroup(), "/module-info/caches/", 0);
+        printCertPathCache(dom, "/module-info/caches/cache["+(caches+1)+"]/");
         return dom.getSource(); 
     }
 
@@ -57,6 +61,43 @@ public class ModuleInfoPageletAdaptor extends AdminPageletAdaptor {
         }
     }
 
+    private int printCaches(PropertyTree dom, ModuleGroup group, String level, int count) {
+        Iterator modules = group.getModules().iterator();
+        while (modules.hasNext()) {
+            Module module = (Module)modules.next();
+            Iterator components = module.getComponents().iterator();
+            while (components.hasNext()) {
+                Object component = components.next();
+                if (component instanceof DVOCache) {
+                    DVOCache cache = (DVOCache)component;
+                    String prefix = level + "cache["+(++count)+"]/";
+                    dom.setProperty(prefix+"module", module.getName());
+                    dom.setProperty(prefix+"id", cache.getId());
+                    dom.setProperty(prefix+"size", cache.size()+"/"+cache.getMaxSize());
+                    dom.setProperty(prefix+"hits", String.valueOf(cache.getHitCount()));
+                    dom.setProperty(prefix+"misses", String.valueOf(cache.getMissCount()));
+                    dom.setProperty(prefix+"ratio", String.valueOf(Math.round(cache.getHitRatio()))+"%");
+                }
+            }
+        }
+        Iterator subgroups = group.getChildren().iterator();
+        while (subgroups.hasNext()) {
+            count = printCaches(dom, (ModuleGroup) subgroups.next(), level, count);
+        }
+        return count;
+    }
+
+    private void printCertPathCache(PropertyTree dom, String prefix) {
+        long hits = CertPathVerifier.getCacheHits();
+        long misses = CertPathVerifier.getCacheMisses();
+        dom.setProperty(prefix+"module", "ebXML Message Packaging");
+        dom.setProperty(prefix+"id", "certificate-path");
+        dom.setProperty(prefix+"size", CertPathVerifier.getCachedChains()+"/"+CertPathVerifier.getCacheSize());
+        dom.setProperty(prefix+"hits", String.valueOf(hits));
+        dom.setProperty(prefix+"misses", String.valueOf(misses));
+        dom.setProperty(prefix+"ratio", String.valueOf(hits+misses==0? 0:Math.round(hits*100.0/(hits+misses)))+"%");
+    }
+
     private void printModuleGroups(PropertyTree dom, ModuleGroup group, String level, int position) {
         level += "module-group" + (position>1? "["+position+"]/":"/");
         Collection groups = group.getChildren();
@@ -70,6 +70,33 @@
     <xsl:text disable-output-escaping="yes">&lt;pre&gt;</xsl:text>
     <xsl:apply-templates select="./all-module-groups/module-group"/>
     <xsl:text disable-output-escaping="yes">&lt;/pre&gt;</xsl:text>
+    
+    <xsl:if test="./caches/cache">
+    <br/>
+    <table border="0" cellpadding="2" cellspacing="2" width="100%">
+	  <tr>
+	    <th colspan="6">Caches</th>
+	  </tr>
+	  <tr>
+	    <td><b>Module</b></td>
+	    <td><b>Cache</b></td>
+	    <td><b>Size</b></td>
+	    <td><b>Hits</b></td>
+	    <td><b>Misses</b></td>
+	    <td><b>Hit Ratio</b></td>
+	  </tr>
+	  <xsl:for-each select="caches/cache">
+	  <tr>
+	    <td><xsl:value-of select="./module" /></td>
+	    <td><xsl:value-of select="./id" /></td>
+	    <td><xsl:value-of select="./size" /></td>
+	    <td><xsl:value-of select="./hits" /></td>
+	    <td><xsl:value-of select="./misses" /></td>
+	    <td><xsl:value-of select="./ratio" /></td>
+	  </tr>
+	  </xsl:for-each>
+	</table>
+    </xsl:if>
   </xsl:template>
 
   <xsl:template match="module-group">
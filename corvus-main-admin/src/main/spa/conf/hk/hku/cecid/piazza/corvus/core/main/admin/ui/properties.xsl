@@ -57,6 +57,16 @@
   		<tr>
   			<td colspan="2"><i>The last time house cleaning was run was on <xsl:value-of select="hc/lastrun"/>.</i></td>
   		</tr>
+  		<xsl:if test="hc/status/text() = 'processing'">
+  		<tr>
+  			<td colspan="2"><i>House cleaning is in progress: <xsl:value-of select="hc/progress"/> messages removed at <xsl:value-of select="hc/rate"/> messages per second.</i></td>
+  		</tr>
+  		</xsl:if>
+  		<xsl:if test="hc/status/text() != 'processing'">
+  		<tr>
+  			<td colspan="2"><i>The last house cleaning removed <xsl:value-of select="hc/progress"/> messages at <xsl:value-of select="hc/rate"/> messages per second.</i></td>
+  		</tr>
+  		</xsl:if>
   	</xsl:if>
   <xsl:if test="hc/on/text() = 'true'">
   <tr>
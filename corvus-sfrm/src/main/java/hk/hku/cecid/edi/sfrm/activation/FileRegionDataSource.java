@@ -16,6 +16,7 @@ import java.io.FileInputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import javax.activation.FileDataSource;
 
@@ -182,6 +183,48 @@ public class FileRegionDataSource extends FileDataSource {
 		return bb;
 	}
 	
+	/**
+	 * Get the size of the file region.
+	 *
+	 * @return the size of the region in bytes.
+	 *
+	 * @since 2.0
+	 */
+	public long getSize(){
+		return this.size;
+	}
+
+	/**
+	 * Transfer the file region to the specified channel using
+	 * {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+	 * so that the region is not required to be loaded into memory.
+	 * The transfer is only zero-copy when the target is a file or socket 
+	 * channel. For any other channel, such as one wrapping an output 
+	 * stream, the JDK copies the region through a small buffer.
+	 *
+	 * @param target the channel to write the region to.
+	 * @return the number of bytes transferred.
+	 * @throws IOException if the region cannot be transferred.
+	 *
+	 * @since 2.0
+	 */
+	public long transferTo(WritableByteChannel target) throws IOException {
+		FileInputStream fis = new FileInputStream(this.getFile());
+		try{
+			FileChannel fc = fis.getChannel();
+			long transferred = 0;
+			while (transferred < this.size){
+				long count = fc.transferTo(this.position + transferred, this.size - transferred, target);
+				if (count <= 0 && this.position + transferred >= fc.size())
+					throw new IOException("Unexpected end of file region: " + this.getFile());
+				transferred += count;
+			}
+			return transferred;
+		}finally{
+			fis.close();
+		}
+	}
+
 	protected void finalize(){
 		bb = null;
 	}
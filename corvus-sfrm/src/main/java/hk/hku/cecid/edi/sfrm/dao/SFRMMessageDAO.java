@@ -127,4 +127,10 @@ public interface SFRMMessageDAO extends DAO {
      * @since 2.0.0
      */
     public List findMessageForAcknowledgement(int numberOfMessage, int offset) throws DAOException;
+    
+    public List findRecoverableMessages(String messageBox, String status, String ownerId) throws DAOException;
+    
+    public boolean claimMessage(SFRMMessageDVO message, String ownerId, boolean expiredOnly) throws DAOException;
+    
+    public boolean renewLease(SFRMMessageDVO message, String ownerId) throws DAOException;
 }
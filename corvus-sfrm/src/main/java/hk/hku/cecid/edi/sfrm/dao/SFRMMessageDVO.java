@@ -125,4 +125,12 @@ public interface SFRMMessageDVO extends DVO {
 	public String getFilename();
 	
 	public void setFilename(String filename);
+	
+	public String getOwnerId();
+	
+	public void setOwnerId(String ownerId);
+	
+	public Timestamp getLeaseTimestamp();
+	
+	public void setLeaseTimestamp(Timestamp leaseTimestamp);
 }
@@ -276,4 +276,14 @@ public interface SFRMMessageSegmentDAO extends DAO {
 			List<String> statues) throws 
 			DAOException;
 	
+	/**
+	 * Create all the message segment records in batches.
+	 * 
+	 * @param segments
+	 * 			  The list of message segment records. 
+	 * @throws DAOException
+	 * 			  Any kind of database error.
+	 */
+	public void createAll(List segments) throws DAOException;
+	
 }
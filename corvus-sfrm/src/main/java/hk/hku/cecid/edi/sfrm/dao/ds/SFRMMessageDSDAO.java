@@ -15,6 +15,7 @@ import hk.hku.cecid.edi.sfrm.spa.SFRMProcessor;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.DVO;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 import hk.hku.cecid.piazza.commons.util.StringUtilities;
 
 /**
@@ -256,6 +257,95 @@ public class SFRMMessageDSDAO extends DataSourceDAO implements SFRMMessageDAO {
     	}
     }
     
+    /**
+     * Find the messages with the specified message box and status which can 
+     * be recovered by the given node, i.e. the messages owned by the node, 
+     * by no node or by a node whose lease has expired.
+     * 
+     * @param messageBox
+     * 			The message box of the message.
+     * @param status
+     * 			The status of the message.
+     * @param ownerId
+     * 			The identity of the node. Only the messages whose lease has 
+     * 			expired are found if it is null.
+     * @return a list of message record that satisfy this condition.
+     * @throws DAOException
+     */
+    public List findRecoverableMessages(String messageBox, String status, String ownerId) 
+    	throws DAOException
+    {
+    	Timestamp now = new Timestamp(System.currentTimeMillis());
+    	if (ownerId == null){
+    		return super.find("find_expired_message_by_message_box_and_status", 
+    				new Object[] { messageBox, status, now });
+    	}
+    	return super.find("find_owned_message_by_message_box_and_status", 
+    			new Object[] { messageBox, status, ownerId, now });
+    }
+    
+    /**
+     * Claim the message for the given node with a new lease. The claim 
+     * succeeds only if the message still has the same status and can be 
+     * recovered by the node, so that a message can never be claimed by two 
+     * nodes.
+     * 
+     * @param message
+     * 			The message to claim. 
+     * @param ownerId
+     * 			The identity of the claiming node.
+     * @param expiredOnly
+     * 			true if the message can be claimed only if its lease has 
+     * 			expired.
+     * @return true if the message has been claimed.
+     * @throws DAOException
+     */
+    public boolean claimMessage(SFRMMessageDVO message, String ownerId, boolean expiredOnly) 
+    	throws DAOException 
+    {
+    	Timestamp lease = ClusterNode.getLeaseExpiry();
+    	Timestamp now = new Timestamp(System.currentTimeMillis());
+    	int claimed;
+    	if (expiredOnly){
+    		claimed = super.update("claim_expired_message", new Object[] { ownerId, lease, 
+    				message.getMessageId(), message.getMessageBox(), message.getStatus(), now });
+    	}
+    	else{
+    		claimed = super.update("claim_owned_message", new Object[] { ownerId, lease, 
+    				message.getMessageId(), message.getMessageBox(), message.getStatus(), 
+    				ownerId, now });
+    	}
+    	if (claimed > 0){
+    		message.setOwnerId(ownerId);
+    		message.setLeaseTimestamp(lease);
+    		return true;
+    	}
+    	return false;
+    }
+    
+    /**
+     * Renew the lease of the message owned by the given node.
+     * 
+     * @param message
+     * 			The message to renew.
+     * @param ownerId
+     * 			The identity of the owner node.
+     * @return true if the lease has been renewed, or false if the message is 
+     * 			no longer owned by the node. 
+     * @throws DAOException
+     */
+    public boolean renewLease(SFRMMessageDVO message, String ownerId) throws DAOException 
+    {
+    	Timestamp lease = ClusterNode.getLeaseExpiry();
+    	int renewed = super.update("renew_message_lease", new Object[] { lease, 
+    			message.getMessageId(), message.getMessageBox(), ownerId });
+    	if (renewed > 0){
+    		message.setLeaseTimestamp(lease);
+    		return true;
+    	}
+    	return false;
+    }
+    
     private void applyCommonFilter(SFRMMessageDVO data, List paraList, List parameters){
     	if(data.getMessageId()!=null && !data.getMessageId().trim().equals("")){
 			paraList.add(getFilter("find_number_of_message_by_history_filter_message_id"));
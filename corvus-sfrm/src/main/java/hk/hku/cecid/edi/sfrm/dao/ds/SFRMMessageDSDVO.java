@@ -419,4 +419,40 @@ public class SFRMMessageDSDVO extends DataSourceDVO implements SFRMMessageDVO {
 		super.setString("filename", filename);
 	}
 	
+	/**
+	 * [@GET, THREAD-SAFETY]
+	 * 
+	 * @return the identity of the node which is processing this message.
+	 */
+	public String getOwnerId(){
+		return super.getString("ownerId");
+	}
+	
+	/**
+	 * [@SET, THREAD-SAFETY]
+	 * 
+	 * @param ownerId the identity of the node which processes this message.
+	 */
+	public void setOwnerId(String ownerId){
+		super.setString("ownerId", ownerId);
+	}
+	
+	/**
+	 * [@GET, THREAD-SAFETY]
+	 * 
+	 * @return the timestamp when the lease of the owner node expires.
+	 */
+	public Timestamp getLeaseTimestamp(){
+		return (Timestamp) super.get("leaseTimestamp");
+	}
+	
+	/**
+	 * [@SET, THREAD-SAFETY]
+	 * 
+	 * @param leaseTimestamp the timestamp when the lease of the owner node expires.
+	 */
+	public void setLeaseTimestamp(Timestamp leaseTimestamp){
+		super.put("leaseTimestamp", leaseTimestamp);
+	}
+	
 }
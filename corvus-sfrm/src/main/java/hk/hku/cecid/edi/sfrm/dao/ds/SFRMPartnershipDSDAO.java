@@ -11,6 +11,7 @@ import hk.hku.cecid.edi.sfrm.dao.SFRMPartnershipDAO;
 import hk.hku.cecid.edi.sfrm.dao.SFRMPartnershipDVO;
 
 import hk.hku.cecid.piazza.commons.dao.DVO;
+import hk.hku.cecid.piazza.commons.dao.DVOCache;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
 
@@ -90,16 +91,33 @@ public class SFRMPartnershipDSDAO extends DataSourceDAO implements
 	 * Find the partnership by the service string
 	 * specified in the parameter.<br><br>
 	 * 
+	 * The partnership found is kept in the DAO cache, if configured, 
+	 * until any partnership is changed. A copy of the cached partnership
+	 * is returned.<br>
+	 * 
 	 * @param partnershipId	
 	 * @return return null if no partnership found, otherwise the a sfrm partnership.
 	 */
 	public SFRMPartnershipDVO findPartnershipById
 		(String partnershipId) throws DAOException{
-		Iterator itr = 
-			super.find("find_partnership_by_id", new Object[]{partnershipId}).iterator();		
-		if (itr.hasNext())
-			return (SFRMPartnershipDVO) itr.next();
-		return null;
+		DVOCache cache = this.getCache();
+		SFRMPartnershipDSDVO cached = null;
+		if (cache != null && partnershipId != null)
+			cached = (SFRMPartnershipDSDVO) cache.get(partnershipId);
+		
+		if (cached == null){
+			Iterator itr = 
+				super.find("find_partnership_by_id", new Object[]{partnershipId}).iterator();		
+			if (!itr.hasNext())
+				return null;
+			cached = (SFRMPartnershipDSDVO) itr.next();
+			if (cache == null || partnershipId == null)
+				return cached;
+			cache.put(partnershipId, cached);
+		}
+		SFRMPartnershipDSDVO ret = new SFRMPartnershipDSDVO();
+		ret.copyFrom(cached);
+		return ret;
 	}
 	
 	/**
@@ -16,6 +16,7 @@ import java.io.InputStreamReader;
 import java.security.cert.X509Certificate;
 import java.security.cert.CertificateFactory;
 import java.sql.Timestamp;
+import java.util.Hashtable;
 
 import hk.hku.cecid.edi.sfrm.spa.SFRMException;
 import hk.hku.cecid.edi.sfrm.spa.SFRMProperties;
@@ -81,11 +82,38 @@ public class SFRMPartnershipDSDVO extends DataSourceDVO implements
 	 */
 	private int retryInterval = Integer.MIN_VALUE;
 	
+	/**
+	 * The fingerprint of the cached partner certificate.
+	 */
+	private transient String partnerX509CertificateFingerprint;
+	
+	/**
+	 * The cached partner certificate loaded from the trusted certificate store.
+	 */
+	private transient X509Certificate partnerX509Certificate;
+	
+	/**
+	 * The cached partnership DVO which this DVO is copied from.
+	 */
+	private transient SFRMPartnershipDSDVO source;
+	
 	/** 
 	 * Constructor.
 	 */
 	public SFRMPartnershipDSDVO(){}
 	
+	/**
+	 * Copy the data of the given partnership DVO to this partnership DVO.
+	 * The partner certificate is loaded by the given partnership DVO, once 
+	 * for all its copies, when it is first requested.
+	 * 
+	 * @param dvo The partnership DVO to be copied.
+	 */
+	synchronized void copyFrom(SFRMPartnershipDSDVO dvo){
+		this.setData(new Hashtable(dvo.getData()));
+		this.source = dvo;
+	}
+	
 	/**
 	 * [@GET, THREAD-SAFETY] Get the partnership sequence no from this partnership DVO.
 	 */
@@ -316,8 +344,7 @@ public class SFRMPartnershipDSDVO extends DataSourceDVO implements
 	 * @throws SFRMException 
 	 */
 	public X509Certificate getVerifyX509Certificate() throws SFRMException{
-		return getX509Certificate(new File(SFRMProperties.getTrustedCertStore()
-				,this.getPartnerCertFingerprint()));
+		return getPartnerX509Certificate(this.getPartnerCertFingerprint());
 	}
 	
 	/**
@@ -328,12 +355,35 @@ public class SFRMPartnershipDSDVO extends DataSourceDVO implements
 	 */
 	public X509Certificate getEncryptX509Certificate() throws SFRMException{
 		if(this.getPartnerCertFingerprint() != null){
-			return getX509Certificate(new File(SFRMProperties.getTrustedCertStore()
-					,this.getPartnerCertFingerprint()));
+			return getPartnerX509Certificate(this.getPartnerCertFingerprint());
 		}
 		return null;
 	}
 	
+	/**
+	 * [@GET, THREAD-SAFETY, CACHABLE] Get the partner certificate with the
+	 * specified fingerprint. The certificate is loaded from the trusted 
+	 * certificate store, or by the partnership DVO this DVO is copied from, 
+	 * only if the fingerprint has been changed.
+	 * 
+	 * @param fingerprint The fingerprint of the partner certificate.
+	 * @return X509 certificate
+	 * @throws SFRMException
+	 */
+	private synchronized X509Certificate getPartnerX509Certificate(String fingerprint) throws SFRMException{
+		if (this.partnerX509Certificate == null 
+		 || !fingerprint.equals(this.partnerX509CertificateFingerprint)){
+			if (this.source != null 
+			 && fingerprint.equals(this.source.getPartnerCertFingerprint()))
+				this.partnerX509Certificate = this.source.getPartnerX509Certificate(fingerprint);
+			else
+				this.partnerX509Certificate = getX509Certificate(
+					new File(SFRMProperties.getTrustedCertStore(), fingerprint));
+			this.partnerX509CertificateFingerprint = fingerprint;
+		}
+		return this.partnerX509Certificate;
+	}
+	
 	/**
 	 * Get the X509 Verification / Encryption
 	 * certificates.
@@ -5,14 +5,14 @@
 package hk.hku.cecid.edi.sfrm.handler;
 
 import java.io.File;
-import java.io.RandomAccessFile;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.FileChannel;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import java.util.List;
 
@@ -48,6 +48,7 @@ import hk.hku.cecid.edi.sfrm.dao.SFRMMessageSegmentDVO;
 import hk.hku.cecid.edi.sfrm.handler.SFRMMessageHandler;
 import hk.hku.cecid.edi.sfrm.handler.SFRMMessageSegmentHandler;
 import hk.hku.cecid.edi.sfrm.io.ChecksumException;
+import hk.hku.cecid.edi.sfrm.io.SegmentWriter;
 
 import hk.hku.cecid.edi.sfrm.com.FoldersPayload;
 import hk.hku.cecid.edi.sfrm.com.PayloadException;
@@ -99,6 +100,11 @@ public class IncomingMessageHandler extends SFRMComponent {
 	// The barrier for providing ONE THREAD working in the segment level.
 	private SFRMDoSHandler segmentDoSHandler = new SFRMDoSHandler();
 	
+	// The open segment writers keyed by message id.
+	private ConcurrentHashMap segmentWriters = new ConcurrentHashMap();
+	
+	private long writerIdleTime = 300000;
+	
 	/**
 	 * @return an instnace of IncomingMessageHandler.
 	 */
@@ -114,6 +120,9 @@ public class IncomingMessageHandler extends SFRMComponent {
 	 * 	<li>maxActive: The number of parallel threads for handling incoming segments. The default value is 10.
 	 * 		[Integer] 
 	 *	</li>
+	 * 	<li>writerIdleTime: The time in millisecond after which an unused payload file is closed. The default value is 300000.
+	 * 		[Long] 
+	 *	</li>
 	 * </ol>
 	 */
 	protected void init() throws Exception { 
@@ -121,6 +130,7 @@ public class IncomingMessageHandler extends SFRMComponent {
 		Properties p = this.getParameters();
 		int maxActive = StringUtilities.parseInt(p.getProperty("maxActive"), 10);
 		this.monitor.setMaxThreadCount(maxActive);
+		this.writerIdleTime = StringUtilities.parseLong(p.getProperty("writerIdleTime"), 300000);
 	}
 
 	/**
@@ -177,6 +187,12 @@ public class IncomingMessageHandler extends SFRMComponent {
 	public boolean 
 	isDuplicateSegment(SFRMMessage incomingMessage) throws DAOException 
 	{
+		// The received payload segments are marked in the segment writer.
+		SFRMMessageClassifier mc = incomingMessage.getClassifier();
+		SegmentWriter writer = (SegmentWriter) this.segmentWriters.get(incomingMessage.getMessageID());
+		if (writer != null && mc.isPayload() && writer.isReceived(incomingMessage.getSegmentNo()))
+			return true;
+		
 		return (getMessageSegmentHandler()
 				.retrieveMessageSegment(
 					incomingMessage.getMessageID(),
@@ -426,13 +442,10 @@ public class IncomingMessageHandler extends SFRMComponent {
 	public boolean
 	resolveGuardOwnerForSegment(final SFRMMessage incomingMessage)
 	{
-		synchronized(this.segmentDoSHandler){			
-			if (!this.segmentDoSHandler.exit(incomingMessage)){
-				SFRMLogUtil.log(SFRMLog.IMH_CALLER, SFRMLog.RESOLVE_FAIL,
-						incomingMessage.getMessageID(), incomingMessage.getSegmentNo());
-				return false;
-			}			
-			this.segmentDoSHandler.enter(incomingMessage);
+		if (!this.segmentDoSHandler.transfer(incomingMessage)){
+			SFRMLogUtil.log(SFRMLog.IMH_CALLER, SFRMLog.RESOLVE_FAIL,
+					incomingMessage.getMessageID(), incomingMessage.getSegmentNo());
+			return false;
 		}
 		return true;
 	}
@@ -523,6 +536,19 @@ public class IncomingMessageHandler extends SFRMComponent {
 				if(isDuplicate) return null;
 			}
 			
+			// ------------------------------------------------------------------------
+			// Step 2.0: Streamed segment is written by this thread as its content is
+			//		   still in the request. 
+			// ------------------------------------------------------------------------
+			if (mc.isPayload() && inputMessage.isStreamed()){
+				try{
+					this.processSegmentMessage(inputMessage, params);
+				}finally{
+					this.releaseGuardForSegment(inputMessage);
+				}
+				return retMessage;
+			}
+			
 			// ------------------------------------------------------------------------
 			// Step 2: Segment Processing, Dispatch it to a new thread.
 			// ------------------------------------------------------------------------
@@ -831,69 +857,42 @@ public class IncomingMessageHandler extends SFRMComponent {
 							mId + ".sfrm";
 			File payload = new File(path);
 	        
+			logInfo	= " msg id: " + mId  + " and sgt no: " + rawMessage.getSegmentNo();
+			
+	        getLogger().info("Content Type: " + rawMessage.getBodyPart().getContentType());			
+	        
 	        // --------------------------------------------------------------------        
 	        // Step 1: CRC Check
 	        // 		   if CRC check fail, return immediately with
 	        //		   the negative receipt (recovery request).
+	        //		   The streamed segment is digested while it is written 
+	        //		   and it is not recorded if CRC check fail.
 	        // --------------------------------------------------------------------	              
-			String micValue = rawMessage.digest();			
-			
-	        getLogger().info("Content Type: " + rawMessage.getBodyPart().getContentType());			
-	        
-			logInfo	= " msg id: " + mId  + " and sgt no: " + rawMessage.getSegmentNo();
+			if (!rawMessage.isStreamed())
+				this.checkMicValue(rawMessage, rawMessage.digest(), logInfo);
 			
-			if (!micValue.equalsIgnoreCase(rawMessage.getMicValue())){
-				getLogger().info(
-					  SFRMLog.IMH_CALLER 
-				   +  SFRMLog.FAIL_CRC
-				   +  logInfo 
-				   +" Expected MIC: " 
-				   +  rawMessage.getMicValue() 
-				   +" Result MIC: " + micValue);
-				throw new ChecksumException("Invalid CRC Value.");
-			}else {
-				getLogger().info(
-					  SFRMLog.IMH_CALLER
-				   +  SFRMLog.SUCCESS_CRC
-				   +  logInfo);
-			}
-			
-			//Fix for the exception thrown from the windows OS for using NIO approach
-			
-			OSManager osm = SFRMProcessor.getInstance().getOSManager();
-			
-			if (osm.getCommander().getOSName().equals("WINDOWS")){	
-		        java.io.FileOutputStream fos = new java.io.FileOutputStream(payload, true);
-		        FileChannel fc = fos.getChannel();
-		        long offset = rawMessage.getSegmentOffset();
-		        int length  = (int)rawMessage.getSegmentLength();
-		        ReadableByteChannel rbc = Channels.newChannel(rawMessage.getInputStream());
-		        fc.transferFrom(rbc, offset, length);
-		        fc.force(true);
-		        rbc.close();
-		        fc.close();
-		        fos = null;
-		        fc = null;
-		        rbc = null;
-			} else {
-				RandomAccessFile raf = new RandomAccessFile(payload, "rw");
-				FileChannel fc 		 = raf.getChannel();		
-				long offset = rawMessage.getSegmentOffset();
-		        int length  = (int)rawMessage.getSegmentLength();        
-		        MappedByteBuffer mbb = fc.map(
-		        		FileChannel.MapMode.READ_WRITE
-		        	   ,offset
-		        	   ,length);
-		        mbb.limit(length);
-				mbb.position(0);
+			// Write the segment by the shared writer of the payload.
+			SegmentWriter writer = this.acquireSegmentWriter(mId, payload);
+			try{
 				InputStream ins = rawMessage.getInputStream();
-		        ReadableByteChannel rbc = Channels.newChannel(ins);        
-		        rbc.read(mbb);
-		        rbc.close(); rbc = null;
-		        fc.close();  fc  = null;
-		        raf.close(); raf = null;
-		        ins.close();
-		        mbb = null;         
+				if (rawMessage.isStreamed()){
+					DigestInputStream dis = new DigestInputStream(ins, MessageDigest.getInstance("md5"));
+					writer.write(dis, rawMessage.getSegmentOffset(), rawMessage.getSegmentLength());
+					this.checkMicValue(rawMessage, 
+						(new sun.misc.BASE64Encoder()).encode(dis.getMessageDigest().digest()), logInfo);
+				} else {
+					try{
+						writer.write(ins, rawMessage.getSegmentOffset(), rawMessage.getSegmentLength());
+					}finally{
+						ins.close();
+					}
+				}
+				// The segment must be on the disk before it is recorded as 
+				// delivered and acknowledged, otherwise a crash would lose 
+				// a segment which the sender never resends.
+				writer.sync();
+			}finally{
+				writer.release();
 			}
 	        
 			// Step 1: Create the message segment record in the database.
@@ -904,6 +903,7 @@ public class IncomingMessageHandler extends SFRMComponent {
 					rawMessage,
 					SFRMConstant.MSGBOX_IN, 
 					SFRMConstant.MSGS_DELIVERED);	
+	        writer.markReceived(rawMessage.getSegmentNo());
 		}
 		catch(Exception e){
 			// Create Recovery Message.
@@ -918,6 +918,36 @@ public class IncomingMessageHandler extends SFRMComponent {
         return null;		
 	}
 	
+	/**
+	 * Check the MIC value of the segment against the digested one.
+	 * 
+	 * @param rawMessage
+	 * 			The unpacked SFRM Message.
+	 * @param micValue
+	 * 			The MIC value digested from the segment content.
+	 * @param logInfo
+	 * 			The message information for logging.
+	 * @throws ChecksumException
+	 * 			if the MIC value does not match.
+	 */
+	private void checkMicValue(SFRMMessage rawMessage, String micValue, String logInfo) throws ChecksumException{
+		if (!micValue.equalsIgnoreCase(rawMessage.getMicValue())){
+			getLogger().info(
+				  SFRMLog.IMH_CALLER 
+			   +  SFRMLog.FAIL_CRC
+			   +  logInfo 
+			   +" Expected MIC: " 
+			   +  rawMessage.getMicValue() 
+			   +" Result MIC: " + micValue);
+			throw new ChecksumException("Invalid CRC Value.");
+		}else {
+			getLogger().info(
+				  SFRMLog.IMH_CALLER
+			   +  SFRMLog.SUCCESS_CRC
+			   +  logInfo);
+		}
+	}
+	
 	public SFRMMessage processAcknowledgement(SFRMMessage msg, SFRMPartnershipDVO pDVO) throws Exception{
 		String logInfo	= " msg id: " + msg.getMessageID();
 		
@@ -1035,6 +1065,11 @@ public class IncomingMessageHandler extends SFRMComponent {
 	 */
 	public String processPDFAck(SFRMMessageDVO mDVO) throws DAOException{
 		getLogger().debug("Message PDF Ack received");
+		try{
+			this.closeSegmentWriter(mDVO.getMessageId());
+		}catch(IOException e){
+			getLogger().warn(SFRMLog.IMH_CALLER + "Unable to close payload of msg id: " + mDVO.getMessageId(), e);
+		}
 		return changeAckStaus(mDVO, SFRMConstant.MSGS_DELIVERY_FAILURE);
 	}
 	
@@ -1051,7 +1086,62 @@ public class IncomingMessageHandler extends SFRMComponent {
 		return changeAckStaus(mDVO, SFRMConstant.MSGS_PROCESSED);
 	}
 	
+	/**
+	 * Acquire the segment writer of the payload, which is opened if 
+	 * there is no writer for the message. Writers which are idle for 
+	 * a long time are closed.   
+	 * 
+	 * @param messageId
+	 * 			The message id of the payload.
+	 * @param payload
+	 * 			The pre-allocated payload file.
+	 * @return the acquired segment writer, which should be released after use.
+	 * @throws IOException
+	 * 			if the payload cannot be opened.
+	 */
+	private SegmentWriter acquireSegmentWriter(String messageId, File payload) throws IOException{
+		Iterator entries = this.segmentWriters.entrySet().iterator();
+		while (entries.hasNext()){
+			Map.Entry entry = (Map.Entry) entries.next();
+			SegmentWriter idle = (SegmentWriter) entry.getValue();
+			if (!entry.getKey().equals(messageId) && idle.closeIfIdle(this.writerIdleTime))
+				this.segmentWriters.remove(entry.getKey(), idle);
+		}
+		
+		while (true){
+			SegmentWriter writer = (SegmentWriter) this.segmentWriters.get(messageId);
+			if (writer == null){
+				writer = new SegmentWriter(payload);
+				SegmentWriter existing = (SegmentWriter) this.segmentWriters.putIfAbsent(messageId, writer);
+				if (existing != null){
+					writer.close();
+					writer = existing;
+				}
+			}
+			if (writer.acquire())
+				return writer;
+			this.segmentWriters.remove(messageId, writer);
+		}
+	}
+	
+	/**
+	 * Close the segment writer of the payload if any.
+	 * 
+	 * @param messageId
+	 * 			The message id of the payload.
+	 * @throws IOException
+	 * 			if the payload cannot be synchronized to the disk.
+	 */
+	private void closeSegmentWriter(String messageId) throws IOException{
+		SegmentWriter writer = (SegmentWriter) this.segmentWriters.remove(messageId);
+		if (writer != null)
+			writer.close();
+	}
+	
 	private boolean completePayload(String messageId, String partnershipId, String filename) throws DAOException, IOException, PayloadException{
+		// Flush and close the payload before moving it.
+		this.closeSegmentWriter(messageId);
+		
 		PayloadsRepository inRepo = SFRMProcessor.getInstance().getIncomingRepository();
 		PackagedPayloads payload = (PackagedPayloads) inRepo.getPayload(new String[]{partnershipId, messageId}, PayloadsState.PLS_UPLOADING);
 		// --------------------------------------------------------
@@ -151,8 +151,7 @@ public class OutgoingMessageHandler extends SFRMComponent{
 				throw new SFRMMessageException("Failed to sign/encrypt message", e);
 			}
 		}			
-		// Create the HTTP Connection.
-		// TODO: Use connection pool.
+		// Create the HTTP Connection, which is pooled by the shared connection manager.
 		// TODO: refactor and more test on FastHttpConnector	
 			
 		FastHttpConnector httpConn;
@@ -180,7 +179,7 @@ public class OutgoingMessageHandler extends SFRMComponent{
 			
 			if(message.getSegmentType().equals(SFRMConstant.MSGT_PAYLOAD) && !classifier.isEncrypted() && !classifier.isSigned()){
 				FileRegionDataSource fSrc = (FileRegionDataSource) message.getContent();
-				httpConn.send(fSrc.getInputStream(), message.getHeaders());
+				httpConn.send(fSrc, message.getHeaders());
 			}else{
 				httpConn.send(message.getContentStream(), message.getHeaders());
 			}
@@ -103,6 +103,28 @@ public class SFRMDoSHandler extends Component {
 	public boolean exit(final SFRMMessage message){
 		return (ddosTable.remove(this.getResolvedKey(message)) != null);
 	}
+	
+	/**
+	 * Invoke for transferring the barrier for a <code>message</code> 
+	 * to the invocation thread.
+	 * <br/><br/>
+	 * It is equivalent to {@link #exit(SFRMMessage)} followed by 
+	 * {@link #enter(SFRMMessage)} but the barrier is never released
+	 * in between. 
+	 * 
+	 * @param message	The incoming SFRM Message.
+	 * @return it returns true iff the barrier exists and is transferred
+	 *         successfully.
+	 */
+	public boolean transfer(final SFRMMessage message){
+		String key = this.getResolvedKey(message);
+		synchronized(this){
+			if (ddosTable.remove(key) == null)
+				return false;
+			ddosTable.put(key, Thread.currentThread());
+			return true;
+		}
+	}
 		
 	/**
 	 * Get the composite key from the <code>message</code>.
@@ -160,6 +160,72 @@ public class SFRMMessageHandler extends DSHandler {
 				.findMessageByMessageBoxAndStatus(messageBox, status);
 	}			
 	
+	/**
+	 * Retrieve a set of messages which can be recovered by the specified node.
+	 * 
+	 * @param messageBox
+	 * 			The message box of the message. either inbox or outbox. 
+	 * @param status
+	 * 			The status of the message.
+	 * @param ownerId
+	 * 			The identity of the node. Only the messages whose lease has 
+	 * 			expired are retrieved if it is null.
+	 * @return 
+	 * 			return a list of message that fit the criteria.
+	 * @throws DAOException
+	 * @see hk.hku.cecid.edi.sfrm.dao.SFRMMessageDAO#findRecoverableMessages(String, String, String)
+	 */
+	public List 
+	retrieveRecoverableMessages(
+			String messageBox, 
+			String status,
+			String ownerId) throws DAOException
+	{ 
+		return ((SFRMMessageDAO) this.getInstance())
+				.findRecoverableMessages(messageBox, status, ownerId);
+	}
+	
+	/**
+	 * Claim the <code>msgDVO</code> for the specified node.
+	 * 
+	 * @param msgDVO
+	 * 			The message DVO to be claimed.
+	 * @param ownerId
+	 * 			The identity of the claiming node.
+	 * @param expiredOnly
+	 * 			true if the message can be claimed only if its lease has expired.
+	 * @return	true if the message has been claimed.
+	 * @throws DAOException
+	 * @see hk.hku.cecid.edi.sfrm.dao.SFRMMessageDAO#claimMessage(SFRMMessageDVO, String, boolean)
+	 */
+	public boolean
+	claimMessage(SFRMMessageDVO msgDVO, String ownerId, boolean expiredOnly) throws DAOException
+	{
+		boolean claimed = ((SFRMMessageDAO) this.getInstance())
+				.claimMessage(msgDVO, ownerId, expiredOnly);
+		if (claimed && this.isCacheEnable){
+			this.cacher.putOrUpdateDVO(this.extractKey(msgDVO), msgDVO);
+		}
+		return claimed;
+	}
+	
+	/**
+	 * Renew the lease of the <code>msgDVO</code> owned by the specified node.
+	 * 
+	 * @param msgDVO
+	 * 			The message DVO to be renewed.
+	 * @param ownerId
+	 * 			The identity of the owner node.
+	 * @return	true if the lease has been renewed.
+	 * @throws DAOException
+	 * @see hk.hku.cecid.edi.sfrm.dao.SFRMMessageDAO#renewLease(SFRMMessageDVO, String)
+	 */
+	public boolean
+	renewLease(SFRMMessageDVO msgDVO, String ownerId) throws DAOException
+	{
+		return ((SFRMMessageDAO) this.getInstance()).renewLease(msgDVO, ownerId);
+	}
+	
 	/**
 	 * Retrieve a set of messages that is required to ack the acknowledgement from receiver
 	 * @param numOfMessage number of messages for acknowledgement request
@@ -0,0 +1,263 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.edi.sfrm.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * A SegmentWriter writes the received segments of one message into
+ * the payload file.<br><br>
+ *
+ * The file channel is kept open across segments and the segments are
+ * written by positional writes, so that many threads can write
+ * different segments of the same payload concurrently. A segment is
+ * synchronized to the disk by {@link #sync()} before it is recorded as
+ * received. The threads waiting for a sync share one disk sync, so that
+ * the data is forced once per group of concurrent segments instead of
+ * once per segment.<br><br>
+ *
+ * The writer also keeps a bitmap of the segments which have been received.
+ */
+public class SegmentWriter {
+
+	private static final int BUFFER_SIZE = 65536;
+
+	private static final ThreadLocal buffers = new ThreadLocal(){
+		protected Object initialValue(){
+			return new byte[BUFFER_SIZE];
+		}
+	};
+
+	private final File file;
+
+	private final RandomAccessFile raf;
+
+	private final FileChannel channel;
+
+	private final BitSet received = new BitSet();
+
+	private final Object syncLock = new Object();
+
+	private long writtenSegments;
+
+	private long syncedSegments;
+
+	private boolean syncing;
+
+	private long lastAccessTime = System.currentTimeMillis();
+
+	private int users;
+
+	private boolean closed;
+
+	/**
+	 * Explicit Constructor.
+	 *
+	 * @param file
+	 * 			The payload file, which should have been pre-allocated.
+	 * @throws IOException
+	 * 			if the payload file cannot be opened.
+	 */
+	public SegmentWriter(File file) throws IOException{
+		this.file = file;
+		this.raf = new RandomAccessFile(file, "rw");
+		this.channel = this.raf.getChannel();
+	}
+
+	/**
+	 * Get the payload file of this writer.
+	 */
+	public File getFile(){
+		return this.file;
+	}
+
+	/**
+	 * Acquire this writer for writing segments. It should be released
+	 * by {@link #release()} afterwards.
+	 *
+	 * @return false if the writer has been closed.
+	 */
+	public synchronized boolean acquire(){
+		if (this.closed)
+			return false;
+		this.users++;
+		this.lastAccessTime = System.currentTimeMillis();
+		return true;
+	}
+
+	/**
+	 * Release this writer acquired by {@link #acquire()}.
+	 */
+	public synchronized void release(){
+		this.users--;
+		this.lastAccessTime = System.currentTimeMillis();
+		this.notifyAll();
+	}
+
+	/**
+	 * Write the segment content to the payload file at the specified offset.
+	 * The segment is not synchronized to the disk until {@link #sync()}.
+	 *
+	 * @param ins
+	 * 			The segment content.
+	 * @param offset
+	 * 			The position of the segment in the payload file.
+	 * @param length
+	 * 			The length of the segment.
+	 * @throws IOException
+	 * 			if the segment cannot be written.
+	 */
+	public void write(InputStream ins, long offset, long length) throws IOException{
+		byte[] bytes = (byte[]) buffers.get();
+		long position = offset;
+		long end = offset + length;
+		while (position < end){
+			int count = ins.read(bytes, 0, (int) Math.min(bytes.length, end - position));
+			if (count < 0)
+				throw new IOException("Unexpected end of segment at position: " + position);
+			ByteBuffer bb = ByteBuffer.wrap(bytes, 0, count);
+			while (bb.hasRemaining()){
+				position += this.channel.write(bb, position);
+			}
+		}
+		synchronized(this.syncLock){
+			this.writtenSegments++;
+		}
+	}
+
+	/**
+	 * Force the segments written so far by the invocation thread to the
+	 * disk.<br><br>
+	 *
+	 * If another thread is forcing the payload file, it waits for that sync
+	 * and then forces once for all the segments written in the meantime,
+	 * so that concurrent writers share one disk sync.
+	 *
+	 * @throws IOException
+	 * 			if the payload cannot be synchronized to the disk.
+	 */
+	public void sync() throws IOException{
+		long written;
+		synchronized(this.syncLock){
+			long target = this.writtenSegments;
+			while (this.syncing && this.syncedSegments < target){
+				try{
+					this.syncLock.wait();
+				}catch(InterruptedException e){
+					throw new InterruptedIOException("Interrupted while waiting for the payload sync");
+				}
+			}
+			if (this.syncedSegments >= target)
+				return;
+			this.syncing = true;
+			written = this.writtenSegments;
+		}
+		boolean synced = false;
+		try{
+			this.channel.force(false);
+			synced = true;
+		}finally{
+			synchronized(this.syncLock){
+				this.syncing = false;
+				if (synced)
+					this.syncedSegments = written;
+				this.syncLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Mark the segment as received.
+	 *
+	 * @param segmentNo
+	 * 			The segment number.
+	 */
+	public void markReceived(int segmentNo){
+		synchronized(this.received){
+			this.received.set(segmentNo);
+		}
+	}
+
+	/**
+	 * Check whether the segment has been received.
+	 *
+	 * @param segmentNo
+	 * 			The segment number.
+	 * @return true if the segment has been marked as received.
+	 */
+	public boolean isReceived(int segmentNo){
+		synchronized(this.received){
+			return this.received.get(segmentNo);
+		}
+	}
+
+	/**
+	 * Get the number of segments which have been marked as received.
+	 */
+	public int getReceivedCount(){
+		synchronized(this.received){
+			return this.received.cardinality();
+		}
+	}
+
+	/**
+	 * Close this writer if it has not been used for the specified time.
+	 *
+	 * @param idleTime
+	 * 			The idle time in millisecond.
+	 * @return true if the writer is closed.
+	 */
+	public boolean closeIfIdle(long idleTime) throws IOException{
+		synchronized(this){
+			if (this.closed)
+				return true;
+			if (this.users > 0 || System.currentTimeMillis() - this.lastAccessTime < idleTime)
+				return false;
+			this.closed = true;
+		}
+		this.doClose();
+		return true;
+	}
+
+	/**
+	 * Force the written segments to the disk and close the payload file.
+	 * It waits for the segments being written by other threads.
+	 */
+	public void close() throws IOException{
+		synchronized(this){
+			if (this.closed)
+				return;
+			this.closed = true;
+			while (this.users > 0){
+				try{
+					this.wait(100);
+				}catch(InterruptedException e){
+					break;
+				}
+			}
+		}
+		this.doClose();
+	}
+
+	private void doClose() throws IOException{
+		try{
+			this.channel.force(false);
+		}finally{
+			this.raf.close();
+		}
+	}
+}
@@ -18,6 +18,8 @@ import javax.mail.internet.InternetHeaders;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import hk.hku.cecid.edi.sfrm.pkg.SFRMConstant;
+import hk.hku.cecid.edi.sfrm.pkg.SFRMHeader;
 import hk.hku.cecid.edi.sfrm.pkg.SFRMMessage;
 import hk.hku.cecid.edi.sfrm.pkg.SFRMMessageException;
 
@@ -59,7 +61,8 @@ public abstract class SFRMRequestAdaptor extends HttpRequestAdaptor {
             // Create the HTTP headers.
             InternetHeaders requestHeaders = headers.getInternetHeaders();
             InputStream requestStream = request.getInputStream();
-            SFRMMessage requestMessage = new SFRMMessage(requestHeaders, requestStream);
+            SFRMMessage requestMessage = new SFRMMessage(requestHeaders, requestStream,
+            		isStreamable(requestHeaders));
                         
             if (requestMessage.getPartnershipId() == null){
             	// TODO: Do we need to do more validation to prevent expensive rollback?
@@ -159,6 +162,30 @@ public abstract class SFRMRequestAdaptor extends HttpRequestAdaptor {
     	return null;
     }
 
+    /**
+     * Check whether the content of the request can be streamed into the
+     * payload without reading into the memory. Only the payload segments
+     * in binary which are not signed nor encrypted are streamed.
+     * 
+     * @param headers
+     * 			The HTTP headers of the request.
+     * @return true if the request content can be streamed.
+     */
+    private boolean isStreamable(InternetHeaders headers) {
+    	String type = headers.getHeader(SFRMHeader.SFRM_SEGMENT_TYPE, null);
+    	if (!SFRMConstant.MSGT_PAYLOAD.equals(type))
+    		return false;
+    	
+    	String contentType = headers.getHeader("Content-Type", null);
+    	if (contentType == null
+    			|| contentType.toLowerCase().startsWith("multipart/signed")
+    			|| contentType.toLowerCase().startsWith("application/pkcs7-mime"))
+    		return false;
+    	
+    	String encoding = headers.getHeader("Content-Transfer-Encoding", null);
+    	return encoding == null || encoding.trim().equalsIgnoreCase("binary");
+    }
+    
     /**
      * 
      * @param request
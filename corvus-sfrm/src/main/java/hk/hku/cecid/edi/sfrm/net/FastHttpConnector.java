@@ -9,16 +9,19 @@
 
 package hk.hku.cecid.edi.sfrm.net;
 
+import hk.hku.cecid.edi.sfrm.activation.FileRegionDataSource;
 import hk.hku.cecid.piazza.commons.io.IOHandler;
 import hk.hku.cecid.piazza.commons.net.ConnectionException;
 import hk.hku.cecid.piazza.commons.net.HttpConnector;
 import hk.hku.cecid.piazza.commons.util.Headers;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.nio.channels.Channels;
 
 import javax.mail.internet.InternetHeaders;
 
@@ -165,6 +168,27 @@ public class FastHttpConnector extends HttpConnector {
 	 }
 	 
 	 public HttpURLConnection send(InputStream request, InternetHeaders headers) throws ConnectionException {
+		 return send(request, null, headers);
+	 }
+	 
+	 /**
+	  * Sends a file region as the HTTP/S request content. The region is 
+	  * streamed with a fixed content length, so that the segment is neither 
+	  * loaded into memory nor buffered whole by the HTTP connection. This is 
+	  * not a zero-copy transfer: HttpURLConnection only exposes an output 
+	  * stream, so the region is copied from the file channel to the stream 
+	  * through a small buffer.  
+	  * 
+	  * @param region the file region to send.
+	  * @param headers the request headers.
+	  * @return the HTTP connection used.
+	  * @throws ConnectionException if failed in sending the HTTP request.
+	  */
+	 public HttpURLConnection send(FileRegionDataSource region, InternetHeaders headers) throws ConnectionException {
+		 return send(null, region, headers);
+	 }
+	 
+	 private HttpURLConnection send(InputStream request, FileRegionDataSource region, InternetHeaders headers) throws ConnectionException {
 		 	
 		 	HttpURLConnection connection = createConnection();
 			Headers iheaders 		= new Headers(connection);
@@ -172,7 +196,14 @@ public class FastHttpConnector extends HttpConnector {
 			
 	        OutputStream outstream = null;
 	        try {
-	            if (request != null) {
+	            if (region != null) {
+	                connection.setRequestMethod("POST");
+	                connection.setDoOutput(true);
+	                connection.setFixedLengthStreamingMode((int) region.getSize());
+	                outstream = connection.getOutputStream();
+	                region.transferTo(Channels.newChannel(outstream));
+	            }
+	            else if (request != null) {
 	                connection.setRequestMethod("POST");
 	                connection.setDoOutput(true);
 	                outstream = connection.getOutputStream();
@@ -186,8 +217,9 @@ public class FastHttpConnector extends HttpConnector {
 	            //assign the response code
 	            this.responseCode = connection.getResponseCode();
 	          
-	            //assign the response content stream
-	            this.responseStream = new BufferedInputStream(connection.getInputStream());
+	            //assign the response content stream, it is read fully so that 
+	            //the connection can be returned to the keep-alive cache 
+	            this.responseStream = new ByteArrayInputStream(readFully(connection.getInputStream()));
 	            
 	            //assign the response header
 	            Headers header = new Headers(connection);
@@ -199,6 +231,11 @@ public class FastHttpConnector extends HttpConnector {
 	        }
 	        catch (Exception e) {
 	        	// isSent = false;
+	        	try {
+	        		readFully(connection.getErrorStream());
+	        	} catch (Exception ex) {
+	        	}
+	        	getConnectionManager().connectionFailed(getURL());
 	            throw new ConnectionException("Unable to send HTTP request", e);
 	        }
 	        finally {
@@ -210,5 +247,17 @@ public class FastHttpConnector extends HttpConnector {
 	            }
 	        }        
 	    }
+	 
+	 private static byte[] readFully(InputStream ins) throws IOException {
+		 if (ins == null) {
+			 return new byte[0];
+		 }
+		 try {
+			 return IOHandler.readBytes(ins);
+		 }
+		 finally {
+			 ins.close();
+		 }
+	 }
 
 }
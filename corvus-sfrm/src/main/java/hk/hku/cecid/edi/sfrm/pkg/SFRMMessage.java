@@ -102,6 +102,11 @@ public class SFRMMessage implements Cloneable {
 	 */
 	private transient SFRMMessageClassifier mc;
 	
+	/**
+	 * The unread content stream if the content is streamed.
+	 */
+	private transient InputStream streamedContent;
+	
 	/**
 	 * The current version of SFRM Message.
 	 */
@@ -154,8 +159,32 @@ public class SFRMMessage implements Cloneable {
 	 */
 	public SFRMMessage(InternetHeaders headers, InputStream content)
 			throws SFRMMessageException {
+		this(headers, content, false);
+	}
+
+	/**
+	 * Creates a new instance of SFRMMessage.<br><br>
+	 * 
+	 * If the content is streamed, it is not read into the memory and can 
+	 * only be read once by {@link #getInputStream()}. It should be used 
+	 * for binary content which is not signed or encrypted only.
+	 * 
+	 * @param headers 
+	 * 				the headers of this message.
+	 * @param ins 
+	 * 				the content stream.
+	 * @param streamed
+	 * 				true if the content is left in the content stream.
+	 * @throws SFRMMessageException 
+	 * 				if unable to construct from the given content stream.
+	 * @since 2.0
+	 */
+	public SFRMMessage(InternetHeaders headers, InputStream content, boolean streamed)
+			throws SFRMMessageException {
 		try {
-			load(headers, content);
+			load(headers, streamed ? null : content);
+			if (streamed)
+				this.streamedContent = content;
 		} catch (Exception e) {
 			throw new SFRMMessageException(
 					"Unable to construct SFRM message from content stream", e);
@@ -181,7 +210,16 @@ public class SFRMMessage implements Cloneable {
 		
 		this.headers = headers;
 		// FIXME: why must use IOHandler here.
-		this.bodyPart = new MimeBodyPart(bodyHeaders, IOHandler.readBytes(content));
+		this.bodyPart = new MimeBodyPart(bodyHeaders, 
+				content == null ? new byte[0] : IOHandler.readBytes(content));
+	}
+	
+	/**
+	 * @return true if the content of this message is left in the content 
+	 * 		   stream instead of being read into the memory.
+	 */
+	public boolean isStreamed(){
+		return this.streamedContent != null;
 	}
 
 	/**
@@ -515,6 +553,8 @@ public class SFRMMessage implements Cloneable {
 	 * 		   null if there is no content.
 	 */
 	public InputStream getContentStream() throws IOException{
+		if (this.streamedContent != null)
+			return this.streamedContent;
 		try {			
 			return bodyPart.getRawInputStream();
 		} catch (MessagingException e) {
@@ -535,6 +575,8 @@ public class SFRMMessage implements Cloneable {
 	 * @throws SFRMMessageException if unable to retrieve the stream.
 	 */
 	public InputStream getInputStream() throws SFRMMessageException {
+		if (this.streamedContent != null)
+			return this.streamedContent;
 		try {
 			return bodyPart.getInputStream();
 		} catch (Exception e) {
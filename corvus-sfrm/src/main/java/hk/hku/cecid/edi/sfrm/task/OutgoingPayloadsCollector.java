@@ -17,6 +17,7 @@ import hk.hku.cecid.edi.sfrm.dao.SFRMPartnershipDVO;
 
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.module.LimitedActiveTaskList;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 
 import hk.hku.cecid.edi.sfrm.com.PackagedPayloads;
 import hk.hku.cecid.edi.sfrm.com.PackagedPayloadsRepository;
@@ -47,6 +48,8 @@ public class OutgoingPayloadsCollector extends LimitedActiveTaskList {
 	   
 	private boolean isFirstLoad = true;
 	
+	private long lastRecoveryTime = 0;
+	
 	/**
 	 * Get the list that contains <code>OutgoingPackagedPayloadTask</code>
 	 * transformed through <code>SFRMMessageDVO</code>.  
@@ -93,13 +96,16 @@ public class OutgoingPayloadsCollector extends LimitedActiveTaskList {
 			}
 		}
 		
-		//Find the message that is segmenting in the previous tomcat session, but not finished
+		//Find the message that is segmenting in the previous tomcat session, but not finished,
+		//or by another node which has failed
 		if(status == SFRMConstant.MSGS_SEGMENTING){
 			SFRMMessageHandler mHandler = null;
 			Iterator segmentingMsgIterator = null;
+			String ownerId = ClusterNode.getId();
 			try{
 				mHandler = SFRMProcessor.getInstance().getMessageHandler();
-				segmentingMsgIterator = mHandler.retrieveMessages(SFRMConstant.MSGBOX_OUT, SFRMConstant.MSGS_SEGMENTING).iterator();
+				segmentingMsgIterator = mHandler.retrieveRecoverableMessages(SFRMConstant.MSGBOX_OUT, SFRMConstant.MSGS_SEGMENTING, 
+						isFirstLoad ? ownerId : null).iterator();
 			}catch(Exception e){
 				e.printStackTrace();
 			}
@@ -107,10 +113,18 @@ public class OutgoingPayloadsCollector extends LimitedActiveTaskList {
 			while(segmentingMsgIterator.hasNext()){
 				SFRMMessageDVO mDVO = (SFRMMessageDVO)segmentingMsgIterator.next();
 				try{
-					if(pDVO == null || !pDVO.getPartnershipId().equals(mDVO.getPartnershipId()))
-						pDVO = pHandler.retreivePartnership(mDVO.getPartnershipId(), mDVO.getMessageId());
+					//Only claim the message if its payload is in the local repository, 
+					//otherwise it is left for the node which has the payload
 					PackagedPayloads pp = (PackagedPayloads) SFRMProcessor.getInstance().getOutgoingRepository().getPayload(
 							new Object[]{mDVO.getPartnershipId(), mDVO.getMessageId(), mDVO.getFilename()},PayloadsState.PLS_PROCESSING);
+					if(pp == null)
+						continue;
+					
+					if(pDVO == null || !pDVO.getPartnershipId().equals(mDVO.getPartnershipId()))
+						pDVO = pHandler.retreivePartnership(mDVO.getPartnershipId(), mDVO.getMessageId());
+					
+					if(!mHandler.claimMessage(mDVO, ownerId, !isFirstLoad))
+						continue;
 					taskList.add(new OutgoingPayloadsTask(pp, pDVO, status));
 				}catch(DAOException daoe){
 					SFRMProcessor.getInstance().getLogger().error(SFRMLog.OPTC_CALLER + "Missing Partnership", daoe);
@@ -135,8 +149,14 @@ public class OutgoingPayloadsCollector extends LimitedActiveTaskList {
 		try{
 			if (isFirstLoad){ 
 				SFRMProcessor.getInstance().getLogger().info(SFRMLog.OPTC_CALLER + SFRMLog.FIRST_LOAD + " Redo ST message");
+			}
+			// Recover the ST messages at first load and then periodically take over 
+			// those of the failed nodes.
+			long now = System.currentTimeMillis();
+			if (isFirstLoad || now - lastRecoveryTime >= ClusterNode.getLeaseTimeout() / 2){
 				this.getTaskListByStatus(taskList, SFRMConstant.MSGS_SEGMENTING);
-				isFirstLoad = false; 
+				isFirstLoad = false;
+				lastRecoveryTime = now;
 			}
 			getTaskListByStatus(taskList, SFRMConstant.MSGS_PACKAGED);
 		}catch(IOException ioe){
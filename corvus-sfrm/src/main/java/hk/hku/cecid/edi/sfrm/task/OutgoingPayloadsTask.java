@@ -7,18 +7,19 @@ package hk.hku.cecid.edi.sfrm.task;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 
 import hk.hku.cecid.edi.sfrm.pkg.SFRMConstant;
-import hk.hku.cecid.edi.sfrm.pkg.SFRMMessage;
 
 import hk.hku.cecid.edi.sfrm.spa.SFRMException;
 import hk.hku.cecid.edi.sfrm.spa.SFRMLog;
 import hk.hku.cecid.edi.sfrm.spa.SFRMProcessor;
 import hk.hku.cecid.edi.sfrm.spa.SFRMProperties;
 import hk.hku.cecid.edi.sfrm.util.StatusQuery;
+import hk.hku.cecid.edi.sfrm.util.SegmentDigester;
 import hk.hku.cecid.edi.sfrm.util.StopWatch;
-import hk.hku.cecid.edi.sfrm.activation.FileRegionDataSource;
 import hk.hku.cecid.edi.sfrm.com.PackagedPayloads;
 
 import hk.hku.cecid.edi.sfrm.dao.SFRMMessageDAO;
@@ -34,6 +35,7 @@ import hk.hku.cecid.edi.sfrm.handler.SFRMMessageHandler;
 
 import hk.hku.cecid.piazza.commons.module.ActiveTaskAdaptor;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
+import hk.hku.cecid.piazza.commons.util.ClusterNode;
 
 /**
  * <strong> What the task does </strong>
@@ -54,6 +56,11 @@ import hk.hku.cecid.piazza.commons.dao.DAOException;
  */
 public class OutgoingPayloadsTask extends ActiveTaskAdaptor {
 		
+	/**
+	 * The maximum number of segment records inserted in one batch.
+	 */
+	private static final int SEGMENT_BATCH_SIZE = 100;
+	
 	/**
 	 * The archive payload of this task.
 	 */
@@ -230,11 +237,14 @@ public class OutgoingPayloadsTask extends ActiveTaskAdaptor {
 	private void segmenting() throws Exception{
 		taskStatus = SFRMConstant.MSGS_SEGMENTING;
 		// ------------------------------------------------------------------------
-		// Step 5: Update the message status to 'ST' and save to database. 
+		// Step 5: Update the message status to 'ST', owned by this node, and 
+		//		   save to database. 
 		// ------------------------------------------------------------------------
 		SFRMMessageHandler mHandle = SFRMProcessor.getInstance().getMessageHandler();
 		this.msgDVO.setStatus			(SFRMConstant.MSGS_SEGMENTING);
 		this.msgDVO.setStatusDescription(SFRMConstant.MSGSDESC_SEGMENTING);		
+		this.msgDVO.setOwnerId			(ClusterNode.getId());
+		this.msgDVO.setLeaseTimestamp	(ClusterNode.getLeaseExpiry());
 		mHandle.updateMessage(this.msgDVO);
 
 		// ------------------------------------------------------------------------
@@ -242,14 +252,9 @@ public class OutgoingPayloadsTask extends ActiveTaskAdaptor {
 		// ------------------------------------------------------------------------
 		SFRMMessageSegmentDAO segDAO = (SFRMMessageSegmentDAO) 
 			SFRMProcessor.getInstance().getMessageSegmentHandler().getDAOInstance();
-		SFRMMessageSegmentDVO segDVO = (SFRMMessageSegmentDVO) 
-			segDAO.createDVO();
 		
-		// Setup all parameters that are common for each segment.
-		segDVO.setMessageId	 (this.payload.getRefMessageId());
-		segDVO.setMessageBox (SFRMConstant.MSGBOX_OUT);
-		segDVO.setStatus	 (SFRMConstant.MSGS_PENDING);
-		segDVO.setSegmentType(SFRMConstant.MSGT_PAYLOAD);
+		// The segments are inserted in batches. 
+		List segments = new ArrayList();
 		
 		long startPos = 0;
 		long endPos = 0;
@@ -279,38 +284,66 @@ public class OutgoingPayloadsTask extends ActiveTaskAdaptor {
 			   +" at sgt no: "
 			   +  maxSegmentNo);			   								
 
-		for (int i = maxSegmentNo + 1; i <= numOfSegments; i++){						
-			// Retrieve the segment type and their byte range
-			// by the result. The possible case are shown in the following:
-			// Support there are n segments where each segment has 
-			// S bytes. then 
-			// For case i == r < n
-			//		it is a payload message. The start and end pos   
-			// 		are (i-1)*S and (i)*S resp.
-			// For case i == n
-			//		it is the last payload message. The start and end pos
-			//		are (i-1)*S and (start pos) + (last segment size).						
-			startPos = (i - 1) * segmentSize;				
-			if (i == numOfSegments)
-				endPos = startPos + lastSegmentSize;
-			else
-				endPos = startPos + segmentSize;
-									
-			segDVO.setSegmentNo(i);
-			segDVO.setSegmentStart(startPos);
-			segDVO.setSegmentEnd(endPos);
+		for (int first = maxSegmentNo + 1; first <= numOfSegments; first += SEGMENT_BATCH_SIZE){						
+			// Keep the message owned by this node while segmenting. Stop if 
+			// it has been taken over by another node after the lease expired. 
+			if (!this.renewLease()){
+				SFRMProcessor.getInstance().getLogger().warn(
+					  SFRMLog.OPT_CALLER
+				   + "Stop segmentation as it has been taken over by another node, msg id: " 
+				   +  this.payload.getRefMessageId());
+				this.retryEnabled = false;
+				return;
+			}
 			
-			//Set Mic value for segment
-			if( i == numOfSegments){
-//				segDVO.setMD5Value(SFRMMessage.digest((new FileRegionDataSource(payload.getRoot(), startPos, lastSegmentSize)).getInputStream()));
-				segDVO.setMD5Value(SFRMMessage.digest(new FileRegionDataSource(payload.getRoot(), startPos, lastSegmentSize)));
+			int last = (int) Math.min(numOfSegments, (long) first + SEGMENT_BATCH_SIZE - 1);
+			long[] positions = new long[last - first + 1];
+			long[] sizes = new long[positions.length];
+			
+			for (int i = first; i <= last; i++){
+				// Retrieve the segment type and their byte range
+				// by the result. The possible case are shown in the following:
+				// Support there are n segments where each segment has 
+				// S bytes. then 
+				// For case i == r < n
+				//		it is a payload message. The start and end pos   
+				// 		are (i-1)*S and (i)*S resp.
+				// For case i == n
+				//		it is the last payload message. The start and end pos
+				//		are (i-1)*S and (start pos) + (last segment size).						
+				startPos = (i - 1) * segmentSize;				
+				if (i == numOfSegments)
+					endPos = startPos + lastSegmentSize;
+				else
+					endPos = startPos + segmentSize;
+										
+				SFRMMessageSegmentDVO segDVO = (SFRMMessageSegmentDVO) 
+					segDAO.createDVO();
+				segDVO.setMessageId	 (this.payload.getRefMessageId());
+				segDVO.setMessageBox (SFRMConstant.MSGBOX_OUT);
+				segDVO.setStatus	 (SFRMConstant.MSGS_PENDING);
+				segDVO.setSegmentType(SFRMConstant.MSGT_PAYLOAD);
+				segDVO.setSegmentNo(i);
+				segDVO.setSegmentStart(startPos);
+				segDVO.setSegmentEnd(endPos);
+				
+				positions[i - first] = startPos;
+				sizes[i - first] = endPos - startPos;
+				segments.add(segDVO);
 			}
-			else{
-//				segDVO.setMD5Value(SFRMMessage.digest((new FileRegionDataSource(payload.getRoot(), startPos, segmentSize)).getInputStream()));
-				segDVO.setMD5Value(SFRMMessage.digest(new FileRegionDataSource(payload.getRoot(), startPos, segmentSize)));
+			
+			// Set Mic value for the segments, which are digested concurrently.
+			String[] digests = SegmentDigester.getInstance().digest(payload.getRoot(), positions, sizes);
+			for (int i = 0; i < digests.length; i++){
+				((SFRMMessageSegmentDVO) segments.get(i)).setMD5Value(digests[i]);
 			}
-						
-			segDAO.create(segDVO);
+			
+			// Flush the batch so that an interrupted segmentation can resume
+			// from the last inserted segment, and the segments can be sent 
+			// before the whole payload is segmented.
+			segDAO.createAll(segments);
+			segments.clear();
+			SFRMProcessor.getInstance().getModuleGroup().wakeUpModule("sfrm.outgoing.segment.collector");
 		}
 				
 		// ------------------------------------------------------------------------
@@ -323,6 +356,9 @@ public class OutgoingPayloadsTask extends ActiveTaskAdaptor {
 		this.msgDVO.setStatusDescription(SFRMConstant.MSGSDESC_PROCESSING);
 		mHandle.updateMessage(this.msgDVO);
 		
+		// Signal the segment collector to pick up the new segments at once.
+		SFRMProcessor.getInstance().getModuleGroup().wakeUpModule("sfrm.outgoing.segment.collector");
+		
 		// Log information.
 		SFRMProcessor.getInstance().getLogger().info(
 			  SFRMLog.OPT_CALLER 
@@ -338,6 +374,21 @@ public class OutgoingPayloadsTask extends ActiveTaskAdaptor {
 		this.retryEnabled = false;
 	}
 	
+	/**
+	 * Renew the lease of the message if half of it has elapsed.
+	 * 
+	 * @return false if the message is no longer owned by this node.
+	 * @throws DAOException
+	 */
+	private boolean renewLease() throws DAOException{
+		Timestamp lease = this.msgDVO.getLeaseTimestamp();
+		if (lease != null && lease.after(ClusterNode.getLeaseRenewalThreshold())){
+			return true;
+		}
+		return SFRMProcessor.getInstance().getMessageHandler().renewLease(
+			this.msgDVO, ClusterNode.getId());
+	}
+	
 	/**
 	 * Start to monitor the speed of message sending
 	 * @throws MalformedURLException 
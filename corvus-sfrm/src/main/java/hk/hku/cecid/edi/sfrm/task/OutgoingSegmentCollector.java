@@ -10,6 +10,8 @@ import java.util.Properties;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
 
 import hk.hku.cecid.edi.sfrm.spa.SFRMProcessor;
 import hk.hku.cecid.edi.sfrm.spa.SFRMLog;
@@ -69,6 +71,14 @@ public class OutgoingSegmentCollector extends LimitedActiveTaskList {
 	private long activeDuration = 120000;
 	
 	private long lastActiveTimestamp = -1;
+	
+	/**
+	 * The maximum number of payload segments per message which are 
+	 * delivered but not yet acknowledged by the receiver. 
+	 * Zero or less means unlimited. 
+	 */
+	private int maxUnacknowledgedSegments = 200;
+	
 	/**
 	 * 
 	 * 
@@ -102,6 +112,9 @@ public class OutgoingSegmentCollector extends LimitedActiveTaskList {
 			// Get message and message segment handler.			
 			String sType = null;		
 			
+			// The remaining sending window of each message in this round.
+			Map windows = new HashMap();
+			
 			while(itr.hasNext()){	
 				SFRMMessageSegmentDVO sgtDVO = (SFRMMessageSegmentDVO) itr.next();
 				try{
@@ -163,6 +176,12 @@ public class OutgoingSegmentCollector extends LimitedActiveTaskList {
 						   +" and partnership id: " + pID);
 					}											
 					
+					// Leave the segment pending if the receiver has not yet 
+					// acknowledged enough delivered segments of the message. 
+					if (isPayload && status.equals(SFRMConstant.MSGS_PENDING) 
+							&& !this.acquireWindow(windows, mID))
+						continue;
+					
 					sgtDVO.setStatus(SFRMConstant.MSGS_PROCESSING);
 					SFRMProcessor.getInstance().getMessageSegmentHandler().getDAOInstance().persist(sgtDVO);
 					// Add a new payload task for each segmented payload.				
@@ -186,6 +205,36 @@ public class OutgoingSegmentCollector extends LimitedActiveTaskList {
 		return taskList;
 	}
 		
+	/**
+	 * Acquire a slot from the sending window of the specified message. 
+	 * The window is the number of payload segments which can be sent 
+	 * before the delivered segments are acknowledged by the receiver.  
+	 * 
+	 * @param windows
+	 * 			The remaining window of the messages in this round.
+	 * @param messageId
+	 * 			The message id of the segment to send.
+	 * @return
+	 * 			true if the segment can be sent.
+	 */
+	private boolean acquireWindow(Map windows, String messageId) throws DAOException{
+		if (this.maxUnacknowledgedSegments <= 0)
+			return true;
+		
+		Integer remaining = (Integer) windows.get(messageId);
+		if (remaining == null){
+			int delivered = SFRMProcessor.getInstance().getMessageSegmentHandler().retrieveMessageSegmentCount(
+				messageId, SFRMConstant.MSGBOX_OUT, SFRMConstant.MSGT_PAYLOAD, SFRMConstant.MSGS_DELIVERED);
+			remaining = new Integer(this.maxUnacknowledgedSegments - delivered);
+		}
+		if (remaining.intValue() <= 0){
+			windows.put(messageId, remaining);
+			return false;
+		}
+		windows.put(messageId, new Integer(remaining.intValue() - 1));
+		return true;
+	}
+	
 	/**
 	 * It get the set of payload directory from the segmented 
 	 * payloads repository and pass to outgoing segmented 
@@ -261,6 +310,7 @@ public class OutgoingSegmentCollector extends LimitedActiveTaskList {
 		double eiSpeedGradientTolerance = StringUtilities.parseDouble(param.getProperty("ei-speed-gradient-tolerance"), 50.0);
 		
 		activeDuration = StringUtilities.parseLong(param.getProperty("active-duration"), 120000);
+		maxUnacknowledgedSegments = StringUtilities.parseInt(param.getProperty("max-unacknowledged-segments"), 200);
 		
 		optimizer = new BandWidthOptimizer((ActiveTaskModule) this.getModule());
 		optimizer.setEIIncrement(eiInc);
@@ -30,6 +30,7 @@ import hk.hku.cecid.edi.sfrm.pkg.SFRMMessage;
 import hk.hku.cecid.edi.sfrm.pkg.SFRMMessageException;
 
 import hk.hku.cecid.piazza.commons.module.ActiveTaskAdaptor;
+import hk.hku.cecid.piazza.commons.module.GroupedActiveTask;
 // import hk.hku.cecid.piazza.commons.module.ActiveTaskModule;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.security.KeyStoreManager;
@@ -44,7 +45,7 @@ import hk.hku.cecid.piazza.commons.security.KeyStoreManager;
  * @version 1.0.0
  * @since	1.0.0
  */
-public class OutgoingSegmentTask extends ActiveTaskAdaptor {
+public class OutgoingSegmentTask extends ActiveTaskAdaptor implements GroupedActiveTask {
 
 	/**
 	 * The packaged payload.
@@ -371,6 +372,19 @@ public class OutgoingSegmentTask extends ActiveTaskAdaptor {
 	{
 		return this.retryEnabled;
 	}
+	
+	/**
+	 * @since	
+	 * 			2.0.0
+	 * 
+	 * @return return the partnership id of the sending message so that  
+	 * 		   the segments of each partnership are scheduled on their own.
+	 */
+	public String 
+	getTaskGroup() 
+	{
+		return this.msgDVO.getPartnershipId();
+	}
 
 	/**
 	 * The method is invoked upon the task fails to send.<br><br>
@@ -0,0 +1,143 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.edi.sfrm.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The segment digester computes the MD5 checksums of the segments of a
+ * payload file on a bounded pool of threads.<br><br>
+ *
+ * Each thread reads its segments through a reusable direct buffer, so the
+ * memory used does not depend on the segment size.
+ */
+public class SegmentDigester {
+
+	private static final int BUFFER_SIZE = 65536;
+
+	private static SegmentDigester instance;
+
+	private final ExecutorService executor;
+
+	private final ThreadLocal buffers = new ThreadLocal(){
+		protected Object initialValue(){
+			return ByteBuffer.allocateDirect(BUFFER_SIZE);
+		}
+	};
+
+	/**
+	 * Get the shared segment digester which has a thread for each processor.
+	 *
+	 * @return the shared segment digester.
+	 */
+	public static synchronized SegmentDigester getInstance(){
+		if (instance == null)
+			instance = new SegmentDigester(Runtime.getRuntime().availableProcessors());
+		return instance;
+	}
+
+	/**
+	 * Explicit Constructor.
+	 *
+	 * @param threadCount
+	 * 			The maximum number of segments digested concurrently.
+	 */
+	public SegmentDigester(int threadCount){
+		this.executor = Executors.newFixedThreadPool(Math.max(1, threadCount), new ThreadFactory(){
+			private int count = 0;
+			public synchronized Thread newThread(Runnable r){
+				Thread t = new Thread(r, "SegmentDigester-" + (++count));
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Digest the specified regions of the file concurrently.
+	 *
+	 * @param file
+	 * 			The payload file.
+	 * @param positions
+	 * 			The start position of each region.
+	 * @param sizes
+	 * 			The size of each region.
+	 * @return
+	 * 			The MD5 checksum of each region in base64 format.
+	 * @throws IOException
+	 * 			if any of the regions cannot be read.
+	 */
+	public String[] digest(File file, long[] positions, long[] sizes) throws IOException{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try{
+			final FileChannel fc = raf.getChannel();
+			Future[] results = new Future[positions.length];
+			for (int i = 0; i < positions.length; i++){
+				final long position = positions[i];
+				final long size = sizes[i];
+				results[i] = this.executor.submit(new Callable(){
+					public Object call() throws Exception{
+						return digest(fc, position, size);
+					}
+				});
+			}
+
+			String[] digests = new String[positions.length];
+			for (int i = 0; i < results.length; i++){
+				try{
+					digests[i] = (String) results[i].get();
+				}catch(ExecutionException e){
+					Throwable cause = e.getCause();
+					if (cause instanceof IOException)
+						throw (IOException) cause;
+					throw (IOException) new IOException("Unable to digest segment of " + file).initCause(cause);
+				}catch(InterruptedException e){
+					throw (IOException) new IOException("Interrupted in digesting " + file).initCause(e);
+				}
+			}
+			return digests;
+		}finally{
+			raf.close();
+		}
+	}
+
+	/**
+	 * Digest the region of the file channel in the calling thread.
+	 */
+	private String digest(FileChannel fc, long position, long size) throws IOException, NoSuchAlgorithmException{
+		MessageDigest md = MessageDigest.getInstance("md5");
+		ByteBuffer bb = (ByteBuffer) this.buffers.get();
+		long end = position + size;
+		while (position < end){
+			bb.clear();
+			if (end - position < bb.capacity())
+				bb.limit((int) (end - position));
+			int count = fc.read(bb, position);
+			if (count < 0)
+				throw new IOException("Unexpected end of file at position: " + position);
+			position += count;
+			bb.flip();
+			md.update(bb);
+		}
+		return (new sun.misc.BASE64Encoder()).encode(md.digest());
+	}
+}
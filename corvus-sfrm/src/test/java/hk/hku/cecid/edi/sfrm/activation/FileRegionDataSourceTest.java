@@ -0,0 +1,58 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.edi.sfrm.activation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.channels.Channels;
+
+import junit.framework.TestCase;
+
+public class FileRegionDataSourceTest extends TestCase {
+
+	private File file;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		file = File.createTempFile("region", ".dat");
+		FileOutputStream fos = new FileOutputStream(file);
+		try {
+			for (int i = 0; i < 100000; i++) {
+				fos.write(i);
+			}
+		}
+		finally {
+			fos.close();
+		}
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		file.delete();
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testTransferTo() throws Exception {
+		FileRegionDataSource region = new FileRegionDataSource(file, 30000, 50000);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+		TestCase.assertEquals(50000, region.getSize());
+		TestCase.assertEquals(50000, region.transferTo(Channels.newChannel(bos)));
+
+		byte[] bytes = bos.toByteArray();
+		TestCase.assertEquals(50000, bytes.length);
+		for (int i = 0; i < bytes.length; i++) {
+			TestCase.assertEquals((byte) (i + 30000), bytes[i]);
+		}
+	}
+}
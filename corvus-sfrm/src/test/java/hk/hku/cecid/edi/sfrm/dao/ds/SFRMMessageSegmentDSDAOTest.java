@@ -104,5 +104,63 @@ public class SFRMMessageSegmentDSDAOTest extends DAOTest<SFRMMessageSegmentDSDAO
 		Assert.assertEquals("Number of segment which is in PS and DL status should be 100", 100, numBytes);
 	}
 	
+	@Test
+	public void testCreateAll() throws Exception{
+		SFRMMessageSegmentDAO dao = this.getTestingTarget();
+		List segments = new ArrayList();
+		for (int i = 1; i <= 5; i++){
+			SFRMMessageSegmentDVO dvo = (SFRMMessageSegmentDVO) dao.createDVO();
+			dvo.setMessageId("testCreateAll");
+			dvo.setMessageBox(SFRMConstant.MSGBOX_OUT);
+			dvo.setSegmentType(SFRMConstant.MSGT_PAYLOAD);
+			dvo.setSegmentNo(i);
+			dvo.setStatus(SFRMConstant.MSGS_PENDING);
+			dvo.setSegmentStart((i - 1) * 10);
+			dvo.setSegmentEnd(i * 10);
+			segments.add(dvo);
+		}
+		
+		dao.createAll(segments);
+		
+		Assert.assertEquals("Max segment no should be 5", 5, 
+			dao.findMaxSegmentNoByMessageIdAndBoxAndType("testCreateAll", SFRMConstant.MSGBOX_OUT, SFRMConstant.MSGT_PAYLOAD));
+		SFRMMessageSegmentDVO dvo = dao.findMessageSegmentByMessageIdAndBoxAndType("testCreateAll", SFRMConstant.MSGBOX_OUT, 3, SFRMConstant.MSGT_PAYLOAD);
+		Assert.assertNotNull("Segment 3 should be created", dvo);
+		Assert.assertEquals("Segment 3 should start at 20", 20, dvo.getSegmentStart());
+	}
+	
+	@Test
+	public void testRemoveAll() throws Exception{
+		SFRMMessageSegmentDSDAO dao = this.getTestingTarget();
+		List segments = new ArrayList();
+		for (int i = 1; i <= 5; i++){
+			SFRMMessageSegmentDVO dvo = (SFRMMessageSegmentDVO) dao.createDVO();
+			dvo.setMessageId("testRemoveAll");
+			dvo.setMessageBox(SFRMConstant.MSGBOX_OUT);
+			dvo.setSegmentType(SFRMConstant.MSGT_PAYLOAD);
+			dvo.setSegmentNo(i);
+			dvo.setStatus(SFRMConstant.MSGS_PENDING);
+			segments.add(dvo);
+		}
+		dao.createAll(segments);
+		
+		// segment 6 does not exist
+		SFRMMessageSegmentDVO missing = (SFRMMessageSegmentDVO) dao.createDVO();
+		missing.setMessageId("testRemoveAll");
+		missing.setMessageBox(SFRMConstant.MSGBOX_OUT);
+		missing.setSegmentType(SFRMConstant.MSGT_PAYLOAD);
+		missing.setSegmentNo(6);
+		List removals = new ArrayList(segments.subList(1, 4));
+		removals.add(missing);
+		
+		Assert.assertEquals("3 segments should be removed", 3, dao.removeAll(removals));
+		Assert.assertNotNull("Segment 1 should be kept", dao.findMessageSegmentByMessageIdAndBoxAndType(
+			"testRemoveAll", SFRMConstant.MSGBOX_OUT, 1, SFRMConstant.MSGT_PAYLOAD));
+		Assert.assertNull("Segment 3 should be removed", dao.findMessageSegmentByMessageIdAndBoxAndType(
+			"testRemoveAll", SFRMConstant.MSGBOX_OUT, 3, SFRMConstant.MSGT_PAYLOAD));
+		Assert.assertEquals("Max segment no should be 5", 5, 
+			dao.findMaxSegmentNoByMessageIdAndBoxAndType("testRemoveAll", SFRMConstant.MSGBOX_OUT, SFRMConstant.MSGT_PAYLOAD));
+	}
+	
 	
 }
@@ -279,6 +279,24 @@ public class SFRMPartnershipDSDAOTest extends DAOTest<SFRMPartnershipDSDAO>{
 		Assert.assertEquals("Partnership updated successsfully with invalid data", "This is test 2", new_dvo.getDescription());
 	}
 	
+	@Test
+	/*
+	 * Test for finding a cached partnership, which is refreshed after update
+	 */
+	public void testFindPartnershipByIdCached() throws DAOException{
+		SFRMPartnershipDSDAO dao = super.getTestingTarget();
+		SFRMPartnershipDVO dvo = dao.findPartnershipById("test1");
+		SFRMPartnershipDVO cached_dvo = dao.findPartnershipById("test1");
+		Assert.assertEquals("Partnership wasn't found from the cache", 1, dao.getCache().getHitCount());
+		Assert.assertNotSame("Cached partnership was returned without copying", dvo, cached_dvo);
+		Assert.assertEquals(dvo.getDescription(), cached_dvo.getDescription());
+		
+		cached_dvo.setDescription("test1 description cached");
+		Assert.assertTrue("Partnership updated not successful", dao.persist(cached_dvo));
+		Assert.assertEquals("Cached partnership wasn't refreshed after update", 
+				"test1 description cached", dao.findPartnershipById("test1").getDescription());
+	}
+	
 	@Test 
 	/*
 	 * Test for deleting an existing partnership
@@ -4,8 +4,10 @@ import hk.hku.cecid.piazza.commons.test.PluginTest;
 import hk.hku.cecid.piazza.commons.test.utils.ResSetter;
 import hk.hku.cecid.edi.sfrm.handler.IncomingMessageHandler;
 
+import hk.hku.cecid.edi.sfrm.pkg.SFRMAcknowledgementBuilder;
 import hk.hku.cecid.edi.sfrm.pkg.SFRMAcknowledgementParser;
 import hk.hku.cecid.edi.sfrm.pkg.SFRMConstant;
+import hk.hku.cecid.edi.sfrm.pkg.SFRMHeader;
 import hk.hku.cecid.edi.sfrm.pkg.SFRMMessage;
 import hk.hku.cecid.edi.sfrm.spa.SFRMProcessor;
 import hk.hku.cecid.edi.sfrm.dao.SFRMMessageDAO;
@@ -15,9 +17,14 @@ import hk.hku.cecid.edi.sfrm.dao.SFRMMessageSegmentDVO;
 import hk.hku.cecid.piazza.commons.io.IOHandler;
 
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import javax.mail.internet.InternetHeaders;
 
 import org.junit.Test;
 
@@ -119,6 +126,76 @@ public class IncomingMessageHandlerTest extends PluginTest<SFRMProcessor> {
 		
 	}
 		
+	@Test
+	public void testStreamedSegmentInvalidCRC() throws Exception{
+		String messageId = "testSegmentReceivedInvalidCRC";
+		byte[] content = new byte[100];
+		for (int i = 0; i < content.length; i++)
+			content[i] = (byte) i;
+		String md5 = SFRMMessage.digest(new ByteArrayInputStream(content));
+		
+		//Pre-allocate the payload as the handshaking does
+		File inRepo = sfrmProcessor.getIncomingRepository().getRepository();
+		File payload = new File(inRepo, "~loopback$" + messageId + ".sfrm");
+		RandomAccessFile raf = new RandomAccessFile(payload, "rw");
+		raf.setLength(1024);
+		raf.close();
+		
+		//Stream a segment whose content does not match its MIC value
+		byte[] corrupted = (byte[]) content.clone();
+		corrupted[50] ^= 0xFF;
+		inHandler.processIncomingMessage(createStreamedSegment(messageId, 1, corrupted, md5), null);
+		
+		SFRMMessageSegmentDAO dao = (SFRMMessageSegmentDAO) sfrmProcessor.getDAOFactory().createDAO(SFRMMessageSegmentDAO.class);
+		SFRMMessageSegmentDVO dvo = dao.findMessageSegmentByMessageIdAndBoxAndType(messageId, SFRMConstant.MSGBOX_IN, 1, SFRMConstant.MSGT_PAYLOAD);
+		assertNotNull("Segment 1 should be recorded", dvo);
+		assertEquals("Status of segment 1 should be " + SFRMConstant.MSGS_DELIVERY_FAILURE, SFRMConstant.MSGS_DELIVERY_FAILURE, dvo.getStatus());
+		
+		//The sender is told the segment failed, which removes the failure record
+		SFRMAcknowledgementBuilder ackBuilder = new SFRMAcknowledgementBuilder();
+		ackBuilder.setMessage(messageId, SFRMConstant.MSGS_PROCESSING);
+		ackBuilder.setSegment(messageId, 1, SFRMConstant.MSGS_DELIVERED);
+		SFRMMessageDVO mDVO = sfrmProcessor.getMessageHandler().retrieveMessage(messageId, SFRMConstant.MSGBOX_IN);
+		SFRMAcknowledgementParser responseParser = new SFRMAcknowledgementParser(
+				inHandler.processPRAck(mDVO, new SFRMAcknowledgementParser(ackBuilder.toString())));
+		assertEquals("Status for segment 1 should be " + SFRMConstant.MSGS_DELIVERY_FAILURE, SFRMConstant.MSGS_DELIVERY_FAILURE, responseParser.getMessageSegmentStatus(messageId, 1));
+		
+		//The failed segment should not be marked as received
+		SFRMMessage retransmission = createStreamedSegment(messageId, 1, content, md5);
+		assertFalse("Segment 1 should not be marked as received", inHandler.isDuplicateSegment(retransmission));
+		
+		//The retransmission should be accepted
+		inHandler.processIncomingMessage(retransmission, null);
+		dvo = dao.findMessageSegmentByMessageIdAndBoxAndType(messageId, SFRMConstant.MSGBOX_IN, 1, SFRMConstant.MSGT_PAYLOAD);
+		assertNotNull("Segment 1 should be recorded", dvo);
+		assertEquals("Status of segment 1 should be " + SFRMConstant.MSGS_DELIVERED, SFRMConstant.MSGS_DELIVERED, dvo.getStatus());
+		assertTrue("Segment 1 should be marked as received", inHandler.isDuplicateSegment(retransmission));
+		
+		inHandler.processPDFAck(mDVO);
+		byte[] written = new byte[content.length];
+		raf = new RandomAccessFile(payload, "r");
+		try{
+			raf.readFully(written);
+		}finally{
+			raf.close();
+		}
+		assertTrue("The retransmitted segment should be written to the payload", Arrays.equals(content, written));
+	}
+	
+	private SFRMMessage createStreamedSegment(String messageId, int segmentNo, byte[] content, String md5) throws Exception{
+		InternetHeaders headers = new InternetHeaders();
+		headers.setHeader(SFRMHeader.MESSAGE_ID, messageId);
+		headers.setHeader(SFRMHeader.SFRM_PARTNERSHIP, "loopback");
+		headers.setHeader(SFRMHeader.SFRM_SEGMENT_TYPE, SFRMConstant.MSGT_PAYLOAD);
+		headers.setHeader(SFRMHeader.SFRM_SEGMENT_NO, String.valueOf(segmentNo));
+		headers.setHeader(SFRMHeader.SFRM_SEGMENT_OFFSET, "0");
+		headers.setHeader(SFRMHeader.SFRM_SEGMENT_LENGTH, String.valueOf(content.length));
+		headers.setHeader("Content-Type", "application/octet-stream");
+		headers.setHeader("Content-Transfer-Encoding", "binary");
+		headers.setHeader("Content-MD5", md5);
+		return new SFRMMessage(headers, new ByteArrayInputStream(content), true);
+	}
+	
 	@Test
 	public void testProcessPRAck() throws Exception{
 		File requestFile = new File(new File(FIXTURE_LOADER.getResource(getName()).getFile()), "ack_request.xml");
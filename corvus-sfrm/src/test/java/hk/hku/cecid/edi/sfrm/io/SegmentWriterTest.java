@@ -0,0 +1,125 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.edi.sfrm.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class SegmentWriterTest extends TestCase {
+
+	private static final int SEGMENT_SIZE = 100000;
+
+	private static final int SEGMENT_COUNT = 8;
+
+	private File file;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		file = File.createTempFile("segments", ".sfrm");
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(SEGMENT_SIZE * SEGMENT_COUNT);
+		raf.close();
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		file.delete();
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testConcurrentWrite() throws Exception {
+		final SegmentWriter writer = new SegmentWriter(file);
+		final IOException[] errors = new IOException[SEGMENT_COUNT];
+		Thread[] threads = new Thread[SEGMENT_COUNT];
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			final int segmentNo = i;
+			threads[i] = new Thread() {
+				public void run() {
+					TestCase.assertTrue(writer.acquire());
+					try {
+						writer.write(new ByteArrayInputStream(createSegment(segmentNo)),
+								(long) segmentNo * SEGMENT_SIZE, SEGMENT_SIZE);
+						writer.sync();
+						writer.markReceived(segmentNo);
+					}
+					catch (IOException e) {
+						errors[segmentNo] = e;
+					}
+					finally {
+						writer.release();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			threads[i].join();
+			TestCase.assertNull(errors[i]);
+		}
+		writer.close();
+
+		TestCase.assertFalse(writer.acquire());
+		TestCase.assertEquals(SEGMENT_COUNT, writer.getReceivedCount());
+		TestCase.assertTrue(writer.isReceived(SEGMENT_COUNT - 1));
+		TestCase.assertFalse(writer.isReceived(SEGMENT_COUNT));
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			byte[] segment = new byte[SEGMENT_SIZE];
+			for (int i = 0; i < SEGMENT_COUNT; i++) {
+				raf.readFully(segment);
+				TestCase.assertTrue(Arrays.equals(createSegment(i), segment));
+			}
+		}
+		finally {
+			raf.close();
+		}
+	}
+
+	public void testSyncWithoutWrite() throws Exception {
+		SegmentWriter writer = new SegmentWriter(file);
+		TestCase.assertTrue(writer.acquire());
+		try {
+			writer.sync();
+			writer.write(new ByteArrayInputStream(createSegment(0)), 0, SEGMENT_SIZE);
+			writer.sync();
+			writer.sync();
+		}
+		finally {
+			writer.release();
+		}
+		writer.close();
+	}
+
+	public void testCloseIfIdle() throws Exception {
+		SegmentWriter writer = new SegmentWriter(file);
+		TestCase.assertTrue(writer.acquire());
+		TestCase.assertFalse(writer.closeIfIdle(0));
+		writer.release();
+		TestCase.assertFalse(writer.closeIfIdle(60000));
+		TestCase.assertTrue(writer.closeIfIdle(0));
+		TestCase.assertFalse(writer.acquire());
+	}
+
+	private static byte[] createSegment(int segmentNo) {
+		byte[] segment = new byte[SEGMENT_SIZE];
+		for (int i = 0; i < segment.length; i++) {
+			segment[i] = (byte) (i + segmentNo * 7);
+		}
+		return segment;
+	}
+}
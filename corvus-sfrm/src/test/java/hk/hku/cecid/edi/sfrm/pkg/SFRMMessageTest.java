@@ -3,8 +3,12 @@
  */
 package hk.hku.cecid.edi.sfrm.pkg;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+
+import javax.mail.internet.InternetHeaders;
 
 import hk.hku.cecid.edi.sfrm.activation.FileRegionDataSource;
 import hk.hku.cecid.piazza.commons.os.OSCommander;
@@ -86,4 +90,26 @@ public class SFRMMessageTest extends TestCase {
 		Assert.assertFalse("Should not throw error when evaluating the MD5 value", thrown);
 		
 	}
+	
+	public void testStreamedContent() throws Exception{
+		byte[] content = "streamed segment content".getBytes();
+		String md5 = SFRMMessage.digest(new ByteArrayInputStream(content));
+		
+		InternetHeaders headers = new InternetHeaders();
+		headers.setHeader(SFRMHeader.SFRM_SEGMENT_TYPE, SFRMConstant.MSGT_PAYLOAD);
+		headers.setHeader("Content-Type", "application/octet-stream");
+		headers.setHeader("Content-Transfer-Encoding", "binary");
+		headers.setHeader("Content-MD5", md5);
+		
+		InputStream ins = new ByteArrayInputStream(content);
+		SFRMMessage message = new SFRMMessage(headers, ins, true);
+		
+		Assert.assertTrue(message.isStreamed());
+		Assert.assertEquals(md5, message.getMicValue());
+		Assert.assertEquals(content.length, ins.available());
+		Assert.assertSame(ins, message.getInputStream());
+		Assert.assertEquals(md5, SFRMMessage.digest(message.getInputStream()));
+		
+		Assert.assertFalse(new SFRMMessage(headers, new ByteArrayInputStream(content)).isStreamed());
+	}
 }
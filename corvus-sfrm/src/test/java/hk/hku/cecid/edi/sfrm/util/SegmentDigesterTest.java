@@ -0,0 +1,61 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.edi.sfrm.util;
+
+import hk.hku.cecid.edi.sfrm.activation.FileRegionDataSource;
+import hk.hku.cecid.edi.sfrm.pkg.SFRMMessage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import junit.framework.TestCase;
+
+public class SegmentDigesterTest extends TestCase {
+
+	private File file;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		file = File.createTempFile("segments", ".dat");
+		FileOutputStream fos = new FileOutputStream(file);
+		try {
+			byte[] data = new byte[300000];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = (byte) (i * 31);
+			}
+			fos.write(data);
+		}
+		finally {
+			fos.close();
+		}
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		file.delete();
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testDigest() throws Exception {
+		long[] positions = new long[] {0, 100000, 200000, 250000};
+		long[] sizes = new long[] {100000, 100000, 50000, 50000};
+
+		String[] digests = new SegmentDigester(2).digest(file, positions, sizes);
+
+		TestCase.assertEquals(positions.length, digests.length);
+		for (int i = 0; i < positions.length; i++) {
+			TestCase.assertEquals(
+					SFRMMessage.digest(new FileRegionDataSource(file, positions[i], sizes[i])),
+					digests[i]);
+		}
+	}
+}
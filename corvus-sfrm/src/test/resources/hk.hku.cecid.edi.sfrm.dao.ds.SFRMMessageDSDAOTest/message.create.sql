@@ -14,5 +14,7 @@ CREATE TABLE sfrm_message
   proceed_timestamp timestamp,
   completed_timestamp timestamp,
   filename varchar,
+  owner_id varchar,
+  lease_timestamp timestamp,
   PRIMARY KEY (message_id, message_box)
 );
\ No newline at end of file
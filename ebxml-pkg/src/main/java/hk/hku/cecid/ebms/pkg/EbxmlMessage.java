@@ -69,6 +69,7 @@ package hk.hku.cecid.ebms.pkg;
 
 import hk.hku.cecid.ebms.pkg.validation.EbxmlValidationException;
 import hk.hku.cecid.ebms.pkg.validation.SOAPValidationException;
+import hk.hku.cecid.piazza.commons.io.CountingOutputStream;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -1441,8 +1442,13 @@ public class EbxmlMessage {
         }
         return totalLength;
         */
-        soapMessage.writeTo(out);
-        return 0;
+        // count the bytes while writing so that the message is rendered only
+        // once, and discard them if only the length is needed
+        CountingOutputStream counter = new CountingOutputStream(
+                getLengthOnly ? null : out);
+        soapMessage.writeTo(counter);
+        counter.flush();
+        return counter.getCount();
     }
 
     /**
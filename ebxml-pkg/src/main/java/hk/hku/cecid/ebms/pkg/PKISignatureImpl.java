@@ -70,13 +70,12 @@ package hk.hku.cecid.ebms.pkg;
 
 import hk.hku.cecid.ebms.pkg.pki.ApacheXMLDSigner;
 import hk.hku.cecid.ebms.pkg.pki.CertResolver;
-import hk.hku.cecid.ebms.pkg.pki.CompositeKeyStore;
 import hk.hku.cecid.ebms.pkg.pki.ErrorMessages;
 import hk.hku.cecid.ebms.pkg.pki.SignException;
 import hk.hku.cecid.ebms.pkg.pki.VerifyException;
+import hk.hku.cecid.ebms.pkg.pki.XMLDSigEngine;
 import hk.hku.cecid.ebms.pkg.validation.SOAPValidationException;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -88,12 +87,10 @@ import java.security.cert.X509Certificate;
 import java.util.Iterator;
 
 import javax.activation.DataSource;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.soap.SOAPElement;
 import javax.xml.soap.SOAPEnvelope;
 import javax.xml.soap.SOAPException;
 import javax.xml.soap.SOAPPart;
-import javax.xml.transform.TransformerFactory;
 
 import org.apache.log4j.Logger;
 import org.dom4j.io.DocumentResult;
@@ -166,25 +163,22 @@ class PKISignatureImpl extends Signature {
             final SOAPPart soapPart = ebxmlMessage.getSOAPMessage().
                 getSOAPPart();
             DocumentResult docResult = new DocumentResult();
-            TransformerFactory.newInstance().newTransformer().
-                transform(soapPart.getContent(), docResult);
+            XMLDSigEngine.transform(soapPart.getContent(), docResult);
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
             (new XMLWriter(baos)).write(docResult.getDocument());
-            DocumentBuilderFactory factory = DocumentBuilderFactory.
-                newInstance();
-            factory.setNamespaceAware(true);
             // soapPartDocument is a DOM equivilance of soapPart
-            final Document soapPartDocument = factory.newDocumentBuilder().
-                parse(new ByteArrayInputStream(baos.toByteArray()));
+            final Document soapPartDocument =
+                XMLDSigEngine.parse(baos.toByteArray());
             final String soapHeaderName = soapPart.getEnvelope().getHeader().
                 getElementName().getLocalName();
             final Element soapHeader = (Element) soapPartDocument.
                 getElementsByTagNameNS(NAMESPACE_URI_SOAP_ENVELOPE,
                                        soapHeaderName).item(0);
             ApacheXMLDSigner signature = new ApacheXMLDSigner();
-            CompositeKeyStore ks = new CompositeKeyStore();
-            ks.addKeyStoreFile(keyStoreLocation, null, password);
-            PrivateKey pk = (PrivateKey) ks.getKey(alias, password);
+            // the key is loaded from the keystore once and reused
+            XMLDSigEngine.SigningKey signingKey = XMLDSigEngine.getSigningKey(
+                keyStoreLocation, alias, password);
+            PrivateKey pk = signingKey.getPrivateKey();
             /* 
              * To reduce the complexity of the exception message,
              * the exception can be catch on the final catch block.
@@ -250,7 +244,7 @@ class PKISignatureImpl extends Signature {
                 }
             }
 
-            signature.sign(ks, alias, password);
+            signature.sign(pk, signingKey.getCertificateChain());
 
             domToSoap(signature.getElement(), this);
 
@@ -351,7 +345,7 @@ class PKISignatureImpl extends Signature {
             String persistenceName = ebxmlMessage.getPersistenceName();
             byte[] soapEnvelopeBytes = ebxmlMessage.getSoapEnvelopeBytes();
             if (soapEnvelopeBytes != null) {
-                baos.write(soapEnvelopeBytes);
+                // the received envelope is parsed as it is, without a copy
             } else if (persistenceName != null) {
                 if (dataSource == null) {
                     throw new SignatureException(
@@ -386,16 +380,13 @@ class PKISignatureImpl extends Signature {
                 final SOAPPart soapPart = ebxmlMessage.getSOAPMessage().
                     getSOAPPart();
                 DocumentResult docResult = new DocumentResult();
-                TransformerFactory.newInstance().newTransformer().
-                    transform(soapPart.getContent(), docResult);
+                XMLDSigEngine.transform(soapPart.getContent(), docResult);
                 (new XMLWriter(baos)).write(docResult.getDocument());
             }
-            DocumentBuilderFactory factory = DocumentBuilderFactory.
-                newInstance();
-            factory.setNamespaceAware(true);
             // soapPartDocument is a DOM equivilance of soapPart
-            final Document soapPartDocument = factory.newDocumentBuilder().
-                parse(new ByteArrayInputStream(baos.toByteArray()));
+            final Document soapPartDocument = XMLDSigEngine.parse(
+                soapEnvelopeBytes != null ? soapEnvelopeBytes
+                                          : baos.toByteArray());
 
             ApacheXMLDSigner signature = new ApacheXMLDSigner();
             signature.setEnvelope(soapPartDocument);
@@ -407,9 +398,8 @@ class PKISignatureImpl extends Signature {
             }
 
             if (keyStoreLocation != null) {
-                CompositeKeyStore ks = new CompositeKeyStore();
-                ks.addKeyStoreFile(keyStoreLocation, null, password);
-                signature.setTrustAnchor(ks);
+                signature.setTrustAnchor(XMLDSigEngine.getKeyStore(
+                    keyStoreLocation, password));
             }
             signature.addCertResolver(certResolver, ebxmlMessage);
 
@@ -24,10 +24,6 @@ import javax.xml.soap.SOAPException;
  */
 public class SignatureHandler {
 
-    private static Object signLock = new Object();
-
-    private static Object verifyLock = new Object();
-
     private EbxmlMessage message;
 
     private String username;
@@ -108,7 +104,7 @@ public class SignatureHandler {
      */
     public void sign(String algorithm, String digestAlgorithm,
             boolean signEnvelopeOnly) throws SOAPException, SignatureException {
-        synchronized (signLock) {
+        synchronized (message) {
             Signature signature = Signature.newInstance(message);
             signature.sign(username, password, keyStoreLocation, algorithm,
                     digestAlgorithm, signEnvelopeOnly);
@@ -124,7 +120,7 @@ public class SignatureHandler {
      * @throws SignatureException
      */
     public boolean verify() throws SOAPException, SignatureException {
-        synchronized (verifyLock) {
+        synchronized (message) {
             boolean result = true;
             Iterator i = message.getHeaderContainer().getSignatures();
             if (i.hasNext()) {
@@ -147,7 +143,7 @@ public class SignatureHandler {
     }
 
     public boolean verifyByPublicKey() throws SOAPException, SignatureException {
-        synchronized (verifyLock) {
+        synchronized (message) {
             boolean result = true;
             Iterator i = message.getHeaderContainer().getSignatures();
             if (i.hasNext()) {
@@ -339,7 +339,38 @@ public class ApacheXMLDSigner implements XMLDSigner {
             throw new SignException(err);
         }
         logger.debug("got private key from keystore");
-        
+
+        Certificate[] certificates;
+        try {
+            certificates = ks.getCertificateChain(alias);
+            if (certificates == null) {
+                String err = "Cannot get certificate path: " + alias;
+                logger.warn(err);
+                throw new SignException(err);
+            }
+        }
+        catch (KeyStoreException e) {
+            String err = "Cannot get certificate path: " + alias + " - "
+                + e.getMessage();
+            logger.warn(err);
+            throw new SignException(err);
+        }
+        logger.debug("got the certificate chain from keystore");
+
+        sign(pk, certificates);
+    }
+
+    /**
+     * Signs the envelope and documents by using the specified private key,
+     * which may have been loaded once for many signings.
+     *
+     * @param pk the private key for signing
+     * @param certificates the certificate chain of the private key
+     * @throws SignException when there is any error in the processing of
+     *                       signing
+     */
+    public void sign(PrivateKey pk, Certificate[] certificates)
+            throws SignException {
         if (envelope == null) {
             String err = "Envelope element not set"; 
             logger.warn(err);
@@ -403,23 +434,6 @@ public class ApacheXMLDSigner implements XMLDSigner {
         }
         logger.debug("added " + documents.size() + " attachment documents");
 
-        Certificate[] certificates;
-        try {
-            certificates = ks.getCertificateChain(alias);
-            if (certificates == null) {
-                String err = "Cannot get certificate path: " + alias;
-                logger.warn(err);
-                throw new SignException(err);
-            }
-        }
-        catch (KeyStoreException e) {
-            String err = "Cannot get certificate path: " + alias + " - "
-                + e.getMessage();
-            logger.warn(err);
-            throw new SignException(err);
-        }
-        logger.debug("got the certificate chain from keystore");
-
         for (int i=0 ; i<certificates.length ; i++) {
             try {
                 signature.addKeyInfo((X509Certificate) certificates[i]);
@@ -432,19 +446,6 @@ public class ApacheXMLDSigner implements XMLDSigner {
         }
         logger.debug("added the certificate chain to signature");
 
-        /*
-        PrivateKey pk;
-        try {
-            pk = (PrivateKey) ks.getKey(alias, password);
-        }
-        catch (Exception e) {
-            String err = "Cannot get private key: " + alias + " - "
-                + e.getMessage();
-            logger.warn(err);
-            throw new SignException(err);
-        }
-        logger.debug("got private key from keystore");
-        */
         try {
             signature.sign(pk);
         }
@@ -72,16 +72,20 @@ import java.io.IOException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertPath;
 import java.security.cert.CertPathBuilder;
 import java.security.cert.CertPathBuilderException;
 import java.security.cert.CertStore;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CollectionCertStoreParameters;
 import java.security.cert.PKIXBuilderParameters;
 import java.security.cert.X509CertSelector;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 /**
@@ -100,11 +104,104 @@ public class CertPathVerifier {
      */
     protected static Logger logger = Logger.getLogger(CertPathVerifier.class);
 
+    /**
+     * Maximum number of verified certificate chains to be cached
+     */
+    private static int cacheSize = 1000;
+
+    /**
+     * Time in milliseconds for a verified certificate chain to be cached
+     */
+    private static long cacheTTL = 3600000;
+
+    private static long cacheHits;
+
+    private static long cacheMisses;
+
+    /**
+     * Expiry time of the verified certificate chains, keyed by the version
+     * of the trusted keystore and the fingerprint of the chain
+     */
+    private static final Map cache = new LinkedHashMap(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    /**
+     * Sets the maximum number of verified certificate chains to be cached.
+     *
+     * @param size the maximum number of cached chains
+     */
+    public static synchronized void setCacheSize(int size) {
+        cacheSize = size;
+    }
+
+    /**
+     * Sets the time for a verified certificate chain to be cached. A chain
+     * is never cached beyond the expiry of its certificates.
+     *
+     * @param ttl the time in milliseconds
+     */
+    public static synchronized void setCacheTTL(long ttl) {
+        cacheTTL = ttl;
+    }
+
+    /**
+     * Gets the maximum number of verified certificate chains to be cached.
+     *
+     * @return the maximum number of cached chains
+     */
+    public static synchronized int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Gets the number of verified certificate chains in the cache.
+     *
+     * @return the number of cached chains
+     */
+    public static synchronized int getCachedChains() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the number of verifications answered by the cache.
+     *
+     * @return the number of cache hits
+     */
+    public static synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Gets the number of verifications which built the certificate path.
+     *
+     * @return the number of cache misses
+     */
+    public static synchronized long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * Removes all the verified certificate chains from the cache.
+     */
+    public static synchronized void clearCache() {
+        cache.clear();
+    }
+
     /**
      * Verifies the specified certificate chain against the trusted anchors.
      * The trusted anchors contains all public certificate that is trusted.
      * This method will make use of JDK1.4's utilities to verify the 
      * certificate chain.
+     * <p>
+     * A verified chain is cached until the trusted keystore is changed,
+     * the cache TTL elapses or a certificate of the chain expires, so that
+     * a partner signing with the same chain is not verified again. No CRL
+     * is supplied to the verification, so a revocation found by the PKIX
+     * provider itself, such as by OCSP when enabled in the security
+     * properties, applies to a cached chain only after the cache TTL.
      *
      * @param certs the certificate chain being verified
      * @param trusted the keystore storing the trusted anchors.
@@ -113,6 +210,76 @@ public class CertPathVerifier {
     public static boolean verify(java.security.cert.Certificate[] certs,
             CompositeKeyStore trusted) {
 
+        String key = getCacheKey(certs, trusted);
+        long now = System.currentTimeMillis();
+        synchronized (CertPathVerifier.class) {
+            Long expiry = key == null ? null : (Long) cache.get(key);
+            if (expiry != null && now < expiry.longValue()) {
+                cacheHits++;
+                logger.debug("certificate chain verified by cache");
+                return true;
+            }
+            cacheMisses++;
+        }
+
+        if (!build(certs, trusted)) {
+            return false;
+        }
+
+        if (key != null) {
+            long expiry;
+            synchronized (CertPathVerifier.class) {
+                expiry = now + cacheTTL;
+            }
+            for (int i=0; i < certs.length; i++) {
+                expiry = Math.min(expiry, ((X509Certificate) certs[i])
+                    .getNotAfter().getTime());
+            }
+            synchronized (CertPathVerifier.class) {
+                cache.put(key, new Long(expiry));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the cache key of the certificate chain, which is the version
+     * of the trusted keystore and the SHA-256 fingerprint of the chain.
+     * SHA-1 is not used, as a chain colliding with a verified one would
+     * be accepted without verification.
+     *
+     * @return the cache key or null if the fingerprint cannot be computed
+     */
+    private static String getCacheKey(java.security.cert.Certificate[] certs,
+            CompositeKeyStore trusted) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (int i=0; i < certs.length; i++) {
+                md.update(certs[i].getEncoded());
+            }
+            byte[] digest = md.digest();
+            StringBuffer key = new StringBuffer();
+            key.append(trusted.getVersion()).append(':');
+            for (int i=0; i < digest.length; i++) {
+                key.append(Integer.toHexString((digest[i] & 0xff) | 0x100)
+                    .substring(1));
+            }
+            return key.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+        catch (CertificateEncodingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds the certificate path of the chain against the trusted anchors.
+     */
+    private static boolean build(java.security.cert.Certificate[] certs,
+            CompositeKeyStore trusted) {
+
         try {
             CertPathBuilder certPathBuilder = 
                 CertPathBuilder.getInstance("PKIX");
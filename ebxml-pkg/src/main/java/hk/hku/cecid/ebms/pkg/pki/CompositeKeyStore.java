@@ -119,6 +119,14 @@ public class CompositeKeyStore {
      */
     protected Vector keystores;
 
+    /**
+     * Version of the content of this composite keystore, which is unique
+     * among all the composite keystores
+     */
+    protected long version;
+
+    private static long lastVersion;
+
     /**
      * Default constructor. The internal variables are being initialized.
      */
@@ -126,6 +134,22 @@ public class CompositeKeyStore {
         storage = new Hashtable();
         cache = null;
         keystores = new Vector();
+        version = nextVersion();
+    }
+
+    private static synchronized long nextVersion() {
+        return ++lastVersion;
+    }
+
+    /**
+     * Gets the version of this composite keystore. The version changes
+     * whenever a keystore file is added or removed, so that the results
+     * derived from the keystore can be cached by the version.
+     *
+     * @return the version of this composite keystore
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
@@ -155,6 +179,7 @@ public class CompositeKeyStore {
         KeyStoreFileProp ksp = new KeyStoreFileProp(type, password);
         try {
             storage.put(keyFile.getCanonicalPath(), ksp);
+            version = nextVersion();
         }
         catch (IOException e) {}
     }
@@ -193,6 +218,7 @@ public class CompositeKeyStore {
     protected void removeKeyStoreFile(File keyFile) {
         try {
             storage.remove(keyFile.getCanonicalPath());
+            version = nextVersion();
         }
         catch (IOException e) {}
     }
@@ -526,6 +552,7 @@ public class CompositeKeyStore {
                 new FileInputStream(storeFile));
             storage = (Hashtable) ois.readObject();
             ois.close();
+            version = nextVersion();
         }
         catch (FileNotFoundException e) {
             storage = null;
@@ -0,0 +1,256 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.ebms.pkg.pki;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.util.Arrays;
+import java.util.Hashtable;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+
+import org.apache.log4j.Logger;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+/**
+ * This class keeps the resources which are expensive to create for every
+ * signing and verification. The document builders and transformers are
+ * kept per thread, as they are not thread safe. The signing keys and the
+ * trusted keystores are loaded once per keystore file and are reloaded
+ * when the file is modified.
+ */
+public class XMLDSigEngine {
+
+    /**
+     * Logger
+     */
+    protected static Logger logger = Logger.getLogger(XMLDSigEngine.class);
+
+    private static final DocumentBuilderFactory documentBuilderFactory;
+
+    private static final TransformerFactory transformerFactory =
+        TransformerFactory.newInstance();
+
+    private static final ThreadLocal documentBuilders = new ThreadLocal();
+
+    private static final ThreadLocal transformers = new ThreadLocal();
+
+    private static final Hashtable signingKeys = new Hashtable();
+
+    private static final Hashtable keyStores = new Hashtable();
+
+    static {
+        documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+    }
+
+    /**
+     * Parses the XML document with a namespace aware document builder of
+     * the current thread.
+     *
+     * @param bytes the content of the XML document
+     * @return the DOM document
+     * @throws ParserConfigurationException if the document builder cannot
+     *                                      be created
+     * @throws SAXException if the XML document cannot be parsed
+     * @throws IOException if the XML document cannot be read
+     */
+    public static Document parse(byte[] bytes)
+            throws ParserConfigurationException, SAXException, IOException {
+        DocumentBuilder builder = (DocumentBuilder) documentBuilders.get();
+        if (builder == null) {
+            synchronized (documentBuilderFactory) {
+                builder = documentBuilderFactory.newDocumentBuilder();
+            }
+            documentBuilders.set(builder);
+        }
+        try {
+            return builder.parse(new ByteArrayInputStream(bytes));
+        }
+        finally {
+            builder.reset();
+        }
+    }
+
+    /**
+     * Copies the source to the result with an identity transformer of the
+     * current thread.
+     *
+     * @param source the source to be copied
+     * @param result the result to hold the copy
+     * @throws TransformerConfigurationException if the transformer cannot
+     *                                           be created
+     * @throws TransformerException if the source cannot be copied
+     */
+    public static void transform(Source source, Result result)
+            throws TransformerConfigurationException, TransformerException {
+        Transformer transformer = (Transformer) transformers.get();
+        if (transformer == null) {
+            synchronized (transformerFactory) {
+                transformer = transformerFactory.newTransformer();
+            }
+            transformers.set(transformer);
+        }
+        try {
+            transformer.transform(source, result);
+        }
+        finally {
+            transformer.reset();
+        }
+    }
+
+    /**
+     * Gets the private key and its certificate chain in the keystore file
+     * for signing.
+     *
+     * @param keyStoreLocation the name of the keystore file
+     * @param alias the alias of the key for signing
+     * @param password the password for accessing the keystore and the key
+     * @return the signing key
+     * @throws SignException if the key cannot be found in the keystore
+     */
+    public static SigningKey getSigningKey(String keyStoreLocation,
+            String alias, char[] password) throws SignException {
+        String cacheKey = keyStoreLocation + "\n" + alias;
+        long lastModified = new File(keyStoreLocation).lastModified();
+        SigningKey signingKey = (SigningKey) signingKeys.get(cacheKey);
+        if (signingKey != null && signingKey.lastModified == lastModified
+                && Arrays.equals(signingKey.password, password)) {
+            return signingKey;
+        }
+
+        CompositeKeyStore ks = new CompositeKeyStore();
+        ks.addKeyStoreFile(keyStoreLocation, null, password);
+        PrivateKey privateKey;
+        Certificate[] certificates;
+        try {
+            privateKey = (PrivateKey) ks.getKey(alias, password);
+            certificates = ks.getCertificateChain(alias);
+        }
+        catch (Exception e) {
+            String err = "Cannot get private key: " + alias + " - "
+                + e.getMessage();
+            logger.warn(err);
+            throw new SignException(err);
+        }
+        if (privateKey == null) {
+            String err = "Cannot get private key: " + alias;
+            logger.warn(err);
+            throw new SignException(err);
+        }
+        if (certificates == null) {
+            String err = "Cannot get certificate path: " + alias;
+            logger.warn(err);
+            throw new SignException(err);
+        }
+
+        signingKey = new SigningKey(privateKey, certificates, lastModified,
+            password);
+        signingKeys.put(cacheKey, signingKey);
+        logger.debug("loaded signing key: " + alias + " from "
+            + keyStoreLocation);
+        return signingKey;
+    }
+
+    /**
+     * Gets the keystore loaded from the keystore file. The returned
+     * keystore is shared and should not be modified.
+     *
+     * @param keyStoreLocation the name of the keystore file
+     * @param password the password for accessing the keystore
+     * @return the loaded keystore
+     */
+    public static CompositeKeyStore getKeyStore(String keyStoreLocation,
+            char[] password) {
+        long lastModified = new File(keyStoreLocation).lastModified();
+        LoadedKeyStore loaded =
+            (LoadedKeyStore) keyStores.get(keyStoreLocation);
+        if (loaded != null && loaded.lastModified == lastModified
+                && Arrays.equals(loaded.password, password)) {
+            return loaded.keyStore;
+        }
+
+        CompositeKeyStore ks = new CompositeKeyStore();
+        ks.addKeyStoreFile(keyStoreLocation, null, password);
+        // loads the keystore before it is shared by threads
+        ks.aliases();
+        keyStores.put(keyStoreLocation,
+            new LoadedKeyStore(ks, lastModified, password));
+        logger.debug("loaded keystore: " + keyStoreLocation);
+        return ks;
+    }
+
+    /**
+     * The private key and its certificate chain loaded from a keystore.
+     */
+    public static class SigningKey {
+
+        private final PrivateKey privateKey;
+
+        private final Certificate[] certificates;
+
+        private final long lastModified;
+
+        private final char[] password;
+
+        SigningKey(PrivateKey privateKey, Certificate[] certificates,
+                long lastModified, char[] password) {
+            this.privateKey = privateKey;
+            this.certificates = certificates;
+            this.lastModified = lastModified;
+            this.password = password == null ? null : (char[]) password.clone();
+        }
+
+        /**
+         * Gets the private key for signing.
+         *
+         * @return the private key
+         */
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        /**
+         * Gets the certificate chain of the private key.
+         *
+         * @return the certificate chain
+         */
+        public Certificate[] getCertificateChain() {
+            return certificates;
+        }
+    }
+
+    private static class LoadedKeyStore {
+
+        private final CompositeKeyStore keyStore;
+
+        private final long lastModified;
+
+        private final char[] password;
+
+        LoadedKeyStore(CompositeKeyStore keyStore, long lastModified,
+                char[] password) {
+            this.keyStore = keyStore;
+            this.lastModified = lastModified;
+            this.password = password == null ? null : (char[]) password.clone();
+        }
+    }
+}
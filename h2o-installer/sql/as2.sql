@@ -40,12 +40,17 @@ CREATE TABLE message (
 	principal_id varchar,
 	status varchar NOT NULL,
 	status_desc varchar,
+	owner_id varchar,
+	lease_time_stamp timestamp,
 	PRIMARY KEY (message_id, message_box)
 );
 
 CREATE TABLE repository (
 	message_id varchar NOT NULL,
 	message_box varchar NOT NULL,
-	content bytea NOT NULL,
+	content bytea,
+	content_ref varchar,
 	PRIMARY KEY (message_id, message_box)
 );
+
+CREATE INDEX repository_content_ref ON repository (content_ref);
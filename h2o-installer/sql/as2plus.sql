@@ -42,18 +42,26 @@ CREATE TABLE message (
 	time_stamp timestamp NOT NULL,
 	status varchar NOT NULL,
 	status_desc varchar,
+	owner_id varchar,
+	lease_time_stamp timestamp,
 	PRIMARY KEY (message_id, message_box)
 );
 
 CREATE TABLE repository (
 	message_id varchar NOT NULL,
 	message_box varchar NOT NULL,
-	content bytea NOT NULL,
+	content bytea,
+	content_ref varchar,
 	PRIMARY KEY (message_id, message_box)
 );
 
+CREATE INDEX repository_content_ref ON repository (content_ref);
+
 CREATE TABLE raw_repository (
 	message_id varchar NOT NULL,
-	content bytea NOT NULL,
+	content bytea,
+	content_ref varchar,
 	PRIMARY KEY (message_id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX raw_repository_content_ref ON raw_repository (content_ref);
\ No newline at end of file
@@ -26,6 +26,9 @@ CREATE TABLE message (
 	timeout_time_stamp timestamp,
 	status varchar,
 	status_description varchar,
+	owner_id varchar,
+	claim_id varchar,
+	lease_time_stamp timestamp,
 	PRIMARY KEY (message_id, message_box)
 );
 
@@ -33,11 +36,14 @@ CREATE TABLE repository (
 	message_id varchar,
 	content_type varchar,
 	content binary,
+	content_ref varchar,
 	time_stamp timestamp,
 	message_box varchar,
 	PRIMARY KEY (message_id, message_box)
 );
 
+CREATE INDEX repository_content_ref ON repository (content_ref);
+
 CREATE TABLE outbox (
 	message_id varchar,
 	retried integer,
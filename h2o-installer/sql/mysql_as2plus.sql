@@ -42,19 +42,27 @@ CREATE TABLE message (
 	time_stamp timestamp NOT NULL,
 	status varchar(2) NOT NULL,
 	status_desc varchar(4000),
+	owner_id varchar(255),
+	lease_time_stamp timestamp null default null,
 	PRIMARY KEY (message_id, message_box)
 )TYPE= INNODB;
 
 CREATE TABLE repository (
 	message_id varchar(255) NOT NULL,
 	message_box varchar(50) NOT NULL,
-	content LONGBLOB NOT NULL,
+	content LONGBLOB,
+	content_ref varchar(255),
 	PRIMARY KEY (message_id, message_box)
 
 )TYPE= INNODB;
 
+CREATE INDEX repository_content_ref ON repository (content_ref);
+
 CREATE TABLE raw_repository (
 	message_id varchar(255) NOT NULL,
-	content LONGBLOB NOT NULL,
+	content LONGBLOB,
+	content_ref varchar(255),
 	PRIMARY KEY (message_id)
-)TYPE= INNODB;
\ No newline at end of file
+)TYPE= INNODB;
+
+CREATE INDEX raw_repository_content_ref ON raw_repository (content_ref);
\ No newline at end of file
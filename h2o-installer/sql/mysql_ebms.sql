@@ -26,6 +26,9 @@ CREATE TABLE message (
 	timeout_time_stamp timestamp null default null,
 	status varchar(2),
 	status_description varchar(4000),
+	owner_id varchar(255),
+	claim_id varchar(255),
+	lease_time_stamp timestamp null default null,
 	PRIMARY KEY (message_id, message_box)
 )TYPE= INNODB;
 
@@ -33,11 +36,14 @@ CREATE TABLE repository (
 	message_id varchar(255),
 	content_type varchar(255),
 	content LONGBLOB,
+	content_ref varchar(255),
 	time_stamp timestamp null default null,
 	message_box varchar(255),
 	PRIMARY KEY (message_id, message_box)
 )TYPE= INNODB;
 
+CREATE INDEX repository_content_ref ON repository (content_ref);
+
 CREATE TABLE outbox (
 	message_id varchar(255),
 	retried integer,
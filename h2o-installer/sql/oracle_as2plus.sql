@@ -42,18 +42,26 @@ CREATE TABLE message (
   time_stamp timestamp NOT NULL,
   status varchar2(2) NOT NULL,
   status_desc varchar2(4000),
+  owner_id varchar2(255),
+  lease_time_stamp timestamp,
   PRIMARY KEY (message_id, message_box)
 );
 
 CREATE TABLE repository (
   message_id varchar2(255) NOT NULL,
   message_box varchar2(255) NOT NULL,
-  content blob NOT NULL,
+  content blob,
+  content_ref varchar2(255),
   PRIMARY KEY (message_id, message_box)
 );
 
+CREATE INDEX repository_content_ref ON repository (content_ref);
+
 CREATE TABLE raw_repository (
   message_id varchar2(255) NOT NULL,
-  content blob NOT NULL,
+  content blob,
+  content_ref varchar2(255),
   PRIMARY KEY (message_id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX raw_repository_content_ref ON raw_repository (content_ref);
\ No newline at end of file
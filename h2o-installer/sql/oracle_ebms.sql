@@ -26,6 +26,9 @@ CREATE TABLE message (
 	timeout_time_stamp timestamp,
 	status varchar2(2),
 	status_description varchar2(4000),
+	owner_id varchar2(255),
+	claim_id varchar2(255),
+	lease_time_stamp timestamp,
 	PRIMARY KEY (message_id, message_box)
 );
 
@@ -33,11 +36,14 @@ CREATE TABLE repository (
 	message_id varchar2(255),
 	content_type varchar2(255),
 	content blob,
+	content_ref varchar2(255),
 	time_stamp timestamp,
 	message_box varchar2(255),
 	PRIMARY KEY (message_id, message_box)
 );
 
+CREATE INDEX repository_content_ref ON repository (content_ref);
+
 CREATE TABLE outbox (
 	message_id varchar2(255),
 	retried integer,
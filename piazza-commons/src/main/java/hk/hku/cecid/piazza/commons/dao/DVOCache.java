@@ -0,0 +1,236 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.dao;
+
+import hk.hku.cecid.piazza.commons.module.Component;
+import hk.hku.cecid.piazza.commons.util.StringUtilities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * DVOCache is a component which caches DVOs by string keys. The least
+ * recently used entry is discarded when the cache is full, and an entry
+ * expires after the configured time-to-live so that changes made by other
+ * nodes sharing the same database will eventually be seen.
+ * <p>
+ * A DAO may be configured to use a DVOCache by its "cache" parameter. The
+ * cache is cleared whenever the DAO creates, updates or removes data.
+ * <p>
+ * The component parameters are:
+ * <p>
+ * <table border="1">
+ * <tr><th>Parameter</th><th>Description</th><th>Default</th></tr>
+ * <tr><td>cache-size</td><td>The maximum number of cached DVOs.</td><td>100</td></tr>
+ * <tr><td>time-to-live</td><td>The time in milliseconds for which a cached
+ * DVO remains valid, or 0 if it never expires.</td><td>0</td></tr>
+ * </table>
+ *
+ * @see hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO#getCache()
+ */
+public class DVOCache extends Component {
+
+    private static final String PARAM_CACHE_SIZE = "cache-size";
+
+    private static final String PARAM_TIME_TO_LIVE = "time-to-live";
+
+    private int maxSize;
+
+    private long timeToLive;
+
+    private Map entries;
+
+    private long hitCount;
+
+    private long missCount;
+
+    /**
+     * Creates a new instance of DVOCache. This is reserved for the component
+     * initialization of a module.
+     */
+    public DVOCache() {
+    }
+
+    /**
+     * Creates a new instance of DVOCache.
+     *
+     * @param cacheSize the maximum number of cached DVOs.
+     * @param timeToLive the time in milliseconds for which a cached DVO
+     *          remains valid, or 0 if it never expires.
+     */
+    public DVOCache(int cacheSize, long timeToLive) {
+        Properties p = new Properties();
+        p.setProperty(PARAM_CACHE_SIZE, String.valueOf(cacheSize));
+        p.setProperty(PARAM_TIME_TO_LIVE, String.valueOf(timeToLive));
+        setParameters(p);
+        init();
+    }
+
+    /**
+     * Initializes the cache according to the component parameters.
+     *
+     * @see hk.hku.cecid.piazza.commons.module.Component#init()
+     */
+    protected void init() {
+        Properties p = getParameters();
+        maxSize = StringUtilities.parseInt(p.getProperty(PARAM_CACHE_SIZE), 100);
+        timeToLive = StringUtilities.parseLong(p.getProperty(PARAM_TIME_TO_LIVE), 0);
+
+        entries = new LinkedHashMap(16, 0.75f, true) {
+            private static final long serialVersionUID = -2713865493047458962L;
+
+            protected boolean removeEldestEntry(Map.Entry eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the DVO cached with the specified key.
+     *
+     * @param key the key of the DVO.
+     * @return the cached DVO or null if it is not cached or has expired.
+     */
+    public synchronized DVO get(String key) {
+        Entry entry = (Entry) entries.get(key);
+        if (entry != null && timeToLive > 0
+                && System.currentTimeMillis() - entry.timestamp > timeToLive) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        else {
+            hitCount++;
+            return entry.data;
+        }
+    }
+
+    /**
+     * Caches a DVO with the specified key. Any DVO previously cached with the
+     * same key will be replaced.
+     *
+     * @param key the key of the DVO.
+     * @param data the DVO to be cached.
+     */
+    public synchronized void put(String key, DVO data) {
+        if (key != null && data != null && maxSize > 0) {
+            entries.put(key, new Entry(data));
+        }
+    }
+
+    /**
+     * Removes the DVO cached with the specified key.
+     *
+     * @param key the key of the DVO.
+     */
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all the cached DVOs.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of DVOs currently cached, including any expired ones
+     * which have not yet been discarded.
+     *
+     * @return the number of cached DVOs.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the maximum number of DVOs which can be cached.
+     *
+     * @return the maximum number of cached DVOs.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the time in milliseconds for which a cached DVO remains valid.
+     *
+     * @return the time-to-live or 0 if a cached DVO never expires.
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Gets the number of lookups which found a cached DVO.
+     *
+     * @return the number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of lookups which did not find a cached DVO.
+     *
+     * @return the number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the percentage of lookups which found a cached DVO.
+     *
+     * @return the hit ratio in percentage or 0 if there is no lookup yet.
+     */
+    public synchronized double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0? 0 : (double) hitCount * 100 / total;
+    }
+
+    /**
+     * Resets the hit and miss counts.
+     */
+    public synchronized void resetStatistics() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    /**
+     * Returns a string representation of this cache and its statistics.
+     *
+     * @return a string representation of this cache.
+     * @see java.lang.Object#toString()
+     */
+    public synchronized String toString() {
+        return "DVOCache[" + getId() + "] size: " + entries.size() + "/" + maxSize
+                + ", hits: " + hitCount + ", misses: " + missCount;
+    }
+
+    /**
+     * Entry holds a cached DVO and the time it was cached.
+     */
+    private static class Entry {
+
+        private final DVO data;
+
+        private final long timestamp = System.currentTimeMillis();
+
+        private Entry(DVO data) {
+            this.data = data;
+        }
+    }
+}
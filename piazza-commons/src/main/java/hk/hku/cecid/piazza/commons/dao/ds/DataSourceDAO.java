@@ -13,8 +13,12 @@ import hk.hku.cecid.piazza.commons.dao.DAO;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.DAOFactory;
 import hk.hku.cecid.piazza.commons.dao.DVO;
+import hk.hku.cecid.piazza.commons.dao.DVOCache;
 import hk.hku.cecid.piazza.commons.dao.Transaction;
+import hk.hku.cecid.piazza.commons.module.Component;
+import hk.hku.cecid.piazza.commons.util.StringUtilities;
 
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -61,6 +65,16 @@ import java.util.Properties;
  * <td>The SQL statement</td>
  * <td>getSQL(), update()</td>
  * </tr>
+ * <tr>
+ * <td>batch-size</td>
+ * <td>The maximum number of rows sent in one batch, 100 by default</td>
+ * <td>createAll(), persistAll()</td>
+ * </tr>
+ * <tr>
+ * <td>cache</td>
+ * <td>The ID of a DVOCache component in the module of the DAO factory</td>
+ * <td>getCache()</td>
+ * </tr>
  * </table>
  * 
  * @author Hugo Y. K. Lam
@@ -95,6 +109,12 @@ public abstract class DataSourceDAO implements DAO {
     private static final String PARAM_SEL_INSERT    = "insert";
 
     private static final String PARAM_SEL_UPDATE    = "update";
+
+    private static final String PARAM_BATCH_SIZE    = "batch-size";
+
+    private static final int    DEFAULT_BATCH_SIZE  = 100;
+
+    private static final String PARAM_CACHE         = "cache";
     
 	private static final String NAMESPACE_FILTER 	= "filter";
 	
@@ -348,6 +368,30 @@ public abstract class DataSourceDAO implements DAO {
         return executeQuery(sql, paras);
     }
 
+    /**
+     * Retrieves data from the data source by searching with the specified data
+     * values and passes each DVO found to the given handler. The data is 
+     * streamed from the data source so that the whole result is never held in
+     * memory at once.
+     * 
+     * @param finder the name of the finder SQL statement.
+     * @param paras the parameter values used by the finder statement.
+     * @param handler the handler of the DVO found.
+     * @return the number of DVO passed to the handler.
+     * @throws DAOException if errors found when retrieving data from the data
+     *             source or the handler failed.
+     */
+    protected int find(String finder, Object[] paras, DataSourceQueryHandler handler) 
+            throws DAOException {
+        String sql = getFinder(finder);
+
+        if (sql == null) {
+            throw new DAOException("Finder '" + finder + "' not defined");
+        }
+
+        return executeQuery(sql, paras, handler);
+    }
+
     /**
      * Updates the data source with the specified data values.
      * 
@@ -438,6 +482,52 @@ public abstract class DataSourceDAO implements DAO {
         return (List) query.getResult();
     }
 
+    /**
+     * Executes a SQL query on the data source and passes each DVO which 
+     * matches to the given handler.
+     * 
+     * @param sql the SQL query statement.
+     * @param paras the parameter values used by the specified SQL statement.
+     *            The number, format, and sequence of the parameter values
+     *            should match the statement. null if there is no parameter for
+     *            the statement.
+     * @param handler the handler of the DVO which matches.
+     * @return the number of DVO passed to the handler.
+     * @throws DAOException if errors found when retrieving data from the data
+     *             source or the handler failed.
+     */
+    protected int executeQuery(String sql, Object[] paras, DataSourceQueryHandler handler) 
+            throws DAOException {
+        return executeQuery(null, sql, paras, handler);
+    }
+
+    /**
+     * Executes a SQL query on the data source and passes each DVO which 
+     * matches to the given handler. The rows are mapped one by one as they 
+     * are fetched from the result set, with the fetch size and BLOB handling 
+     * specified by the handler.
+     * 
+     * @param tx the DataSourceTransaction to be used in execution.
+     * @param sql the SQL query statement.
+     * @param paras the parameter values used by the specified SQL statement.
+     *            The number, format, and sequence of the parameter values
+     *            should match the statement. null if there is no parameter for
+     *            the statement.
+     * @param handler the handler of the DVO which matches.
+     * @return the number of DVO passed to the handler.
+     * @throws DAOException if errors found when retrieving data from the data
+     *             source or the handler failed.
+     */
+    protected int executeQuery(DataSourceTransaction tx, String sql, Object[] paras, 
+            DataSourceQueryHandler handler) throws DAOException {
+        if (handler == null) {
+            throw new DAOException("Query handler cannot be NULL");
+        }
+        DataSourceQuery query = new DataSourceQuery(this, tx, sql, paras, handler);
+        query.start();
+        return ((Integer) query.getResult()).intValue();
+    }
+
     /**
      * Executes a SQL query on the data source and returns a List of raw data 
      * which matches.
@@ -585,10 +675,288 @@ public abstract class DataSourceDAO implements DAO {
     protected int[] executeUpdate(DataSourceTransaction tx, String sql, Object[][] paras)
             throws DAOException {
         DataSourceUpdate update = new DataSourceUpdate(this, tx, sql, paras);
-        update.start();
+        try {
+            update.start();
+        }
+        finally {
+            invalidateCache(update);
+        }
         return (int[]) update.getResult();
     }
 
+    /**
+     * Executes a SQL update on the data source with multiple sets of 
+     * parameters, which are sent to the data source in batches of the 
+     * configured batch size.
+     * 
+     * @param tx the DataSourceTransaction to be used in execution.
+     * @param sql the SQL update statement.
+     * @param paras the sets of parameter values used by the specified SQL 
+     *            statement.
+     * @return an array of integers indicating the update results. Same as the
+     *         value returned by java.sql.Statement.executeBatch().
+     * @throws DAOException if errors found when updating data to the data
+     *             source.
+     * @see #getBatchSize()
+     */
+    protected int[] executeBatchUpdate(DataSourceTransaction tx, String sql, Object[][] paras)
+            throws DAOException {
+        DataSourceUpdate update = new DataSourceUpdate(this, tx, sql, paras);
+        update.setBatchSize(getBatchSize());
+        try {
+            update.start();
+        }
+        finally {
+            invalidateCache(update);
+        }
+        return (int[]) update.getResult();
+    }
+
+    /**
+     * Gets the DVO cache configured for this DAO. Subclasses may use the 
+     * cache to keep the results of their frequent finders. The cache is 
+     * cleared whenever this DAO executes an update.
+     * 
+     * @return the DVO cache or null if there is none configured.
+     */
+    public DVOCache getCache() {
+        Component cache = getComponent(PARAM_CACHE);
+        return cache instanceof DVOCache ? (DVOCache) cache : null;
+    }
+
+    /**
+     * Gets the component, whose ID is given by the specified parameter of 
+     * this DAO, from the module of the DAO factory.
+     * 
+     * @param param the name of the parameter which holds the component ID.
+     * @return the component or null if the parameter is not defined or the
+     *         component is not found.
+     */
+    protected Component getComponent(String param) {
+        String id = parameters.getProperty(param);
+        if (id == null || factory == null || factory.getModule() == null) {
+            return null;
+        }
+        return factory.getModule().getComponent(id);
+    }
+
+    /**
+     * Runs the given action once the transaction of this DAO has ended, 
+     * whether it is committed or rolled back, or immediately if this DAO is 
+     * not under a transaction.
+     * 
+     * @param action the action to be run.
+     * @throws DAOException if unable to get the transaction of this DAO.
+     */
+    protected void runAfterTransaction(Runnable action) throws DAOException {
+        DataSourceTransaction tx = getTransaction(false);
+        if (tx == null) {
+            action.run();
+        }
+        else {
+            tx.addEndAction(action);
+        }
+    }
+
+    /**
+     * Clears the DVO cache configured for this DAO, if any.
+     */
+    protected void invalidateCache() {
+        DVOCache cache = getCache();
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Clears the DVO cache after the given update. If the update executes 
+     * in a transaction which is not ended by the update itself, the cache is 
+     * cleared again once that transaction commits, so that the entries 
+     * reloaded by other threads before the commit are not kept.
+     * 
+     * @param update the update which has been executed.
+     */
+    private void invalidateCache(DataSourceProcess update) {
+        invalidateCache();
+        DataSourceTransaction tx = update.getTransaction();
+        if (tx != null && getCache() != null 
+                && !update.isCommitted() && !update.isRolledBack()) {
+            tx.addCommitAction(new Runnable() {
+                public void run() {
+                    invalidateCache();
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the maximum number of rows which will be sent to the data source
+     * in one batch.
+     * 
+     * @return the batch size.
+     */
+    public int getBatchSize() {
+        return StringUtilities.parseInt(parameters.getProperty(PARAM_BATCH_SIZE), 
+                DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates the given value objects in the data source in batches. The 
+     * value objects are created in a single transaction, or in the 
+     * transaction of this DAO if it is under one.
+     * 
+     * @param data the list of value objects.
+     * @throws DAOException if unable to create the data.
+     * @throws ClassCastException if a value object is not DataSourceDVO.
+     * @see #create(DVO)
+     */
+    public void createAll(List data) throws DAOException {
+        int[] results = executeAll(data, true);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != 1 && results[i] != Statement.SUCCESS_NO_INFO) {
+                throw new DAOException("Unexpected creation error at row " + i
+                        + ". Records updated: " + results[i]);
+            }
+        }
+    }
+
+    /**
+     * Persists the given value objects to the data source in batches. The 
+     * value objects are persisted in a single transaction, or in the 
+     * transaction of this DAO if it is under one.
+     * 
+     * @param data the list of value objects.
+     * @return the number of value objects found and persisted. A value object
+     *         is counted as persisted if the driver does not report the 
+     *         number of records updated.
+     * @throws DAOException if unable to persist the data.
+     * @throws ClassCastException if a value object is not DataSourceDVO.
+     * @see #persist(DVO)
+     */
+    public int persistAll(List data) throws DAOException {
+        int[] results = executeAll(data, false);
+        int persisted = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] > 0 || results[i] == Statement.SUCCESS_NO_INFO) {
+                persisted++;
+            }
+        }
+        return persisted;
+    }
+
+    /**
+     * Removes the given value objects from the data source in batches. The 
+     * value objects are removed in a single transaction, or in the 
+     * transaction of this DAO if it is under one.
+     * 
+     * @param data the list of value objects.
+     * @return the number of value objects found and removed. A value object
+     *         is counted as removed if the driver does not report the number 
+     *         of records updated.
+     * @throws DAOException if unable to remove the data.
+     * @throws ClassCastException if a value object is not DataSourceDVO.
+     * @see #remove(DVO)
+     */
+    public int removeAll(List data) throws DAOException {
+        checkSQLBuilder();
+        if (data == null || data.isEmpty()) {
+            return 0;
+        }
+
+        Object[][] values = new Object[data.size()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getValues((DVO) data.get(i), builder.getKeys());
+        }
+
+        int[] results = executeBatchUpdate(getTransaction(false), 
+                builder.getDeleteStatement(), values);
+        int removed = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] > 0 || results[i] == Statement.SUCCESS_NO_INFO) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Creates or persists the given value objects in batches. Consecutive 
+     * value objects which update the same columns share the same batch.
+     * 
+     * @param data the list of value objects.
+     * @param isCreate true if the value objects should be created, false if 
+     *            they should be persisted.
+     * @return the update result of each value object.
+     * @throws DAOException if unable to create or persist the data.
+     */
+    private int[] executeAll(List data, boolean isCreate) throws DAOException {
+        checkSQLBuilder();
+        int[] results = new int[data == null ? 0 : data.size()];
+        if (results.length == 0) {
+            return results;
+        }
+
+        boolean isSelective = new Boolean(getParameter(NAMESPACE_SELECTIVE,
+                isCreate ? PARAM_SEL_INSERT : PARAM_SEL_UPDATE)).booleanValue();
+
+        boolean isTransactionManaged = isUnderTransaction();
+        DataSourceTransaction tx = getTransaction(true);
+        if (!isTransactionManaged) {
+            tx.begin();
+        }
+
+        try {
+            int start = 0;
+            while (start < results.length) {
+                String[] cols = isSelective ? getColumnNames(((DataSourceDVO) data
+                        .get(start)).getDirties()) : builder.getColumns();
+
+                int end = start + 1;
+                while (end < results.length
+                        && (!isSelective || Arrays.equals(cols, getColumnNames(
+                                ((DataSourceDVO) data.get(end)).getDirties())))) {
+                    end++;
+                }
+
+                Object[][] values = new Object[end - start][];
+                for (int i = start; i < end; i++) {
+                    if (isCreate) {
+                        values[i - start] = getValues((DVO) data.get(i), cols);
+                    }
+                    else {
+                        List params = new ArrayList();
+                        params.addAll(Arrays.asList(getValues((DVO) data.get(i), cols)));
+                        params.addAll(Arrays.asList(getValues((DVO) data.get(i), builder.getKeys())));
+                        values[i - start] = params.toArray();
+                    }
+                }
+
+                String sql = isCreate ? builder.getInsertStatement(cols) : builder
+                        .getUpdateStatement(cols);
+                int[] counts = executeBatchUpdate(tx, sql, values);
+                System.arraycopy(counts, 0, results, start, counts.length);
+                start = end;
+            }
+
+            if (!isTransactionManaged) {
+                tx.commit();
+            }
+            return results;
+        }
+        catch (DAOException e) {
+            if (!isTransactionManaged) {
+                tx.rollback();
+            }
+            throw e;
+        }
+        catch (RuntimeException e) {
+            if (!isTransactionManaged) {
+                tx.rollback();
+            }
+            throw e;
+        }
+    }
+
     /**
      * Creates the given value object in the data source.
      * 
@@ -14,6 +14,9 @@ import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.DAOFactory;
 import hk.hku.cecid.piazza.commons.dao.Transaction;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.naming.InitialContext;
 import javax.sql.DataSource;
 
@@ -31,6 +34,14 @@ public class DataSourceDAOFactory extends DAOFactory {
 
     private DataSource dataSource;
 
+    private static final int MAX_SQL_META_DATA = 1000;
+
+    private final Map sqlMetaData = new LinkedHashMap(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > MAX_SQL_META_DATA;
+        }
+    };
+
     /**
      * Creates a new instance of DataSourceDAOFactory.
      */
@@ -88,6 +99,25 @@ public class DataSourceDAOFactory extends DAOFactory {
         }
     }
 
+    /**
+     * Gets the cached meta data of the specified SQL statement. A new entry 
+     * will be created if the statement has not been cached. Only the most 
+     * recently used statements are kept.
+     * 
+     * @param sql the SQL statement.
+     * @return the meta data of the SQL statement.
+     */
+    SQLMetaData getSQLMetaData(String sql) {
+        synchronized (sqlMetaData) {
+            SQLMetaData metaData = (SQLMetaData) sqlMetaData.get(sql);
+            if (metaData == null) {
+                metaData = new SQLMetaData(sql);
+                sqlMetaData.put(sql, metaData);
+            }
+            return metaData;
+        }
+    }
+
     /**
      * Creates a data source transaction. 
      * 
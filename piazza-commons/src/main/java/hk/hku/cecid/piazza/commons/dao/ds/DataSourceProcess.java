@@ -30,6 +30,9 @@ import java.util.regex.Pattern;
  */
 public abstract class DataSourceProcess  {
     
+    private static final Pattern PARAMETER_PATTERN = 
+        Pattern.compile("\\?(?=(?:[^']*'[^']*')*(?![^']*'))");
+    
     private DataSourceDAO dao;
     private DataSourceTransaction transaction;
     
@@ -127,15 +130,37 @@ public abstract class DataSourceProcess  {
      */
     protected void setParameter(PreparedStatement pStmt, int pos, Object param) 
             throws SQLException {
+        setParameter(pStmt, pos, param, null);
+    }
+    
+    /**
+     * Sets a parameter to the prepared statement. The type of a null 
+     * parameter will be looked up from the given meta data before the driver.
+     * 
+     * @param pStmt the prepared statement.
+     * @param pos the position of the parameter.
+     * @param param the parameter.
+     * @param metaData the meta data of the statement or null if not available.
+     * @throws SQLException if unable to set the parameter.
+     */
+    void setParameter(PreparedStatement pStmt, int pos, Object param, SQLMetaData metaData) 
+            throws SQLException {
         if (param == null) {
-            int type;
-            try {
-                type = pStmt.getParameterMetaData().getParameterType(pos);
-            }
-            catch (Throwable e) {
-                type = java.sql.Types.VARCHAR;
+            Integer type = metaData == null? null : metaData.getParameterType(pos);
+            if (type == null) {
+                int paramType;
+                try {
+                    paramType = pStmt.getParameterMetaData().getParameterType(pos);
+                }
+                catch (Throwable e) {
+                    paramType = java.sql.Types.VARCHAR;
+                }
+                if (metaData != null) {
+                    metaData.setParameterType(pos, paramType);
+                }
+                type = new Integer(paramType);
             }
-            pStmt.setNull(pos, type);
+            pStmt.setNull(pos, type.intValue());
         }
         else if (param instanceof NullableObject) {
             NullableObject no = (NullableObject) param;
@@ -176,8 +201,7 @@ public abstract class DataSourceProcess  {
             return pStmt.getParameterMetaData().getParameterCount();
         }
         catch (Throwable e) {
-            Pattern p = Pattern.compile("\\?(?=(?:[^']*'[^']*')*(?![^']*'))");
-            Matcher m = p.matcher(sql);
+            Matcher m = PARAMETER_PATTERN.matcher(sql);
             int noOfParas = 0;
             while (m.find()) {
                 noOfParas++;
@@ -186,6 +210,41 @@ public abstract class DataSourceProcess  {
         }
     }
     
+    /**
+     * Gets the number of parameters required by the prepared statement from 
+     * the given meta data, or counts and caches it if it is not yet known. 
+     * 
+     * @param pStmt the prepared statement.
+     * @param metaData the meta data of the statement.
+     * @return the numbder of parameters.
+     * @see #getParameterCount(PreparedStatement, String)
+     */
+    int getParameterCount(PreparedStatement pStmt, SQLMetaData metaData) {
+        int noOfParas = metaData.getParameterCount();
+        if (noOfParas < 0) {
+            noOfParas = getParameterCount(pStmt, metaData.getSQL());
+            metaData.setParameterCount(noOfParas);
+        }
+        return noOfParas;
+    }
+    
+    /**
+     * Gets the meta data of the specified SQL statement which is cached by 
+     * the DAO factory.
+     * 
+     * @param sql the SQL statement.
+     * @return the meta data of the SQL statement.
+     */
+    SQLMetaData getSQLMetaData(String sql) {
+        DataSourceDAOFactory factory = (DataSourceDAOFactory) dao.getFactory();
+        if (factory == null) {
+            return new SQLMetaData(sql);
+        }
+        else {
+            return factory.getSQLMetaData(sql);
+        }
+    }
+    
     /**
      * Gets the DAO to which this process correspond.
      * 
@@ -195,6 +254,16 @@ public abstract class DataSourceProcess  {
         return dao;
     }
     
+    /**
+     * Gets the transaction in which this process executes.
+     * 
+     * @return the transaction in which this process executes or null if 
+     *         this process has not been started.
+     */
+    public DataSourceTransaction getTransaction() {
+        return transaction;
+    }
+    
     /**
      * Checks if this process has committed the transaction.
      * 
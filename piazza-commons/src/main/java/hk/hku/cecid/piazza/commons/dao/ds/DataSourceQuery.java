@@ -17,8 +17,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Set;
 
 
 /**
@@ -33,6 +35,7 @@ class DataSourceQuery extends DataSourceProcess {
     private String sql;
     private Object[] params;
     private boolean isRawResult;
+    private DataSourceQueryHandler handler;
     
     /**
      * Creates a new instance of DataSourceQuery.
@@ -51,9 +54,25 @@ class DataSourceQuery extends DataSourceProcess {
         this.params = params;
     }
 
+    /**
+     * Creates a new instance of DataSourceQuery which passes the result rows 
+     * to the given handler instead of storing them.
+     * 
+     * @param dao the DAO to which this process correspond.
+     * @param transaction the transaction for this process.
+     * @param sql the SQL query statement.
+     * @param params the parameter values used by the specified SQL statement.
+     * @param handler the handler of the result rows.
+     */
+    DataSourceQuery(DataSourceDAO dao, DataSourceTransaction transaction, String sql, Object[] params, DataSourceQueryHandler handler) {
+        this(dao, transaction, sql, params);
+        this.handler = handler;
+    }
+
     /**
      * Executes the query and stores the result as a list of DataSourceDVO or 
-     * raw data list.
+     * raw data list. If there is a query handler, the rows will be passed to 
+     * the handler and the result will be the number of rows handled.
      * 
      * @throws DAOException if unable to execute the query.
      * @see hk.hku.cecid.piazza.commons.dao.ds.DataSourceProcess#doTransaction(DataSourceTransaction)
@@ -62,6 +81,7 @@ class DataSourceQuery extends DataSourceProcess {
     	
     	ResultSet rs = null;
     	PreparedStatement pStmt = null;
+    	int defaultFetchSize = -1;
     	
         try {
             if (sql == null) {
@@ -70,7 +90,13 @@ class DataSourceQuery extends DataSourceProcess {
 
             pStmt = tx.getConnection().prepareStatement(sql);
             
-            int noOfParas = getParameterCount(pStmt, sql);
+            if (handler != null && handler.getFetchSize() > 0) {
+                defaultFetchSize = pStmt.getFetchSize();
+                pStmt.setFetchSize(handler.getFetchSize());
+            }
+            
+            SQLMetaData metaData = getSQLMetaData(sql);
+            int noOfParas = getParameterCount(pStmt, metaData);
 
 
             // check the input parameters for the SQL statement
@@ -81,7 +107,7 @@ class DataSourceQuery extends DataSourceProcess {
                 }
                 else {
                     for (int i = 0; i < noOfParas; i++) {
-                        setParameter(pStmt, i + 1, params[i]);
+                        setParameter(pStmt, i + 1, params[i], metaData);
                     }
                 }
             }
@@ -91,19 +117,32 @@ class DataSourceQuery extends DataSourceProcess {
 
             ResultSetMetaData rsmd = rs.getMetaData();
             int numberOfColumns = rsmd.getColumnCount();
-            String[] columnNames = new String[numberOfColumns];
-            for (int i = 0; i < columnNames.length; i++) {
-                columnNames[i] = rsmd.getColumnName(i + 1);
+            
+            // resolve the code names once by column index; a repeated column 
+            // name maps to its first occurrence only
+            String[] columnCodeNames = metaData.getColumnCodeNames(getDAO(), numberOfColumns);
+            if (columnCodeNames == null && !isRawResult) {
+                columnCodeNames = new String[numberOfColumns];
+                Set columnNames = new HashSet();
+                for (int i = 0; i < numberOfColumns; i++) {
+                    String columnName = rsmd.getColumnName(i + 1);
+                    if (columnNames.add(columnName)) {
+                        columnCodeNames[i] = getDAO().getColumnCodeName(columnName);
+                    }
+                }
+                metaData.setColumnCodeNames(getDAO(), columnCodeNames);
             }
+            
+            boolean isLazyBlob = handler != null && handler.isLazyBlob();
 
             // pack the data retrieved into a List of DataSourceDVO
             List result = new ArrayList();
+            int count = 0;
 
             while (rs.next()) {
                 if (isRawResult) {
                     List data = new ArrayList();
-                    int cc = rsmd.getColumnCount();
-                    for (int i=1; i<=cc; i++) {
+                    for (int i=1; i<=numberOfColumns; i++) {
                        Object value = rs.getObject(i);
                        data.add(value);
                     }
@@ -111,33 +150,53 @@ class DataSourceQuery extends DataSourceProcess {
                 }
                 else {
                     Hashtable values = new Hashtable();
-                    for (int i = 0; i < columnNames.length; i++) {
-                        Object value = rs.getObject(columnNames[i]);
-                        String columnCodeName = getDAO().getColumnCodeName(columnNames[i]);
+                    for (int i = 0; i < numberOfColumns; i++) {
+                        if (columnCodeNames[i] == null) {
+                            continue;
+                        }
+                        Object value = rs.getObject(i + 1);
                         
-                        if (value != null && columnCodeName!=null) {
+                        if (value != null) {
 	                        if (value instanceof java.sql.Blob) {
 	                        	java.sql.Blob blob = (java.sql.Blob)value;
-	            				byte[] b = new byte[8196];
-	            				int j = 0;
-	            				InputStream is = blob.getBinaryStream();
-	            				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-	            				while (( j = is.read(b)) > 0) {
-	            					baos.write(b, 0, j);
-	            				}
-		            			values.put(columnCodeName, baos.toByteArray());	
+	                        	if (isLazyBlob) {
+	                        		values.put(columnCodeNames[i], blob.getBinaryStream());
+	                        	}
+	                        	else {
+		            				byte[] b = new byte[8196];
+		            				int j = 0;
+		            				InputStream is = blob.getBinaryStream();
+		            				ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		            				while (( j = is.read(b)) > 0) {
+		            					baos.write(b, 0, j);
+		            				}
+			            			values.put(columnCodeNames[i], baos.toByteArray());	
+	                        	}
 	                    	} else {
-	                            values.put(columnCodeName, value);
+	                            values.put(columnCodeNames[i], value);
 	                    	}
                         }
                     }
                     DataSourceDVO data = (DataSourceDVO) getDAO().createDVO();
                     data.setData(values);
-                    result.add(data);
+                    if (handler == null) {
+                        result.add(data);
+                    }
+                    else {
+                        count++;
+                        if (!handler.handle(data)) {
+                            break;
+                        }
+                    }
                 }
             }
             
-            setResult(result);
+            if (handler == null) {
+                setResult(result);
+            }
+            else {
+                setResult(new Integer(count));
+            }
         }
         catch (Exception e) {
             throw new DAOException("Error in executing query: " + sql, e);
@@ -152,6 +211,15 @@ class DataSourceQuery extends DataSourceProcess {
         		}
         	}
         	if (pStmt!=null) {
+        		// the statement may be pooled and reused by other queries
+        		if (defaultFetchSize >= 0) {
+        			try {
+        				pStmt.setFetchSize(defaultFetchSize);
+        			}
+        			catch (Exception ex) {
+        				// the statement is closed below anyway
+        			}
+        		}
         		try {
         			pStmt.close();        			
         		}
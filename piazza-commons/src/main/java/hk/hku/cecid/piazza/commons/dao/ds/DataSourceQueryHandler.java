@@ -0,0 +1,60 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.dao.ds;
+
+import hk.hku.cecid.piazza.commons.dao.DAOException;
+import hk.hku.cecid.piazza.commons.dao.DVO;
+
+
+/**
+ * DataSourceQueryHandler receives the rows of a streaming query one by one,
+ * as they are read from the result set, instead of having the whole result
+ * loaded into a list.
+ * <p>
+ * The handler is invoked within the transaction of the query. Each DVO
+ * passed to the handler is independent and may be kept after the call, but
+ * the BLOB streams of a lazy BLOB query are only readable until the handler
+ * returns.
+ *
+ * @see DataSourceDAO#executeQuery(DataSourceTransaction, String, Object[], DataSourceQueryHandler)
+ */
+public abstract class DataSourceQueryHandler {
+
+    /**
+     * Handles a row of the query result.
+     *
+     * @param data the DVO which holds the row data.
+     * @return true if the query should continue with the next row, false if
+     *         the remaining rows should be skipped.
+     * @throws DAOException if unable to handle the row. The query will be
+     *             aborted.
+     */
+    public abstract boolean handle(DVO data) throws DAOException;
+
+    /**
+     * Gets the number of rows which should be fetched from the database at
+     * a time.
+     *
+     * @return the fetch size or 0 if the driver default should be used.
+     */
+    public int getFetchSize() {
+        return 0;
+    }
+
+    /**
+     * Checks if BLOB columns should be passed to the handler as input streams
+     * instead of byte arrays.
+     *
+     * @return true if BLOB columns should be passed as input streams.
+     */
+    public boolean isLazyBlob() {
+        return false;
+    }
+}
@@ -13,6 +13,8 @@ import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.Transaction;
 
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -30,6 +32,10 @@ public class DataSourceTransaction implements Transaction {
     
     private Connection conn;
     
+    private final List commitActions = new ArrayList();
+    
+    private final List endActions = new ArrayList();
+    
     /**
      * Creates a new instance of DataSourceTransaction.
      * 
@@ -80,6 +86,83 @@ public class DataSourceTransaction implements Transaction {
         }
     }
     
+    /**
+     * Adds an action which will be run once this transaction has been 
+     * committed successfully. The actions are discarded if the transaction 
+     * is rolled back.
+     * 
+     * @param action the action to be run after commit.
+     */
+    public void addCommitAction(Runnable action) {
+        if (action != null) {
+            synchronized (commitActions) {
+                commitActions.add(action);
+            }
+        }
+    }
+    
+    /**
+     * Adds an action which will be run once this transaction has ended, 
+     * whether it is committed or rolled back. The actions registered for 
+     * commit, if any, are run first.
+     * 
+     * @param action the action to be run after the transaction ends.
+     */
+    public void addEndAction(Runnable action) {
+        if (action != null) {
+            synchronized (endActions) {
+                endActions.add(action);
+            }
+        }
+    }
+    
+    /**
+     * Runs and discards the actions registered for commit.
+     */
+    private void runCommitActions() {
+        runActions(commitActions, "Error in running commit action");
+    }
+    
+    /**
+     * Runs and discards the actions registered for the end of this 
+     * transaction.
+     */
+    private void runEndActions() {
+        runActions(endActions, "Error in running end action");
+    }
+    
+    /**
+     * Runs and discards the given actions. An action which fails is logged 
+     * and does not stop the others.
+     * 
+     * @param actionList the actions to be run.
+     * @param error the message logged when an action fails.
+     */
+    private void runActions(List actionList, String error) {
+        Object[] actions;
+        synchronized (actionList) {
+            actions = actionList.toArray();
+            actionList.clear();
+        }
+        for (int i = 0; i < actions.length; i++) {
+            try {
+                ((Runnable) actions[i]).run();
+            }
+            catch (Exception e) {
+                dsFactory.getModule().getLogger().error(error, e);
+            }
+        }
+    }
+    
+    /**
+     * Discards the actions registered for commit.
+     */
+    private void clearCommitActions() {
+        synchronized (commitActions) {
+            commitActions.clear();
+        }
+    }
+    
     /**
      * Begins the transaction.
      * 
@@ -112,11 +195,15 @@ public class DataSourceTransaction implements Transaction {
             getConnection().commit();
         }
         catch (Exception e) {
+            clearCommitActions();
+            runEndActions();
             throw new DAOException("Unable to commit transaction", e);
         }
         finally {
             releaseConnection();
         }
+        runCommitActions();
+        runEndActions();
     }
 
     /**
@@ -133,7 +220,9 @@ public class DataSourceTransaction implements Transaction {
             throw new DAOException("Unable to rollback transaction", e);
         }
         finally {
+            clearCommitActions();
             releaseConnection();
+            runEndActions();
         }        
     }
 }
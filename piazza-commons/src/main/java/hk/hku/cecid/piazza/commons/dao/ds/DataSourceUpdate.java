@@ -25,6 +25,7 @@ class DataSourceUpdate extends DataSourceProcess {
 
     private String sql;
     private Object[][] params;
+    private int batchSize = 0;
     
     /**
      * Creates a new instance of DataSourceUpdate.
@@ -58,7 +59,8 @@ class DataSourceUpdate extends DataSourceProcess {
             
             PreparedStatement pStmt = tx.getConnection().prepareStatement(sql);
 
-            int noOfParas = getParameterCount(pStmt, sql);
+            SQLMetaData metaData = getSQLMetaData(sql);
+            int noOfParas = getParameterCount(pStmt, metaData);
 
             if (noOfParas == 0) {
                 params = new Object[1][];
@@ -77,6 +79,11 @@ class DataSourceUpdate extends DataSourceProcess {
 
             int[] result = new int[params.length];
 
+            // some jdbc drivers may not support batch execution,
+            // individual update is required.
+            boolean isBatch = batchSize > 1 && params.length > 1
+                    && tx.getConnection().getMetaData().supportsBatchUpdates();
+
             int i = 0;
             try {
                 // for each set of parameters
@@ -85,11 +92,18 @@ class DataSourceUpdate extends DataSourceProcess {
                     // set each parameter to the prepared statement and
                     // execute update
                     for (int j = 0; noOfParas > 0 && j < noOfParas; j++) {
-                        setParameter(pStmt, j + 1, params[i][j]);
+                        setParameter(pStmt, j + 1, params[i][j], metaData);
+                    }
+                    if (isBatch) {
+                        pStmt.addBatch();
+                        if ((i + 1) % batchSize == 0 || i + 1 == params.length) {
+                            int[] counts = pStmt.executeBatch();
+                            System.arraycopy(counts, 0, result, i + 1 - counts.length, counts.length);
+                        }
+                    }
+                    else {
+                        result[i] = pStmt.executeUpdate();
                     }
-                    // some jdbc drivers may not support batch execution,
-                    // individual update is required.
-                    result[i] = pStmt.executeUpdate();
                 }
             }
             catch (Exception e) {
@@ -110,4 +124,27 @@ class DataSourceUpdate extends DataSourceProcess {
             throw new DAOException("Error in executing update: " + sql, e);
         }
     }
+
+    /**
+     * Gets the maximum number of parameter sets which will be sent to the 
+     * data source in one batch.
+     * 
+     * @return the batch size.
+     * @see #setBatchSize(int)
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of parameter sets which will be sent to the 
+     * data source in one batch. If it is less than 2 or the driver does not
+     * support batch updates, each set of parameters will be updated 
+     * individually.
+     * 
+     * @param batchSize the batch size.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
 }
\ No newline at end of file
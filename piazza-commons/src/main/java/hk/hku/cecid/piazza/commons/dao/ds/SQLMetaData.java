@@ -0,0 +1,120 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.dao.ds;
+
+import java.util.Hashtable;
+
+
+/**
+ * SQLMetaData holds the meta data of a SQL statement which has been discovered
+ * in a previous execution, so that the subsequent executions of the same
+ * statement need not look it up from the driver again.
+ * <p>
+ * SQLMetaData objects are cached by DataSourceDAOFactory and shared by all
+ * the DAO of the factory.
+ *
+ * @see DataSourceDAOFactory
+ */
+final class SQLMetaData {
+
+    private final String sql;
+
+    private int parameterCount = -1;
+
+    private final Hashtable parameterTypes = new Hashtable();
+
+    private final Hashtable columnCodeNames = new Hashtable();
+
+    /**
+     * Creates a new instance of SQLMetaData.
+     *
+     * @param sql the SQL statement.
+     */
+    SQLMetaData(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Gets the SQL statement of this meta data.
+     *
+     * @return the SQL statement.
+     */
+    String getSQL() {
+        return sql;
+    }
+
+    /**
+     * Gets the number of parameters of the SQL statement.
+     *
+     * @return the number of parameters or -1 if it is unknown.
+     */
+    synchronized int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Sets the number of parameters of the SQL statement.
+     *
+     * @param parameterCount the number of parameters.
+     */
+    synchronized void setParameterCount(int parameterCount) {
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * Gets the SQL type of a parameter of the SQL statement.
+     *
+     * @param pos the position of the parameter.
+     * @return the SQL type or null if it is unknown.
+     */
+    Integer getParameterType(int pos) {
+        return (Integer) parameterTypes.get(new Integer(pos));
+    }
+
+    /**
+     * Sets the SQL type of a parameter of the SQL statement.
+     *
+     * @param pos the position of the parameter.
+     * @param type the SQL type.
+     */
+    void setParameterType(int pos, int type) {
+        parameterTypes.put(new Integer(pos), new Integer(type));
+    }
+
+    /**
+     * Gets the column code names of the result of the SQL query, by column
+     * index, for the specified DAO.
+     *
+     * @param dao the DAO which executes the query.
+     * @param columnCount the number of columns of the current result.
+     * @return the column code names or null if they are unknown or the
+     *         result columns have been changed.
+     */
+    String[] getColumnCodeNames(DataSourceDAO dao, int columnCount) {
+        String[] codeNames = (String[]) columnCodeNames.get(dao.getClass().getName());
+        if (codeNames != null && codeNames.length == columnCount) {
+            return codeNames;
+        }
+        else {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the column code names of the result of the SQL query, by column
+     * index, for the specified DAO.
+     *
+     * @param dao the DAO which executes the query.
+     * @param codeNames the column code names.
+     */
+    void setColumnCodeNames(DataSourceDAO dao, String[] codeNames) {
+        columnCodeNames.put(dao.getClass().getName(), codeNames);
+    }
+}
@@ -27,6 +27,11 @@ import org.apache.commons.dbcp.datasources.SharedPoolDataSource;
  * implementation for accessing the data source by a simple DataSource object
  * which is backed by the DriverManager and provides no pooling.
  * <p>
+ * If pooling is enabled, the prepared statements of each pooled connection 
+ * are also pooled unless the parameter <code>poolPreparedStatements</code> is 
+ * false. The number of statements kept open by a connection is limited by the
+ * parameter <code>maxPreparedStatements</code>, which is 50 by default.
+ * <p>
  * Notice that the DAO created by the createDAO() method shall be an instance of
  * DataSourceDAO since this factory is a DataSourceDAOFactory.
  * 
@@ -57,6 +62,9 @@ public class SimpleDSDAOFactory extends DataSourceDAOFactory {
 			int maxActive = 10;
 			int maxWait = 50;
 			
+			boolean isPoolingStatements = true;
+			int maxStatements = 50;
+			
 			boolean testOnBorrow = false;
 			boolean testOnReturn = false;
 			boolean testWhileIdle = false;
@@ -71,6 +79,9 @@ public class SimpleDSDAOFactory extends DataSourceDAOFactory {
 	            maxIdle = StringUtilities.parseInt(getParameter("maxIdle", null), 0);
 		        maxActive = StringUtilities.parseInt(getParameter("maxActive", null), 0);
 		        maxWait = StringUtilities.parseInt(getParameter("maxWait", null), -1);
+		        
+		        isPoolingStatements = StringUtilities.parseBoolean(getParameter("poolPreparedStatements", "true"));
+		        maxStatements = StringUtilities.parseInt(getParameter("maxPreparedStatements", null), 50);
 				
 		        validationQuery = StringUtilities.trim(getParameter("validationQuery", null));
 		        if (validationQuery != null) {
@@ -99,6 +110,8 @@ public class SimpleDSDAOFactory extends DataSourceDAOFactory {
                 cpds.setUrl(url);
                 cpds.setUser(username);
                 cpds.setPassword(password);
+                cpds.setPoolPreparedStatements(isPoolingStatements);
+                cpds.setMaxPreparedStatements(maxStatements);
     
                 SharedPoolDataSource sds = new SharedPoolDataSource();
                 sds.setConnectionPoolDataSource(cpds);
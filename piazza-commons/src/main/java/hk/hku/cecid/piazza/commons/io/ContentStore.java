@@ -0,0 +1,85 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A ContentStore keeps binary content outside the database. Content is
+ * stored from a stream and identified afterwards by a reference string which
+ * the caller keeps, for example in a database column.
+ *
+ * @see FileContentStore
+ */
+public interface ContentStore {
+
+    /**
+     * Stores the content read from the given stream. The stream is read to
+     * the end but not closed.
+     *
+     * @param content the content to be stored.
+     * @return the reference of the stored content.
+     * @throws IOException if unable to store the content.
+     */
+    public String store(InputStream content) throws IOException;
+
+    /**
+     * Stores the content read from the given stream and, if requested, holds
+     * the returned reference against removal until it is released. Identical
+     * content may be stored once and shared, so a caller which records the
+     * reference after storing should hold it until the record is visible to
+     * whoever removes unreferenced content. The stream is read to the end but
+     * not closed.
+     *
+     * @param content the content to be stored.
+     * @param isHeld true if the reference should be held.
+     * @return the reference of the stored content.
+     * @throws IOException if unable to store the content.
+     * @see #release(String)
+     */
+    public String store(InputStream content, boolean isHeld) throws IOException;
+
+    /**
+     * Releases a reference held by storing its content. A reference held by
+     * several stores is released once for each of them.
+     *
+     * @param reference the reference of the content.
+     */
+    public void release(String reference);
+
+    /**
+     * Retrieves the content of the specified reference as a stream. The
+     * caller is responsible for closing the stream.
+     *
+     * @param reference the reference of the content.
+     * @return the content stream.
+     * @throws IOException if the content does not exist or cannot be read.
+     */
+    public InputStream retrieve(String reference) throws IOException;
+
+    /**
+     * Checks if the content of the specified reference exists.
+     *
+     * @param reference the reference of the content.
+     * @return true if the content exists.
+     */
+    public boolean exists(String reference);
+
+    /**
+     * Removes the content of the specified reference. The content is kept if
+     * its reference is held.
+     *
+     * @param reference the reference of the content.
+     * @return true if the content is found and removed.
+     * @throws IOException if unable to remove the content.
+     */
+    public boolean remove(String reference) throws IOException;
+}
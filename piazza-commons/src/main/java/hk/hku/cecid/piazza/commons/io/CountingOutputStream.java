@@ -0,0 +1,79 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * CountingOutputStream counts the number of bytes written through it. If it
+ * is created without an underlying stream, the bytes are discarded and only
+ * counted, which is useful for measuring the length of a serialization
+ * without keeping it in memory.
+ */
+public class CountingOutputStream extends OutputStream {
+
+    private final OutputStream out;
+
+    private long count;
+
+    /**
+     * Creates a new instance of CountingOutputStream which discards the
+     * written bytes.
+     */
+    public CountingOutputStream() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance of CountingOutputStream.
+     *
+     * @param out the underlying output stream or null if the written bytes
+     *          should be discarded.
+     */
+    public CountingOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     *
+     * @return the number of bytes written.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void write(int b) throws IOException {
+        if (out != null) {
+            out.write(b);
+        }
+        count++;
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (out != null) {
+            out.write(b, off, len);
+        }
+        count += len;
+    }
+
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+/**
+ * DirectByteArrayOutputStream is a ByteArrayOutputStream whose written bytes
+ * can be read back without copying the internal buffer, as
+ * {@link #toByteArray()} does.
+ * <p>
+ * The stream returned by {@link #toInputStream()} shares the buffer with this
+ * output stream, so nothing should be written to this stream afterwards.
+ */
+public class DirectByteArrayOutputStream extends ByteArrayOutputStream {
+
+    /**
+     * Creates a new instance of DirectByteArrayOutputStream.
+     */
+    public DirectByteArrayOutputStream() {
+        super();
+    }
+
+    /**
+     * Creates a new instance of DirectByteArrayOutputStream.
+     *
+     * @param size the initial size of the buffer.
+     */
+    public DirectByteArrayOutputStream(int size) {
+        super(size);
+    }
+
+    /**
+     * Creates an input stream for reading the bytes written so far.
+     *
+     * @return an input stream backed by the internal buffer.
+     */
+    public synchronized InputStream toInputStream() {
+        return new ByteArrayInputStream(buf, 0, count);
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.io;
+
+import hk.hku.cecid.piazza.commons.module.Component;
+import hk.hku.cecid.piazza.commons.util.StringUtilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * FileContentStore is a content-addressed ContentStore on the file system.
+ * The reference of a content is the hex encoded digest of the content, and
+ * the content is kept in a file named by the reference under directories
+ * sharded by its leading characters, e.g. <code>ab/cd/abcd...</code>.
+ * <p>
+ * Content is first written to a temporary file under the same location,
+ * synced to the disk and then renamed into place, so that a partially written
+ * content is never visible. Identical content is stored only once. A held
+ * reference is not removed until it is released, and the check is made under
+ * the same lock as the store of identical content, so that a content found
+ * by a holding store is never removed before it is released. The digest is
+ * verified when the content is read to the end, if verification is enabled.
+ * <p>
+ * The shard directories are not synced, as a directory cannot be opened for
+ * sync on the supported Java versions. A content renamed into a new directory
+ * just before a crash may therefore be lost with the directory entry.
+ * <p>
+ * The component parameters are:
+ * <p>
+ * <table border="1">
+ * <tr><th>Parameter</th><th>Description</th><th>Default</th></tr>
+ * <tr><td>location</td><td>The root directory of the store.</td><td></td></tr>
+ * <tr><td>digest-algorithm</td><td>The message digest algorithm.</td><td>SHA-256</td></tr>
+ * <tr><td>shard-depth</td><td>The number of directory levels, each named
+ * by two characters of the reference.</td><td>2</td></tr>
+ * <tr><td>verify</td><td>Whether the digest is verified on read.</td><td>true</td></tr>
+ * </table>
+ */
+public class FileContentStore extends Component implements ContentStore {
+
+    private static final String TEMP_DIR = "tmp";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private File location;
+
+    private String algorithm;
+
+    private int shardDepth;
+
+    private boolean isVerify;
+
+    private final Map holds = new HashMap();
+
+    /**
+     * Creates a new instance of FileContentStore. This is reserved for the
+     * component initialization of a module.
+     */
+    public FileContentStore() {
+    }
+
+    /**
+     * Creates a new instance of FileContentStore with the default settings.
+     *
+     * @param location the root directory of the store.
+     * @throws IOException if the root directory cannot be created.
+     */
+    public FileContentStore(File location) throws IOException {
+        Properties p = new Properties();
+        p.setProperty("location", location.getPath());
+        setParameters(p);
+        init();
+    }
+
+    /**
+     * Initializes the store according to the component parameters.
+     *
+     * @throws IOException if the root directory cannot be created or the
+     *          digest algorithm is not supported.
+     * @see hk.hku.cecid.piazza.commons.module.Component#init()
+     */
+    protected void init() throws IOException {
+        Properties p = getParameters();
+        String path = p.getProperty("location");
+        if (path == null) {
+            throw new IOException("No content store location specified");
+        }
+        location = new File(path);
+        algorithm = p.getProperty("digest-algorithm", "SHA-256");
+        shardDepth = StringUtilities.parseInt(p.getProperty("shard-depth"), 2);
+        isVerify = StringUtilities.parseBoolean(p.getProperty("verify"), true);
+
+        try {
+            MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IOException("Unsupported digest algorithm: " + algorithm);
+        }
+
+        File tempDir = new File(location, TEMP_DIR);
+        if (!tempDir.isDirectory() && !tempDir.mkdirs()) {
+            throw new IOException("Unable to create content store: " + location);
+        }
+    }
+
+    /**
+     * Gets the root directory of this store.
+     *
+     * @return the root directory.
+     */
+    public File getLocation() {
+        return location;
+    }
+
+    /* (non-Javadoc)
+     * @see hk.hku.cecid.piazza.commons.io.ContentStore#store(java.io.InputStream)
+     */
+    public String store(InputStream content) throws IOException {
+        return store(content, false);
+    }
+
+    /* (non-Javadoc)
+     * @see hk.hku.cecid.piazza.commons.io.ContentStore#store(java.io.InputStream, boolean)
+     */
+    public String store(InputStream content, boolean isHeld) throws IOException {
+        MessageDigest digest = createDigest();
+        File temp = File.createTempFile("content", ".tmp", new File(location, TEMP_DIR));
+        try {
+            FileOutputStream fos = new FileOutputStream(temp);
+            OutputStream out = new DigestOutputStream(new BufferedOutputStream(
+                    fos), digest);
+            try {
+                IOHandler.pipe(content, out);
+                out.flush();
+                fos.getFD().sync();
+            }
+            finally {
+                out.close();
+            }
+
+            String reference = toHex(digest.digest());
+            File file = getFile(reference);
+            synchronized (holds) {
+                if (!file.exists()) {
+                    File dir = file.getParentFile();
+                    if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+                        throw new IOException("Unable to create directory: " + dir);
+                    }
+                    if (!temp.renameTo(file) && !file.exists()) {
+                        throw new IOException("Unable to move content to " + file);
+                    }
+                }
+                if (isHeld) {
+                    int[] count = (int[]) holds.get(reference);
+                    if (count == null) {
+                        holds.put(reference, new int[] { 1 });
+                    }
+                    else {
+                        count[0]++;
+                    }
+                }
+            }
+            return reference;
+        }
+        finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see hk.hku.cecid.piazza.commons.io.ContentStore#retrieve(java.lang.String)
+     */
+    public InputStream retrieve(String reference) throws IOException {
+        File file = getFile(reference);
+        if (!file.exists()) {
+            throw new FileNotFoundException("Content not found: " + reference);
+        }
+        InputStream ins = new BufferedInputStream(new FileInputStream(file));
+        if (isVerify) {
+            return new VerifyingInputStream(ins, createDigest(), reference);
+        }
+        else {
+            return ins;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see hk.hku.cecid.piazza.commons.io.ContentStore#exists(java.lang.String)
+     */
+    public boolean exists(String reference) {
+        try {
+            return getFile(reference).exists();
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see hk.hku.cecid.piazza.commons.io.ContentStore#remove(java.lang.String)
+     */
+    public boolean remove(String reference) throws IOException {
+        File file = getFile(reference);
+        synchronized (holds) {
+            if (holds.containsKey(reference) || !file.exists()) {
+                return false;
+            }
+            if (!file.delete()) {
+                throw new IOException("Unable to remove content: " + reference);
+            }
+            return true;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see hk.hku.cecid.piazza.commons.io.ContentStore#release(java.lang.String)
+     */
+    public void release(String reference) {
+        synchronized (holds) {
+            int[] count = (int[]) holds.get(reference);
+            if (count != null && --count[0] <= 0) {
+                holds.remove(reference);
+            }
+        }
+    }
+
+    /**
+     * Gets the file which holds the content of the specified reference.
+     *
+     * @param reference the reference of the content.
+     * @return the content file.
+     * @throws IOException if the reference is invalid.
+     */
+    public File getFile(String reference) throws IOException {
+        if (reference == null || reference.length() <= shardDepth * 2) {
+            throw new IOException("Invalid content reference: " + reference);
+        }
+        for (int i = 0; i < reference.length(); i++) {
+            if (Character.digit(reference.charAt(i), 16) < 0) {
+                throw new IOException("Invalid content reference: " + reference);
+            }
+        }
+
+        File dir = location;
+        for (int i = 0; i < shardDepth; i++) {
+            dir = new File(dir, reference.substring(i * 2, i * 2 + 2));
+        }
+        return new File(dir, reference);
+    }
+
+    /**
+     * Creates a message digest of the configured algorithm.
+     *
+     * @return a new message digest.
+     * @throws IOException if the algorithm is not supported.
+     */
+    private MessageDigest createDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IOException("Unsupported digest algorithm: " + algorithm);
+        }
+    }
+
+    /**
+     * Encodes the given bytes as a lower case hex string.
+     *
+     * @param bytes the bytes to be encoded.
+     * @return the hex string.
+     */
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * VerifyingInputStream checks the digest of the content against its
+     * reference when the end of the stream is reached.
+     */
+    private static class VerifyingInputStream extends DigestInputStream {
+
+        private final String reference;
+
+        private boolean isVerified;
+
+        private VerifyingInputStream(InputStream ins, MessageDigest digest,
+                String reference) {
+            super(ins, digest);
+            this.reference = reference;
+        }
+
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                verify();
+            }
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count == -1) {
+                verify();
+            }
+            return count;
+        }
+
+        public long skip(long n) throws IOException {
+            byte[] buf = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int count = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+                if (count == -1) {
+                    break;
+                }
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void verify() throws IOException {
+            if (!isVerified) {
+                isVerified = true;
+                if (!reference.equalsIgnoreCase(toHex(getMessageDigest().digest()))) {
+                    throw new IOException("Content checksum mismatch: " + reference);
+                }
+            }
+        }
+    }
+}
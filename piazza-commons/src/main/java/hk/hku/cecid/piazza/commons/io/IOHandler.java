@@ -31,7 +31,7 @@ import java.nio.charset.Charset;
  */
 public final class IOHandler {
 
-    private static final int BUFFER_SIZE = 512;
+    private static final int BUFFER_SIZE = 8192;
     
     /**
      * Creates a new instance of IOHandler.
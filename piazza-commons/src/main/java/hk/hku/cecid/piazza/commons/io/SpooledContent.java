@@ -0,0 +1,216 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * SpooledContent is a re-readable copy of the content of an input stream.
+ * The content is kept in memory as long as its size does not exceed a given
+ * threshold. Otherwise, it is spooled to a temporary file so that the memory
+ * used is bounded regardless of the content size.
+ * <p>
+ * The temporary file, if any, is deleted when the content is disposed.
+ */
+public class SpooledContent {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int threshold;
+
+    private final File directory;
+
+    private byte[] bytes;
+
+    private File file;
+
+    private long length;
+
+    /**
+     * Creates a new instance of SpooledContent by reading the given input
+     * stream to the end. The stream is not closed.
+     *
+     * @param ins the input stream to be read.
+     * @param threshold the maximum number of bytes kept in memory.
+     * @param directory the directory of the temporary file or null for the
+     *          default temporary directory.
+     * @throws IOException if there is IO error occurred during the operation.
+     */
+    public SpooledContent(InputStream ins, int threshold, File directory)
+            throws IOException {
+        this(threshold, directory);
+        OutputStream out = openOutputStream();
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int len = ins.read(buffer);
+            while (len != -1) {
+                out.write(buffer, 0, len);
+                len = ins.read(buffer);
+            }
+            out.close();
+        }
+        catch (IOException e) {
+            try {
+                out.close();
+            }
+            catch (IOException ignore) {
+            }
+            dispose();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a new instance of SpooledContent which is empty. The content
+     * should be written by the stream returned by {@link #openOutputStream()}.
+     *
+     * @param threshold the maximum number of bytes kept in memory.
+     * @param directory the directory of the temporary file or null for the
+     *          default temporary directory.
+     */
+    public SpooledContent(int threshold, File directory) {
+        this.threshold = threshold;
+        this.directory = directory;
+    }
+
+    /**
+     * Opens an output stream for writing the content. The content can be read
+     * only after the returned stream is closed.
+     *
+     * @return an output stream for writing the content.
+     */
+    public OutputStream openOutputStream() {
+        return new SpoolOutputStream();
+    }
+
+    /**
+     * Opens a new input stream for reading the content from the beginning.
+     * The caller is responsible for closing the stream.
+     *
+     * @return an input stream of the content.
+     * @throws IOException if the content has been disposed or cannot be read.
+     */
+    public InputStream openStream() throws IOException {
+        if (bytes != null) {
+            return new ByteArrayInputStream(bytes);
+        }
+        else if (file != null) {
+            return new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        }
+        else {
+            throw new IOException("Spooled content has been disposed");
+        }
+    }
+
+    /**
+     * Gets the content as an array of bytes. The whole content is loaded into
+     * memory if it has been spooled to a file.
+     *
+     * @return the content bytes.
+     * @throws IOException if the content has been disposed or cannot be read.
+     */
+    public byte[] getBytes() throws IOException {
+        if (bytes != null) {
+            return bytes;
+        }
+        InputStream ins = openStream();
+        try {
+            return IOHandler.readBytes(ins);
+        }
+        finally {
+            ins.close();
+        }
+    }
+
+    /**
+     * Gets the size of the content.
+     *
+     * @return the number of bytes of the content.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Checks if the content has been spooled to a temporary file.
+     *
+     * @return true if the content is kept in a file.
+     */
+    public boolean isSpooled() {
+        return file != null;
+    }
+
+    /**
+     * Gets the temporary file which the content is spooled to.
+     *
+     * @return the temporary file or null if the content is kept in memory.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Releases the content and deletes the temporary file, if any.
+     */
+    public void dispose() {
+        bytes = null;
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+    }
+
+    /**
+     * SpoolOutputStream writes to memory until the threshold is exceeded and
+     * then switches to the temporary file.
+     */
+    private class SpoolOutputStream extends OutputStream {
+
+        private ByteArrayOutputStream memory = new ByteArrayOutputStream(BUFFER_SIZE);
+
+        private OutputStream out = memory;
+
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (file == null && length + len > threshold) {
+                file = File.createTempFile("spool", ".tmp", directory);
+                out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+                memory.writeTo(out);
+                memory = null;
+            }
+            out.write(b, off, len);
+            length += len;
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        public void close() throws IOException {
+            out.close();
+            if (memory != null) {
+                bytes = memory.toByteArray();
+                memory = null;
+            }
+        }
+    }
+}
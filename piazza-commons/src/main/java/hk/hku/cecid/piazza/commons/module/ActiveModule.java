@@ -28,8 +28,11 @@ public abstract class ActiveModule extends Module implements Runnable {
 
     private String groupExecution;
     private long executionInterval = 60000;
+    private long idleExecutionInterval;
     private long stopTimeout;
     private boolean isStopping;
+    private boolean isWakeUp;
+    private final Object wakeUpLock = new Object();
 
     /**
      * Creates a new instance of ActiveModule.
@@ -109,7 +112,15 @@ public abstract class ActiveModule extends Module implements Runnable {
      *                           negative number indicates a one-time execution.
      *   <li>stop-timeout:       the maximum time (milliseconds) to wait for 
      *                           stopping this module.
+     *   <li>idle-execution-interval: the interval (milliseconds) that this 
+     *                           module should wait until the next execution 
+     *                           when it is idle. It should be longer than the 
+     *                           execution interval and is only a backstop for 
+     *                           the work which has been missed by wakeUp().
      * </ul>
+     * 
+     * @see #isIdle()
+     * @see #wakeUp()
      */
     public void init() {
         super.init();
@@ -117,6 +128,7 @@ public abstract class ActiveModule extends Module implements Runnable {
         groupExecution = params.getProperty("group-execution", "all");      
         executionInterval = StringUtilities.parseLong(params.getProperty("execution-interval"), -1);
         stopTimeout = StringUtilities.parseLong(params.getProperty("stop-timeout"), 0);
+        idleExecutionInterval = StringUtilities.parseLong(params.getProperty("idle-execution-interval"), -1);
     }
     
     /**  
@@ -190,6 +202,30 @@ public abstract class ActiveModule extends Module implements Runnable {
     public void onStop() {
     }
     
+    /**
+     * Wakes up this module so that it executes immediately instead of waiting 
+     * for the end of its current interval. If this module is executing, it 
+     * will execute again right after the current execution.
+     */
+    public void wakeUp() {
+        synchronized (wakeUpLock) {
+            isWakeUp = true;
+            wakeUpLock.notifyAll();
+        }
+    }
+    
+    /**
+     * Checks if this module is idle, i.e. its last execution found nothing to 
+     * do. An idle module waits for the idle execution interval, if any, 
+     * instead of the execution interval.
+     * 
+     * @return true if this module is idle. This implementation always returns 
+     *          false.
+     */
+    protected boolean isIdle() {
+        return false;
+    }
+    
     /**
      * Gets the thread of this module.
      * 
@@ -214,8 +250,17 @@ public abstract class ActiveModule extends Module implements Runnable {
                 break;
             }
             try {
-                if (!isStopping && executionInterval>0) {
-                    Thread.sleep(executionInterval);
+                long interval = executionInterval;
+                if (idleExecutionInterval > interval && isIdle()) {
+                    interval = idleExecutionInterval;
+                }
+                if (!isStopping && interval>0) {
+                    synchronized (wakeUpLock) {
+                        if (!isWakeUp) {
+                            wakeUpLock.wait(interval);
+                        }
+                        isWakeUp = false;
+                    }
                 }
             } catch (InterruptedException e) {
             }
@@ -9,6 +9,9 @@
 
 package hk.hku.cecid.piazza.commons.module;
 
+import java.util.LinkedList;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.Vector;
 
 
@@ -28,6 +31,16 @@ public class ActiveMonitor {
     
     private final Vector activeThreads = new Vector();
 
+    private final Vector deferredThreads = new Vector();
+
+    private final LinkedList readyThreads = new LinkedList();
+
+    private Timer retryTimer;
+
+    private boolean deferredRetry = false;
+
+    private ActiveTaskScheduler scheduler;
+
     private boolean suspended = false;
     
     /**
@@ -47,6 +60,7 @@ public class ActiveMonitor {
         if (suspended) {
             throw new ModuleException("Active monitor has already suspended");
         }
+        dispatchReadyThreads();
         while (activeThreads.size() >= maxThreadCount) {
             try {
                 wait();
@@ -73,10 +87,80 @@ public class ActiveMonitor {
         if (thread == null) {
             return;
         } else if (activeThreads.remove(thread)) {
+            if (scheduler != null && thread.getTask() != null) {
+                scheduler.release(thread.getTask());
+            }
+            dispatchReadyThreads();
             notifyAll();
         }
     }
 
+    /**
+     * Defers a previously acquired thread which is going to retry its task. 
+     * The thread gives up its place in this monitor so that other threads can 
+     * be acquired in the meantime. It will be started again, ahead of any 
+     * newly acquired threads, when the given delay has passed and a place 
+     * becomes available.
+     * 
+     * @param thread the previously acquired thread.
+     * @param delay the delay in milliseconds before the thread is resumed.
+     * @see #isDeferredRetry()
+     */
+    synchronized void deferThread(final ActiveThread thread, long delay) {
+        if (!activeThreads.remove(thread)) {
+            return;
+        }
+        deferredThreads.add(thread);
+        if (retryTimer == null) {
+            retryTimer = new Timer("ActiveMonitor-retry", true);
+        }
+        retryTimer.schedule(new TimerTask() {
+            public void run() {
+                resumeThread(thread);
+            }
+        }, delay);
+        dispatchReadyThreads();
+        notifyAll();
+    }
+
+    /**
+     * Resumes a deferred thread when its delay has passed.
+     * 
+     * @param thread the deferred thread.
+     */
+    private synchronized void resumeThread(ActiveThread thread) {
+        readyThreads.add(thread);
+        dispatchReadyThreads();
+    }
+
+    /**
+     * Starts the resumed threads while there are places available.
+     */
+    private void dispatchReadyThreads() {
+        while (!readyThreads.isEmpty() && activeThreads.size() < maxThreadCount) {
+            ActiveThread thread = (ActiveThread) readyThreads.removeFirst();
+            deferredThreads.remove(thread);
+            activeThreads.add(thread);
+            try {
+                start(thread);
+            } catch (Throwable e) {
+                activeThreads.remove(thread);
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Starts running a previously acquired thread. This implementation runs
+     * the thread on a newly created thread.
+     * 
+     * @param thread the previously acquired thread.
+     * @see ActiveThread#start()
+     */
+    protected void start(ActiveThread thread) {
+        new Thread(thread).start();
+    }
+
     /**
      * Gets the peek number of threads being acquired.
      * 
@@ -95,6 +179,59 @@ public class ActiveMonitor {
         return activeThreads.size();
     }
 
+    /**
+     * Gets the current number of threads which are waiting to retry their 
+     * tasks without holding a place in this monitor.
+     * 
+     * @return the current number of deferred threads.
+     * @see #deferThread(ActiveThread, long)
+     */
+    public int getDeferredThreadCount() {
+        return deferredThreads.size();
+    }
+
+    /**
+     * Indicates if the acquired threads should give up their places in this 
+     * monitor while waiting for the retry interval of their tasks.
+     * 
+     * @return true if the retries should be deferred.
+     */
+    public boolean isDeferredRetry() {
+        return deferredRetry;
+    }
+
+    /**
+     * Sets whether the acquired threads should give up their places in this 
+     * monitor while waiting for the retry interval of their tasks, instead 
+     * of sleeping.
+     * 
+     * @param deferredRetry true if the retries should be deferred.
+     */
+    public void setDeferredRetry(boolean deferredRetry) {
+        this.deferredRetry = deferredRetry;
+    }
+
+    /**
+     * Gets the task scheduler which is informed when the task of an acquired 
+     * thread has been executed.
+     * 
+     * @return the task scheduler or null if there is none.
+     */
+    public ActiveTaskScheduler getTaskScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Sets the task scheduler which should be informed when the task of an 
+     * acquired thread has been executed.
+     * 
+     * @param scheduler the task scheduler.
+     * @see ActiveTaskScheduler#release(ActiveTask)
+     */
+    public void setTaskScheduler(ActiveTaskScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
     /**
      * Resumes this monitor.
      */
@@ -113,14 +250,19 @@ public class ActiveMonitor {
         if (!suspended) {
             suspended = true;
             waitForEmpty();
+            if (retryTimer != null) {
+                retryTimer.cancel();
+                retryTimer = null;
+            }
         }
     }
     
     /**
-     * Waits until all the acquired threads have been released. 
+     * Waits until all the acquired threads, including the deferred ones, 
+     * have been released. 
      */
     public synchronized void waitForEmpty() {
-        while (activeThreads.size() > 0) {
+        while (activeThreads.size() > 0 || deferredThreads.size() > 0) {
             try {
                 wait();
             } catch (InterruptedException e) {}
@@ -29,4 +29,17 @@ public abstract class ActiveTaskList extends Component {
      * @return the active task list.
      */
     public abstract List getTaskList();
+
+    /**
+     * Gets the task scheduler of the active task module which owns this list.
+     * 
+     * @return the task scheduler or null if the tasks are not scheduled.
+     * @see ActiveTaskModule#getScheduler()
+     */
+    public ActiveTaskScheduler getScheduler() {
+        if (getModule() instanceof ActiveTaskModule) {
+            return ((ActiveTaskModule) getModule()).getScheduler();
+        }
+        return null;
+    }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ package hk.hku.cecid.piazza.commons.module;
 import hk.hku.cecid.piazza.commons.util.StringUtilities;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 
 
@@ -28,8 +29,10 @@ public class ActiveTaskModule extends ActiveModule {
 
     private ActiveMonitor monitor = new ActiveMonitor();
     private ActiveTaskList taskList;
+    private ActiveTaskScheduler scheduler;
     private int maxThreadCount = 1;
     private boolean isWaitForList;
+    private boolean isListEmpty;
     /**
      * Creates a new instance of ActiveTaskModule.
      * 
@@ -85,8 +88,18 @@ public class ActiveTaskModule extends ActiveModule {
      *       module.
      *   <li>wait-for-list: true if the tasks in the task list should be 
      *       completely executed before being refreshed.
+     *   <li>thread-pooling: true if the tasks should be executed by a pool 
+     *       of long-lived worker threads, bounded by max-thread-count, instead 
+     *       of a new thread for each task.
+     *   <li>deferred-retry: true if a task waiting for its retry interval 
+     *       should give up its thread so that other tasks can be executed in 
+     *       the meantime.
+     *   <li>max-thread-per-group: the maximum number of threads which can be 
+     *       acquired to execute the tasks of the same group. If specified, 
+     *       the tasks will be scheduled in turn across their groups.
      * </ul>
      * 
+     * @see ActiveTaskScheduler
      * @see hk.hku.cecid.piazza.commons.module.Module#init()
      */
     public void init() {
@@ -95,7 +108,16 @@ public class ActiveTaskModule extends ActiveModule {
         Properties taskListParams = taskList.getParameters();
         maxThreadCount = StringUtilities.parseInt(taskListParams.getProperty("max-thread-count"), 0);
         isWaitForList = StringUtilities.parseBoolean(taskListParams.getProperty("wait-for-list"));
+        if (StringUtilities.parseBoolean(taskListParams.getProperty("thread-pooling"))) {
+            monitor = new ActiveThreadPool(getId());
+        }
         monitor.setMaxThreadCount(maxThreadCount);
+        monitor.setDeferredRetry(StringUtilities.parseBoolean(taskListParams.getProperty("deferred-retry")));
+        int maxThreadPerGroup = StringUtilities.parseInt(taskListParams.getProperty("max-thread-per-group"), 0);
+        if (maxThreadPerGroup > 0) {
+            scheduler = new ActiveTaskScheduler(maxThreadPerGroup);
+            monitor.setTaskScheduler(scheduler);
+        }
     }
     
     /**
@@ -134,21 +156,21 @@ public class ActiveTaskModule extends ActiveModule {
             if (isWaitForList) {
                 monitor.waitForEmpty();
             }
-            Iterator tasks = taskList.getTaskList().iterator();
-            while (tasks.hasNext()) {
-                ActiveTask task = (ActiveTask) tasks.next();
-                ActiveThread thread = null;
-                try {
-                    thread = monitor.acquireThread();
-                    if (thread == null) {
+            List list = taskList.getTaskList();
+            isListEmpty = list.isEmpty();
+            if (scheduler != null) {
+                scheduler.addAll(list);
+                while (scheduler.hasNext()) {
+                    if (!execute(null)) {
                         return false;
                     }
-                    thread.setTask(task);
-                    thread.start();			
-
-                } catch (Throwable e) {
-                    monitor.releaseThread(thread);
-                    getLogger().error("Error in executing active task", e);
+                }
+                return true;
+            }
+            Iterator tasks = list.iterator();
+            while (tasks.hasNext()) {
+                if (!execute((ActiveTask) tasks.next())) {
+                    return false;
                 }
             }
             return true;
@@ -158,6 +180,60 @@ public class ActiveTaskModule extends ActiveModule {
         }
     }
     
+    /**
+     * Checks if this module is idle. It is idle if its task list was empty in 
+     * the last execution and none of its tasks is being executed or waiting 
+     * to be executed.
+     * 
+     * @return true if this module is idle.
+     * @see hk.hku.cecid.piazza.commons.module.ActiveModule#isIdle()
+     */
+    protected boolean isIdle() {
+        return isListEmpty && monitor.getThreadCount() == 0
+                && (scheduler == null || scheduler.getQueueSize() == 0);
+    }
+    
+    /**
+     * Executes a task with a thread acquired from the active monitor.
+     * 
+     * @param task the task to be executed or null if the next task should be 
+     *          taken from the scheduler after the thread is acquired.
+     * @return false if the active monitor of this module is suspended.
+     */
+    private boolean execute(ActiveTask task) {
+        ActiveThread thread = null;
+        try {
+            thread = monitor.acquireThread();
+            if (thread == null) {
+                return false;
+            }
+            if (task == null) {
+                task = scheduler.next();
+                if (task == null) {
+                    monitor.releaseThread(thread);
+                    return true;
+                }
+            }
+            thread.setTask(task);
+            thread.start();			
+
+        } catch (Throwable e) {
+            monitor.releaseThread(thread);
+            getLogger().error("Error in executing active task", e);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the task scheduler of this module.
+     * 
+     * @return the task scheduler or null if the tasks are not scheduled by 
+     *          their groups.
+     */
+    public ActiveTaskScheduler getScheduler() {
+        return scheduler;
+    }
+
     /**
      * Gets the monitor of this module.
      * 
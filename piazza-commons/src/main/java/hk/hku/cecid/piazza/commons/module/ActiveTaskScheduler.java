@@ -0,0 +1,226 @@
+/* 
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ * 
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.module;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+
+/**
+ * ActiveTaskScheduler queues the active tasks by their groups and hands them 
+ * out in a round-robin manner across the groups. It also limits the number of 
+ * tasks of the same group which can be executed at the same time so that a 
+ * group with a large backlog or slow tasks cannot take all the threads.
+ * <p>
+ * Tasks which are not grouped active tasks are all put into the same default 
+ * group.
+ * 
+ * @see GroupedActiveTask
+ * @see ActiveTaskModule
+ */
+public class ActiveTaskScheduler {
+
+    private static final String DEFAULT_GROUP = "";
+
+    private final Map queues = new HashMap();
+
+    private final Map inFlightCounts = new HashMap();
+
+    private final LinkedList rotation = new LinkedList();
+
+    private int maxThreadPerGroup;
+
+    private int queueSize = 0;
+
+    /**
+     * Creates a new instance of ActiveTaskScheduler.
+     * 
+     * @param maxThreadPerGroup the maximum number of tasks of the same group 
+     *          which can be executed at the same time.
+     */
+    public ActiveTaskScheduler(int maxThreadPerGroup) {
+        setMaxThreadPerGroup(maxThreadPerGroup);
+    }
+
+    /**
+     * Gets the group of the given task.
+     * 
+     * @param task the task.
+     * @return the group of the task or the default group if it is not a 
+     *          grouped active task.
+     */
+    public static String getTaskGroup(ActiveTask task) {
+        if (task instanceof GroupedActiveTask) {
+            String group = ((GroupedActiveTask) task).getTaskGroup();
+            if (group != null) {
+                return group;
+            }
+        }
+        return DEFAULT_GROUP;
+    }
+
+    /**
+     * Adds a task to the end of the queue of its group.
+     * 
+     * @param task the task to be scheduled.
+     */
+    public synchronized void add(ActiveTask task) {
+        String group = getTaskGroup(task);
+        LinkedList queue = (LinkedList) queues.get(group);
+        if (queue == null) {
+            queue = new LinkedList();
+            queues.put(group, queue);
+            rotation.add(group);
+        }
+        queue.add(task);
+        queueSize++;
+    }
+
+    /**
+     * Adds the given tasks to the queues of their groups.
+     * 
+     * @param tasks the tasks to be scheduled.
+     */
+    public synchronized void addAll(Collection tasks) {
+        Iterator i = tasks.iterator();
+        while (i.hasNext()) {
+            add((ActiveTask) i.next());
+        }
+    }
+
+    /**
+     * Checks if there is any queued task which can be executed now.
+     * 
+     * @return true if there is a task which can be executed.
+     */
+    public synchronized boolean hasNext() {
+        Iterator i = rotation.iterator();
+        while (i.hasNext()) {
+            if (getInFlightCount((String) i.next()) < maxThreadPerGroup) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes the next task to be executed. The groups are served in turn and 
+     * a group is skipped if it has reached its limit of executing tasks. The 
+     * task taken is counted as executing until it is released.
+     * 
+     * @return the next task or null if no task can be executed now.
+     * @see #release(ActiveTask)
+     */
+    public synchronized ActiveTask next() {
+        Iterator i = rotation.iterator();
+        while (i.hasNext()) {
+            String group = (String) i.next();
+            int inFlight = getInFlightCount(group);
+            if (inFlight < maxThreadPerGroup) {
+                i.remove();
+                LinkedList queue = (LinkedList) queues.get(group);
+                ActiveTask task = (ActiveTask) queue.removeFirst();
+                queueSize--;
+                if (queue.isEmpty()) {
+                    queues.remove(group);
+                }
+                else {
+                    rotation.add(group);
+                }
+                inFlightCounts.put(group, new Integer(inFlight + 1));
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Releases a task which has been executed.
+     * 
+     * @param task the task taken from this scheduler.
+     */
+    public synchronized void release(ActiveTask task) {
+        String group = getTaskGroup(task);
+        int inFlight = getInFlightCount(group);
+        if (inFlight > 1) {
+            inFlightCounts.put(group, new Integer(inFlight - 1));
+        }
+        else {
+            inFlightCounts.remove(group);
+        }
+    }
+
+    /**
+     * Gets the number of tasks of the given group which are being executed.
+     * 
+     * @param group the task group.
+     * @return the number of executing tasks of the group.
+     */
+    public synchronized int getInFlightCount(String group) {
+        Integer inFlight = (Integer) inFlightCounts.get(group);
+        return inFlight == null ? 0 : inFlight.intValue();
+    }
+
+    /**
+     * Gets the number of tasks of the given group which are queued.
+     * 
+     * @param group the task group.
+     * @return the number of queued tasks of the group.
+     */
+    public synchronized int getQueueSize(String group) {
+        LinkedList queue = (LinkedList) queues.get(group);
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Gets the total number of queued tasks.
+     * 
+     * @return the total number of queued tasks.
+     */
+    public synchronized int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Gets the number of new tasks of the given group which can be accepted 
+     * without exceeding the limit of the group, counting both the executing 
+     * and the queued tasks. A task list may use it to avoid creating tasks for 
+     * a group which is already busy.
+     * 
+     * @param group the task group.
+     * @return the number of new tasks the group can accept.
+     */
+    public synchronized int getAvailableCount(String group) {
+        return Math.max(maxThreadPerGroup - getInFlightCount(group) - getQueueSize(group), 0);
+    }
+
+    /**
+     * Gets the maximum number of tasks of the same group which can be 
+     * executed at the same time.
+     * 
+     * @return the maximum number.
+     */
+    public synchronized int getMaxThreadPerGroup() {
+        return maxThreadPerGroup;
+    }
+
+    /**
+     * Sets the maximum number of tasks of the same group which can be 
+     * executed at the same time.
+     * 
+     * @param maxThreadPerGroup the maximum number.
+     */
+    public synchronized void setMaxThreadPerGroup(int maxThreadPerGroup) {
+        this.maxThreadPerGroup = Math.max(maxThreadPerGroup, 1);
+    }
+}
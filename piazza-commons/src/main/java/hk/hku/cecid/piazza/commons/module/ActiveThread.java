@@ -29,6 +29,8 @@ public class ActiveThread implements Runnable {
 
     private int retried = -1;
 
+    private int maxRetries;
+
     /**
      * Creates a new instance of ActiveThread.
      */
@@ -64,24 +66,43 @@ public class ActiveThread implements Runnable {
     }
 
     /**
-     * Starts a new thread to execute the associated task.
+     * Starts a new thread to execute the associated task. If this thread is
+     * managed by an active monitor, the monitor decides how it will be run. 
      * 
      * @see #run() 
+     * @see ActiveMonitor#start(ActiveThread)
      */
     public void start() {
-        Thread thread = new Thread(this);
-        thread.start();
+        if (monitor != null) {
+            monitor.start(this);
+        }
+        else {
+            Thread thread = new Thread(this);
+            thread.start();
+        }
     }
     
     /**
-     * Executes its associated task and manages the retry of the task.
+     * Executes its associated task and manages the retry of the task. If the 
+     * monitor of this thread defers retries, this thread will return after a 
+     * retry is deferred and continue when it is started again by the monitor.
      * 
      * @see java.lang.Runnable#run()
+     * @see ActiveMonitor#isDeferredRetry()
      */
     public void run() {
+        boolean deferred = false;
         try {
             if (task != null) {            
-                int maxRetries = task.getMaxRetries();
+                if (retried < 0) {
+                    maxRetries = task.getMaxRetries();
+                }
+                else {
+                    task.onAwake();
+                    if (!task.isRetryEnabled() || maxRetries <= retried) {
+                        return;
+                    }
+                }
                 
                 do {
                     boolean failed = false;
@@ -103,6 +124,12 @@ public class ActiveThread implements Runnable {
                     }
                     
                     if (task.isRetryEnabled()) {
+                        if (task.getRetryInterval()>0 && monitor != null 
+                                && monitor.isDeferredRetry()) {
+                            monitor.deferThread(this, task.getRetryInterval());
+                            deferred = true;
+                            return;
+                        }
                         if (task.getRetryInterval()>0) {
                             try {
                                 Thread.sleep(task.getRetryInterval());
@@ -115,7 +142,7 @@ public class ActiveThread implements Runnable {
             }
         }
         finally {
-            if (monitor != null) {
+            if (monitor != null && !deferred) {
                 monitor.releaseThread(this);
             }
         }
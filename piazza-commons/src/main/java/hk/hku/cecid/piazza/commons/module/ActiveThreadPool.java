@@ -0,0 +1,165 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.module;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * ActiveThreadPool is an active monitor which runs its acquired active threads
+ * on a bounded set of long-lived worker threads instead of creating a new
+ * thread for each task. The number of workers follows the maximum thread
+ * count of the monitor.
+ * <p>
+ * The workers are created on demand and are discarded when the monitor is
+ * suspended. They will be re-created when the monitor is resumed and threads
+ * are acquired again.
+ *
+ * @see ActiveMonitor
+ * @see ActiveThread
+ */
+public class ActiveThreadPool extends ActiveMonitor {
+
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
+    private final String name;
+
+    private ThreadPoolExecutor executor;
+
+    private long completedTaskCount = 0;
+
+    /**
+     * Creates a new instance of ActiveThreadPool.
+     */
+    public ActiveThreadPool() {
+        this("ActiveThreadPool");
+    }
+
+    /**
+     * Creates a new instance of ActiveThreadPool.
+     *
+     * @param name the name of this pool which prefixes its worker thread names.
+     */
+    public ActiveThreadPool(String name) {
+        super();
+        this.name = name;
+    }
+
+    /**
+     * Runs the given active thread on one of the pooled workers.
+     *
+     * @param thread the active thread to be run.
+     * @see hk.hku.cecid.piazza.commons.module.ActiveMonitor#start(hk.hku.cecid.piazza.commons.module.ActiveThread)
+     */
+    protected synchronized void start(ActiveThread thread) {
+        if (executor == null) {
+            int size = getMaxThreadCount();
+            executor = new ThreadPoolExecutor(size, size, 0L,
+                    TimeUnit.MILLISECONDS, new LinkedBlockingQueue(),
+                    new WorkerFactory());
+        }
+        executor.execute(thread);
+    }
+
+    /**
+     * Suspends this pool and discards its workers once all the acquired
+     * threads have been released.
+     *
+     * @see hk.hku.cecid.piazza.commons.module.ActiveMonitor#suspend()
+     */
+    public synchronized void suspend() {
+        super.suspend();
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {}
+            completedTaskCount += executor.getCompletedTaskCount();
+            executor = null;
+        }
+    }
+
+    /**
+     * Sets the maximum number of threads this monitor allows to acquire. The
+     * number of workers of this pool will be adjusted accordingly.
+     *
+     * @param maxThreadCount the maximum number.
+     * @see hk.hku.cecid.piazza.commons.module.ActiveMonitor#setMaxThreadCount(int)
+     */
+    public synchronized void setMaxThreadCount(int maxThreadCount) {
+        super.setMaxThreadCount(maxThreadCount);
+        if (executor != null) {
+            int size = getMaxThreadCount();
+            if (size > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(size);
+                executor.setCorePoolSize(size);
+            }
+            else {
+                executor.setCorePoolSize(size);
+                executor.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of threads waiting for a free worker.
+     *
+     * @return the number of threads waiting for a free worker.
+     */
+    public synchronized int getQueueSize() {
+        return executor == null ? 0 : executor.getQueue().size();
+    }
+
+    /**
+     * Gets the approximate number of workers which are executing tasks.
+     *
+     * @return the number of workers which are executing tasks.
+     */
+    public synchronized int getActiveCount() {
+        return executor == null ? 0 : executor.getActiveCount();
+    }
+
+    /**
+     * Gets the current number of workers in this pool.
+     *
+     * @return the current number of workers.
+     */
+    public synchronized int getPoolSize() {
+        return executor == null ? 0 : executor.getPoolSize();
+    }
+
+    /**
+     * Gets the approximate total number of tasks which have been completed
+     * by this pool.
+     *
+     * @return the total number of completed tasks.
+     */
+    public synchronized long getCompletedTaskCount() {
+        return executor == null ? completedTaskCount :
+            completedTaskCount + executor.getCompletedTaskCount();
+    }
+
+    /**
+     * WorkerFactory creates the named daemon worker threads of the pool.
+     */
+    private class WorkerFactory implements ThreadFactory {
+
+        private int count = 0;
+
+        public synchronized Thread newThread(Runnable r) {
+            Thread worker = new Thread(r, name + "-worker-" + (++count));
+            worker.setDaemon(true);
+            return worker;
+        }
+    }
+}
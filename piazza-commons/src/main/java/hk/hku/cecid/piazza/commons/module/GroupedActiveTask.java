@@ -0,0 +1,28 @@
+/* 
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ * 
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.module;
+
+
+/**
+ * GroupedActiveTask is an active task which belongs to a group, such as the 
+ * partnership of the message it delivers. An active task scheduler shares 
+ * the threads fairly among the groups of the tasks it schedules.
+ * 
+ * @see ActiveTaskScheduler
+ */
+public interface GroupedActiveTask extends ActiveTask {
+
+    /**
+     * Gets the group of this task.
+     * 
+     * @return the group of this task.
+     */
+    public String getTaskGroup();
+}
@@ -195,6 +195,24 @@ public class ModuleGroup {
         }
     }
     
+    /**
+     * Wakes up the specified active module in this module group.
+     * 
+     * @param id the module ID.
+     * @return true if the module is an active module and has been woken up.
+     * @see ActiveModule#wakeUp()
+     */
+    public boolean wakeUpModule(String id) {
+        Module module = getModule(id);
+        if (module instanceof ActiveModule) {
+            ((ActiveModule)module).wakeUp();
+            return true;
+        }
+        else {
+            return false;
+        }
+    }
+    
     /**
      * Gets the name of this module group.
      * 
@@ -0,0 +1,423 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.net;
+
+import hk.hku.cecid.piazza.commons.Sys;
+import hk.hku.cecid.piazza.commons.module.Component;
+import hk.hku.cecid.piazza.commons.util.StringUtilities;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+/**
+ * HttpConnectionManager is a component shared by all HTTP connectors for
+ * creating outbound HTTP/S connections.
+ * <p>
+ * Persistent connections are pooled per host by the HTTP protocol handler of
+ * the Java runtime, which can only reuse a connection if the same SSL socket
+ * factory is used. This manager therefore keeps one SSL context per key and
+ * trust manager configuration, so that both the connections and the TLS
+ * sessions are reused instead of doing a full handshake on every request.
+ * <p>
+ * The component parameters are:
+ * <p>
+ * <table border="1">
+ * <tr><th>Parameter</th><th>Description</th><th>Default</th></tr>
+ * <tr><td>connect-timeout</td><td>The connect timeout in milliseconds, or 0
+ * for no timeout.</td><td>30000</td></tr>
+ * <tr><td>read-timeout</td><td>The read timeout in milliseconds, or 0 for no
+ * timeout.</td><td>0</td></tr>
+ * <tr><td>keep-alive</td><td>Whether persistent connections are used. This
+ * sets the system property "http.keepAlive" if it is not set.</td><td>true</td></tr>
+ * <tr><td>max-connections</td><td>The maximum number of idle persistent
+ * connections kept per host. This sets the system property
+ * "http.maxConnections" if it is not set.</td><td>10</td></tr>
+ * <tr><td>ssl-protocol</td><td>The protocol of the SSL contexts.</td><td>TLS</td></tr>
+ * </table>
+ * <p>
+ * The system properties take effect only if they are set before the first
+ * HTTP connection is made in the Java runtime.
+ */
+public class HttpConnectionManager extends Component {
+
+    /**
+     * The component ID looked up in the system main module.
+     */
+    public static final String COMPONENT_ID = "http-connection-manager";
+
+    private static HttpConnectionManager defaultManager;
+
+    private int connectTimeout;
+
+    private int readTimeout;
+
+    private String sslProtocol;
+
+    private final Map sslContexts = new HashMap();
+
+    private final Map statistics = new HashMap();
+
+    /**
+     * Creates a new instance of HttpConnectionManager.
+     */
+    public HttpConnectionManager() {
+    }
+
+    /**
+     * Creates a new instance of HttpConnectionManager with the given timeouts
+     * and the default settings.
+     *
+     * @param connectTimeout the connect timeout in milliseconds.
+     * @param readTimeout the read timeout in milliseconds.
+     */
+    public HttpConnectionManager(int connectTimeout, int readTimeout) {
+        Properties p = new Properties();
+        p.setProperty("connect-timeout", String.valueOf(connectTimeout));
+        p.setProperty("read-timeout", String.valueOf(readTimeout));
+        setParameters(p);
+        init();
+    }
+
+    /**
+     * Gets the connection manager of the system main module, or a shared one
+     * with the default settings if it is not defined.
+     *
+     * @return the default connection manager.
+     */
+    public static synchronized HttpConnectionManager getDefault() {
+        Component component = Sys.main.getComponent(COMPONENT_ID);
+        if (component instanceof HttpConnectionManager) {
+            return (HttpConnectionManager) component;
+        }
+        if (defaultManager == null) {
+            defaultManager = new HttpConnectionManager();
+            defaultManager.setParameters(new Properties());
+            defaultManager.init();
+        }
+        return defaultManager;
+    }
+
+    /**
+     * Initializes the manager according to the component parameters.
+     *
+     * @see hk.hku.cecid.piazza.commons.module.Component#init()
+     */
+    protected void init() {
+        Properties p = getParameters();
+        connectTimeout = StringUtilities.parseInt(p.getProperty("connect-timeout"), 30000);
+        readTimeout = StringUtilities.parseInt(p.getProperty("read-timeout"), 0);
+        sslProtocol = p.getProperty("ssl-protocol", "TLS");
+
+        if (System.getProperty("http.keepAlive") == null) {
+            System.setProperty("http.keepAlive", p.getProperty("keep-alive", "true"));
+        }
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", p.getProperty("max-connections", "10"));
+        }
+    }
+
+    /**
+     * Opens a new HTTP connection to the given URL. The connection is not
+     * yet connected.
+     *
+     * @param url the URL to be connected.
+     * @param hostnameVerifier the host name verifier for HTTPS, or null for
+     *          the default one.
+     * @param sslSocketFactory the SSL socket factory for HTTPS, or null for
+     *          the default one.
+     * @return a new HTTP connection.
+     * @throws IOException if unable to open the connection.
+     */
+    public HttpURLConnection openConnection(URL url,
+            HostnameVerifier hostnameVerifier, SSLSocketFactory sslSocketFactory)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setUseCaches(false);
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+
+        if (connection instanceof HttpsURLConnection) {
+            HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
+            if (hostnameVerifier != null) {
+                httpsConnection.setHostnameVerifier(hostnameVerifier);
+            }
+            if (sslSocketFactory != null) {
+                httpsConnection.setSSLSocketFactory(sslSocketFactory);
+            }
+        }
+
+        getStatistics(url).requests++;
+        return connection;
+    }
+
+    /**
+     * Gets the SSL socket factory for the given key and trust managers. The
+     * same factory is returned for the same set of managers.
+     *
+     * @param keyManagers the key managers.
+     * @param trustManagers the trust managers.
+     * @return the SSL socket factory.
+     * @throws ConnectionException if unable to create the SSL context.
+     */
+    public SSLSocketFactory getSSLSocketFactory(KeyManager[] keyManagers,
+            TrustManager[] trustManagers) throws ConnectionException {
+        ManagersKey key = new ManagersKey(keyManagers, trustManagers);
+        synchronized (sslContexts) {
+            SSLSocketFactory factory = (SSLSocketFactory) sslContexts.get(key);
+            if (factory == null) {
+                try {
+                    SSLContext context = SSLContext.getInstance(sslProtocol);
+                    context.init(keyManagers, trustManagers, null);
+                    factory = new CountingSSLSocketFactory(context.getSocketFactory());
+                    sslContexts.put(key, factory);
+                }
+                catch (Exception e) {
+                    throw new ConnectionException("Unable to create SSL socket factory", e);
+                }
+            }
+            return factory;
+        }
+    }
+
+    /**
+     * Records a failed request to the given URL.
+     *
+     * @param url the URL of the failed request.
+     */
+    public void connectionFailed(URL url) {
+        getStatistics(url).failures++;
+    }
+
+    /**
+     * Gets the connect timeout.
+     *
+     * @return the connect timeout in milliseconds.
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Gets the read timeout.
+     *
+     * @return the read timeout in milliseconds.
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Gets the number of requests made to the given host.
+     *
+     * @param host the host name and port, e.g. "localhost:8080".
+     * @return the number of requests.
+     */
+    public long getRequestCount(String host) {
+        return getStatistics(host).requests;
+    }
+
+    /**
+     * Gets the number of failed requests made to the given host.
+     *
+     * @param host the host name and port, e.g. "localhost:8080".
+     * @return the number of failed requests.
+     */
+    public long getFailureCount(String host) {
+        return getStatistics(host).failures;
+    }
+
+    /**
+     * Gets the number of new SSL connections made to the given host. It is
+     * less than the number of HTTPS requests if connections are reused.
+     *
+     * @param host the host name and port, e.g. "localhost:8443".
+     * @return the number of new SSL connections.
+     */
+    public long getSSLConnectionCount(String host) {
+        return getStatistics(host).sslConnections;
+    }
+
+    /**
+     * Returns a string representation of this manager and its statistics.
+     *
+     * @return a string representation of this manager.
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        StringBuffer sb = new StringBuffer("HttpConnectionManager[" + getId() + "]");
+        synchronized (statistics) {
+            Iterator hosts = statistics.keySet().iterator();
+            while (hosts.hasNext()) {
+                String host = (String) hosts.next();
+                HostStatistics stat = (HostStatistics) statistics.get(host);
+                sb.append(" ").append(host).append(" requests: ").append(stat.requests)
+                        .append(", failures: ").append(stat.failures)
+                        .append(", ssl connections: ").append(stat.sslConnections)
+                        .append(";");
+            }
+        }
+        return sb.toString();
+    }
+
+    private HostStatistics getStatistics(URL url) {
+        int port = url.getPort() == -1? url.getDefaultPort() : url.getPort();
+        return getStatistics(url.getHost() + ":" + port);
+    }
+
+    private HostStatistics getStatistics(String host) {
+        synchronized (statistics) {
+            HostStatistics stat = (HostStatistics) statistics.get(host);
+            if (stat == null) {
+                stat = new HostStatistics();
+                statistics.put(host, stat);
+            }
+            return stat;
+        }
+    }
+
+    /**
+     * HostStatistics holds the counters of a host. The counters are updated
+     * without locking as they are for monitoring only.
+     */
+    private static class HostStatistics {
+
+        private volatile long requests;
+
+        private volatile long failures;
+
+        private volatile long sslConnections;
+    }
+
+    /**
+     * ManagersKey identifies a set of key and trust managers by the identity
+     * of the managers.
+     */
+    private static class ManagersKey {
+
+        private final Object[] managers;
+
+        private ManagersKey(KeyManager[] keyManagers, TrustManager[] trustManagers) {
+            ArrayList list = new ArrayList();
+            if (keyManagers != null) {
+                list.addAll(Arrays.asList(keyManagers));
+            }
+            list.add(null);
+            if (trustManagers != null) {
+                list.addAll(Arrays.asList(trustManagers));
+            }
+            managers = list.toArray();
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ManagersKey)) {
+                return false;
+            }
+            Object[] other = ((ManagersKey) obj).managers;
+            if (other.length != managers.length) {
+                return false;
+            }
+            for (int i = 0; i < managers.length; i++) {
+                if (managers[i] != other[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int hashCode() {
+            int hash = 1;
+            for (int i = 0; i < managers.length; i++) {
+                hash = hash * 31 + System.identityHashCode(managers[i]);
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * CountingSSLSocketFactory counts the SSL connections established to each
+     * host by listening to the completion of their handshakes.
+     */
+    private class CountingSSLSocketFactory extends SSLSocketFactory implements
+            HandshakeCompletedListener {
+
+        private final SSLSocketFactory factory;
+
+        private CountingSSLSocketFactory(SSLSocketFactory factory) {
+            this.factory = factory;
+        }
+
+        public void handshakeCompleted(HandshakeCompletedEvent event) {
+            SSLSession session = event.getSession();
+            getStatistics(session.getPeerHost() + ":" + session.getPeerPort()).sslConnections++;
+        }
+
+        private Socket track(Socket socket) {
+            if (socket instanceof SSLSocket) {
+                ((SSLSocket) socket).addHandshakeCompletedListener(this);
+            }
+            return socket;
+        }
+
+        public String[] getDefaultCipherSuites() {
+            return factory.getDefaultCipherSuites();
+        }
+
+        public String[] getSupportedCipherSuites() {
+            return factory.getSupportedCipherSuites();
+        }
+
+        public Socket createSocket() throws IOException {
+            return track(factory.createSocket());
+        }
+
+        public Socket createSocket(Socket s, String host, int port,
+                boolean autoClose) throws IOException {
+            return track(factory.createSocket(s, host, port, autoClose));
+        }
+
+        public Socket createSocket(String host, int port) throws IOException {
+            return track(factory.createSocket(host, port));
+        }
+
+        public Socket createSocket(String host, int port,
+                InetAddress localHost, int localPort) throws IOException {
+            return track(factory.createSocket(host, port, localHost, localPort));
+        }
+
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return track(factory.createSocket(host, port));
+        }
+
+        public Socket createSocket(InetAddress address, int port,
+                InetAddress localAddress, int localPort) throws IOException {
+            return track(factory.createSocket(address, port, localAddress, localPort));
+        }
+    }
+}
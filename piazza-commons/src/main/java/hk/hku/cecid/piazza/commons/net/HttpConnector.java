@@ -25,12 +25,13 @@ import java.util.Vector;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.KeyManager;
-import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 
 /**
- * HttpConnector is a connector for making HTTP/S connections to an URL.
+ * HttpConnector is a connector for making HTTP/S connections to an URL. The
+ * connections are created by the shared {@link HttpConnectionManager} so 
+ * that persistent connections and SSL sessions can be reused among connectors.
  * 
  * @author Hugo Y. K. Lam
  *  
@@ -46,6 +47,8 @@ public class HttpConnector {
     
     private Map headers;
     
+    private HttpConnectionManager connectionManager = HttpConnectionManager.getDefault();
+    
     /**
      * Creates a new instance of HttpConnector.
      * 
@@ -119,28 +122,53 @@ public class HttpConnector {
     }
     
     /**
-     * Gets the SSL socket factory which is used in SSL connection.
+     * Gets the SSL socket factory which is used in SSL connection. The same
+     * factory is shared by all connectors having the same key and trust 
+     * managers.
      * 
      * @return the SSL socket factory.
      * @throws ConnectionException if unable to create SSL socket factory.
      */
     public SSLSocketFactory getSSLSocketFactory() throws ConnectionException {
-        try {
-            if (keyManagers.size() > 0 || trustManagers.size() > 0) {
-                SSLContext context = SSLContext.getInstance("SSL");
-                context.init((KeyManager[]) keyManagers.toArray(new KeyManager[] {}),
-                        (TrustManager[]) trustManagers.toArray(new TrustManager[] {}),
-                        null);
-                return context.getSocketFactory();
-            }
-            else {
-                return HttpsURLConnection.getDefaultSSLSocketFactory();
-            }
-        } catch (Exception e) {
-            throw new ConnectionException("Unable to create SSL socket factory", e);
+        if (keyManagers.size() > 0 || trustManagers.size() > 0) {
+            return connectionManager.getSSLSocketFactory(
+                    (KeyManager[]) keyManagers.toArray(new KeyManager[] {}),
+                    (TrustManager[]) trustManagers.toArray(new TrustManager[] {}));
+        }
+        else {
+            return HttpsURLConnection.getDefaultSSLSocketFactory();
         }
     }    
     
+    /**
+     * Gets the connection manager which creates the HTTP connections.
+     * 
+     * @return the connection manager.
+     */
+    public HttpConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+    
+    /**
+     * Sets the connection manager which creates the HTTP connections.
+     * 
+     * @param connectionManager the connection manager.
+     */
+    public void setConnectionManager(HttpConnectionManager connectionManager) {
+        if (connectionManager != null) {
+            this.connectionManager = connectionManager;
+        }
+    }
+    
+    /**
+     * Gets the URL of this connector.
+     * 
+     * @return the URL to be connected.
+     */
+    public URL getURL() {
+        return url;
+    }
+    
     /**
      * Sets the HTTP request headers.
      * 
@@ -167,14 +195,10 @@ public class HttpConnector {
      */
     public HttpURLConnection createConnection() throws ConnectionException {
         try {
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setUseCaches(false);
-    
-            if (connection instanceof HttpsURLConnection) {
-                HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
-                httpsConnection.setHostnameVerifier(getHostnameVerifier());
-                httpsConnection.setSSLSocketFactory(getSSLSocketFactory());
-            }
+            SSLSocketFactory sslSocketFactory = "https".equalsIgnoreCase(url
+                    .getProtocol())? getSSLSocketFactory() : null;
+            HttpURLConnection connection = connectionManager.openConnection(url,
+                    getHostnameVerifier(), sslSocketFactory);
     
             if (headers != null) {
                 Iterator headerKeys = headers.keySet().iterator();
@@ -230,6 +254,7 @@ public class HttpConnector {
             return connection.getInputStream();
         }
         catch (Exception e) {
+            connectionManager.connectionFailed(url);
             throw new ConnectionException("Unable to send HTTP request", e);
         }
         finally {
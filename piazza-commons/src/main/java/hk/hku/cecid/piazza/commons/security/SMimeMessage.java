@@ -10,11 +10,16 @@
 package hk.hku.cecid.piazza.commons.security;
 
 import hk.hku.cecid.piazza.commons.activation.Mailcap;
+import hk.hku.cecid.piazza.commons.io.CountingOutputStream;
+import hk.hku.cecid.piazza.commons.io.SpooledContent;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestInputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.Security;
@@ -22,7 +27,9 @@ import java.security.cert.CertStore;
 import java.security.cert.CollectionCertStoreParameters;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.activation.CommandInfo;
 import javax.activation.CommandMap;
@@ -31,6 +38,7 @@ import javax.mail.Session;
 import javax.mail.internet.InternetHeaders;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMultipart;
+import javax.mail.util.SharedFileInputStream;
 
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.cms.AttributeTable;
@@ -47,10 +55,10 @@ import org.bouncycastle.cms.RecipientInformationStore;
 import org.bouncycastle.cms.SignerInformation;
 import org.bouncycastle.cms.SignerInformationStore;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.bouncycastle.mail.smime.SMIMECompressed;
 import org.bouncycastle.mail.smime.SMIMECompressedGenerator;
-import org.bouncycastle.mail.smime.SMIMEEnveloped;
+import org.bouncycastle.mail.smime.SMIMECompressedParser;
 import org.bouncycastle.mail.smime.SMIMEEnvelopedGenerator;
+import org.bouncycastle.mail.smime.SMIMEEnvelopedParser;
 import org.bouncycastle.mail.smime.SMIMESigned;
 import org.bouncycastle.mail.smime.SMIMESignedGenerator;
 import org.bouncycastle.util.encoders.Base64;
@@ -60,6 +68,10 @@ import org.bouncycastle.util.encoders.Base64;
  * SMimeMessage represents a Secure MIME Message. It encapsulates a MIME body part 
  * and provides methods for digital signing, signature verification, encryption,
  * decryption, compression, and decompression.
+ * <p>
+ * The signed, decrypted, and decompressed body parts are created in one pass 
+ * over the streamed content. A body part larger than the spool threshold is 
+ * kept in a temporary file, which is deleted when the message is disposed. 
  * 
  * @author Hugo Y. K. Lam
  *
@@ -110,6 +122,11 @@ public class SMimeMessage {
      */
     public static final String CONTENT_TRANSFER_ENC_BINARY = "binary";
     
+    /**
+     * The default maximum size of a body part kept in memory.
+     */
+    public static final int DEFAULT_SPOOL_THRESHOLD = 1048576;
+    
     private static final String SECURITY_PROVIDER = "BC"; 
     
     private MimeBodyPart bodyPart;
@@ -126,6 +143,12 @@ public class SMimeMessage {
     
     private String contentTransferEncoding;
 
+    private int spoolThreshold = DEFAULT_SPOOL_THRESHOLD;
+    
+    private File spoolDirectory;
+    
+    private List spooledParts = Collections.synchronizedList(new ArrayList());
+
     static {
         Security.addProvider(new BouncyCastleProvider());
     }
@@ -197,6 +220,9 @@ public class SMimeMessage {
         this.digestAlgorithm = smime.digestAlgorithm;
         this.encryptAlgorithm = smime.encryptAlgorithm;
         this.contentTransferEncoding = smime.contentTransferEncoding;
+        this.spoolThreshold = smime.spoolThreshold;
+        this.spoolDirectory = smime.spoolDirectory;
+        this.spooledParts = smime.spooledParts;
     }
     
     /**
@@ -241,12 +267,20 @@ public class SMimeMessage {
                 /* Sign the body part */
                 MimeMultipart mm = signer.generate(bodyPart, SECURITY_PROVIDER);
 
-                InternetHeaders headers = new InternetHeaders();
                 boolean isContentTypeFolded = new Boolean(System.getProperty("mail.mime.foldtext","true")).booleanValue();
-                headers.setHeader("Content-Type", isContentTypeFolded? mm.getContentType():mm.getContentType().replaceAll("\\s", " "));
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                mm.writeTo(baos);  
-                MimeBodyPart signedPart = new MimeBodyPart(headers, baos.toByteArray());
+                String contentType = isContentTypeFolded? mm.getContentType():mm.getContentType().replaceAll("\\s", " ");
+
+                /* The signature is computed while the multipart is written */
+                SpooledContent content = new SpooledContent(spoolThreshold, spoolDirectory);
+                OutputStream out = content.openOutputStream();
+                try {
+                    out.write(("Content-Type: " + contentType + "\r\n\r\n").getBytes("ISO-8859-1"));
+                    mm.writeTo(out);
+                }
+                finally {
+                    out.close();
+                }
+                MimeBodyPart signedPart = createBodyPart(content);
 
                 return new SMimeMessage(signedPart, this);
             }
@@ -406,7 +440,7 @@ public class SMimeMessage {
         try {
             setDefaults();
             
-            SMIMEEnveloped       m = new SMIMEEnveloped(bodyPart);
+            SMIMEEnvelopedParser m = new SMIMEEnvelopedParser(bodyPart);
             RecipientId          recId = new RecipientId();
     
             recId.setSerialNumber(cert.getSerialNumber());
@@ -418,8 +452,14 @@ public class SMimeMessage {
             if (recipient == null) {
                 throw new SMimeException("Invalid encrypted content");
             }
-            ByteArrayInputStream ins = new ByteArrayInputStream(recipient.getContent(privateKey, "BC"));
-            MimeBodyPart decryptedPart = new MimeBodyPart(ins); 
+            MimeBodyPart decryptedPart;
+            InputStream ins = recipient.getContentStream(privateKey, "BC").getContentStream();
+            try {
+                decryptedPart = createBodyPart(ins);
+            }
+            finally {
+                m.close();
+            }
             return new SMimeMessage(decryptedPart, this);
         }
         catch (Exception e) {
@@ -465,10 +505,14 @@ public class SMimeMessage {
         try {
             setDefaults();
             
-            SMIMECompressed      m = new SMIMECompressed(bodyPart);
-            ByteArrayInputStream ins = new ByteArrayInputStream(m.getContent());
-            
-            MimeBodyPart decompressedPart = new MimeBodyPart(ins); 
+            SMIMECompressedParser m = new SMIMECompressedParser(bodyPart);
+            MimeBodyPart decompressedPart;
+            try {
+                decompressedPart = createBodyPart(m.getContent().getContentStream());
+            }
+            finally {
+                m.close();
+            }
             return new SMimeMessage(decompressedPart, this);
         }
         catch (Exception e) {
@@ -502,26 +546,28 @@ public class SMimeMessage {
             }
     
             MessageDigest md = MessageDigest.getInstance(digestAlg, "BC");
+            DigestOutputStream digOuts = new DigestOutputStream(new CountingOutputStream(), md);
         
-            InputStream ins;
-            
             if (isHeadersIncluded) {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                bodyPart.writeTo(baos);
-                byte[] data = baos.toByteArray();
-                ins = canonicalize(data);
+                OutputStream outs = new CanonicalOutputStream(digOuts);
+                bodyPart.writeTo(outs);
+                outs.close();
             }
             else {
-                ins = bodyPart.getInputStream();
-            }
-        
-            DigestInputStream digIns = new DigestInputStream(ins, md);
-        
-            byte[] buf = new byte[1024];
-            while (digIns.read(buf) >= 0) {
+                InputStream ins = bodyPart.getInputStream();
+                try {
+                    byte[] buf = new byte[8192];
+                    int len;
+                    while ((len = ins.read(buf)) >= 0) {
+                        digOuts.write(buf, 0, len);
+                    }
+                }
+                finally {
+                    ins.close();
+                }
             }
         
-            byte[] digest = digIns.getMessageDigest().digest();
+            byte[] digest = md.digest();
             String digestString = new String(Base64.encode(digest));
             return digestString;
         }
@@ -531,29 +577,50 @@ public class SMimeMessage {
     }
     
     /**
-     * Canonicalizes the given data by removing the starting new lines.
+     * Creates a MIME body part from the given MIME content. The content is 
+     * spooled to a temporary file if it exceeds the spool threshold.
      * 
-     * @param data the data to be canonicalized.
-     * @return the canonicalized data as an input stream.
+     * @param ins the MIME content, including the headers.
+     * @return the MIME body part.
+     * @throws Exception if unable to read the content.
      */
-    private static InputStream canonicalize(byte[] data) {
-        if (data == null) {
-            data = new byte[]{};
+    private MimeBodyPart createBodyPart(InputStream ins) throws Exception {
+        return createBodyPart(new SpooledContent(ins, spoolThreshold, spoolDirectory));
+    }
+    
+    /**
+     * Creates a MIME body part from the given spooled MIME content.
+     * 
+     * @param content the MIME content, including the headers.
+     * @return the MIME body part.
+     * @throws Exception if unable to read the content.
+     */
+    private MimeBodyPart createBodyPart(SpooledContent content) throws Exception {
+        if (!content.isSpooled()) {
+            MimeBodyPart part = new MimeBodyPart(new ByteArrayInputStream(content.getBytes()));
+            content.dispose();
+            return part;
         }
         
-        int pos = 0;
-        for (int i=0; i+1<data.length; i+=2) {
-            if (data[i] == '\r' && data[i+1] == '\n') {
-                pos += 2;
-            }
-            else {
-                break;
+        SpooledBodyPart part = new SpooledBodyPart(content);
+        spooledParts.add(part);
+        return part;
+    }
+
+    /**
+     * Releases the temporary files of the body parts created by this message
+     * and the messages derived from it. The body parts should not be used 
+     * afterwards.
+     */
+    public void dispose() {
+        synchronized (spooledParts) {
+            Iterator parts = spooledParts.iterator();
+            while (parts.hasNext()) {
+                ((SpooledBodyPart) parts.next()).dispose();
             }
+            spooledParts.clear();
         }
-        
-        return new ByteArrayInputStream(data, pos, data.length);
     }
-
     
     /**
      * Checks if the encapsulated MIME body part is encrypted.
@@ -678,6 +745,35 @@ public class SMimeMessage {
         this.contentTransferEncoding = contentTransferEncoding;
     }
     
+    /**
+     * Gets the maximum size of a body part which is kept in memory.
+     * 
+     * @return the spool threshold in bytes.
+     */
+    public int getSpoolThreshold() {
+        return spoolThreshold;
+    }
+    
+    /**
+     * Sets the maximum size of a body part which is kept in memory. A larger 
+     * body part is kept in a temporary file.
+     * 
+     * @param spoolThreshold the spool threshold in bytes.
+     */
+    public void setSpoolThreshold(int spoolThreshold) {
+        this.spoolThreshold = spoolThreshold;
+    }
+    
+    /**
+     * Sets the directory of the temporary files.
+     * 
+     * @param spoolDirectory the directory or null for the default temporary 
+     *        directory.
+     */
+    public void setSpoolDirectory(File spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+    
     /**
      * Sets the default mail caps.
      */
@@ -695,5 +791,96 @@ public class SMimeMessage {
         
         CommandMap.setDefaultCommandMap(mailcap);
     }
+    
+    /**
+     * SpooledBodyPart is a MIME body part whose content is read from a 
+     * temporary file.
+     */
+    private static class SpooledBodyPart extends MimeBodyPart {
+        
+        private SpooledContent content;
+        
+        private SharedFileInputStream ins;
+        
+        private SpooledBodyPart(SpooledContent content) throws Exception {
+            this(content, new SharedFileInputStream(content.getFile()));
+        }
+        
+        private SpooledBodyPart(SpooledContent content, SharedFileInputStream ins) throws Exception {
+            super(ins);
+            this.content = content;
+            this.ins = ins;
+        }
+        
+        private synchronized void dispose() {
+            if (content != null) {
+                try {
+                    ins.close();
+                }
+                catch (IOException e) {
+                }
+                content.dispose();
+                content = null;
+            }
+        }
+        
+        protected void finalize() throws Throwable {
+            dispose();
+            super.finalize();
+        }
+    }
+    
+    /**
+     * CanonicalOutputStream removes the starting new lines of the written 
+     * data.
+     */
+    private static class CanonicalOutputStream extends FilterOutputStream {
+        
+        private boolean isStarted;
+        
+        private boolean isPendingCR;
+        
+        private CanonicalOutputStream(OutputStream out) {
+            super(out);
+        }
+        
+        public void write(int b) throws IOException {
+            if (!isStarted) {
+                if (isPendingCR) {
+                    isPendingCR = false;
+                    if (b == '\n') {
+                        return;
+                    }
+                    isStarted = true;
+                    out.write('\r');
+                }
+                else if (b == '\r') {
+                    isPendingCR = true;
+                    return;
+                }
+                else {
+                    isStarted = true;
+                }
+            }
+            out.write(b);
+        }
+        
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (!isStarted && len > 0) {
+                write(b[off++]);
+                len--;
+            }
+            if (len > 0) {
+                out.write(b, off, len);
+            }
+        }
+        
+        public void close() throws IOException {
+            if (isPendingCR) {
+                isPendingCR = false;
+                out.write('\r');
+            }
+            super.close();
+        }
+    }
 }
- 
\ No newline at end of file
@@ -10,12 +10,14 @@
 package hk.hku.cecid.piazza.commons.soap;
 
 import hk.hku.cecid.piazza.commons.Sys;
-import hk.hku.cecid.piazza.commons.io.IOHandler;
+import hk.hku.cecid.piazza.commons.io.SpooledContent;
 import hk.hku.cecid.piazza.commons.servlet.RequestListenerException;
 import hk.hku.cecid.piazza.commons.servlet.http.HttpRequestAdaptor;
 import hk.hku.cecid.piazza.commons.util.Headers;
+import hk.hku.cecid.piazza.commons.util.StringUtilities;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.util.Iterator;
@@ -32,6 +34,13 @@ import javax.xml.soap.SOAPMessage;
 /**
  * SOAPHttpAdaptor is both an HttpRequestListener and SOAPRequestListener. It is
  * an adaptor for handling SOAP on Http requests.
+ * <p>
+ * If cache is enabled, the original request is kept in memory when its size 
+ * does not exceed the listener parameter "spool-threshold" (in bytes, 1MB by
+ * default). Larger requests are spooled to a temporary file under the 
+ * directory specified by the listener parameter "spool-directory", or the
+ * default temporary directory if it is not specified. The spooled file is
+ * deleted when the request has been processed.
  * 
  * @author Hugo Y. K. Lam
  *  
@@ -49,6 +58,12 @@ public abstract class SOAPHttpAdaptor extends HttpRequestAdaptor implements
      */
     protected SOAPFactory    soapFactory;
 
+    private static final int DEFAULT_SPOOL_THRESHOLD = 1024 * 1024;
+
+    private int spoolThreshold = DEFAULT_SPOOL_THRESHOLD;
+
+    private File spoolDirectory;
+
     /**
      * Creates a new instance of MessageFactory.
      * 
@@ -56,6 +71,11 @@ public abstract class SOAPHttpAdaptor extends HttpRequestAdaptor implements
      * @see hk.hku.cecid.piazza.commons.servlet.RequestListener#listenerCreated()
      */
     public void listenerCreated() throws RequestListenerException {
+        spoolThreshold = StringUtilities.parseInt(
+                getParameters().getProperty("spool-threshold"),
+                DEFAULT_SPOOL_THRESHOLD);
+        String dir = getParameters().getProperty("spool-directory");
+        spoolDirectory = dir == null || dir.trim().equals("")? null:new File(dir);
         try {
             msgFactory = MessageFactory.newInstance();
             soapFactory = SOAPFactory.newInstance();
@@ -83,6 +103,8 @@ public abstract class SOAPHttpAdaptor extends HttpRequestAdaptor implements
      */
     public String processRequest(HttpServletRequest request,
             HttpServletResponse response) throws RequestListenerException {
+        SpooledContent requestContent = null;
+        InputStream contentStream = null;
         try {
             Headers headers = new Headers(request, response);
             
@@ -99,15 +121,15 @@ public abstract class SOAPHttpAdaptor extends HttpRequestAdaptor implements
                  */
                 MimeHeaders mimeHeaders = headers.getMimeHeaders();
                 
-                byte[] requestBytes;
                 InputStream requestStream;
                 
                 if (isCacheEnabled()) {
-                    requestBytes = IOHandler.readBytes(request.getInputStream());
-                    requestStream = new ByteArrayInputStream(requestBytes);
+                    requestContent = new SpooledContent(
+                            request.getInputStream(), spoolThreshold,
+                            spoolDirectory);
+                    requestStream = contentStream = requestContent.openStream();
                 }
                 else {
-                    requestBytes = null;
                     requestStream = request.getInputStream();
                 }
                 
@@ -124,7 +146,7 @@ public abstract class SOAPHttpAdaptor extends HttpRequestAdaptor implements
                 }
 
                 SOAPRequest soapRequest = new SOAPRequest(request);
-                soapRequest.setBytes(requestBytes);
+                soapRequest.setContent(requestContent);
                 soapRequest.setHeaders(mimeHeaders);
                 soapRequest.setMessage(soapMessage);
 
@@ -217,6 +239,19 @@ public abstract class SOAPHttpAdaptor extends HttpRequestAdaptor implements
                     "Error in transforming the HTTP request into SOAP request",
                     e);
         }
+        finally {
+            if (requestContent != null) {
+                try {
+                    if (contentStream != null) {
+                        contentStream.close();
+                    }
+                }
+                catch (IOException e) {
+                    Sys.main.log.debug("Unable to close the cached SOAP request", e);
+                }
+                requestContent.dispose();
+            }
+        }
     }
 
     /**
@@ -9,13 +9,13 @@
 
 package hk.hku.cecid.piazza.commons.soap;
 
+import hk.hku.cecid.piazza.commons.io.DirectByteArrayOutputStream;
 import hk.hku.cecid.piazza.commons.io.IOHandler;
 import hk.hku.cecid.piazza.commons.net.ConnectionException;
 import hk.hku.cecid.piazza.commons.net.HttpConnector;
 import hk.hku.cecid.piazza.commons.util.Headers;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
@@ -58,7 +58,10 @@ public class SOAPHttpConnector extends HttpConnector {
     }
     
     /**
-     * Sends an HTTP SOAP request using the given HTTP connection.
+     * Sends an HTTP SOAP request using the given HTTP connection. The request
+     * is serialized only once and then streamed to the connection with its
+     * content length fixed, so that the connection does not buffer another
+     * copy of the request.
      * 
      * @param request the SOAP request message.
      * @param connection the HTTP connection for sending the request.
@@ -70,10 +73,8 @@ public class SOAPHttpConnector extends HttpConnector {
         try {
             Headers headers = new Headers(connection);
             
-            ByteArrayOutputStream soapStream = new ByteArrayOutputStream();
+            DirectByteArrayOutputStream soapStream = new DirectByteArrayOutputStream(8192);
             request.writeTo(soapStream);
-            byte[] soapBytes = soapStream.toByteArray();
-            soapStream.close();
             
             headers.putMimeHeaders(request.getMimeHeaders());
 
@@ -81,8 +82,10 @@ public class SOAPHttpConnector extends HttpConnector {
             
             try {
                 connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(soapStream.size());
                 outstream = connection.getOutputStream();
-                IOHandler.writeBytes(soapBytes, outstream);
+                soapStream.writeTo(outstream);
+                outstream.flush();
                 connection.connect();
                 instream = connection.getInputStream();
             }
@@ -100,6 +103,8 @@ public class SOAPHttpConnector extends HttpConnector {
             MimeHeaders responseHeaders = headers.getMimeHeaders();
             MessageFactory msgFactory = MessageFactory.newInstance();
             byte[] responseBytes = IOHandler.readBytes(instream);
+            // return the connection to the keep-alive pool
+            instream.close();
             if (responseBytes.length > 0) {
                 instream = new ByteArrayInputStream(responseBytes);
                 return msgFactory.createMessage(responseHeaders, instream);
@@ -109,6 +114,7 @@ public class SOAPHttpConnector extends HttpConnector {
             }
         }
         catch (Exception e) {
+            getConnectionManager().connectionFailed(getURL());
             throw new ConnectionException("Unable to send HTTP SOAP request", e);
         }
         finally {
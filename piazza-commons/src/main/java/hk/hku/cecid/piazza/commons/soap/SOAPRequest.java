@@ -9,6 +9,11 @@
 
 package hk.hku.cecid.piazza.commons.soap;
 
+import hk.hku.cecid.piazza.commons.io.SpooledContent;
+
+import java.io.IOException;
+import java.io.InputStream;
+
 import javax.xml.soap.MimeHeaders;
 import javax.xml.soap.SOAPMessage;
 
@@ -26,7 +31,7 @@ public class SOAPRequest {
 
     private SOAPMessage message;
 
-    private byte[]      bytes;
+    private SpooledContent content;
 
     private Object      source;
 
@@ -46,12 +51,55 @@ public class SOAPRequest {
     }
 
     /**
-     * Gets the SOAP message as bytes.
+     * Gets the SOAP message as bytes. If the request has been spooled to a
+     * file, the whole message will be loaded into memory and 
+     * {@link #getInputStream()} should be used instead.
      * 
-     * @return the byte array of the SOAP message.
+     * @return the byte array of the SOAP message or null if the original
+     *         request is not cached.
      */
     public byte[] getBytes() {
-        return bytes;
+        if (content == null) {
+            return null;
+        }
+        try {
+            return content.getBytes();
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Unable to read the cached SOAP request", e);
+        }
+    }
+
+    /**
+     * Opens a new input stream for reading the original SOAP message from 
+     * the beginning. The caller is responsible for closing the stream.
+     * 
+     * @return the input stream of the SOAP message or null if the original
+     *         request is not cached.
+     * @throws IOException if the cached request cannot be read.
+     */
+    public InputStream getInputStream() throws IOException {
+        return content == null? null:content.openStream();
+    }
+
+    /**
+     * Gets the size of the original SOAP message.
+     * 
+     * @return the number of bytes of the SOAP message or -1 if the original
+     *         request is not cached.
+     */
+    public long getContentLength() {
+        return content == null? -1:content.getLength();
+    }
+
+    /**
+     * Checks if the original SOAP message has been spooled to a file instead
+     * of being kept in memory.
+     * 
+     * @return true if the SOAP message has been spooled to a file.
+     */
+    public boolean isSpooled() {
+        return content != null && content.isSpooled();
     }
 
     /**
@@ -82,12 +130,12 @@ public class SOAPRequest {
     }
 
     /**
-     * Sets the bytes of the SOAP message. 
+     * Sets the cached content of the SOAP message. 
      * 
-     * @param bs the byte array of the SOAP message.
+     * @param content the cached content of the SOAP message.
      */
-    void setBytes(byte[] bs) {
-        bytes = bs;
+    void setContent(SpooledContent content) {
+        this.content = content;
     }
 
     /**
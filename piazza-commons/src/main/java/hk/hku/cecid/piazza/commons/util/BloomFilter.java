@@ -0,0 +1,142 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.util;
+
+/**
+ * BloomFilter is a space efficient set of strings which answers whether a
+ * string may have been added. A string which has been added is always
+ * reported as present, while a string which has not been added is reported
+ * as present with the false positive probability given on construction.
+ * <p>
+ * The probability holds until the number of added strings exceeds the
+ * expected number of insertions, after which the filter is saturated and
+ * the probability grows.
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    private final int capacity;
+
+    private int count;
+
+    /**
+     * Creates a new instance of BloomFilter.
+     *
+     * @param capacity the expected number of insertions.
+     * @param falsePositiveRate the false positive probability, between 0 and
+     *            1 exclusively.
+     */
+    public BloomFilter(int capacity, double falsePositiveRate) {
+        if (capacity < 1) {
+            capacity = 1;
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException(
+                    "Invalid false positive rate: " + falsePositiveRate);
+        }
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate)
+                / (ln2 * ln2));
+        this.bitCount = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount
+                / capacity * ln2));
+        this.bits = new long[(bitCount + 63) / 64];
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds a string to this filter.
+     *
+     * @param s the string to be added.
+     */
+    public synchronized void add(String s) {
+        int h1 = s.hashCode();
+        int h2 = hash(s);
+        boolean isNew = false;
+        for (int i = 0; i < hashCount; i++) {
+            int index = ((h1 + i * h2) & 0x7fffffff) % bitCount;
+            long mask = 1L << index;
+            if ((bits[index >>> 6] & mask) == 0) {
+                bits[index >>> 6] |= mask;
+                isNew = true;
+            }
+        }
+        if (isNew) {
+            count++;
+        }
+    }
+
+    /**
+     * Checks whether a string may have been added to this filter.
+     *
+     * @param s the string to be checked.
+     * @return false if the string has not been added, true if it may have
+     *         been added.
+     */
+    public synchronized boolean mightContain(String s) {
+        int h1 = s.hashCode();
+        int h2 = hash(s);
+        for (int i = 0; i < hashCount; i++) {
+            int index = ((h1 + i * h2) & 0x7fffffff) % bitCount;
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the expected number of insertions of this filter.
+     *
+     * @return the expected number of insertions.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the approximate number of strings added to this filter. Strings
+     * which were reported as present when added are not counted.
+     *
+     * @return the approximate number of added strings.
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Checks whether more strings than the expected number of insertions
+     * have been added.
+     *
+     * @return true if this filter is saturated.
+     */
+    public synchronized boolean isSaturated() {
+        return count > capacity;
+    }
+
+    /**
+     * The FNV-1a hash of the string, which is independent of
+     * String#hashCode().
+     */
+    private static int hash(String s) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x01000193;
+        }
+        // a zero step would set the same bit for every hash function
+        return h | 1;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.util;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+
+
+/**
+ * ClusterNode identifies this running instance among the instances which
+ * share the same database. The identity is taken from the system property
+ * <code>piazza.node.id</code> if it is set. Otherwise, the name of the
+ * running JVM, which is normally in the form of <code>pid@hostname</code>,
+ * will be used.
+ * <p>
+ * A node should be given a fixed identity if it should resume its own work
+ * after a restart.
+ * <p>
+ * Work owned by a node is protected by a lease which the node renews
+ * periodically. The lease timeout, in milliseconds, is taken from the system
+ * property <code>piazza.node.lease-timeout</code> and is 2 minutes by
+ * default. The work of a node whose lease has expired can be taken over by
+ * any other node.
+ */
+public final class ClusterNode {
+
+    /**
+     * The system property for specifying the node identity.
+     */
+    public static final String PROPERTY_NODE_ID = "piazza.node.id";
+
+    /**
+     * The system property for specifying the lease timeout in milliseconds.
+     */
+    public static final String PROPERTY_LEASE_TIMEOUT = "piazza.node.lease-timeout";
+
+    private static final long DEFAULT_LEASE_TIMEOUT = 120000;
+
+    private static final String id;
+
+    private static final long leaseTimeout;
+
+    static {
+        String nodeId = System.getProperty(PROPERTY_NODE_ID);
+        if (nodeId == null || nodeId.trim().equals("")) {
+            try {
+                nodeId = ManagementFactory.getRuntimeMXBean().getName();
+            } catch (Throwable e) {
+                nodeId = Generator.generateUUID();
+            }
+        }
+        id = nodeId.trim();
+
+        long timeout = StringUtilities.parseLong(
+                System.getProperty(PROPERTY_LEASE_TIMEOUT), DEFAULT_LEASE_TIMEOUT);
+        leaseTimeout = timeout > 0 ? timeout : DEFAULT_LEASE_TIMEOUT;
+    }
+
+    /**
+     * Creates a new instance of ClusterNode.
+     */
+    private ClusterNode() {
+    }
+
+    /**
+     * Gets the identity of this node.
+     *
+     * @return the node identity.
+     */
+    public static String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the lease timeout of the work owned by a node.
+     *
+     * @return the lease timeout in milliseconds.
+     */
+    public static long getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    /**
+     * Gets the expiry time of a lease which is acquired or renewed now.
+     *
+     * @return the lease expiry time.
+     */
+    public static Timestamp getLeaseExpiry() {
+        return new Timestamp(System.currentTimeMillis() + leaseTimeout);
+    }
+
+    /**
+     * Gets the time before which a lease should be renewed now. A lease is
+     * renewed when half of its timeout has elapsed so that it would not
+     * expire between two renewals.
+     *
+     * @return the lease renewal threshold.
+     */
+    public static Timestamp getLeaseRenewalThreshold() {
+        return new Timestamp(System.currentTimeMillis() + leaseTimeout / 2);
+    }
+}
@@ -12,6 +12,7 @@ package hk.hku.cecid.piazza.commons.util;
 import java.net.InetAddress;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -23,10 +24,37 @@ import java.util.UUID;
  */
 public class Generator {
 
-    private static int messageIdCounter = 0;
+    /*
+     * The sequence starts from the start time shifted by 20 bits so that it
+     * never repeats across restarts unless more than 2^20 IDs are generated
+     * per millisecond of uptime.
+     */
+    private static final AtomicLong messageIdSequence = new AtomicLong(
+            System.currentTimeMillis() << 20);
+
+    private static final String messageIdSuffix;
+
+    private static volatile MessageIdTimestamp messageIdTimestamp = new MessageIdTimestamp(
+            -1, null);
+
+    static {
+        StringBuffer suffix = new StringBuffer();
+        String nodeId = System.getProperty(ClusterNode.PROPERTY_NODE_ID);
+        if (nodeId != null && !nodeId.trim().equals("")) {
+            suffix.append('.').append(toAtom(nodeId.trim()));
+        }
+
+        String domain;
+        try {
+            InetAddress localAddr = InetAddress.getLocalHost();
+            domain = localAddr.getHostAddress();
+        } catch (Exception e) {
+            domain = "unknown-domain";
+        }
+        suffix.append('@').append(domain);
+        messageIdSuffix = suffix.toString();
+    }
 
-    private static Object messageIdCounterLock = new Object();
-    
     /**
      * Creates a new instance of Generator.
      */
@@ -36,37 +64,63 @@ public class Generator {
     /**
      * Generates a message ID which conforms to 
      * <a href="http://www.ietf.org/rfc/rfc2822.txt">RFC2822</a>
+     * <p>
+     * The message ID consists of the generation time, a sequence number
+     * which is unique in this node, the node identity if the system property
+     * <code>piazza.node.id</code> is set, and the address of the local host.
      * 
      * @return the message ID.
      */
     public static String generateMessageID() {
         // this message id conforms to MessageId [RFC2822]
-        DataFormatter messageIdFormatter = DataFormatter.getInstance();
-        Date timestamp = new Date();
-        int localCounter;
-        synchronized (messageIdCounterLock) {
-            messageIdCounter %= 100;
-            localCounter = messageIdCounter;
-            messageIdCounter++;
+        long now = System.currentTimeMillis();
+        MessageIdTimestamp timestamp = messageIdTimestamp;
+        if (timestamp.millis != now) {
+            timestamp = new MessageIdTimestamp(now, DataFormatter
+                    .getInstance().formatDate(new Date(now),
+                            "yyyyMMdd-HHmmss-SSS"));
+            messageIdTimestamp = timestamp;
         }
+        String sequence = Long.toString(messageIdSequence.getAndIncrement(),
+                36);
 
-        final StringBuffer messageId = new StringBuffer();
-        messageId.append(messageIdFormatter.formatDate(timestamp,
-                "yyyyMMdd-HHmmss-SSS"));
-        messageId.append(StringUtilities.addLeadingZero(String
-                .valueOf(localCounter), 2));
+        return new StringBuilder(timestamp.text.length() + sequence.length()
+                + messageIdSuffix.length() + 1).append(timestamp.text)
+                .append('-').append(sequence).append(messageIdSuffix)
+                .toString();
+    }
 
-        String domain;
-        try {
-            InetAddress localAddr = InetAddress.getLocalHost();
-            domain = localAddr.getHostAddress();
-        } catch (Exception e) {
-            domain = "unknown-domain";
+    /**
+     * Replaces the characters which are not allowed in an RFC2822 atom.
+     */
+    private static String toAtom(String s) {
+        StringBuffer atom = new StringBuffer(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (c >= '0' && c <= '9') || c == '_') {
+                atom.append(c);
+            } else {
+                atom.append('-');
+            }
         }
+        return atom.toString();
+    }
 
-        messageId.append("@").append(domain);
+    /**
+     * The formatted generation time of message IDs, which is shared by the
+     * message IDs generated in the same millisecond.
+     */
+    private static class MessageIdTimestamp {
 
-        return messageId.toString();
+        private final long millis;
+
+        private final String text;
+
+        MessageIdTimestamp(long millis, String text) {
+            this.millis = millis;
+            this.text = text;
+        }
     }
     
     /**
@@ -0,0 +1,67 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.dao;
+
+import junit.framework.TestCase;
+
+public class DVOCacheTest extends TestCase {
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testHitAndMiss() throws Exception {
+		DVOCache cache = new DVOCache(10, 0);
+		DVO dvo = new AbstractDVO(){};
+
+		TestCase.assertNull(cache.get("key1"));
+		cache.put("key1", dvo);
+		TestCase.assertSame(dvo, cache.get("key1"));
+		TestCase.assertSame(dvo, cache.get("key1"));
+
+		TestCase.assertEquals(2, cache.getHitCount());
+		TestCase.assertEquals(1, cache.getMissCount());
+		TestCase.assertEquals(200.0 / 3, cache.getHitRatio(), 0.001);
+
+		cache.clear();
+		TestCase.assertNull(cache.get("key1"));
+		TestCase.assertEquals(0, cache.size());
+	}
+
+	public void testLeastRecentlyUsed() throws Exception {
+		DVOCache cache = new DVOCache(2, 0);
+		cache.put("key1", new AbstractDVO(){});
+		cache.put("key2", new AbstractDVO(){});
+		cache.get("key1");
+		cache.put("key3", new AbstractDVO(){});
+
+		TestCase.assertEquals(2, cache.size());
+		TestCase.assertNotNull(cache.get("key1"));
+		TestCase.assertNull(cache.get("key2"));
+		TestCase.assertNotNull(cache.get("key3"));
+	}
+
+	public void testTimeToLive() throws Exception {
+		DVOCache cache = new DVOCache(10, 100);
+		cache.put("key1", new AbstractDVO(){});
+		TestCase.assertNotNull(cache.get("key1"));
+
+		Thread.sleep(200);
+		TestCase.assertNull(cache.get("key1"));
+		TestCase.assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.dao.ds;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import hk.hku.cecid.piazza.commons.dao.DVO;
+import hk.hku.cecid.piazza.commons.dao.DVOCache;
+import hk.hku.cecid.piazza.commons.test.DAOTest;
+import hk.hku.cecid.piazza.commons.test.sample.HelloWorldDSDAO;
+import hk.hku.cecid.piazza.commons.test.sample.HelloWorldDSDVO;
+
+public class DataSourceDAOCacheTest extends DAOTest<HelloWorldDSDAO>
+{
+	@Override
+	public String getTableName()
+	{
+		return "hello_world";
+	}
+
+	@Test
+	public void testCacheInvalidatedAfterCommit() throws Exception
+	{
+		HelloWorldDSDAO dao = super.getTestingTarget();
+		DVOCache cache = dao.getCache();
+		Assert.assertNotNull(cache);
+		DVO cached = dao.createDVO();
+
+		DataSourceTransaction tx = (DataSourceTransaction) dao.getFactory().createTransaction();
+		dao.setTransaction(tx);
+		tx.begin();
+		try
+		{
+			HelloWorldDSDVO data = (HelloWorldDSDVO) dao.createDVO();
+			data.setID("hello4");
+			data.setDescription("hello cache");
+			dao.create(data);
+			Assert.assertNull(cache.get("hello4"));
+
+			// reloaded by another thread before the commit
+			cache.put("hello4", cached);
+			tx.commit();
+		}
+		finally
+		{
+			dao.setTransaction(null);
+		}
+		Assert.assertNull("Expected the cache is cleared after commit!", cache.get("hello4"));
+
+		tx = (DataSourceTransaction) dao.getFactory().createTransaction();
+		dao.setTransaction(tx);
+		tx.begin();
+		try
+		{
+			HelloWorldDSDVO data = (HelloWorldDSDVO) dao.createDVO();
+			data.setID("hello5");
+			data.setDescription("hello rollback");
+			dao.create(data);
+			cache.put("hello5", cached);
+			tx.rollback();
+		}
+		finally
+		{
+			dao.setTransaction(null);
+		}
+		Assert.assertSame("Expected the commit actions are discarded on rollback!",
+				cached, cache.get("hello5"));
+	}
+}
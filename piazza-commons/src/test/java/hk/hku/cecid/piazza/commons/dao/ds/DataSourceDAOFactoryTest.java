@@ -0,0 +1,169 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.dao.ds;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.dbcp.DelegatingStatement;
+import org.junit.Assert;
+import org.junit.Test;
+
+import hk.hku.cecid.piazza.commons.dao.DAOException;
+import hk.hku.cecid.piazza.commons.dao.DVO;
+import hk.hku.cecid.piazza.commons.test.DAOTest;
+import hk.hku.cecid.piazza.commons.test.sample.HelloWorldDSDAO;
+
+public class DataSourceDAOFactoryTest extends DAOTest<HelloWorldDSDAO>
+{
+	private static final String FIND_ALL = "select * from hello_world";
+
+	@Override
+	public String getTableName()
+	{
+		return "hello_world";
+	}
+
+	@Test
+	public void testSQLMetaDataCached() throws DAOException
+	{
+		HelloWorldDSDAO dao = super.getTestingTarget();
+		DataSourceDAOFactory factory = (DataSourceDAOFactory) dao.getFactory();
+
+		Assert.assertEquals(3, dao.findAll().size());
+		SQLMetaData metaData = factory.getSQLMetaData(FIND_ALL);
+		Assert.assertEquals(0, metaData.getParameterCount());
+		Assert.assertNotNull("Expected the column code names are cached!",
+				metaData.getColumnCodeNames(dao, 2));
+		Assert.assertNull("Expected a different result layout is not matched!",
+				metaData.getColumnCodeNames(dao, 3));
+
+		Assert.assertEquals(3, dao.findAll().size());
+		Assert.assertSame(metaData, factory.getSQLMetaData(FIND_ALL));
+	}
+
+	@Test
+	public void testSQLMetaDataLeastRecentlyUsed() throws DAOException
+	{
+		DataSourceDAOFactory factory = (DataSourceDAOFactory) super.getTestingTarget().getFactory();
+		SQLMetaData first = factory.getSQLMetaData("select 0 from hello_world");
+		SQLMetaData recent = factory.getSQLMetaData("select 1 from hello_world");
+
+		for (int i = 2; i <= 1000; i++)
+		{
+			factory.getSQLMetaData(FIND_ALL + " where id='" + i + "'");
+			if (i % 100 == 0)
+			{
+				factory.getSQLMetaData("select 1 from hello_world");
+			}
+		}
+
+		Assert.assertSame(recent, factory.getSQLMetaData("select 1 from hello_world"));
+		Assert.assertNotSame("Expected the least recently used statement is evicted!",
+				first, factory.getSQLMetaData("select 0 from hello_world"));
+	}
+
+	@Test
+	public void testPreparedStatementPooled() throws Exception
+	{
+		HelloWorldDSDAO dao = super.getTestingTarget();
+		DataSourceTransaction tx = (DataSourceTransaction) dao.getFactory().createTransaction();
+		tx.begin();
+		try
+		{
+			Connection conn = tx.getConnection();
+			PreparedStatement pStmt = conn.prepareStatement(FIND_ALL);
+			Assert.assertTrue("Expected the statement is pooled!",
+					pStmt instanceof DelegatingStatement);
+			Statement statement = ((DelegatingStatement) pStmt).getInnermostDelegate();
+			pStmt.close();
+
+			pStmt = conn.prepareStatement(FIND_ALL);
+			Assert.assertSame("Expected the statement is reused from the pool!",
+					statement, ((DelegatingStatement) pStmt).getInnermostDelegate());
+			pStmt.close();
+		}
+		finally
+		{
+			tx.rollback();
+		}
+	}
+
+	@Test
+	public void testFetchSizeRestored() throws Exception
+	{
+		HelloWorldDSDAO dao = super.getTestingTarget();
+		final Map<String, Integer> fetchSizes = new HashMap<String, Integer>();
+
+		// a transaction whose statements keep their fetch size per SQL like 
+		// pooled statements do
+		DataSourceTransaction tx = new DataSourceTransaction(
+				(DataSourceDAOFactory) dao.getFactory()) {
+			public Connection getConnection() throws DAOException {
+				final Connection conn = super.getConnection();
+				return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+						new Class[] { Connection.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						Object result = method.invoke(conn, args);
+						if (!method.getName().equals("prepareStatement")) {
+							return result;
+						}
+						final String sql = (String) args[0];
+						final PreparedStatement pStmt = (PreparedStatement) result;
+						return Proxy.newProxyInstance(getClass().getClassLoader(),
+								new Class[] { PreparedStatement.class }, new InvocationHandler() {
+							public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+								if (method.getName().equals("setFetchSize")) {
+									fetchSizes.put(sql, (Integer) args[0]);
+									return null;
+								}
+								else if (method.getName().equals("getFetchSize")) {
+									Integer fetchSize = fetchSizes.get(sql);
+									return fetchSize == null ? new Integer(0) : fetchSize;
+								}
+								return method.invoke(pStmt, args);
+							}
+						});
+					}
+				});
+			}
+		};
+
+		tx.begin();
+		try
+		{
+			DataSourceQuery query = new DataSourceQuery(dao, tx, FIND_ALL, null,
+					new DataSourceQueryHandler() {
+				public boolean handle(DVO data) {
+					Assert.assertEquals(new Integer(2), fetchSizes.get(FIND_ALL));
+					return true;
+				}
+				public int getFetchSize() {
+					return 2;
+				}
+			});
+			query.start();
+			Assert.assertEquals(new Integer(3), query.getResult());
+
+			Assert.assertEquals("Expected the statement is returned with its original fetch size!",
+					new Integer(0), fetchSizes.get(FIND_ALL));
+		}
+		finally
+		{
+			tx.rollback();
+		}
+	}
+}
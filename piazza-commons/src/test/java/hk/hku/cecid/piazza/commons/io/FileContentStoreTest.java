@@ -0,0 +1,125 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+
+public class FileContentStoreTest extends TestCase {
+
+	private File location;
+
+	private FileContentStore store;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		location = new File(System.getProperty("java.io.tmpdir"),
+				"content-store-" + System.currentTimeMillis());
+		store = new FileContentStore(location);
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		delete(location);
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testStoreAndRetrieve() throws Exception {
+		byte[] content = "Hello content store".getBytes("UTF-8");
+		String ref = store.store(new ByteArrayInputStream(content));
+
+		TestCase.assertTrue(store.exists(ref));
+		TestCase.assertTrue(store.getFile(ref).getPath().startsWith(
+				location.getPath()));
+		InputStream ins = store.retrieve(ref);
+		try {
+			TestCase.assertEquals(new String(content, "UTF-8"),
+					new String(IOHandler.readBytes(ins), "UTF-8"));
+		}
+		finally {
+			ins.close();
+		}
+	}
+
+	public void testDuplicateContent() throws Exception {
+		byte[] content = "duplicated".getBytes("UTF-8");
+		String ref1 = store.store(new ByteArrayInputStream(content));
+		String ref2 = store.store(new ByteArrayInputStream(content));
+		TestCase.assertEquals(ref1, ref2);
+
+		TestCase.assertTrue(store.remove(ref1));
+		TestCase.assertFalse(store.exists(ref1));
+		TestCase.assertFalse(store.remove(ref1));
+	}
+
+	public void testHeldContent() throws Exception {
+		byte[] content = "held".getBytes("UTF-8");
+		String ref = store.store(new ByteArrayInputStream(content), true);
+		TestCase.assertEquals(ref, store.store(new ByteArrayInputStream(content), true));
+
+		TestCase.assertFalse(store.remove(ref));
+		store.release(ref);
+		TestCase.assertFalse(store.remove(ref));
+		TestCase.assertTrue(store.exists(ref));
+		store.release(ref);
+		TestCase.assertTrue(store.remove(ref));
+		TestCase.assertFalse(store.exists(ref));
+
+		// a removed content is stored again by the next store
+		TestCase.assertEquals(ref, store.store(new ByteArrayInputStream(content)));
+		TestCase.assertTrue(store.exists(ref));
+	}
+
+	public void testCorruptedContent() throws Exception {
+		String ref = store.store(new ByteArrayInputStream(
+				"original".getBytes("UTF-8")));
+		FileOutputStream out = new FileOutputStream(store.getFile(ref));
+		out.write("tampered".getBytes("UTF-8"));
+		out.close();
+
+		InputStream ins = store.retrieve(ref);
+		try {
+			IOHandler.readBytes(ins);
+			TestCase.fail("Corrupted content should not be read");
+		}
+		catch (IOException e) {
+		}
+		finally {
+			ins.close();
+		}
+	}
+
+	public void testInvalidReference() throws Exception {
+		try {
+			store.retrieve("../../etc/passwd");
+			TestCase.fail("Invalid reference should be rejected");
+		}
+		catch (IOException e) {
+		}
+		TestCase.assertFalse(store.exists("../abcdef"));
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				delete(files[i]);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class SpooledContentTest extends TestCase {
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testInMemory() throws Exception {
+		byte[] data = createData(100);
+		SpooledContent content = new SpooledContent(
+				new ByteArrayInputStream(data), 100, null);
+
+		TestCase.assertFalse(content.isSpooled());
+		TestCase.assertEquals(100, content.getLength());
+		TestCase.assertTrue(Arrays.equals(data, content.getBytes()));
+		TestCase.assertTrue(Arrays.equals(data, read(content)));
+		content.dispose();
+	}
+
+	public void testSpooled() throws Exception {
+		byte[] data = createData(20000);
+		SpooledContent content = new SpooledContent(
+				new ByteArrayInputStream(data), 1000, null);
+
+		TestCase.assertTrue(content.isSpooled());
+		TestCase.assertEquals(20000, content.getLength());
+		TestCase.assertTrue(Arrays.equals(data, read(content)));
+		TestCase.assertTrue(Arrays.equals(data, read(content)));
+
+		content.dispose();
+		TestCase.assertFalse(content.isSpooled());
+		try {
+			content.openStream();
+			TestCase.fail("Disposed content should not be read");
+		}
+		catch (IOException e) {
+		}
+	}
+
+	public void testOutputStream() throws Exception {
+		byte[] data = createData(20000);
+		SpooledContent content = new SpooledContent(1000, null);
+		OutputStream out = content.openOutputStream();
+		out.write(data, 0, 500);
+		out.write(data, 500, data.length - 500);
+		out.close();
+
+		TestCase.assertTrue(content.isSpooled());
+		TestCase.assertTrue(content.getFile().exists());
+		TestCase.assertEquals(20000, content.getLength());
+		TestCase.assertTrue(Arrays.equals(data, read(content)));
+
+		File file = content.getFile();
+		content.dispose();
+		TestCase.assertFalse(file.exists());
+	}
+
+	private static byte[] createData(int size) {
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) i;
+		}
+		return data;
+	}
+
+	private static byte[] read(SpooledContent content) throws IOException {
+		InputStream ins = content.openStream();
+		try {
+			return IOHandler.readBytes(ins);
+		}
+		finally {
+			ins.close();
+		}
+	}
+}
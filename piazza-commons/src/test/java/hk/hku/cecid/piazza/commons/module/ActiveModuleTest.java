@@ -0,0 +1,77 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.module;
+
+import junit.framework.TestCase;
+
+public class ActiveModuleTest extends TestCase {
+
+	private static final String DESCRIPTOR =
+		"hk.hku.cecid.piazza.commons.module.ActiveModuleTest/active.module.xml";
+
+	private CountingModule module;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		module = new CountingModule();
+		module.init();
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		module.stop();
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	private static class CountingModule extends ActiveModule {
+		private int count;
+		private boolean idle;
+
+		CountingModule() {
+			super(DESCRIPTOR, false);
+		}
+		public synchronized boolean execute() {
+			count++;
+			notifyAll();
+			return true;
+		}
+		protected boolean isIdle() {
+			return idle;
+		}
+		synchronized int waitForCount(int expected, long timeout) throws InterruptedException {
+			long end = System.currentTimeMillis() + timeout;
+			long remaining = timeout;
+			while (count < expected && remaining > 0) {
+				wait(remaining);
+				remaining = end - System.currentTimeMillis();
+			}
+			return count;
+		}
+	}
+
+	public void testIdleWakeUp() throws Exception {
+		module.idle = true;
+		module.start();
+		TestCase.assertEquals(1, module.waitForCount(1, 5000));
+
+		Thread.sleep(300);
+		TestCase.assertEquals(1, module.waitForCount(1, 0));
+
+		module.wakeUp();
+		TestCase.assertEquals(2, module.waitForCount(2, 5000));
+	}
+
+	public void testBusyInterval() throws Exception {
+		module.start();
+		TestCase.assertTrue(module.waitForCount(3, 5000) >= 3);
+	}
+}
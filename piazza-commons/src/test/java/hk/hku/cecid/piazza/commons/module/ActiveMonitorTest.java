@@ -0,0 +1,110 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.module;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ActiveMonitorTest extends TestCase {
+
+	private ActiveMonitor monitor;
+
+	private final List events = Collections.synchronizedList(new ArrayList());
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		monitor = new ActiveMonitor();
+		monitor.setMaxThreadCount(1);
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		monitor.suspend();
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	private class FailingTask extends ActiveTaskAdaptor {
+		private final String name;
+		private int retried;
+		private int awaken;
+
+		FailingTask(String name) {
+			this.name = name;
+		}
+		public void execute() throws Exception {
+			events.add(name + retried);
+			throw new Exception("failed");
+		}
+		public boolean isRetryEnabled() {
+			return true;
+		}
+		public long getRetryInterval() {
+			return 200;
+		}
+		public int getMaxRetries() {
+			return 2;
+		}
+		public boolean isSucceedFast() {
+			return true;
+		}
+		public void setRetried(int retried) {
+			this.retried = retried;
+		}
+		public void onAwake() {
+			awaken++;
+		}
+	}
+
+	private void run(ActiveTask task) {
+		ActiveThread thread = monitor.acquireThread();
+		thread.setTask(task);
+		thread.start();
+	}
+
+	public void testDeferredRetry() throws Exception {
+		monitor.setDeferredRetry(true);
+		FailingTask failing = new FailingTask("failing");
+		run(failing);
+		run(new ActiveTaskAdaptor() {
+			public void execute() throws Exception {
+				events.add("healthy");
+			}
+		});
+		monitor.waitForEmpty();
+
+		TestCase.assertEquals(0, monitor.getDeferredThreadCount());
+		TestCase.assertEquals(4, events.size());
+		TestCase.assertEquals("failing0", events.get(0));
+		TestCase.assertEquals("healthy", events.get(1));
+		TestCase.assertEquals("failing1", events.get(2));
+		TestCase.assertEquals("failing2", events.get(3));
+		TestCase.assertEquals(2, failing.awaken);
+	}
+
+	public void testSleepingRetry() throws Exception {
+		FailingTask failing = new FailingTask("failing");
+		run(failing);
+		run(new ActiveTaskAdaptor() {
+			public void execute() throws Exception {
+				events.add("healthy");
+			}
+		});
+		monitor.waitForEmpty();
+
+		TestCase.assertEquals(4, events.size());
+		TestCase.assertEquals("healthy", events.get(3));
+		TestCase.assertEquals(2, failing.awaken);
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.module;
+
+import junit.framework.TestCase;
+
+public class ActiveTaskSchedulerTest extends TestCase {
+
+	private ActiveTaskScheduler scheduler;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		scheduler = new ActiveTaskScheduler(2);
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	private class GroupedTask extends ActiveTaskAdaptor implements GroupedActiveTask {
+		private final String group;
+
+		GroupedTask(String group) {
+			this.group = group;
+		}
+		public void execute() throws Exception {
+		}
+		public String getTaskGroup() {
+			return group;
+		}
+	}
+
+	private String nextGroup() {
+		return ActiveTaskScheduler.getTaskGroup(scheduler.next());
+	}
+
+	public void testRoundRobin() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			scheduler.add(new GroupedTask("busy"));
+		}
+		scheduler.add(new GroupedTask("quiet"));
+
+		TestCase.assertEquals(6, scheduler.getQueueSize());
+		TestCase.assertEquals("busy", nextGroup());
+		TestCase.assertEquals("quiet", nextGroup());
+		TestCase.assertEquals("busy", nextGroup());
+		TestCase.assertEquals(3, scheduler.getQueueSize());
+	}
+
+	public void testGroupLimit() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			scheduler.add(new GroupedTask("busy"));
+		}
+		ActiveTask first = scheduler.next();
+		scheduler.next();
+
+		TestCase.assertEquals(2, scheduler.getInFlightCount("busy"));
+		TestCase.assertFalse(scheduler.hasNext());
+		TestCase.assertNull(scheduler.next());
+		TestCase.assertEquals(0, scheduler.getAvailableCount("busy"));
+
+		scheduler.release(first);
+		TestCase.assertTrue(scheduler.hasNext());
+		TestCase.assertEquals("busy", nextGroup());
+		TestCase.assertEquals(2, scheduler.getAvailableCount("other"));
+	}
+
+	public void testDefaultGroup() throws Exception {
+		scheduler.add(new ActiveTaskAdaptor() {
+			public void execute() throws Exception {
+			}
+		});
+		TestCase.assertEquals(1, scheduler.getQueueSize(""));
+	}
+}
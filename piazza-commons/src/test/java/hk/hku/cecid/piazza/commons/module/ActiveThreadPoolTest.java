@@ -0,0 +1,84 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.module;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class ActiveThreadPoolTest extends TestCase {
+
+	private ActiveThreadPool pool;
+
+	private final Set threadNames = Collections.synchronizedSet(new HashSet());
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		pool = new ActiveThreadPool("test-pool");
+		pool.setMaxThreadCount(3);
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		pool.suspend();
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	private void runTasks(int count) {
+		for (int i = 0; i < count; i++) {
+			ActiveThread thread = pool.acquireThread();
+			thread.setTask(new ActiveTaskAdaptor() {
+				public void execute() throws Exception {
+					threadNames.add(Thread.currentThread().getName());
+					Thread.sleep(5);
+				}
+			});
+			thread.start();
+		}
+	}
+
+	public void testWorkersReused() throws Exception {
+		runTasks(50);
+		pool.waitForEmpty();
+
+		TestCase.assertTrue(threadNames.size() <= 3);
+		TestCase.assertTrue(pool.getPoolSize() <= 3);
+		TestCase.assertEquals(3, pool.getPeekThreadCount());
+		TestCase.assertEquals(0, pool.getThreadCount());
+	}
+
+	public void testCompletedTaskCount() throws Exception {
+		runTasks(20);
+		pool.suspend();
+		TestCase.assertEquals(0, pool.getPoolSize());
+		TestCase.assertEquals(20, pool.getCompletedTaskCount());
+
+		pool.resume();
+		runTasks(5);
+		pool.suspend();
+		TestCase.assertEquals(25, pool.getCompletedTaskCount());
+	}
+
+	public void testResize() throws Exception {
+		runTasks(3);
+		pool.setMaxThreadCount(5);
+		runTasks(10);
+		pool.setMaxThreadCount(2);
+		runTasks(10);
+		pool.waitForEmpty();
+
+		TestCase.assertEquals(2, pool.getMaxThreadCount());
+		TestCase.assertEquals(0, pool.getQueueSize());
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.net;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import junit.framework.TestCase;
+
+public class HttpConnectionManagerTest extends TestCase {
+
+	private HttpConnectionManager manager;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+		manager = new HttpConnectionManager(1000, 2000);
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testSSLSocketFactoryReused() throws Exception {
+		TrustManager[] tm1 = new TrustManager[] {createTrustManager()};
+		TrustManager[] tm2 = new TrustManager[] {createTrustManager()};
+
+		SSLSocketFactory f1 = manager.getSSLSocketFactory(new KeyManager[0], tm1);
+		SSLSocketFactory f2 = manager.getSSLSocketFactory(new KeyManager[0],
+				new TrustManager[] {tm1[0]});
+		SSLSocketFactory f3 = manager.getSSLSocketFactory(new KeyManager[0], tm2);
+
+		TestCase.assertSame(f1, f2);
+		TestCase.assertNotSame(f1, f3);
+	}
+
+	public void testOpenConnection() throws Exception {
+		SSLSocketFactory factory = manager.getSSLSocketFactory(null,
+				new TrustManager[] {createTrustManager()});
+		HttpURLConnection conn = manager.openConnection(new URL(
+				"https://localhost:8443/corvus"), null, factory);
+
+		TestCase.assertTrue(conn instanceof HttpsURLConnection);
+		TestCase.assertSame(factory, ((HttpsURLConnection) conn).getSSLSocketFactory());
+		TestCase.assertEquals(1000, conn.getConnectTimeout());
+		TestCase.assertEquals(2000, conn.getReadTimeout());
+		TestCase.assertEquals(1, manager.getRequestCount("localhost:8443"));
+
+		manager.connectionFailed(new URL("https://localhost:8443/corvus"));
+		TestCase.assertEquals(1, manager.getFailureCount("localhost:8443"));
+	}
+
+	private static X509TrustManager createTrustManager() {
+		return new X509TrustManager() {
+			public void checkClientTrusted(X509Certificate[] chain,
+					String authType) {
+			}
+
+			public void checkServerTrusted(X509Certificate[] chain,
+					String authType) {
+			}
+
+			public X509Certificate[] getAcceptedIssuers() {
+				return new X509Certificate[0];
+			}
+		};
+	}
+}
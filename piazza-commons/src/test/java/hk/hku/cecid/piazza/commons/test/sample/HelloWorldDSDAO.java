@@ -14,6 +14,7 @@ import java.util.List;
 import hk.hku.cecid.piazza.commons.dao.DAOException;
 import hk.hku.cecid.piazza.commons.dao.DVO;
 import hk.hku.cecid.piazza.commons.dao.ds.DataSourceDAO;
+import hk.hku.cecid.piazza.commons.dao.ds.DataSourceQueryHandler;
  
 public class HelloWorldDSDAO extends DataSourceDAO 
 {
@@ -27,4 +28,9 @@ public class HelloWorldDSDAO extends DataSourceDAO
 	{
 		return super.find("find_all", new Object[]{});
 	}
+	
+	public int findAll(DataSourceQueryHandler handler) throws DAOException
+	{
+		return super.find("find_all", new Object[]{}, handler);
+	}
 }
@@ -9,12 +9,15 @@
 
 package hk.hku.cecid.piazza.commons.test.sample;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import hk.hku.cecid.piazza.commons.dao.DAOException;
+import hk.hku.cecid.piazza.commons.dao.DVO;
+import hk.hku.cecid.piazza.commons.dao.ds.DataSourceQueryHandler;
 import hk.hku.cecid.piazza.commons.test.DAOTest;
 
 public class HelloWorldDSDAOUnitTest extends DAOTest<HelloWorldDSDAO>
@@ -33,4 +36,23 @@ public class HelloWorldDSDAOUnitTest extends DAOTest<HelloWorldDSDAO>
 		
 		Assert.assertEquals("Expected there are three rows in the table!", 3, rs.size());		
 	}
+	
+	@Test
+	public void testFindAllStreaming() throws DAOException 
+	{
+		HelloWorldDSDAO dao = super.getTestingTarget();
+		final List<String> ids = new ArrayList<String>();
+		int count = dao.findAll(new DataSourceQueryHandler() {
+			public boolean handle(DVO data) {
+				ids.add(((HelloWorldDSDVO) data).getID());
+				return ids.size() < 2;
+			}
+			public int getFetchSize() {
+				return 1;
+			}
+		});
+		
+		Assert.assertEquals("Expected the query stops after two rows!", 2, count);
+		Assert.assertEquals(2, ids.size());
+	}
 }
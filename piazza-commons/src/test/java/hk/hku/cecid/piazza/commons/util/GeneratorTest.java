@@ -0,0 +1,61 @@
+/*
+ * Copyright(c) 2005 Center for E-Commerce Infrastructure Development, The
+ * University of Hong Kong (HKU). All Rights Reserved.
+ *
+ * This software is licensed under the GNU GENERAL PUBLIC LICENSE Version 2.0 [1]
+ *
+ * [1] http://www.gnu.org/licenses/old-licenses/gpl-2.0.txt
+ */
+
+package hk.hku.cecid.piazza.commons.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+public class GeneratorTest extends TestCase {
+
+	private static final int THREAD_COUNT = 4;
+
+	private static final int ID_COUNT = 50000;
+
+	// Invoked for setup.
+	public void setUp() throws Exception {
+		System.out.println();
+		System.out.println("---------" + this.getName() + " Start -------");
+	}
+
+	// Invoked for finalized.
+	public void tearDown() throws Exception {
+		System.out.println("---------" + this.getName() + " End   -------");
+	}
+
+	public void testMessageIDFormat() throws Exception {
+		String messageId = Generator.generateMessageID();
+		// id-left "@" id-right, both in dot-atom-text [RFC2822]
+		TestCase.assertTrue(messageId, messageId.matches(
+				"[A-Za-z0-9!#$%&'*+/=?^_`{|}~-]+(\\.[A-Za-z0-9!#$%&'*+/=?^_`{|}~-]+)*"
+				+ "@[A-Za-z0-9!#$%&'*+/=?^_`{|}~:.-]+"));
+	}
+
+	public void testUniqueMessageIDs() throws Exception {
+		final Set messageIds = Collections.synchronizedSet(new HashSet());
+		Thread[] threads = new Thread[THREAD_COUNT];
+		for (int i = 0; i < THREAD_COUNT; i++) {
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < ID_COUNT; j++) {
+						messageIds.add(Generator.generateMessageID());
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < THREAD_COUNT; i++) {
+			threads[i].join();
+		}
+		TestCase.assertEquals(THREAD_COUNT * ID_COUNT, messageIds.size());
+	}
+}
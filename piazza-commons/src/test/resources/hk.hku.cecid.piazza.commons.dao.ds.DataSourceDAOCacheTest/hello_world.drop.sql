@@ -0,0 +1 @@
+DROP TABLE hello_world;
\ No newline at end of file
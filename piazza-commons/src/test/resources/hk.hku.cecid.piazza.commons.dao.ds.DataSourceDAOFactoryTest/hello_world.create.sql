@@ -0,0 +1,5 @@
+CREATE TABLE hello_world 
+(
+	id VARCHAR(255),
+	description VARCHAR(255)
+);
\ No newline at end of file
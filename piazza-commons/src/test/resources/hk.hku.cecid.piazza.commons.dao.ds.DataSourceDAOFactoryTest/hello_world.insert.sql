@@ -0,0 +1,4 @@
+INSERT INTO hello_world VALUES ('hello1', 'hello world');
+INSERT INTO hello_world VALUES ('hello2', 'hello DAO');
+INSERT INTO hello_world VALUES ('hello3', 'hello Test Driven Development');
+